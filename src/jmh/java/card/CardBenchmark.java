@@ -0,0 +1,59 @@
+package card;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for parsing card strings with {@code Card.stringToCard} and {@code Card.parseIndex}
+ *
+ * @author Reid Moffat
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CardBenchmark {
+
+    /**
+     * A mix of one and two character ranks, upper and lower case and surrounding whitespace
+     */
+    private final String[] tokens = {"5h", "10c", "JD", "qs", " 1c ", "Kh", "9S", "10D"};
+
+    /**
+     * The same tokens as one line of ASCII text
+     */
+    private final byte[] line = String.join(" ", tokens).getBytes(StandardCharsets.US_ASCII);
+
+    @Benchmark
+    public Card stringToCard() {
+        return Card.stringToCard("10c");
+    }
+
+    @Benchmark
+    public void stringToCardMixed(Blackhole blackhole) {
+        for (String token : tokens) {
+            blackhole.consume(Card.stringToCard(token));
+        }
+    }
+
+    @Benchmark
+    public long parseIndexBytes() {
+        long cards = 0;
+        for (int start = 0, end; start < line.length; start = end + 1) {
+            end = start;
+            while (end < line.length && line[end] != ' ') {
+                ++end;
+            }
+            if (end > start) {
+                cards |= 1L << Card.parseIndex(line, start, end);
+            }
+        }
+        return cards;
+    }
+
+}
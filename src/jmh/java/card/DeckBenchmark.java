@@ -0,0 +1,56 @@
+package card;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for dealing random cards with {@link Deck}, against shuffling a list of cards
+ *
+ * <p> Each invocation deals one deal of a 2-player game: two 6-card hands and a starter
+ *
+ * @author Reid Moffat
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DeckBenchmark {
+
+    private final Deck deck = new Deck(1);
+
+    private final List<Card> cards = new ArrayList<>(Deck.SIZE);
+
+    private final Random random = new Random(1);
+
+    @Setup
+    public void setUp() {
+        for (int card = 0; card < Deck.SIZE; ++card) {
+            cards.add(Card.of(card));
+        }
+    }
+
+    @Benchmark
+    public long deck() {
+        deck.reset();
+        return deck.deal(6) ^ deck.deal(6) ^ deck.draw();
+    }
+
+    @Benchmark
+    public long shuffledList() {
+        Collections.shuffle(cards, random);
+        long pone = 0, dealer = 0;
+        for (int i = 0; i < 6; ++i) {
+            pone |= 1L << cards.get(i).getIndex();
+            dealer |= 1L << cards.get(6 + i).getIndex();
+        }
+        return pone ^ dealer ^ cards.get(12).getIndex();
+    }
+
+}
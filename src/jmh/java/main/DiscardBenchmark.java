@@ -0,0 +1,63 @@
+package main;
+
+import card.Card;
+import card.CardSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for finding the average points of every discard from a dealt hand
+ *
+ * <p> Covers the 2-player path (6 cards, 15 discard pairs) and the 3-4 player path (5 cards, 5
+ * single discards). Run with {@code -prof gc} to see the allocation rate of each path
+ *
+ * @author Reid Moffat
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiscardBenchmark {
+
+    /**
+     * Six-card fixtures: quad fives with a jack, a suited run, and unconnected cards
+     */
+    @Param({"5c 5s 5d 5h jh kc", "9d 10d jd qd kd 2s", "1c 3d 7h 9s jc kd"})
+    public String sixCards;
+
+    /**
+     * Five-card fixtures: four fives with a jack, a suited run, and unconnected cards
+     */
+    @Param({"5c 5s 5d jh 5h", "9d 10d jd qd kd", "1c 3d 7h 9s jc"})
+    public String fiveCards;
+
+    private final DiscardAnalyzer analyzer = new DiscardAnalyzer();
+    private CardSet sixCardHand;
+    private CardSet fiveCardHand;
+
+    private static CardSet parse(String cards) {
+        return CardSet.of(Arrays.stream(cards.split(" ")).map(Card::stringToCard).toArray(Card[]::new));
+    }
+
+    @Setup
+    public void setUp() {
+        sixCardHand = parse(sixCards);
+        fiveCardHand = parse(fiveCards);
+    }
+
+    @Benchmark
+    public List<DiscardResult> sixCardAveragePoints() {
+        return analyzer.analyze(sixCardHand);
+    }
+
+    @Benchmark
+    public List<DiscardResult> fiveCardAveragePoints() {
+        return analyzer.analyze(fiveCardHand);
+    }
+
+}
@@ -0,0 +1,47 @@
+package main;
+
+import card.Deck;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for playing complete games with {@link Game}
+ *
+ * <p> One invocation plays a whole game to 121 between the two strategies, so the score is games
+ * per second on one thread; a {@link Tournament} runs one such loop per processor
+ *
+ * @author Reid Moffat
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmark {
+
+    /**
+     * The strategies in both seats: counting the crib, or not
+     */
+    @Param({"crib", "hand"})
+    public String strategy;
+
+    private Game game;
+    private Deck deck;
+
+    @Setup
+    public void setUp() {
+        final ScoreTable scoreTable = ScoreTable.generate();
+        final Strategy seat = strategy.equals("crib") ? Strategy.maxNet(scoreTable, CribTable.getDefault())
+                : Strategy.maxHand(scoreTable);
+        game = new Game(scoreTable, seat, seat);
+        deck = new Deck(1);
+    }
+
+    @Benchmark
+    public int playGame() {
+        return game.play(deck);
+    }
+
+}
@@ -0,0 +1,68 @@
+package main;
+
+import card.Card;
+import card.CardSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for scoring the play with {@link Pegging}
+ *
+ * <p> Each fixture is the pone's four cards followed by the dealer's. One invocation plays a whole
+ * deal, each player laying their first legal card, so the score is the time per card laid.
+ * {@code bestLead} runs a {@link PeggingSearch} for the pone's first card
+ *
+ * @author Reid Moffat
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PeggingBenchmark {
+
+    /**
+     * Deal fixtures: runs and fifteens, pairs royal, and face cards with many goes
+     */
+    @Param({"4c 5c 7c kc 6d 3d 9d qd", "2c 2d 1c 9h 2h 2s 8s ks", "10c 10d 5h 2s js 10h qd ks"})
+    public String deal;
+
+    private Pegging pegging;
+    private PeggingSearch search;
+    private long poneHand, seen;
+
+    @Setup
+    public void setUp() {
+        final Card[] cards = Arrays.stream(deal.split(" ")).map(Card::stringToCard).toArray(Card[]::new);
+        pegging = new Pegging(CardSet.of(Arrays.copyOf(cards, 4)), CardSet.of(Arrays.copyOfRange(cards, 4, 8)));
+        search = new PeggingSearch();
+        poneHand = CardSet.of(Arrays.copyOf(cards, 4)).toBits();
+        seen = poneHand;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public long playDeal() {
+        long state = pegging.start();
+        while (!Pegging.isOver(state)) {
+            int card = 0;
+            while (!pegging.canPlay(state, card)) {
+                ++card;
+            }
+            state = pegging.playUnchecked(state, card);
+        }
+        return state;
+    }
+
+    /**
+     * Searches for the pone's lead, the largest search of the play
+     */
+    @Benchmark
+    public int bestLead() {
+        return search.bestCard(poneHand, seen, new int[0], 4, false);
+    }
+
+}
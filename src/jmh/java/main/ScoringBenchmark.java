@@ -0,0 +1,99 @@
+package main;
+
+import card.Card;
+import card.CardSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for scoring a single cribbage hand with {@code CribbageHand}
+ *
+ * <p> Each fixture is four hand cards followed by the starter. Run with {@code -prof gc} to see the
+ * allocation rate of each path
+ *
+ * @author Reid Moffat
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScoringBenchmark {
+
+    /**
+     * Hand fixtures: 29 points (the worst case for fifteens and multiples), quad fives with a jack
+     * starter, a double run of four with a flush, and a hand with no points
+     */
+    @Param({"5c 5s 5d jh 5h", "5c 5s 5d 5h jc", "9d 10d jd qd 10h", "2c 4d 6h 8s kc"})
+    public String hand;
+
+    private CribbageHand cribbageHand;
+    private Card starter;
+    private int card0, card1, card2, card3, starterIndex;
+    private int rank0, rank1, rank2, rank3, starterRank;
+    private int[] sorted;
+    private ScoreTable scoreTable;
+    private long handBits, starterBits;
+
+    @Setup
+    public void setUp() {
+        final Card[] cards = Arrays.stream(hand.split(" ")).map(Card::stringToCard).toArray(Card[]::new);
+        cribbageHand = new CribbageHand(CardSet.of(Arrays.copyOf(cards, 4)));
+        starter = cards[4];
+
+        card0 = cards[0].getIndex();
+        card1 = cards[1].getIndex();
+        card2 = cards[2].getIndex();
+        card3 = cards[3].getIndex();
+        starterIndex = starter.getIndex();
+        rank0 = card0 % 13;
+        rank1 = card1 % 13;
+        rank2 = card2 % 13;
+        rank3 = card3 % 13;
+        starterRank = starterIndex % 13;
+
+        sorted = new int[]{card0, card1, card2, card3};
+        Arrays.sort(sorted);
+        scoreTable = ScoreTable.generate();
+        handBits = CardSet.of(Arrays.copyOf(cards, 4)).toBits();
+        starterBits = CardSet.DECK_MASK & ~handBits;
+    }
+
+    @Benchmark
+    public int totalPoints() {
+        return cribbageHand.totalPoints(starter);
+    }
+
+    @Benchmark
+    public int totalPointsFromIndices() {
+        return CribbageHand.totalPoints(card0, card1, card2, card3, starterIndex);
+    }
+
+    @Benchmark
+    public int fifteens() {
+        return CribbageHand.fifteens(rank0, rank1, rank2, rank3, starterRank);
+    }
+
+    @Benchmark
+    public int runs() {
+        return CribbageHand.runs(rank0, rank1, rank2, rank3, starterRank);
+    }
+
+    @Benchmark
+    public int scoreTableLookup() {
+        return scoreTable.points(sorted[0], sorted[1], sorted[2], sorted[3], starterIndex);
+    }
+
+    /**
+     * Scores the four cards as a crib with each of the other 48 cards as the starter
+     */
+    @Benchmark
+    @OperationsPerInvocation(48)
+    public int cribTotal() {
+        return scoreTable.cribTotal(handBits, starterBits);
+    }
+
+}
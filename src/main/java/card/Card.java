@@ -2,15 +2,28 @@ package card;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Objects;
-
 /**
  * An immutable playing card in a standard 52-card deck
  *
+ * <p> There is a shared instance of each of the 52 cards, returned by {@link #of(Rank, Suit)},
+ * {@link #of(int)} and the parsing methods, so code that handles many cards does not need to
+ * allocate any. Cards created with the constructor are equal to the shared instances
+ *
  * @author Reid Moffat
  */
 public final class Card implements Comparable<Card> {
 
+    /**
+     * The canonical instance of every card in the deck, indexed by deck index
+     */
+    private static final Card[] deck = new Card[52];
+
+    static {
+        for (int i = 0; i < 52; ++i) {
+            deck[i] = new Card(Rank.values[i % 13], Suit.values[i / 13]);
+        }
+    }
+
     /**
      * This card's rank enum (ACE, TWO, THREE, ..., QUEEN or KING)
      */
@@ -21,12 +34,45 @@ public final class Card implements Comparable<Card> {
      */
     public final Suit suit;
 
+    /**
+     * This card's position in the deck, also used as its hash code
+     */
+    private final int index;
+
     /**
      * Initializes this card with a rank and suit
+     *
+     * <p> {@link #of(Rank, Suit)} returns a shared instance instead of creating a new one
      */
     public Card(@NotNull Rank rank, @NotNull Suit suit) {
         this.rank = rank;
         this.suit = suit;
+        this.index = suit.ordinal() * 13 + rank.ordinal();
+    }
+
+    /**
+     * Returns the shared instance of a card
+     *
+     * @param rank the card's rank
+     * @param suit the card's suit
+     * @return the {@code Card} with the given rank and suit
+     */
+    public static @NotNull Card of(@NotNull Rank rank, @NotNull Suit suit) {
+        return deck[suit.ordinal() * 13 + rank.ordinal()];
+    }
+
+    /**
+     * Returns the shared instance of the card at a deck index
+     *
+     * @param index a deck index (0 to 51 inclusive), as returned by {@link #getIndex()}
+     * @return the {@code Card} at that index
+     * @throws IllegalArgumentException if the index is not between 0 and 51
+     */
+    public static @NotNull Card of(int index) {
+        if (index < 0 || index >= 52) {
+            throw new IllegalArgumentException("Deck index must be between 0 and 51: " + index);
+        }
+        return deck[index];
     }
 
     /**
@@ -34,7 +80,8 @@ public final class Card implements Comparable<Card> {
      * represents if it does
      *
      * <p> A valid card string is the rank (1-10, j, q or k) of the card followed by the first
-     * letter of the suit (neither are case-sensitive). Examples:
+     * letter of the suit (neither are case-sensitive), with optional whitespace around it.
+     * Examples:
      *
      * <ul>
      * <li>"3d": Three of diamonds</li>
@@ -44,47 +91,131 @@ public final class Card implements Comparable<Card> {
      * </ul>
      *
      * @param card a string that represents a playing card
-     * @return a {@code Card} object with the specified rank and suit if the parameter is valid
+     * @return the shared {@code Card} with the specified rank and suit if the parameter is valid
      * @throws IllegalArgumentException if the string does not represent a valid card
      */
-    public static @NotNull Card stringToCard(String card) {
-        card = card.trim().toUpperCase();
-        if (!card.matches("^(10|[1-9JQK])[CDHS]$")) {
-            throw new IllegalArgumentException("Card string '" + card + "' is invalid, it must " +
-                    "match (10|[1-9JQK])[CDHS]");
+    public static @NotNull Card stringToCard(@NotNull String card) {
+        return parse(card, 0, card.length());
+    }
+
+    /**
+     * Parses a card from part of a character sequence, in the same format as
+     * {@link #stringToCard(String)}
+     *
+     * @param text  the characters to parse
+     * @param start index of the first character of the card
+     * @param end   index after the last character of the card
+     * @return the shared {@code Card} with the specified rank and suit
+     * @throws IllegalArgumentException if the characters do not represent a valid card
+     */
+    public static @NotNull Card parse(@NotNull CharSequence text, int start, int end) {
+        final int index = parseIndex(text, start, end);
+        if (index < 0) {
+            throw new IllegalArgumentException("Card string '" + text.subSequence(start, end) + "' is invalid, "
+                    + "it must match (10|[1-9JQK])[CDHS]");
+        }
+        return deck[index];
+    }
+
+    /**
+     * Returns the deck index of a card in part of a character sequence, without allocating
+     *
+     * @param text  the characters to parse
+     * @param start index of the first character of the card
+     * @param end   index after the last character of the card
+     * @return the deck index of the card, or -1 if the characters do not represent a valid card
+     */
+    public static int parseIndex(@NotNull CharSequence text, int start, int end) {
+        // Skip whitespace the same way as String.trim()
+        while (start < end && text.charAt(start) <= ' ') {
+            ++start;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            --end;
+        }
+
+        if (end - start == 2) {
+            return index(rank(text.charAt(start)), suit(text.charAt(start + 1)));
+        }
+        if (end - start == 3 && text.charAt(start) == '1' && text.charAt(start + 1) == '0') {
+            return index(Rank.TEN.ordinal(), suit(text.charAt(start + 2)));
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the deck index of a card in a range of ASCII bytes, without allocating
+     *
+     * @param bytes the bytes to parse
+     * @param start index of the first byte of the card
+     * @param end   index after the last byte of the card
+     * @return the deck index of the card, or -1 if the bytes do not represent a valid card
+     */
+    public static int parseIndex(byte @NotNull [] bytes, int start, int end) {
+        while (start < end && (bytes[start] & 0xFF) <= ' ') {
+            ++start;
+        }
+        while (end > start && (bytes[end - 1] & 0xFF) <= ' ') {
+            --end;
+        }
+
+        if (end - start == 2) {
+            return index(rank((char) (bytes[start] & 0xFF)), suit((char) (bytes[start + 1] & 0xFF)));
+        }
+        if (end - start == 3 && bytes[start] == '1' && bytes[start + 1] == '0') {
+            return index(Rank.TEN.ordinal(), suit((char) (bytes[start + 2] & 0xFF)));
         }
+        return -1;
+    }
 
-        Rank rank;
-        String rankString = card.substring(0, card.length() - 1);
-        switch (rankString) { // Translate the card's rank
-            case "J":
-                rank = Rank.JACK;
-                break;
-            case "Q":
-                rank = Rank.QUEEN;
-                break;
-            case "K":
-                rank = Rank.KING;
-                break;
+    /**
+     * Returns the rank ordinal of a one-character rank (1-9, j, q or k), or -1 if it is invalid
+     */
+    private static int rank(char c) {
+        switch (c) {
+            case 'J':
+            case 'j':
+                return Rank.JACK.ordinal();
+            case 'Q':
+            case 'q':
+                return Rank.QUEEN.ordinal();
+            case 'K':
+            case 'k':
+                return Rank.KING.ordinal();
             default:
-                rank = Rank.values[Integer.parseInt(rankString) - 1];
-                break;
+                return c >= '1' && c <= '9' ? c - '1' : -1;
         }
+    }
 
-        switch (card.charAt(card.length() - 1)) { // Translate the card's suit
+    /**
+     * Returns the suit ordinal of a suit letter (c, d, h or s), or -1 if it is invalid
+     */
+    private static int suit(char c) {
+        switch (c) {
             case 'C':
-                return new Card(rank, Suit.CLUBS);
+            case 'c':
+                return Suit.CLUBS.ordinal();
             case 'D':
-                return new Card(rank, Suit.DIAMONDS);
+            case 'd':
+                return Suit.DIAMONDS.ordinal();
             case 'H':
-                return new Card(rank, Suit.HEARTS);
+            case 'h':
+                return Suit.HEARTS.ordinal();
             case 'S':
-                return new Card(rank, Suit.SPADES);
+            case 's':
+                return Suit.SPADES.ordinal();
             default:
-                throw new IllegalStateException("Program is in an impossible state: " + card);
+                return -1;
         }
     }
 
+    /**
+     * Returns the deck index of a rank and suit ordinal, or -1 if either is invalid
+     */
+    private static int index(int rank, int suit) {
+        return rank < 0 || suit < 0 ? -1 : suit * 13 + rank;
+    }
+
     /**
      * Returns the rank number of this card with aces low
      *
@@ -104,6 +235,18 @@ public final class Card implements Comparable<Card> {
         return this.rank.ordinal() + 1;
     }
 
+    /**
+     * Returns the position of this card in a standard deck ordered by suit, then rank
+     *
+     * <p> Clubs take indices 0 (ace) to 12 (king), diamonds 13 to 25, hearts 26 to 38 and spades
+     * 39 to 51. This is the bit position used by {@link CardSet}
+     *
+     * @return the deck index of this card (0 to 51 inclusive)
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
     /**
      * Returns the number of ranks this card is above the card it is compared to
      *
@@ -124,11 +267,11 @@ public final class Card implements Comparable<Card> {
     }
 
     /**
-     * Returns a hash code value for this {@code Card}
+     * Returns a hash code value for this {@code Card}, which is its deck index
      */
     @Override
     public int hashCode() {
-        return Objects.hash(rank, suit);
+        return this.index;
     }
 
     /**
@@ -142,8 +285,7 @@ public final class Card implements Comparable<Card> {
         if (!(obj instanceof Card)) {
             return false;
         }
-        final Card other = (Card) obj;
-        return rank == other.rank && suit == other.suit;
+        return this.index == ((Card) obj).index;
     }
 
     /**
@@ -0,0 +1,153 @@
+package card;
+
+/**
+ * Numbers the sets of 1 to 6 cards with consecutive integers (the combinatorial number system)
+ *
+ * <p> A set of {@code k} cards with deck indices {@code c1 < c2 < ... < ck} has the
+ * colexicographic rank {@code C(c1, 1) + C(c2, 2) + ... + C(ck, k)}. This is a bijection between
+ * the {@code C(52, k)} sets and the integers from 0 to {@code C(52, k) - 1}, so it can address a
+ * dense table with one entry per hand. Colexicographic order is also the numeric order of the
+ * {@link CardSet#toBits() bitmasks}, which means the sets using only the first {@code n} cards of
+ * the deck are exactly the first {@code C(n, k)} ranks, and a range of ranks can be enumerated by
+ * unranking its first set and then repeatedly calling {@link #next(long)}
+ *
+ * <p> Binomial coefficients are read from a precomputed table and no method allocates
+ *
+ * @author Reid Moffat
+ */
+public final class CardCombinations {
+
+    /**
+     * The largest number of cards in a set that can be ranked
+     */
+    public static final int MAX_CARDS = 6;
+
+    /**
+     * {@code BINOMIAL[k][n]} is n choose k, for k from 0 to {@link #MAX_CARDS} and n from 0 to 52
+     */
+    private static final int[][] BINOMIAL = new int[MAX_CARDS + 1][53];
+
+    static {
+        for (int n = 0; n <= 52; ++n) {
+            BINOMIAL[0][n] = 1;
+            for (int k = 1; k <= MAX_CARDS; ++k) {
+                BINOMIAL[k][n] = n == 0 ? 0 : BINOMIAL[k][n - 1] + BINOMIAL[k - 1][n - 1];
+            }
+        }
+    }
+
+    /**
+     * This class only has static methods and should not be instantiated
+     */
+    private CardCombinations() {
+    }
+
+    /**
+     * Returns n choose k
+     *
+     * <p> The parameters are not checked
+     *
+     * @param n the number of cards to choose from, from 0 to 52
+     * @param k the number of cards chosen, from 0 to {@link #MAX_CARDS}
+     * @return the number of sets of {@code k} cards from {@code n} cards
+     */
+    public static int binomial(int n, int k) {
+        return BINOMIAL[k][n];
+    }
+
+    /**
+     * Returns the number of sets of {@code k} cards in a 52-card deck
+     *
+     * @param k the number of cards in a set, from 1 to {@link #MAX_CARDS}
+     * @return C(52, k), one more than the highest rank of a set of {@code k} cards
+     * @throws IllegalArgumentException if {@code k} is out of range
+     */
+    public static int count(int k) {
+        checkSize(k);
+        return BINOMIAL[k][52];
+    }
+
+    /**
+     * Returns the colexicographic rank of a set of cards
+     *
+     * @param cards a bitmask of 1 to {@link #MAX_CARDS} cards
+     * @return the rank of the set among the sets with the same number of cards
+     * @throws IllegalArgumentException if the set is empty or has too many cards
+     */
+    public static int rank(long cards) {
+        checkSize(Long.bitCount(cards));
+        int rank = 0;
+        for (int k = 1; cards != 0; ++k, cards &= cards - 1) {
+            rank += BINOMIAL[k][Long.numberOfTrailingZeros(cards)];
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the colexicographic rank of a 4-card hand
+     *
+     * <p> The parameters are not checked
+     *
+     * @param card0 the lowest deck index in the hand
+     * @param card1 the second-lowest deck index in the hand
+     * @param card2 the second-highest deck index in the hand
+     * @param card3 the highest deck index in the hand
+     * @return the rank of the hand, from 0 to C(52, 4) - 1
+     */
+    public static int rank(int card0, int card1, int card2, int card3) {
+        return card0 + BINOMIAL[2][card1] + BINOMIAL[3][card2] + BINOMIAL[4][card3];
+    }
+
+    /**
+     * Returns the set of cards with a colexicographic rank
+     *
+     * @param rank the rank, from 0 to {@code C(52, k) - 1}
+     * @param k    the number of cards in the set, from 1 to {@link #MAX_CARDS}
+     * @return the bitmask of the set with the given rank
+     * @throws IllegalArgumentException if {@code k} or {@code rank} is out of range
+     */
+    public static long unrank(int rank, int k) {
+        checkSize(k);
+        if (rank < 0 || rank >= BINOMIAL[k][52]) {
+            throw new IllegalArgumentException("Rank of a set of " + k + " cards must be between 0 and "
+                    + (BINOMIAL[k][52] - 1) + ": " + rank);
+        }
+
+        // The highest card is the largest c with C(c, k) <= rank, and each lower card is below it
+        long cards = 0;
+        int card = 52;
+        for (; k > 0; --k) {
+            do {
+                --card;
+            } while (BINOMIAL[k][card] > rank);
+            rank -= BINOMIAL[k][card];
+            cards |= 1L << card;
+        }
+        return cards;
+    }
+
+    /**
+     * Returns the set of cards after a set in colexicographic order, with the same number of cards
+     *
+     * @param cards a non-empty bitmask of cards
+     * @return the bitmask of the set with the next rank, or a set with a card outside the deck
+     * (bit 52 or higher) if {@code cards} has the highest rank
+     */
+    public static long next(long cards) {
+        // Move the lowest block of consecutive cards up: its top card moves up one and the others
+        // move down to the bottom of the deck
+        final long lowest = cards & -cards;
+        final long moved = cards + lowest;
+        return moved | ((moved ^ cards) >>> 2) / lowest;
+    }
+
+    /**
+     * Throws an exception if a set of cards cannot be ranked
+     */
+    private static void checkSize(int k) {
+        if (k < 1 || k > MAX_CARDS) {
+            throw new IllegalArgumentException("Number of cards must be between 1 and " + MAX_CARDS + ": " + k);
+        }
+    }
+
+}
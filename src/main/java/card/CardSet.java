@@ -0,0 +1,401 @@
+package card;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A set of unique playing cards from a standard 52-card deck, stored as a single {@code long}
+ *
+ * <p> Each card is represented by one bit at its {@link Card#getIndex() deck index}, so
+ * membership checks, insertions and removals are a single bitwise operation, and set algebra
+ * (union, intersection and difference) works on the whole set at once. Bits 52 to 63 are never
+ * set
+ *
+ * <p> Iteration order is by deck index: clubs from ace to king, then diamonds, hearts and spades
+ *
+ * @author Reid Moffat
+ */
+public final class CardSet implements Iterable<Card> {
+
+    /**
+     * A bitmask with all 52 cards of the deck set
+     */
+    public static final long DECK_MASK = (1L << 52) - 1;
+
+    /**
+     * The cards in this set; bit {@code i} is set if the card with deck index {@code i} is present
+     */
+    private long bits;
+
+    /**
+     * Initializes this {@code CardSet} with no cards
+     */
+    public CardSet() {
+        this.bits = 0L;
+    }
+
+    /**
+     * Initializes this {@code CardSet} with the cards in a bitmask
+     *
+     * @param bits a bitmask of deck indices
+     * @throws IllegalArgumentException if any bit above 51 is set
+     */
+    private CardSet(long bits) {
+        if ((bits & ~DECK_MASK) != 0) {
+            throw new IllegalArgumentException("Invalid card bitmask: " + Long.toHexString(bits));
+        }
+        this.bits = bits;
+    }
+
+    /**
+     * Returns a {@code CardSet} containing the cards in a bitmask of deck indices
+     *
+     * @param bits a bitmask where bit {@code i} represents the card with deck index {@code i}
+     * @return a new {@code CardSet} with the given cards
+     * @throws IllegalArgumentException if any bit above 51 is set
+     */
+    @Contract("_ -> new")
+    public static @NotNull CardSet fromBits(long bits) {
+        return new CardSet(bits);
+    }
+
+    /**
+     * Returns a {@code CardSet} with every card in a collection
+     *
+     * @param cards a collection of {@code Card} objects (duplicates are ignored)
+     * @return a new {@code CardSet} with the given cards
+     * @throws IllegalArgumentException if any card is null
+     */
+    @Contract("_ -> new")
+    public static @NotNull CardSet of(@NotNull Collection<Card> cards) {
+        final CardSet set = new CardSet();
+        for (Card card : cards) {
+            set.add(card);
+        }
+        return set;
+    }
+
+    /**
+     * Returns a {@code CardSet} with the given cards
+     *
+     * @param cards any number of {@code Card} objects (duplicates are ignored)
+     * @return a new {@code CardSet} with the given cards
+     * @throws IllegalArgumentException if any card is null
+     */
+    @Contract("_ -> new")
+    public static @NotNull CardSet of(Card @NotNull ... cards) {
+        final CardSet set = new CardSet();
+        for (Card card : cards) {
+            set.add(card);
+        }
+        return set;
+    }
+
+    /**
+     * Returns a {@code CardSet} with all 52 cards in a standard deck
+     *
+     * @return a new {@code CardSet} with every card
+     */
+    @Contract(" -> new")
+    public static @NotNull CardSet fullDeck() {
+        return new CardSet(DECK_MASK);
+    }
+
+    /**
+     * Returns the bit for a card, checking it is not null
+     */
+    private static long bit(Card card) {
+        if (card == null) {
+            throw new IllegalArgumentException("Cannot have a null card in a card set");
+        }
+        return 1L << card.getIndex();
+    }
+
+    /**
+     * Returns the bitmask of this set; bit {@code i} is set if the card with deck index {@code i}
+     * is present
+     *
+     * @return the bitmask of the cards in this set
+     */
+    public long toBits() {
+        return this.bits;
+    }
+
+    /**
+     * Adds a card to this set
+     *
+     * @param card a {@code Card} object
+     * @return true if the card was added (it was not already in this set)
+     * @throws IllegalArgumentException if the card is null
+     */
+    public boolean add(Card card) {
+        final long bit = bit(card);
+        final boolean absent = (this.bits & bit) == 0;
+        this.bits |= bit;
+        return absent;
+    }
+
+    /**
+     * Removes a card from this set
+     *
+     * @param card a {@code Card} object
+     * @return true if the card was removed (it was in this set)
+     * @throws IllegalArgumentException if the card is null
+     */
+    public boolean remove(Card card) {
+        final long bit = bit(card);
+        final boolean present = (this.bits & bit) != 0;
+        this.bits &= ~bit;
+        return present;
+    }
+
+    /**
+     * Checks if this set contains a card
+     *
+     * @param card a {@code Card} object
+     * @return true if the card is in this set, false otherwise (including if it is null)
+     */
+    public boolean contains(Card card) {
+        return card != null && (this.bits & (1L << card.getIndex())) != 0;
+    }
+
+    /**
+     * Checks if every card in another set is also in this set
+     *
+     * @param other a {@code CardSet}
+     * @return true if {@code other} is a subset of this set
+     */
+    public boolean containsAll(@NotNull CardSet other) {
+        return (other.bits & ~this.bits) == 0;
+    }
+
+    /**
+     * Returns the number of cards in this set
+     *
+     * @return the number of cards in this set
+     */
+    public int size() {
+        return Long.bitCount(this.bits);
+    }
+
+    /**
+     * Checks if this set has no cards
+     *
+     * @return true if this set is empty
+     */
+    public boolean isEmpty() {
+        return this.bits == 0;
+    }
+
+    /**
+     * Removes all the cards from this set
+     */
+    public void clear() {
+        this.bits = 0L;
+    }
+
+    /**
+     * Adds every card in another set to this set
+     *
+     * @param other a {@code CardSet}
+     * @return true if this set changed
+     */
+    public boolean addAll(@NotNull CardSet other) {
+        final long old = this.bits;
+        this.bits |= other.bits;
+        return old != this.bits;
+    }
+
+    /**
+     * Removes every card in another set from this set
+     *
+     * @param other a {@code CardSet}
+     * @return true if this set changed
+     */
+    public boolean removeAll(@NotNull CardSet other) {
+        final long old = this.bits;
+        this.bits &= ~other.bits;
+        return old != this.bits;
+    }
+
+    /**
+     * Removes every card from this set that is not in another set
+     *
+     * @param other a {@code CardSet}
+     * @return true if this set changed
+     */
+    public boolean retainAll(@NotNull CardSet other) {
+        final long old = this.bits;
+        this.bits &= other.bits;
+        return old != this.bits;
+    }
+
+    /**
+     * Returns the cards that are in this set or another set
+     *
+     * @param other a {@code CardSet}
+     * @return a new {@code CardSet} with the union of both sets
+     */
+    @Contract("_ -> new")
+    public @NotNull CardSet union(@NotNull CardSet other) {
+        return new CardSet(this.bits | other.bits);
+    }
+
+    /**
+     * Returns the cards that are in both this set and another set
+     *
+     * @param other a {@code CardSet}
+     * @return a new {@code CardSet} with the intersection of both sets
+     */
+    @Contract("_ -> new")
+    public @NotNull CardSet intersection(@NotNull CardSet other) {
+        return new CardSet(this.bits & other.bits);
+    }
+
+    /**
+     * Returns the cards that are in this set but not another set
+     *
+     * @param other a {@code CardSet}
+     * @return a new {@code CardSet} with the cards of this set minus the cards of {@code other}
+     */
+    @Contract("_ -> new")
+    public @NotNull CardSet difference(@NotNull CardSet other) {
+        return new CardSet(this.bits & ~other.bits);
+    }
+
+    /**
+     * Returns the cards in the deck that are not in this set
+     *
+     * @return a new {@code CardSet} with every card not in this set
+     */
+    @Contract(" -> new")
+    public @NotNull CardSet complement() {
+        return new CardSet(~this.bits & DECK_MASK);
+    }
+
+    /**
+     * Returns a copy of this set
+     *
+     * @return a copy of this set
+     */
+    @Contract(" -> new")
+    public @NotNull CardSet copy() {
+        return new CardSet(this.bits);
+    }
+
+    /**
+     * Returns the cards in this set as a {@code HashSet}
+     *
+     * @return a new {@code HashSet} with every card in this set
+     */
+    @Contract(" -> new")
+    public @NotNull HashSet<Card> toHashSet() {
+        final HashSet<Card> set = new HashSet<>();
+        forEach(set::add);
+        return set;
+    }
+
+    /**
+     * Returns the cards in this set in deck order
+     *
+     * @return a new array with every card in this set
+     */
+    public Card @NotNull [] toArray() {
+        final Card[] array = new Card[size()];
+        int i = 0;
+        for (long remaining = this.bits; remaining != 0; remaining &= remaining - 1) {
+            array[i++] = Card.of(Long.numberOfTrailingZeros(remaining));
+        }
+        return array;
+    }
+
+    /**
+     * Returns a sequential stream of the cards in this set
+     *
+     * @return a stream of the cards in this set, in deck order
+     */
+    public @NotNull Stream<Card> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns an iterator over the cards in this set in deck order
+     *
+     * <p> The iterator works on a snapshot of this set; changes made to this set during iteration
+     * are not seen by the iterator
+     */
+    @Override
+    public @NotNull Iterator<Card> iterator() {
+        return new Iterator<>() {
+            private long remaining = bits;
+
+            @Override
+            public boolean hasNext() {
+                return this.remaining != 0;
+            }
+
+            @Override
+            public Card next() {
+                if (this.remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                final Card card = Card.of(Long.numberOfTrailingZeros(this.remaining));
+                this.remaining &= this.remaining - 1;
+                return card;
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<Card> spliterator() {
+        return Spliterators.spliterator(iterator(), size(), Spliterator.DISTINCT
+                | Spliterator.NONNULL | Spliterator.ORDERED);
+    }
+
+    /**
+     * Returns a hash code value for this {@code CardSet}
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.bits);
+    }
+
+    /**
+     * Returns true if both {@code CardSets} have exactly the same cards
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CardSet)) {
+            return false;
+        }
+        return this.bits == ((CardSet) obj).bits;
+    }
+
+    /**
+     * Returns the cards in this set in deck order, e.g. "[Ace of clubs, Five of hearts]"
+     */
+    @Override
+    public @NotNull String toString() {
+        final StringBuilder builder = new StringBuilder("[");
+        for (Card card : this) {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(card);
+        }
+        return builder.append(']').toString();
+    }
+
+}
@@ -0,0 +1,162 @@
+package card;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.SplittableRandom;
+
+/**
+ * A standard 52-card deck that deals random cards as {@link CardSet#toBits() bitmasks} and
+ * {@link Card#getIndex() deck indices}
+ *
+ * <p> The deck is a permutation of the deck indices in a {@code byte[52]}. Dealing a card is one
+ * step of a Fisher-Yates shuffle: a random card from the rest of the deck is swapped to the front
+ * of the undealt cards and dealt, so dealing {@code k} cards costs {@code k} random numbers however
+ * big the deck is. {@link #reset()} gathers the dealt cards back without reordering anything, since
+ * the next deals shuffle them anyway, so every deal is uniformly random and nothing is allocated
+ *
+ * <p> Some cards can be removed from the deck for good, such as the cards already seen when
+ * simulating the rest of a deal. The removed cards are kept at the front of the array and never
+ * dealt, and the others start in deck order. A deck draws from a {@link SplittableRandom}, and
+ * {@link #split()} makes a new deck with an independent stream, so parallel simulations with decks
+ * split in a fixed order deal the same cards whatever the number of threads. A deck is not
+ * thread-safe
+ *
+ * @author Reid Moffat
+ */
+public final class Deck {
+
+    /**
+     * The number of cards in a full deck
+     */
+    public static final int SIZE = 52;
+
+    /**
+     * The deck indices of the cards: the removed cards, then the cards dealt since the last reset,
+     * then the undealt cards
+     */
+    private final byte[] cards = new byte[SIZE];
+
+    /**
+     * The source of the shuffles
+     */
+    private final SplittableRandom random;
+
+    /**
+     * Bitmask of the cards removed from the deck
+     */
+    private final long removed;
+
+    /**
+     * Position of the first card that is not removed
+     */
+    private final int first;
+
+    /**
+     * Position of the next card to deal
+     */
+    private int next;
+
+    /**
+     * Initializes a full deck with a random stream seeded by a value
+     *
+     * @param seed the seed of the random stream
+     */
+    public Deck(long seed) {
+        this(new SplittableRandom(seed), 0L);
+    }
+
+    /**
+     * Initializes a deck with some cards removed
+     *
+     * @param random  the random stream to shuffle with, which this deck uses from now on
+     * @param removed bitmask of the cards that are never dealt
+     * @throws IllegalArgumentException if {@code removed} has a bit above 51 set
+     */
+    public Deck(@NotNull SplittableRandom random, long removed) {
+        if ((removed & ~CardSet.DECK_MASK) != 0) {
+            throw new IllegalArgumentException("Invalid card bitmask: " + Long.toHexString(removed));
+        }
+        this.random = random;
+        this.removed = removed;
+        this.first = Long.bitCount(removed);
+        this.next = this.first;
+
+        int front = 0, back = this.first;
+        for (int card = 0; card < SIZE; ++card) {
+            this.cards[(removed & 1L << card) != 0 ? front++ : back++] = (byte) card;
+        }
+    }
+
+    /**
+     * Returns a new deck with the same cards removed, shuffling with a stream split from this
+     * deck's stream
+     *
+     * @return a new deck with all of its cards undealt
+     */
+    @Contract(" -> new")
+    public @NotNull Deck split() {
+        return new Deck(this.random.split(), this.removed);
+    }
+
+    /**
+     * Deals one random card from the undealt cards
+     *
+     * @return the card's deck index
+     * @throws IllegalStateException if every card has been dealt
+     */
+    public int draw() {
+        if (this.next == SIZE) {
+            throw new IllegalStateException("Every card has been dealt");
+        }
+        final int swap = this.next + this.random.nextInt(SIZE - this.next);
+        final byte card = this.cards[swap];
+        this.cards[swap] = this.cards[this.next];
+        this.cards[this.next++] = card;
+        return card;
+    }
+
+    /**
+     * Deals some random cards from the undealt cards
+     *
+     * @param count the number of cards to deal
+     * @return the bitmask of the cards dealt
+     * @throws IllegalArgumentException if {@code count} is negative or more than the cards left
+     */
+    public long deal(int count) {
+        if (count < 0 || count > remaining()) {
+            throw new IllegalArgumentException("Cannot deal " + count + " cards from " + remaining());
+        }
+        long cards = 0;
+        for (int i = 0; i < count; ++i) {
+            cards |= 1L << draw();
+        }
+        return cards;
+    }
+
+    /**
+     * Gathers every dealt card back into the deck, leaving the removed cards out
+     */
+    public void reset() {
+        this.next = this.first;
+    }
+
+    /**
+     * Returns the number of cards that can still be dealt before the next reset
+     *
+     * @return the number of undealt cards
+     */
+    public int remaining() {
+        return SIZE - this.next;
+    }
+
+    /**
+     * Returns the cards removed from this deck
+     *
+     * @return the bitmask of the cards that are never dealt
+     */
+    public long getRemoved() {
+        return this.removed;
+    }
+
+}
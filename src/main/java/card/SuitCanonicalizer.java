@@ -0,0 +1,178 @@
+package card;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Maps sets of cards to a canonical form that is the same for every relabelling of the suits
+ *
+ * <p> Cribbage scoring never depends on which suit a card has, only on whether suits are equal
+ * (for flushes and nobs). Two hands that differ only by a permutation of the suits, such as
+ * 5h-5d-Jh-Qs and 5c-5s-Jc-Qd, therefore have the same score, the same best discard and so on. The
+ * canonical form of a hand is the one member of its equivalence class with the suits in a fixed
+ * order, so it can be used as a key for caches and precomputed tables. For example, the 20,358,520
+ * possible 6-card deals have only 962,988 canonical forms
+ *
+ * <p> Suits are ordered by the ranks they hold: the suit with the highest 13-bit rank mask becomes
+ * clubs, the next diamonds, then hearts and spades. Suits with identical rank masks are
+ * interchangeable, so their order does not matter. A split of cards into two sets (such as the
+ * cards kept and the cards dropped) is canonicalized by ordering suits by the rank mask of the
+ * first set, then by the rank mask of the second set, so the split itself is preserved
+ *
+ * <p> Permutations are packed into an {@code int}: bits {@code 2i} and {@code 2i + 1} hold the
+ * suit (0 for clubs to 3 for spades) that suit {@code i} is relabelled to. Cards are
+ * {@link CardSet#toBits() bitmasks}. No method allocates
+ *
+ * @author Reid Moffat
+ */
+public final class SuitCanonicalizer {
+
+    /**
+     * The permutation that leaves every suit unchanged
+     */
+    public static final int IDENTITY = 0b11_10_01_00;
+
+    /**
+     * Bitmask of the 13 ranks of one suit
+     */
+    private static final long SUIT_MASK = (1L << 13) - 1;
+
+    /**
+     * This class only has static methods and should not be instantiated
+     */
+    private SuitCanonicalizer() {
+    }
+
+    /**
+     * Returns the canonical form of a set of cards
+     *
+     * @param cards a bitmask of cards
+     * @return the bitmask of the canonical form, with the same cards up to a relabelling of suits
+     */
+    public static long canonical(long cards) {
+        return apply(permutation(cards), cards);
+    }
+
+    /**
+     * Returns the canonical form of a set of cards
+     *
+     * @param cards a {@code CardSet}
+     * @return a new {@code CardSet} with the canonical form of {@code cards}
+     */
+    @Contract("_ -> new")
+    public static @NotNull CardSet canonical(@NotNull CardSet cards) {
+        return CardSet.fromBits(canonical(cards.toBits()));
+    }
+
+    /**
+     * Returns the permutation that maps a set of cards to its canonical form
+     *
+     * @param cards a bitmask of cards
+     * @return the packed permutation to pass to {@link #apply}
+     */
+    public static int permutation(long cards) {
+        return sortSuits(cards & SUIT_MASK, (cards >>> 13) & SUIT_MASK, (cards >>> 26) & SUIT_MASK,
+                (cards >>> 39) & SUIT_MASK);
+    }
+
+    /**
+     * Returns the permutation that maps a split of cards into two disjoint sets (such as the cards
+     * kept and dropped from a hand) to its canonical form
+     *
+     * <p> Applying the permutation to both sets gives the canonical form of the split. Two splits
+     * have the same canonical form if and only if one suit relabelling maps both sets of one split
+     * onto the other
+     *
+     * @param first  a bitmask of cards
+     * @param second a bitmask of cards, disjoint from {@code first}
+     * @return the packed permutation to pass to {@link #apply}
+     */
+    public static int permutation(long first, long second) {
+        return sortSuits(splitKey(first, second, 0), splitKey(first, second, 13),
+                splitKey(first, second, 26), splitKey(first, second, 39));
+    }
+
+    /**
+     * Relabels the suits of a set of cards
+     *
+     * @param permutation a packed permutation
+     * @param cards       a bitmask of cards
+     * @return the bitmask of the cards with each suit {@code i} replaced by the suit in
+     * {@code permutation}
+     */
+    public static long apply(int permutation, long cards) {
+        return (cards & SUIT_MASK) << (13 * (permutation & 3))
+                | ((cards >>> 13) & SUIT_MASK) << (13 * ((permutation >>> 2) & 3))
+                | ((cards >>> 26) & SUIT_MASK) << (13 * ((permutation >>> 4) & 3))
+                | ((cards >>> 39) & SUIT_MASK) << (13 * ((permutation >>> 6) & 3));
+    }
+
+    /**
+     * Relabels the suit of a single card
+     *
+     * @param permutation a packed permutation
+     * @param index       the deck index of a card
+     * @return the deck index of the card with its suit relabelled
+     */
+    public static int applyToCard(int permutation, int index) {
+        return 13 * ((permutation >>> ((index / 13) << 1)) & 3) + index % 13;
+    }
+
+    /**
+     * Returns the permutation that undoes another permutation
+     *
+     * @param permutation a packed permutation
+     * @return the packed inverse permutation
+     */
+    public static int inverse(int permutation) {
+        int inverse = 0;
+        for (int suit = 0; suit < 4; ++suit) {
+            inverse |= suit << (((permutation >>> (suit << 1)) & 3) << 1);
+        }
+        return inverse;
+    }
+
+    /**
+     * Returns the permutation that applies one permutation and then another
+     *
+     * @param first  the permutation applied first
+     * @param second the permutation applied second
+     * @return the packed combined permutation
+     */
+    public static int compose(int first, int second) {
+        int result = 0;
+        for (int suit = 0; suit < 4; ++suit) {
+            result |= ((second >>> (((first >>> (suit << 1)) & 3) << 1)) & 3) << (suit << 1);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sort key of one suit for a split of cards: the first set's ranks, then the second
+     */
+    private static long splitKey(long first, long second, int shift) {
+        return ((first >>> shift) & SUIT_MASK) << 13 | ((second >>> shift) & SUIT_MASK);
+    }
+
+    /**
+     * Returns the permutation that relabels the suit with the highest key as clubs, the next as
+     * diamonds and so on
+     *
+     * <p> Each key is packed with its suit in the low 2 bits and sorted with a 5-comparison
+     * sorting network, so ties are broken by the original suit
+     */
+    private static int sortSuits(long key0, long key1, long key2, long key3) {
+        long a = key0 << 2, b = key1 << 2 | 1, c = key2 << 2 | 2, d = key3 << 2 | 3, t;
+
+        // Sort descending
+        if (a < b) { t = a; a = b; b = t; }
+        if (c < d) { t = c; c = d; d = t; }
+        if (a < c) { t = a; a = c; c = t; }
+        if (b < d) { t = b; b = d; d = t; }
+        if (b < c) { t = b; b = c; c = t; }
+
+        // The suit of the highest key becomes clubs (0), so it contributes nothing to the result
+        return 1 << ((b & 3) << 1) | 2 << ((c & 3) << 1) | 3 << ((d & 3) << 1);
+    }
+
+}
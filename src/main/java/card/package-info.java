@@ -1,6 +1,9 @@
 /**
  * Contains a Card class and corresponding Suit and Rank enumerations to represent playing cards
- * in a standard 52-card deck
+ * in a standard 52-card deck, a CardSet class to store sets of cards as a bitmask, a
+ * SuitCanonicalizer to reduce sets of cards to a canonical form that ignores suit labels,
+ * CardCombinations to number sets of cards with consecutive integers and a Deck to deal random
+ * cards
  *
  * @author Reid Moffat
  */
@@ -0,0 +1,400 @@
+package main;
+
+import card.Card;
+import card.CardSet;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Analyzes a stream of dealt hands without user interaction, for example a log of hands
+ *
+ * <p> Input has one hand per line: 5 or 6 cards in the format of {@link Card#stringToCard(String)},
+ * separated by spaces, tabs or commas (e.g. "5h 5d jc qs 4h 6c"). Blank lines are skipped, and
+ * invalid lines are counted and reported to {@code System.err} without stopping the batch. Lines
+ * are parsed straight from the input bytes without creating strings
+ *
+ * <p> Input is read through a fixed buffer. Hands are collected in chunks of {@link #CHUNK_HANDS},
+ * each chunk is analyzed in parallel with {@link DiscardAnalyzer#analyzeAll(List)} and its results
+ * are written in input order while the next chunk is read and analyzed. At most two chunks are held
+ * at once, so memory use does not depend on the size of the input
+ *
+ * <p> Every discard of a hand is written, from the highest to the lowest average points, in one of
+ * two {@link Format formats}. Cards are written in the input format, in deck order. Each discard
+ * has the mean and standard deviation of the kept hand's points, the minimum, quartiles and
+ * maximum, and its distribution: the number of starters that give 0, 1, 2 and so on up to the
+ * maximum points (dividing by the number of starters gives the probability of each score)
+ *
+ * @author Reid Moffat
+ */
+final class BatchAnalyzer {
+
+    /**
+     * Output formats for the results
+     */
+    enum Format {
+
+        /**
+         * One row per discard with the columns {@code line,hand,rank,discard,keep,mean,stddev,min,
+         * p25,median,p75,max,distribution} after a header row, where the distribution is the
+         * number of starters giving each score separated by spaces
+         */
+        CSV,
+
+        /**
+         * One JSON object per hand, e.g. {@code {"line":1,"hand":"...","discards":[{"discard":
+         * "...","keep":"...","mean":8.1234,"stddev":2.9012,"percentiles":{"min":4,"p25":6,
+         * "median":8,"p75":10,"max":16},"distribution":[0,0,0,0,3,...]},...]}}
+         */
+        JSONL
+    }
+
+    /**
+     * Number of hands analyzed together
+     */
+    static final int CHUNK_HANDS = 4096;
+
+    /**
+     * Size of the input buffer, which is also the longest line that can be read
+     */
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    /**
+     * Maximum number of invalid lines reported individually
+     */
+    private static final int REPORTED_ERRORS = 10;
+
+    /**
+     * The input format of each card, indexed by deck index
+     */
+    private static final String[] TOKENS = new String[52];
+
+    static {
+        final String[] ranks = {"1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "j", "q", "k"};
+        final String suits = "cdhs";
+        for (int i = 0; i < 52; ++i) {
+            TOKENS[i] = ranks[i % 13] + suits.charAt(i / 13);
+        }
+    }
+
+    /**
+     * Analyzes each chunk of hands
+     */
+    private final DiscardAnalyzer analyzer;
+
+    /**
+     * The output format
+     */
+    private final Format format;
+
+    /**
+     * Number of hands analyzed so far
+     */
+    private long hands;
+
+    /**
+     * Number of lines that were not blank and not a valid hand
+     */
+    private long invalidLines;
+
+    /**
+     * Initializes this batch with an analyzer and output format
+     *
+     * @param analyzer analyzes the hands
+     * @param format   the output format
+     */
+    BatchAnalyzer(@NotNull DiscardAnalyzer analyzer, @NotNull Format format) {
+        this.analyzer = analyzer;
+        this.format = format;
+    }
+
+    /**
+     * Analyzes every hand in the input and writes the results
+     *
+     * <p> The output is flushed but not closed
+     *
+     * @param input  the hands to analyze, one per line
+     * @param output where the results are written
+     * @throws IOException if the input cannot be read or the output cannot be written
+     */
+    void run(@NotNull ReadableByteChannel input, @NotNull Writer output) throws IOException {
+        final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "batch-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            if (this.format == Format.CSV) {
+                output.write("line,hand,rank,discard,keep,mean,stddev,min,p25,median,p75,max,distribution\n");
+            }
+
+            final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+            final byte[] bytes = buffer.array();
+            final Chunk chunk = new Chunk();
+            long lineNumber = 0;
+            boolean endOfInput = false;
+            Future<?> pendingWrite = null;
+
+            while (!endOfInput) {
+                endOfInput = input.read(buffer) < 0;
+                final int limit = buffer.position();
+
+                // Parse every complete line, and the last line if the input has ended
+                int lineStart = 0;
+                for (int i = 0; i <= limit; ++i) {
+                    if (i == limit ? endOfInput && lineStart < limit : bytes[i] == '\n') {
+                        parseLine(bytes, lineStart, i, ++lineNumber, chunk);
+                        lineStart = i + 1;
+                    }
+
+                    // Analyze a full chunk, and the last partial chunk, while the previous one is written
+                    if (chunk.size() == CHUNK_HANDS || (i == limit && endOfInput && chunk.size() > 0)) {
+                        final List<CardSet> hands = chunk.takeHands();
+                        final long[] lineNumbers = chunk.takeLineNumbers(hands.size());
+                        final List<List<DiscardResult>> results = this.analyzer.analyzeAll(hands);
+                        this.hands += hands.size();
+                        awaitWrite(pendingWrite);
+                        pendingWrite = writer.submit(() -> {
+                            write(hands, lineNumbers, results, output);
+                            return null;
+                        });
+                    }
+                }
+                if (lineStart == 0 && limit == BUFFER_BYTES) {
+                    throw new IOException("Line " + (lineNumber + 1) + " is longer than " + BUFFER_BYTES + " bytes");
+                }
+                buffer.position(Math.min(lineStart, limit)).limit(limit);
+                buffer.compact();
+            }
+            awaitWrite(pendingWrite);
+            output.flush();
+        } finally {
+            writer.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the number of hands analyzed
+     *
+     * @return the number of valid hands read so far
+     */
+    long getHands() {
+        return this.hands;
+    }
+
+    /**
+     * Returns the number of lines that were skipped because they are not a valid hand
+     *
+     * @return the number of invalid lines read so far
+     */
+    long getInvalidLines() {
+        return this.invalidLines;
+    }
+
+    /**
+     * Parses one line of input and adds its hand to a chunk
+     */
+    private void parseLine(byte @NotNull [] bytes, int start, int end, long lineNumber, @NotNull Chunk chunk) {
+        long cards = 0;
+        int count = 0;
+        boolean valid = true;
+        for (int i = start; i <= end && valid; ) {
+            // Find the next token, which ends at a separator or the end of the line
+            int tokenEnd = i;
+            while (tokenEnd < end && !isSeparator(bytes[tokenEnd])) {
+                ++tokenEnd;
+            }
+            if (tokenEnd > i) {
+                final int index = Card.parseIndex(bytes, i, tokenEnd);
+                valid = index >= 0 && (cards & 1L << index) == 0;
+                cards |= valid ? 1L << index : 0;
+                ++count;
+            }
+            i = tokenEnd + 1;
+        }
+
+        if (count == 0) {
+            return;
+        }
+        if (!valid || (count != 5 && count != 6)) {
+            if (++this.invalidLines <= REPORTED_ERRORS) {
+                System.err.println("Skipping line " + lineNumber + ": not 5 or 6 different cards");
+            }
+            return;
+        }
+        chunk.add(CardSet.fromBits(cards), lineNumber);
+    }
+
+    /**
+     * Checks if a byte separates cards on a line
+     */
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == '\t' || b == ',' || b == '\r';
+    }
+
+    /**
+     * Waits for a chunk to finish being written, rethrowing any error it had
+     */
+    private static void awaitWrite(Future<?> write) throws IOException {
+        if (write == null) {
+            return;
+        }
+        try {
+            write.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing results", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("Could not write results", e.getCause());
+        }
+    }
+
+    /**
+     * Writes the results of a chunk of hands
+     */
+    private void write(@NotNull List<CardSet> hands, long @NotNull [] lineNumbers,
+                       @NotNull List<List<DiscardResult>> results, @NotNull Writer output) throws IOException {
+        final StringBuilder line = new StringBuilder(1024);
+        for (int i = 0; i < hands.size(); ++i) {
+            line.setLength(0);
+            final long lineNumber = lineNumbers[i];
+            final List<DiscardResult> handResults = results.get(i);
+
+            if (this.format == Format.CSV) {
+                for (int rank = 0; rank < handResults.size(); ++rank) {
+                    final DiscardResult result = handResults.get(rank);
+                    line.append(lineNumber).append(',');
+                    appendCards(line, hands.get(i).toBits());
+                    line.append(',').append(rank + 1).append(',');
+                    appendCards(line, result.getDiscardBits());
+                    line.append(',');
+                    appendCards(line, result.getKeepBits());
+                    line.append(',');
+                    appendDecimal(line, result.getMean());
+                    line.append(',');
+                    appendDecimal(line, result.getStandardDeviation());
+                    line.append(',').append(result.getMin()).append(',').append(result.getPercentile(25))
+                            .append(',').append(result.getPercentile(50)).append(',')
+                            .append(result.getPercentile(75)).append(',').append(result.getMax()).append(',');
+                    appendDistribution(line, result, ' ');
+                    line.append('\n');
+                }
+            } else {
+                line.append("{\"line\":").append(lineNumber).append(",\"hand\":\"");
+                appendCards(line, hands.get(i).toBits());
+                line.append("\",\"discards\":[");
+                for (int rank = 0; rank < handResults.size(); ++rank) {
+                    final DiscardResult result = handResults.get(rank);
+                    line.append(rank == 0 ? "{\"discard\":\"" : ",{\"discard\":\"");
+                    appendCards(line, result.getDiscardBits());
+                    line.append("\",\"keep\":\"");
+                    appendCards(line, result.getKeepBits());
+                    line.append("\",\"mean\":");
+                    appendDecimal(line, result.getMean());
+                    line.append(",\"stddev\":");
+                    appendDecimal(line, result.getStandardDeviation());
+                    line.append(",\"percentiles\":{\"min\":").append(result.getMin())
+                            .append(",\"p25\":").append(result.getPercentile(25))
+                            .append(",\"median\":").append(result.getPercentile(50))
+                            .append(",\"p75\":").append(result.getPercentile(75))
+                            .append(",\"max\":").append(result.getMax()).append("},\"distribution\":[");
+                    appendDistribution(line, result, ',');
+                    line.append("]}");
+                }
+                line.append("]}\n");
+            }
+            output.append(line);
+        }
+    }
+
+    /**
+     * Appends the input format of each card in a bitmask, separated by spaces
+     */
+    private static void appendCards(@NotNull StringBuilder line, long cards) {
+        for (boolean first = true; cards != 0; cards &= cards - 1, first = false) {
+            if (!first) {
+                line.append(' ');
+            }
+            line.append(TOKENS[Long.numberOfTrailingZeros(cards)]);
+        }
+    }
+
+    /**
+     * Appends the number of starters giving each score from 0 to a result's maximum
+     */
+    private static void appendDistribution(@NotNull StringBuilder line, @NotNull DiscardResult result,
+                                           char separator) {
+        final int max = result.getMax();
+        for (int points = 0; points <= max; ++points) {
+            if (points > 0) {
+                line.append(separator);
+            }
+            line.append(result.getCount(points));
+        }
+    }
+
+    /**
+     * Appends a non-negative number rounded to 4 decimal places, without locale formatting
+     */
+    private static void appendDecimal(@NotNull StringBuilder line, double value) {
+        final long scaled = Math.round(value * 10_000);
+        final long fraction = scaled % 10_000;
+        line.append(scaled / 10_000).append('.');
+        for (long digit = 1_000; digit > fraction && digit > 1; digit /= 10) {
+            line.append('0');
+        }
+        line.append(fraction);
+    }
+
+    /**
+     * The hands read since the last chunk was analyzed and the input lines they were read from
+     */
+    private static final class Chunk {
+
+        private List<CardSet> hands = new ArrayList<>(CHUNK_HANDS);
+        private final long[] lineNumbers = new long[CHUNK_HANDS];
+
+        private void add(@NotNull CardSet hand, long lineNumber) {
+            this.lineNumbers[this.hands.size()] = lineNumber;
+            this.hands.add(hand);
+        }
+
+        private int size() {
+            return this.hands.size();
+        }
+
+        /**
+         * Returns the hands in this chunk and starts a new chunk
+         */
+        private @NotNull List<CardSet> takeHands() {
+            final List<CardSet> hands = this.hands;
+            this.hands = new ArrayList<>(CHUNK_HANDS);
+            return hands;
+        }
+
+        /**
+         * Returns a copy of the first line numbers of this chunk
+         */
+        private long @NotNull [] takeLineNumbers(int count) {
+            return Arrays.copyOf(this.lineNumbers, count);
+        }
+    }
+
+}
@@ -0,0 +1,270 @@
+package main;
+
+import card.CardSet;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds crib tables where the dealer and the pone each discard as well as they can against the
+ * other's discards, by iterating best responses
+ *
+ * <p> {@link CribTableGenerator} assumes the opponent drops the cards that are best for their hand
+ * alone. A real dealer also prefers to drop cards that score in their own crib, and a real pone
+ * prefers cards that score badly. Given a crib table, each side's best discard from any 6-card hand
+ * is the one with the highest average hand points plus the crib points of the discard (minus them
+ * for the pone). Each iteration estimates a new table with {@link CribTableGenerator} in which
+ * every simulated opponent plays that best response to the current table, so the dealer column
+ * comes from the pone's policy and the pone column from the dealer's. The first table comes from
+ * the hand-only policy
+ *
+ * <p> Every iteration uses the same seed, so every table is estimated from the same deals and only
+ * changes where a simulated opponent's discard changes. Jumping straight to the best response
+ * makes discards near a tie flip back and forth, so each iteration moves the table halfway to it.
+ * The iterations stop once the best response to the table changes it by at most the tolerance
+ * (by default about the standard error of the estimates), which means neither side can gain by
+ * changing their policy. Each iteration is spread across every core on the common
+ * {@code ForkJoinPool}
+ *
+ * <p> After every iteration the table is written to a checkpoint file with every digit, so an
+ * interrupted run resumes from its last iteration with the same result it would have had. The
+ * {@code crib-equilibrium} Maven profile runs this until it converges and regenerates
+ * {@code src/main/resources/crib-table.csv}:
+ *
+ * <pre>mvn -P crib-equilibrium process-classes</pre>
+ *
+ * @author Reid Moffat
+ */
+public final class CribEquilibrium {
+
+    /**
+     * Default limit on the number of iterations
+     */
+    static final int DEFAULT_MAX_ITERATIONS = 30;
+
+    /**
+     * Default largest change, in points, that the best response may make to a converged table
+     */
+    static final double DEFAULT_TOLERANCE = 0.01;
+
+    /**
+     * How far each iteration moves the table towards the best response
+     */
+    static final double STEP = 0.5;
+
+    /**
+     * The comment line of a checkpoint file
+     */
+    private static final Pattern CHECKPOINT = Pattern.compile(
+            "# Equilibrium iteration (\\d+) with (\\d+) samples per class and seed (-?\\d+)");
+
+    /**
+     * This class only has static methods and should not be instantiated
+     */
+    private CribEquilibrium() {
+    }
+
+    /**
+     * Runs the iterations, resuming from a checkpoint if it exists, and writes the final table
+     *
+     * @param args the path of the table to write and of the checkpoint file, then optionally the
+     *             number of samples for each class, the random seed and the maximum number of
+     *             iterations
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String @NotNull [] args) throws IOException {
+        if (args.length < 2 || args.length > 5) {
+            System.err.println("Usage: CribEquilibrium <output file> <checkpoint file> [samples] [seed] "
+                    + "[max iterations]");
+            System.exit(1);
+        }
+
+        final long start = System.nanoTime();
+        final Path file = Paths.get(args[0]);
+        final int samples = args.length > 2 ? Integer.parseInt(args[2]) : CribTableGenerator.DEFAULT_SAMPLES;
+        final long seed = args.length > 3 ? Long.parseLong(args[3]) : CribTableGenerator.DEFAULT_SEED;
+        final int maxIterations = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_MAX_ITERATIONS;
+
+        final CribTable table = solve(ScoreTable.generate(), samples, seed, maxIterations, DEFAULT_TOLERANCE,
+                Paths.get(args[1]), System.out);
+        CribTableGenerator.write(table, file, "Generated by CribEquilibrium with " + samples
+                + " samples per class and seed " + seed);
+        System.out.printf("Wrote %d crib classes to %s in %.1f s%n", CribTable.CLASSES, file,
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Iterates best responses until the table converges or the iteration limit is reached
+     *
+     * @param scoreTable    scores for hands and cribs
+     * @param samples       the number of deals to simulate for each class in each iteration
+     * @param seed          the seed of the random streams, the same for every iteration
+     * @param maxIterations the iteration to stop at if the table has not converged
+     * @param tolerance     the largest change, in points, that the best response may make to a
+     *                      converged table
+     * @param checkpoint    the file to resume from if it exists, and to write after every iteration
+     * @param log           stream to print the progress of each iteration to
+     * @return the last table
+     * @throws IOException              if the checkpoint cannot be read or written
+     * @throws IllegalArgumentException if {@code samples} is not positive, or the checkpoint is
+     *                                  invalid or was made with a different number of samples or seed
+     */
+    static @NotNull CribTable solve(@NotNull ScoreTable scoreTable, int samples, long seed, int maxIterations,
+                                    double tolerance, @NotNull Path checkpoint, @NotNull PrintStream log)
+            throws IOException {
+        CribTable table;
+        int iteration;
+        if (Files.exists(checkpoint)) {
+            final Matcher header = readHeader(checkpoint);
+            if (Integer.parseInt(header.group(2)) != samples || Long.parseLong(header.group(3)) != seed) {
+                throw new IllegalArgumentException("Checkpoint " + checkpoint + " was made with "
+                        + header.group(2) + " samples and seed " + header.group(3));
+            }
+            try (InputStream stream = Files.newInputStream(checkpoint)) {
+                table = CribTable.read(stream);
+            }
+            iteration = Integer.parseInt(header.group(1));
+            log.printf("Resuming from iteration %d of %s%n", iteration, checkpoint);
+        } else {
+            table = CribTableGenerator.generate(samples, seed, scoreTable);
+            iteration = 0;
+            writeCheckpoint(table, checkpoint, iteration, samples, seed);
+        }
+
+        while (true) {
+            final long start = System.nanoTime();
+            final CribTable response = iterate(table, samples, seed, scoreTable);
+            final double change = maxChange(table, response);
+            log.printf(Locale.ROOT, "Iteration %d: best response changes the table by up to %.5f in %.1f s%n",
+                    iteration, change, (System.nanoTime() - start) / 1e9);
+            if (change <= tolerance) {
+                return table;
+            }
+            if (iteration >= maxIterations) {
+                log.printf("Stopped after %d iterations without converging%n", iteration);
+                return table;
+            }
+
+            table = step(table, response);
+            writeCheckpoint(table, checkpoint, ++iteration, samples, seed);
+        }
+    }
+
+    /**
+     * Estimates the crib table when both players play their best response to a table
+     *
+     * @param table      the table the simulated opponents respond to
+     * @param samples    the number of deals to simulate for each class
+     * @param seed       the seed of the random streams
+     * @param scoreTable scores for hands and cribs
+     * @return the new table
+     */
+    static @NotNull CribTable iterate(@NotNull CribTable table, int samples, long seed,
+                                      @NotNull ScoreTable scoreTable) {
+        return CribTableGenerator.generate(samples, seed, scoreTable,
+                (dealt, dealer) -> bestResponse(dealt, dealer, table, scoreTable));
+    }
+
+    /**
+     * Returns the two cards to drop from a 6-card hand that give the highest average points,
+     * counting the expected crib points of the discard from a crib table
+     *
+     * @param dealt      bitmask of the six cards dealt
+     * @param dealer     true if the player is the dealer (the crib is theirs)
+     * @param table      expected crib points of each discard
+     * @param scoreTable scores for the kept hands
+     * @return bitmask of the two cards to drop; ties go to the first pair in deck order
+     */
+    static long bestResponse(long dealt, boolean dealer, @NotNull CribTable table, @NotNull ScoreTable scoreTable) {
+        final long starters = ~dealt & CardSet.DECK_MASK;
+        final int count = Long.bitCount(starters);
+        long best = 0;
+        double bestPoints = Double.NEGATIVE_INFINITY;
+        for (long first = dealt; first != 0; first &= first - 1) {
+            final long firstBit = first & -first;
+            for (long second = first & (first - 1); second != 0; second &= second - 1) {
+                final long discards = firstBit | (second & -second);
+                final double crib = table.classPoints(CribTable.pairClass(discards), dealer);
+                final double points = (double) scoreTable.total(dealt & ~discards, starters) / count
+                        + (dealer ? crib : -crib);
+                if (points > bestPoints) {
+                    bestPoints = points;
+                    best = discards;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the table {@link #STEP} of the way from one table to another
+     *
+     * @param from the current table
+     * @param to   the best response to it
+     * @return the next table
+     */
+    static @NotNull CribTable step(@NotNull CribTable from, @NotNull CribTable to) {
+        final double[] dealer = new double[CribTable.CLASSES], pone = new double[CribTable.CLASSES];
+        for (int pairClass = 0; pairClass < CribTable.CLASSES; ++pairClass) {
+            dealer[pairClass] = from.classPoints(pairClass, true)
+                    + STEP * (to.classPoints(pairClass, true) - from.classPoints(pairClass, true));
+            pone[pairClass] = from.classPoints(pairClass, false)
+                    + STEP * (to.classPoints(pairClass, false) - from.classPoints(pairClass, false));
+        }
+        return new CribTable(dealer, pone);
+    }
+
+    /**
+     * Returns the largest difference between two tables
+     *
+     * @param first  a table
+     * @param second another table
+     * @return the largest absolute difference in expected points over every class and role
+     */
+    static double maxChange(@NotNull CribTable first, @NotNull CribTable second) {
+        double change = 0;
+        for (int pairClass = 0; pairClass < CribTable.CLASSES; ++pairClass) {
+            for (boolean dealer : new boolean[]{true, false}) {
+                change = Math.max(change, Math.abs(first.classPoints(pairClass, dealer)
+                        - second.classPoints(pairClass, dealer)));
+            }
+        }
+        return change;
+    }
+
+    /**
+     * Writes a table and the state of the iterations to a checkpoint file
+     */
+    private static void writeCheckpoint(@NotNull CribTable table, @NotNull Path checkpoint, int iteration,
+                                        int samples, long seed) throws IOException {
+        CribTableGenerator.write(table, checkpoint, String.format(Locale.ROOT,
+                "Equilibrium iteration %d with %d samples per class and seed %d", iteration, samples, seed), true);
+    }
+
+    /**
+     * Reads and parses the comment line of a checkpoint file
+     */
+    private static @NotNull Matcher readHeader(@NotNull Path checkpoint) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(checkpoint, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null && line.startsWith("#")) {
+                final Matcher matcher = CHECKPOINT.matcher(line);
+                if (matcher.matches()) {
+                    return matcher;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Not a crib equilibrium checkpoint: " + checkpoint);
+    }
+
+}
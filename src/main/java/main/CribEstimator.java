@@ -0,0 +1,386 @@
+package main;
+
+import card.CardSet;
+import card.Deck;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Estimates the crib points of each discard from one dealt hand by simulation, spending samples
+ * only on the discards that could still be the best
+ *
+ * <p> A {@link CribTable} gives the average crib points of a pair of discards over every dealt
+ * hand. This class estimates them for one hand: each sample deals the opponent six of the 46
+ * unseen cards, has the opponent drop their {@link ScoreTable#bestDiscard(long) best discard}, and
+ * scores the crib against each of the 40 cards left as the starter
+ *
+ * <p> The 15 discards are sampled in rounds. Each discard keeps a running mean and variance of its
+ * samples (Welford's method) and a confidence interval of {@code z} standard errors. After every
+ * round the discard with the highest net points (hand average plus or minus the crib) leads, and any
+ * discard whose interval lies entirely below the leader's is eliminated. A discard also stops once
+ * its interval is narrower than the tolerance or it reaches the sample limit, so the work for one
+ * hand is bounded by {@code 15 * maxSamples} samples
+ *
+ * <p> Each discard has its own random stream, split in a fixed order from a stream seeded by the
+ * estimator's seed and the dealt hand, and its samples in a round run as one task on the executor.
+ * The same hand therefore always gives the same estimates, whatever the number of threads
+ *
+ * @author Reid Moffat
+ */
+public final class CribEstimator {
+
+    /**
+     * Default width of the confidence intervals, in standard errors
+     */
+    static final double DEFAULT_Z = 3.0;
+
+    /**
+     * Default number of samples each discard draws per round
+     */
+    static final int DEFAULT_BATCH = 64;
+
+    /**
+     * Default limit on the samples for one discard
+     */
+    static final int DEFAULT_MAX_SAMPLES = 4096;
+
+    /**
+     * Default half-width of a confidence interval, in points, below which a discard stops sampling
+     */
+    static final double DEFAULT_TOLERANCE = 0.05;
+
+    /**
+     * Number of starters each crib is scored with: every card not dealt to either player
+     */
+    private static final int STARTERS = 40;
+
+    /**
+     * Scores cribs and chooses the opponent's discards
+     */
+    private final ScoreTable scoreTable;
+
+    /**
+     * Runs the sampling tasks
+     */
+    private final Executor executor;
+
+    /**
+     * Seed of the random streams, combined with each dealt hand
+     */
+    private final long seed;
+
+    /**
+     * Half-width of the confidence intervals, in standard errors
+     */
+    private final double z;
+
+    /**
+     * Number of samples each discard draws per round
+     */
+    private final int batch;
+
+    /**
+     * Limit on the samples for one discard
+     */
+    private final int maxSamples;
+
+    /**
+     * Half-width of a confidence interval, in points, below which a discard stops sampling
+     */
+    private final double tolerance;
+
+    /**
+     * Initializes this estimator with the default settings, running on the common
+     * {@code ForkJoinPool}
+     *
+     * @param scoreTable scores for cribs and the opponent's discards
+     */
+    public CribEstimator(@NotNull ScoreTable scoreTable) {
+        this(scoreTable, ForkJoinPool.commonPool(), 0, DEFAULT_Z, DEFAULT_BATCH, DEFAULT_MAX_SAMPLES,
+                DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * Initializes this estimator
+     *
+     * @param scoreTable scores for cribs and the opponent's discards
+     * @param executor   the executor to run sampling tasks on
+     * @param seed       seed of the random streams
+     * @param z          half-width of the confidence intervals, in standard errors
+     * @param batch      number of samples each discard draws per round
+     * @param maxSamples limit on the samples for one discard
+     * @param tolerance  half-width of a confidence interval, in points, below which a discard stops
+     *                   sampling
+     * @throws IllegalArgumentException if {@code z} or {@code tolerance} is negative, {@code batch}
+     *                                  is less than 2 or {@code maxSamples} is less than
+     *                                  {@code batch}
+     */
+    public CribEstimator(@NotNull ScoreTable scoreTable, @NotNull Executor executor, long seed, double z,
+                         int batch, int maxSamples, double tolerance) {
+        if (!(z >= 0) || !(tolerance >= 0)) {
+            throw new IllegalArgumentException("Interval width and tolerance must not be negative");
+        }
+        if (batch < 2 || maxSamples < batch) {
+            throw new IllegalArgumentException("Need at least 2 samples per round and a limit of at least "
+                    + "one round: " + batch + ", " + maxSamples);
+        }
+        this.scoreTable = scoreTable;
+        this.executor = executor;
+        this.seed = seed;
+        this.z = z;
+        this.batch = batch;
+        this.maxSamples = maxSamples;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Estimates the crib points of each discard from a 6-card hand and ranks the discards by their
+     * net points
+     *
+     * @param handResults the result of {@link DiscardAnalyzer#analyze(CardSet)} for a 6-card hand
+     * @param dealer      true if the player is the dealer (the crib is theirs)
+     * @return an estimate for each discard, sorted from the highest to the lowest net points
+     * @throws IllegalArgumentException if the results are not the 15 discards of one 6-card hand
+     */
+    public @NotNull List<Estimate> estimate(@NotNull List<DiscardResult> handResults, boolean dealer) {
+        if (handResults.size() != 15) {
+            throw new IllegalArgumentException("Crib estimates need the 15 discards of a 6-card hand, not "
+                    + handResults.size());
+        }
+        final long dealt = handResults.get(0).getDiscardBits() | handResults.get(0).getKeepBits();
+        for (DiscardResult result : handResults) {
+            if ((result.getDiscardBits() | result.getKeepBits()) != dealt
+                    || Long.bitCount(result.getDiscardBits()) != 2) {
+                throw new IllegalArgumentException("Results are not from the same 6-card hand");
+            }
+        }
+
+        final SplittableRandom root = new SplittableRandom(this.seed ^ dealt);
+        final List<Candidate> candidates = new ArrayList<>(handResults.size());
+        for (DiscardResult result : handResults) {
+            candidates.add(new Candidate(result, dealt, dealer ? 1 : -1, root.split()));
+        }
+
+        while (true) {
+            final List<CompletableFuture<Void>> tasks = new ArrayList<>(candidates.size());
+            for (Candidate candidate : candidates) {
+                if (candidate.sampling) {
+                    tasks.add(CompletableFuture.runAsync(() -> sample(candidate, dealt), this.executor));
+                }
+            }
+            try {
+                tasks.forEach(CompletableFuture::join);
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+            if (!update(candidates)) {
+                break;
+            }
+        }
+
+        final List<Estimate> estimates = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            estimates.add(new Estimate(candidate.result.withCribPoints(candidate.sign * candidate.mean),
+                    candidate.standardError(), candidate.samples, candidate.eliminated));
+        }
+        estimates.sort((a, b) -> DiscardAnalyzer.BY_NET_MEAN.compare(a.result, b.result));
+        return estimates;
+    }
+
+    /**
+     * Draws one round of samples for a discard
+     */
+    private void sample(@NotNull Candidate candidate, long dealt) {
+        final Deck deck = candidate.deck;
+        final int samples = Math.min(this.batch, this.maxSamples - candidate.samples);
+        for (int sample = 0; sample < samples; ++sample) {
+            // Deal the opponent's six cards from the unseen cards
+            deck.reset();
+            final long opponent = deck.deal(6);
+
+            final long crib = candidate.result.getDiscardBits() | this.scoreTable.bestDiscard(opponent);
+            candidate.add((double) this.scoreTable.cribTotal(crib, CardSet.DECK_MASK & ~dealt & ~opponent)
+                    / STARTERS);
+        }
+    }
+
+    /**
+     * Eliminates the discards that are behind the leader and stops the discards that are precise
+     * enough or out of samples
+     *
+     * @return true if another round is needed
+     */
+    private boolean update(@NotNull List<Candidate> candidates) {
+        Candidate leader = null;
+        for (Candidate candidate : candidates) {
+            if (!candidate.eliminated && (leader == null || candidate.netMean() > leader.netMean())) {
+                leader = candidate;
+            }
+        }
+
+        final double leaderLower = leader.netMean() - this.z * leader.standardError();
+        boolean sampling = false;
+        int contenders = 0;
+        for (Candidate candidate : candidates) {
+            if (candidate.eliminated) {
+                continue;
+            }
+            final double halfWidth = this.z * candidate.standardError();
+            if (candidate != leader && candidate.netMean() + halfWidth < leaderLower) {
+                candidate.eliminated = true;
+                candidate.sampling = false;
+                continue;
+            }
+            ++contenders;
+            if (candidate.samples >= this.maxSamples || halfWidth < this.tolerance) {
+                candidate.sampling = false;
+            }
+            sampling |= candidate.sampling;
+        }
+        return sampling && contenders > 1;
+    }
+
+    /**
+     * The running statistics of one discard while it is sampled
+     */
+    private static final class Candidate {
+
+        /**
+         * The discard and the scores of the kept hand
+         */
+        final DiscardResult result;
+
+        /**
+         * 1 if the crib counts for the player, -1 if it counts against them
+         */
+        final int sign;
+
+        /**
+         * The 46 cards not in the dealt hand, shuffled with this discard's random stream
+         */
+        final Deck deck;
+
+        /**
+         * Number of samples, their mean and the sum of squared differences from the mean
+         */
+        int samples;
+        double mean, m2;
+
+        /**
+         * If this discard is still drawing samples, and if it has been eliminated
+         */
+        boolean sampling = true, eliminated;
+
+        Candidate(@NotNull DiscardResult result, long dealt, int sign, @NotNull SplittableRandom random) {
+            this.result = result;
+            this.sign = sign;
+            this.deck = new Deck(random, dealt);
+        }
+
+        /**
+         * Adds a sample with Welford's update
+         */
+        void add(double sample) {
+            ++this.samples;
+            final double delta = sample - this.mean;
+            this.mean += delta / this.samples;
+            this.m2 += delta * (sample - this.mean);
+        }
+
+        double standardError() {
+            return Math.sqrt(this.m2 / (this.samples - 1) / this.samples);
+        }
+
+        double netMean() {
+            return this.result.getMean() + this.sign * this.mean;
+        }
+    }
+
+    /**
+     * The estimated crib points of one discard
+     */
+    public static final class Estimate {
+
+        /**
+         * The discard with its estimated crib points
+         */
+        private final DiscardResult result;
+
+        /**
+         * Standard error of the estimated crib points
+         */
+        private final double standardError;
+
+        /**
+         * Number of samples drawn
+         */
+        private final int samples;
+
+        /**
+         * If sampling stopped because the discard was behind the leader
+         */
+        private final boolean eliminated;
+
+        Estimate(@NotNull DiscardResult result, double standardError, int samples, boolean eliminated) {
+            this.result = result;
+            this.standardError = standardError;
+            this.samples = samples;
+            this.eliminated = eliminated;
+        }
+
+        /**
+         * Returns the discard, with its {@link DiscardResult#getCribPoints() crib points} set to the
+         * estimate
+         *
+         * @return the result for this discard
+         */
+        public @NotNull DiscardResult getResult() {
+            return this.result;
+        }
+
+        /**
+         * Returns the standard error of the estimated crib points
+         *
+         * @return the standard error, in points
+         */
+        public double getStandardError() {
+            return this.standardError;
+        }
+
+        /**
+         * Returns the number of simulated deals the estimate is based on
+         *
+         * @return the number of samples
+         */
+        public int getSamples() {
+            return this.samples;
+        }
+
+        /**
+         * Returns if this discard stopped sampling because it was confidently behind the leader
+         *
+         * @return true if this discard was eliminated
+         */
+        public boolean isEliminated() {
+            return this.eliminated;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s crib %.3f +/- %.3f (%d samples%s)", this.result.getDiscards(),
+                    this.result.getCribPoints(), this.standardError, this.samples,
+                    this.eliminated ? ", eliminated" : "");
+        }
+    }
+
+}
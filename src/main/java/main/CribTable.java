@@ -0,0 +1,212 @@
+package main;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The expected points of the crib for each pair of cards a player can drop into it
+ *
+ * <p> In a 2-player game each player drops two cards, and the crib is those four cards scored with
+ * the starter. The crib is scored for the dealer, so the two cards a player drops are worth their
+ * expected crib points to the dealer and the same amount against the pone (the other player). The
+ * expectation depends on the cards the opponent drops, so it is stored separately for the dealer's
+ * and the pone's discards
+ *
+ * <p> Crib points only depend on suits through flushes and nobs, so pairs are grouped into 169
+ * classes: the 13 pairs of equal ranks, and the 78 pairs of different ranks that are either suited
+ * (the same suit) or offsuit. The default table is estimated by {@link CribEquilibrium} and read from
+ * the {@value #RESOURCE} resource, a CSV file with one row per class:
+ *
+ * <pre>first,second,suited,dealer,pone
+ * 5,5,false,8.8239,9.2476</pre>
+ *
+ * @author Reid Moffat
+ */
+public final class CribTable {
+
+    /**
+     * Name of the resource with the default table
+     */
+    static final String RESOURCE = "/crib-table.csv";
+
+    /**
+     * Number of classes of discarded pairs
+     */
+    static final int CLASSES = 169;
+
+    /**
+     * The rank names used in the resource, indexed by rank
+     */
+    static final List<String> RANK_NAMES = Arrays.asList("A", "2", "3", "4", "5", "6", "7", "8", "9", "10",
+            "J", "Q", "K");
+
+    /**
+     * Expected crib points for each class when the dealer drops the pair
+     */
+    private final double[] dealer;
+
+    /**
+     * Expected crib points for each class when the pone drops the pair
+     */
+    private final double[] pone;
+
+    /**
+     * Initializes this table from the expected points of each class
+     *
+     * @param dealer expected crib points for each class when the dealer drops the pair
+     * @param pone   expected crib points for each class when the pone drops the pair
+     */
+    CribTable(double @NotNull [] dealer, double @NotNull [] pone) {
+        if (dealer.length != CLASSES || pone.length != CLASSES) {
+            throw new IllegalArgumentException("Crib table must have " + CLASSES + " classes");
+        }
+        this.dealer = dealer.clone();
+        this.pone = pone.clone();
+    }
+
+    /**
+     * Returns the table in the {@value #RESOURCE} resource, which is loaded once
+     *
+     * @return the default crib table
+     * @throws IllegalStateException if the resource is missing or invalid
+     */
+    public static @NotNull CribTable getDefault() {
+        return DefaultHolder.TABLE;
+    }
+
+    /**
+     * Holds the default table so the resource is read the first time it is used
+     */
+    private static final class DefaultHolder {
+        private static final CribTable TABLE = loadDefault();
+    }
+
+    /**
+     * Reads the default table from its resource
+     */
+    private static @NotNull CribTable loadDefault() {
+        try (InputStream stream = CribTable.class.getResourceAsStream(RESOURCE)) {
+            if (stream == null) {
+                throw new IllegalStateException("Missing crib table resource " + RESOURCE);
+            }
+            return read(stream);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read crib table resource " + RESOURCE, e);
+        }
+    }
+
+    /**
+     * Reads a crib table in CSV format
+     *
+     * <p> Blank lines, lines starting with '#' and the header row are skipped. Every class must
+     * appear exactly once
+     *
+     * @param stream the CSV file
+     * @return the table in the file
+     * @throws IOException              if the stream cannot be read
+     * @throws IllegalArgumentException if the file is not a valid crib table
+     */
+    static @NotNull CribTable read(@NotNull InputStream stream) throws IOException {
+        final double[] dealer = new double[CLASSES], pone = new double[CLASSES];
+        final boolean[] seen = new boolean[CLASSES];
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#") || line.startsWith("first,")) {
+                continue;
+            }
+            final String[] columns = line.split(",");
+            final int first = RANK_NAMES.indexOf(columns[0]);
+            final int second = columns.length == 5 ? RANK_NAMES.indexOf(columns[1]) : -1;
+            if (first < 0 || second < 0 || (first == second && columns[2].equals("true"))) {
+                throw new IllegalArgumentException("Invalid crib table row: " + line);
+            }
+
+            final int pairClass = pairClass(first, second, Boolean.parseBoolean(columns[2]));
+            if (seen[pairClass]) {
+                throw new IllegalArgumentException("Duplicate crib table row: " + line);
+            }
+            seen[pairClass] = true;
+            try {
+                dealer[pairClass] = Double.parseDouble(columns[3]);
+                pone[pairClass] = Double.parseDouble(columns[4]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid crib table row: " + line, e);
+            }
+        }
+
+        for (int pairClass = 0; pairClass < CLASSES; ++pairClass) {
+            if (!seen[pairClass]) {
+                throw new IllegalArgumentException("Crib table is missing class " + pairClass);
+            }
+        }
+        return new CribTable(dealer, pone);
+    }
+
+    /**
+     * Returns the class of a pair of ranks
+     *
+     * <p> Classes are numbered like a 13 by 13 grid: row {@code i} and column {@code j} is the
+     * class {@code 13 * i + j}. Equal ranks are on the diagonal, suited pairs above it (the lower
+     * rank is the row) and offsuit pairs below it
+     *
+     * @param rank0  rank of one card (0 for ace to 12 for king)
+     * @param rank1  rank of the other card
+     * @param suited true if both cards have the same suit
+     * @return the class of the pair, from 0 to 168
+     */
+    static int pairClass(int rank0, int rank1, boolean suited) {
+        final int low = Math.min(rank0, rank1), high = Math.max(rank0, rank1);
+        return suited ? 13 * low + high : 13 * high + low;
+    }
+
+    /**
+     * Returns the class of a pair of cards
+     *
+     * @param discards bitmask of two cards
+     * @return the class of the pair, from 0 to 168
+     */
+    static int pairClass(long discards) {
+        final int card0 = Long.numberOfTrailingZeros(discards);
+        final int card1 = 63 - Long.numberOfLeadingZeros(discards);
+        return pairClass(card0 % 13, card1 % 13, card0 / 13 == card1 / 13);
+    }
+
+    /**
+     * Returns the expected points of the crib when a player drops two cards into it
+     *
+     * @param discards bitmask of the two cards dropped
+     * @param dealer   true if the player dropping the cards is the dealer (owns the crib)
+     * @return the expected crib points, which count for the dealer and against the pone
+     * @throws IllegalArgumentException if {@code discards} is not two cards
+     */
+    public double expectedPoints(long discards, boolean dealer) {
+        if (Long.bitCount(discards) != 2) {
+            throw new IllegalArgumentException("Crib table only covers two discarded cards: "
+                    + Long.toHexString(discards));
+        }
+        return (dealer ? this.dealer : this.pone)[pairClass(discards)];
+    }
+
+    /**
+     * Returns the expected crib points of a class
+     *
+     * @param pairClass the class of a pair, as returned by {@link #pairClass(int, int, boolean)}
+     * @param dealer    true for the dealer's discards, false for the pone's
+     * @return the expected crib points
+     */
+    double classPoints(int pairClass, boolean dealer) {
+        return (dealer ? this.dealer : this.pone)[pairClass];
+    }
+
+}
@@ -0,0 +1,239 @@
+package main;
+
+import card.CardSet;
+import card.Deck;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Estimates a {@link CribTable} by simulating random deals
+ *
+ * <p> For each class of discarded pair, and once for the dealer and once for the pone, each sample
+ * deals the rest of the player's hand and six cards to the opponent from a shuffled deck. The
+ * opponent drops the two cards that leave the hand with the highest average points (as
+ * {@link DiscardAnalyzer} would suggest), and the crib is scored with the 5-card flush rule
+ * against each of the 40 cards left as the starter, rather than one random starter. The
+ * samples for each class run as separate tasks on the common {@code ForkJoinPool}, each with its own
+ * random stream split from one seed, so the same seed always gives the same table
+ *
+ * <p> The opponent's choice does not depend on who owns the crib, so the dealer and pone columns
+ * of a table from {@link #generate(int, long, ScoreTable)} are two independent estimates of the
+ * same value. {@link CribEquilibrium} runs the same simulation with opponents that count the crib,
+ * which makes the columns differ, and writes the default resource. The {@code crib-table} Maven
+ * profile writes the hand-only table to {@code target/crib-table.csv}:
+ *
+ * <pre>mvn -P crib-table process-classes</pre>
+ *
+ * @author Reid Moffat
+ */
+public final class CribTableGenerator {
+
+    /**
+     * Default number of samples for each class and role
+     */
+    static final int DEFAULT_SAMPLES = 50_000;
+
+    /**
+     * Default seed of the random streams
+     */
+    static final long DEFAULT_SEED = 0x43524942L;
+
+    /**
+     * Number of starters each crib is scored with: every card not dealt to either player
+     */
+    private static final int STARTERS = 40;
+
+    /**
+     * This class only has static methods and should not be instantiated
+     */
+    private CribTableGenerator() {
+    }
+
+    /**
+     * Generates a crib table and writes it to a CSV file
+     *
+     * @param args the path of the file to write, then optionally the number of samples for each
+     *             class and the random seed
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String @NotNull [] args) throws IOException {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("Usage: CribTableGenerator <output file> [samples] [seed]");
+            System.exit(1);
+        }
+
+        final long start = System.nanoTime();
+        final Path file = Paths.get(args[0]);
+        final int samples = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SAMPLES;
+        final long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+        write(generate(samples, seed, ScoreTable.generate()), file,
+                "Generated by CribTableGenerator with " + samples + " samples per class and seed " + seed);
+        System.out.printf("Wrote %d crib classes to %s in %.1f s%n", CribTable.CLASSES, file,
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Estimates the expected crib points of every class of discarded pair, with an opponent who
+     * drops the two cards that leave their hand with the highest average points
+     *
+     * @param samples    the number of deals to simulate for each class, for the dealer and the pone
+     * @param seed       the seed of the random streams
+     * @param scoreTable scores for choosing the opponent's discards
+     * @return the estimated table
+     * @throws IllegalArgumentException if {@code samples} is not positive
+     */
+    static @NotNull CribTable generate(int samples, long seed, @NotNull ScoreTable scoreTable) {
+        return generate(samples, seed, scoreTable, (dealt, dealer) -> scoreTable.bestDiscard(dealt));
+    }
+
+    /**
+     * Estimates the expected crib points of every class of discarded pair, with the opponent's
+     * discards chosen by a policy
+     *
+     * <p> The same seed deals the same hands whatever the policy, so two tables generated with one
+     * seed only differ where the policies drop different cards
+     *
+     * @param samples    the number of deals to simulate for each class, for the dealer and the pone
+     * @param seed       the seed of the random streams
+     * @param scoreTable scores for the crib
+     * @param opponent   chooses the opponent's discards
+     * @return the estimated table
+     * @throws IllegalArgumentException if {@code samples} is not positive
+     */
+    static @NotNull CribTable generate(int samples, long seed, @NotNull ScoreTable scoreTable,
+                                       @NotNull Opponent opponent) {
+        if (samples <= 0) {
+            throw new IllegalArgumentException("Number of samples must be positive: " + samples);
+        }
+
+        // Split every stream up front so the result does not depend on the order tasks run in
+        final SplittableRandom root = new SplittableRandom(seed);
+        final SplittableRandom[] randoms = new SplittableRandom[2 * CribTable.CLASSES];
+        for (int task = 0; task < randoms.length; ++task) {
+            randoms[task] = root.split();
+        }
+
+        // The first half of the tasks are the dealer's discards, so the opponent is the pone
+        final double[] expected = new double[2 * CribTable.CLASSES];
+        IntStream.range(0, expected.length).parallel().forEach(task ->
+                expected[task] = estimate(task % CribTable.CLASSES, samples, randoms[task], scoreTable,
+                        opponent, task >= CribTable.CLASSES));
+        return new CribTable(Arrays.copyOf(expected, CribTable.CLASSES),
+                Arrays.copyOfRange(expected, CribTable.CLASSES, expected.length));
+    }
+
+    /**
+     * Returns the deck indices of a pair of cards in a class: clubs for the lower rank (or both
+     * ranks if suited), and diamonds for the other card otherwise
+     *
+     * @param pairClass a class from 0 to 168
+     * @return the deck indices of the two cards
+     */
+    static int @NotNull [] representative(int pairClass) {
+        final int row = pairClass / 13, column = pairClass % 13;
+        if (row < column) {
+            return new int[]{row, column};
+        }
+        return new int[]{column, 13 + row};
+    }
+
+    /**
+     * Estimates the expected crib points of one class by simulating random deals
+     */
+    private static double estimate(int pairClass, int samples, @NotNull SplittableRandom random,
+                                   @NotNull ScoreTable scoreTable, @NotNull Opponent opponentPolicy,
+                                   boolean opponentDealer) {
+        final int[] pair = representative(pairClass);
+        final long pairBits = 1L << pair[0] | 1L << pair[1];
+
+        // The cards that can be dealt
+        final Deck deck = new Deck(random, pairBits);
+
+        long total = 0;
+        for (int sample = 0; sample < samples; ++sample) {
+            // Deal the rest of the player's hand (4) and the opponent's hand (6)
+            deck.reset();
+            final long hand = pairBits | deck.deal(4), opponent = deck.deal(6);
+            final long crib = pairBits | opponentPolicy.discard(opponent, opponentDealer);
+            total += scoreTable.cribTotal(crib, CardSet.DECK_MASK & ~hand & ~opponent);
+        }
+        return (double) total / ((long) samples * STARTERS);
+    }
+
+    /**
+     * Writes a crib table to a CSV file in the format read by {@link CribTable}, with the expected
+     * points rounded to 4 decimal places, replacing the file if it exists
+     *
+     * @param table   the table to write
+     * @param file    the file to write to
+     * @param comment a line describing how the table was made
+     * @throws IOException if the file cannot be written
+     */
+    static void write(@NotNull CribTable table, @NotNull Path file, @NotNull String comment) throws IOException {
+        write(table, file, comment, false);
+    }
+
+    /**
+     * Writes a crib table to a CSV file in the format read by {@link CribTable}, replacing it if
+     * it exists
+     *
+     * @param table   the table to write
+     * @param file    the file to write to
+     * @param comment a line describing how the table was made
+     * @param exact   true to write every digit of the expected points, so reading the file gives
+     *                back exactly the same table, or false to round them to 4 decimal places
+     * @throws IOException if the file cannot be written
+     */
+    static void write(@NotNull CribTable table, @NotNull Path file, @NotNull String comment, boolean exact)
+            throws IOException {
+        final Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        final Path temporary = Files.createTempFile(directory, "crib-table", ".tmp");
+
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(temporary, StandardCharsets.UTF_8))) {
+            writer.write("# Expected crib points for each pair of discarded ranks\n# " + comment + "\n");
+            writer.write("first,second,suited,dealer,pone\n");
+            for (int pairClass = 0; pairClass < CribTable.CLASSES; ++pairClass) {
+                final int row = pairClass / 13, column = pairClass % 13;
+                final double dealer = table.classPoints(pairClass, true), pone = table.classPoints(pairClass, false);
+                writer.write(String.format(Locale.ROOT, "%s,%s,%b,%s,%s\n",
+                        CribTable.RANK_NAMES.get(Math.max(row, column)), CribTable.RANK_NAMES.get(Math.min(row, column)),
+                        row < column, exact ? Double.toString(dealer) : String.format(Locale.ROOT, "%.4f", dealer),
+                        exact ? Double.toString(pone) : String.format(Locale.ROOT, "%.4f", pone)));
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Chooses the two cards an opponent drops into the crib
+     */
+    @FunctionalInterface
+    interface Opponent {
+
+        /**
+         * Returns the cards the opponent drops from their hand
+         *
+         * @param dealt  bitmask of the six cards dealt to the opponent
+         * @param dealer true if the opponent is the dealer (owns the crib)
+         * @return bitmask of the two cards dropped
+         */
+        long discard(long dealt, boolean dealer);
+    }
+
+}
@@ -1,38 +1,79 @@
 package main;
 
 import card.Card;
+import card.CardSet;
 import card.Rank;
-import card.Suit;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * The class {@code CribbageHand} represents a player's hand in the game of cribbage
  *
- * <p> Initializing this class requires a {@code HashSet} of {@code Card} objects. The hand's
- * {@code Cards} can be modified using the methods {@code add} and {@code remove}
+ * <p> Initializing this class requires a {@code CardSet} (or {@code HashSet}) of {@code Card}
+ * objects. The hand's {@code Cards} can be modified using the methods {@code add} and
+ * {@code remove}
  *
  * <p> The total points obtained from this cribbage hand (in the counting phase) can be
  * calculated by passing a starter {@code Card} object through {@code totalPoints} if this hand
- * has four {@code Card} objects
+ * has four {@code Card} objects. The static {@code totalPoints} overload scores the same hand from
+ * primitive deck indices without allocating, for callers that score many hands
+ *
+ * <p> A hand created as a crib is scored with the crib's flush rule: four cards of one suit only
+ * count as a flush if the starter has the same suit too
  *
  * @author Reid Moffat
  */
 final class CribbageHand {
 
+    /**
+     * The highest number of points a hand can score (four fives and the jack of the starter's suit)
+     */
+    static final int MAX_POINTS = 29;
+
+    /**
+     * The rank (0 for ace to 12 for king) of each card, indexed by deck index
+     */
+    private static final int[] RANKS = new int[52];
+
+    /**
+     * The suit (0 for clubs to 3 for spades) of each card, indexed by deck index
+     */
+    private static final int[] SUITS = new int[52];
+
+    /**
+     * The value of each rank when counting fifteens (face cards are 10), indexed by rank
+     */
+    private static final int[] VALUES = new int[13];
+
+    /**
+     * The rank of a jack, used for nobs
+     */
+    private static final int JACK = Rank.JACK.ordinal();
+
+    static {
+        for (int i = 0; i < 52; ++i) {
+            RANKS[i] = i % 13;
+            SUITS[i] = i / 13;
+        }
+        for (int i = 0; i < 13; ++i) {
+            VALUES[i] = Math.min(i + 1, 10);
+        }
+    }
+
     /**
      * A set of unique playing {@code Cards}. Must include 4 {@code Cards} for points to be
      * calculated
      *
      * <p> Does not include the starter {@code Card}
      */
-    private final HashSet<Card> hand;
+    private final CardSet hand;
+
+    /**
+     * If this hand is the crib, where only a 5-card flush counts
+     */
+    private final boolean crib;
 
     /**
      * Initializes this {@code CribbageHand} with a set of {@code Cards}
@@ -44,34 +85,29 @@ final class CribbageHand {
         if (hand.contains(null)) {
             throw new IllegalArgumentException("Cannot have a null card in the hand");
         }
-        this.hand = new HashSet<>(hand);
+        this.hand = CardSet.of(hand);
+        this.crib = false;
     }
 
     /**
-     * Returns the power set of a given {@code HashSet}
+     * Initializes this {@code CribbageHand} with a set of {@code Cards}
      *
-     * @param originalSet a {@code HashSet} of objects
-     * @return a {@code HashSet} containing all subsets of {@code originalSet}
+     * @param hand a {@code CardSet} (not including the starter card)
      */
-    private static @NotNull
-    HashSet<HashSet<Card>> powerSet(@NotNull HashSet<Card> originalSet) {
-        final HashSet<HashSet<Card>> sets = new HashSet<>();
-        if (originalSet.isEmpty()) {
-            sets.add(new HashSet<>());
-            return sets;
-        }
-
-        final List<Card> list = new ArrayList<>(originalSet);
-        final HashSet<Card> rest = new HashSet<>(list.subList(1, list.size()));
-        for (HashSet<Card> set : powerSet(rest)) {
-            HashSet<Card> newSet = new HashSet<>();
-            newSet.add(list.get(0));
-            newSet.addAll(set);
+    CribbageHand(@NotNull CardSet hand) {
+        this(hand, false);
+    }
 
-            sets.add(newSet);
-            sets.add(set);
-        }
-        return sets;
+    /**
+     * Initializes this {@code CribbageHand} with a set of {@code Cards}, scored either as a
+     * player's hand or as the crib
+     *
+     * @param hand a {@code CardSet} (not including the starter card)
+     * @param crib true if the cards are the crib
+     */
+    CribbageHand(@NotNull CardSet hand, boolean crib) {
+        this.hand = hand.copy();
+        this.crib = crib;
     }
 
     /**
@@ -123,12 +159,32 @@ final class CribbageHand {
      */
     @Contract(" -> new")
     public @NotNull HashSet<Card> getCards() {
-        return new HashSet<>(hand);
+        return this.hand.toHashSet();
+    }
+
+    /**
+     * Returns a copy of this hand as a {@code CardSet}
+     *
+     * @return a copy of this hand
+     */
+    @Contract(" -> new")
+    public @NotNull CardSet getCardSet() {
+        return this.hand.copy();
+    }
+
+    /**
+     * Returns if this hand is scored as the crib
+     *
+     * @return true if this hand is the crib
+     */
+    boolean isCrib() {
+        return this.crib;
     }
 
     /**
      * Calculates the sum of point combinations for this hand (if it includes 4 {@code Card}
-     * objects with a starter {@code Card} object)
+     * objects with a starter {@code Card} object), with the crib's flush rule if this hand is the
+     * crib
      *
      * @param starter the starter {@code Card}
      * @return the total number of points in this cribbage hand with the given
@@ -146,108 +202,226 @@ final class CribbageHand {
                     "in the hand");
         }
 
-        // Various representations of the hand (the hand by itself, the hand with the starter card
-        // and every possible combination of cards) help make calculating the total score easier
-        final HashSet<Card> handWithStarter = new HashSet<>(this.hand);
-        handWithStarter.add(starter);
-        final HashSet<HashSet<Card>> cardCombinations = powerSet(handWithStarter);
+        long cards = this.hand.toBits();
+        final int card0 = Long.numberOfTrailingZeros(cards);
+        cards &= cards - 1;
+        final int card1 = Long.numberOfTrailingZeros(cards);
+        cards &= cards - 1;
+        final int card2 = Long.numberOfTrailingZeros(cards);
+        cards &= cards - 1;
+        final int card3 = Long.numberOfTrailingZeros(cards);
 
-        return fifteens(cardCombinations) + multiples(handWithStarter) + runs(cardCombinations) +
-                flushes(starter) + nobs(starter);
+        return this.crib ? cribPoints(card0, card1, card2, card3, starter.getIndex())
+                : totalPoints(card0, card1, card2, card3, starter.getIndex());
     }
 
     /**
-     * Returns the number of points obtained from fifteens
+     * Calculates the sum of point combinations for four hand cards and a starter card, given as
+     * {@link Card#getIndex() deck indices}
      *
-     * <p> Each unique combination of cards that add up to 15 is worth two points. 'Any' number of
-     * cards (i.e. between 2 and 5) can be used for each combination, and cards may be used for
-     * multiple fifteens. All face cards have a value of 10 when calculating fifteens
+     * <p> This gives the same result as {@link #totalPoints(Card)} without creating any objects,
+     * and is the sum of {@link #rankPoints} and {@link #suitPoints}. The parameters are not
+     * checked; they must be five distinct numbers between 0 and 51
      *
-     * <p> For example, a hand with four 5s and a three has 8 (2 points from each fifteen, 4
-     * choose 3 = 4 fifteens from the fives) points from fifteens
+     * @param card0   deck index of the first card in the hand
+     * @param card1   deck index of the second card in the hand
+     * @param card2   deck index of the third card in the hand
+     * @param card3   deck index of the fourth card in the hand
+     * @param starter deck index of the starter card
+     * @return the total number of points in the hand with the given starter
+     */
+    static int totalPoints(int card0, int card1, int card2, int card3, int starter) {
+        return rankPoints(RANKS[card0], RANKS[card1], RANKS[card2], RANKS[card3], RANKS[starter])
+                + suitPoints(card0, card1, card2, card3, SUITS[starter]);
+    }
+
+    /**
+     * Calculates the points for four crib cards and a starter card, given as deck indices
      *
-     * @return the number of points obtained from fifteens
+     * <p> This is the same as {@link #totalPoints(int, int, int, int, int)} except that a flush
+     * only counts if the starter has the same suit as all four crib cards
+     *
+     * @param card0   deck index of the first card in the crib
+     * @param card1   deck index of the second card in the crib
+     * @param card2   deck index of the third card in the crib
+     * @param card3   deck index of the fourth card in the crib
+     * @param starter deck index of the starter card
+     * @return the total number of points in the crib with the given starter
      */
-    private int fifteens(@NotNull HashSet<HashSet<Card>> cardCombinations) {
-        return cardCombinations.stream().mapToInt(cards -> cards.stream().mapToInt(card ->
-                Math.min(card.getRankNumber(), 10)).sum() == 15 ? 2 : 0).sum();
+    static int cribPoints(int card0, int card1, int card2, int card3, int starter) {
+        return rankPoints(RANKS[card0], RANKS[card1], RANKS[card2], RANKS[card3], RANKS[starter])
+                + suitPoints(card0, card1, card2, card3, SUITS[starter], true);
     }
 
     /**
-     * Returns the number of points obtained from multiples in the given cribbage hand (with the
-     * starter card included)
+     * Calculates the points that depend only on card ranks (fifteens, multiples and runs) for four
+     * hand cards and a starter card
      *
-     * <p> Multiples are a double (2 points), triple (6 points) or quadruple (12 points) of one
-     * rank of card. Face cards are not considered the same for multiples; a ten and a queen both
-     * have a rank value of 10, but they would not give points for a double
+     * <p> Ranks are 0 (ace) to 12 (king), as given by {@code index % 13} for a deck index. The
+     * parameters are not checked
      *
-     * @return the number of points obtained from multiples
+     * @param rank0       rank of the first card in the hand
+     * @param rank1       rank of the second card in the hand
+     * @param rank2       rank of the third card in the hand
+     * @param rank3       rank of the fourth card in the hand
+     * @param starterRank rank of the starter card
+     * @return the points from fifteens, multiples and runs
      */
-    private int multiples(@NotNull HashSet<Card> handWithStarter) {
-        // Maps each card rank to the number of occurrences of that rank then counts multiples
-        // A multiple of n cards is n*n - n points (single: 0, double: 2, triple: 6, quadruple: 12)
-        return handWithStarter.stream()
-                .collect(Collectors.groupingBy(Card::getRankNumber, Collectors.summingInt(x -> 1)))
-                .values().stream().mapToInt(v -> v * v - v).sum();
+    static int rankPoints(int rank0, int rank1, int rank2, int rank3, int starterRank) {
+        return fifteens(rank0, rank1, rank2, rank3, starterRank) + multiples(rank0, rank1, rank2, rank3, starterRank)
+                + runs(rank0, rank1, rank2, rank3, starterRank);
     }
 
     /**
-     * Returns the number of points obtained from runs
+     * Calculates the points from fifteens for five card ranks: two for each subset of cards whose
+     * values (face cards are 10) add up to 15
      *
-     * <p> A run is a sequence of three (3 points), four (4 points) or five (5 points) cards with
-     * consecutive ranks. Suit does not matter, and cards can be part of multiple unique runs (but
-     * only the highest run is counted; a run of four is only four points, NOT two runs of three)
+     * <p> The sum of each of the 26 subsets of two or more cards is found from a bitmask
      *
-     * @return the number of points obtained from runs
+     * @param rank0 rank of the first card
+     * @param rank1 rank of the second card
+     * @param rank2 rank of the third card
+     * @param rank3 rank of the fourth card
+     * @param rank4 rank of the fifth card
+     * @return the points from fifteens
      */
-    private int runs(@NotNull HashSet<HashSet<Card>> cardCombinations) {
-        // Total points obtained from each length of run, offset by 3 (runScores[0] is for a run of 3)
-        final int[] runScores = {0, 0, 0};
+    static int fifteens(int rank0, int rank1, int rank2, int rank3, int rank4) {
+        int points = 0;
 
-        cardCombinations.forEach(cards -> {
-            // If this could be a run (>2 cards), sort the list of card rank numbers with duplicates
-            // (ex: [2, 5, 5, 11, 13])
-            if (cards.size() < 3) return;
-            final int[] values = cards.stream().mapToInt(Card::getRankNumber).sorted().toArray();
+        // Every subset of cards is a bitmask from 0b00011 to 0b11111
+        final int value0 = VALUES[rank0], value1 = VALUES[rank1], value2 = VALUES[rank2],
+                value3 = VALUES[rank3], value4 = VALUES[rank4];
+        for (int subset = 3; subset < 32; ++subset) {
+            final int sum = ((subset & 1) != 0 ? value0 : 0) + ((subset & 2) != 0 ? value1 : 0)
+                    + ((subset & 4) != 0 ? value2 : 0) + ((subset & 8) != 0 ? value3 : 0)
+                    + ((subset & 16) != 0 ? value4 : 0);
+            if (sum == 15) {
+                points += 2;
+            }
+        }
+        return points;
+    }
 
-            // If any card is 'out of order', no points are given for runs
-            runScores[cards.size() - 3] += IntStream.range(0, values.length - 1)
-                    .anyMatch(i -> values[i] + 1 != values[i + 1]) ? 0 : values.length;
-        });
+    /**
+     * Calculates the points from multiples for five card ranks: two for every pair of cards with the
+     * same rank, so a double is 2 points, a triple 6 and a quadruple 12
+     *
+     * @param rank0 rank of the first card
+     * @param rank1 rank of the second card
+     * @param rank2 rank of the third card
+     * @param rank3 rank of the fourth card
+     * @param rank4 rank of the fifth card
+     * @return the points from multiples
+     */
+    static int multiples(int rank0, int rank1, int rank2, int rank3, int rank4) {
+        return (rank0 == rank1 ? 2 : 0) + (rank0 == rank2 ? 2 : 0) + (rank0 == rank3 ? 2 : 0)
+                + (rank0 == rank4 ? 2 : 0) + (rank1 == rank2 ? 2 : 0) + (rank1 == rank3 ? 2 : 0)
+                + (rank1 == rank4 ? 2 : 0) + (rank2 == rank3 ? 2 : 0) + (rank2 == rank4 ? 2 : 0)
+                + (rank3 == rank4 ? 2 : 0);
+    }
 
-        // Only one length of run is possible in a hand (a run of 5 is NOT two runs of 4)
-        return runScores[2] != 0 ? runScores[2] : runScores[1] != 0 ? runScores[1] : runScores[0];
+    /**
+     * Calculates the points from runs for five card ranks: the length of the sequence of three or
+     * more consecutive ranks (five cards can only have one), times the number of ways to pick it
+     *
+     * <p> Each rank is counted in a histogram packed into a {@code long}, 4 bits per rank
+     *
+     * @param rank0 rank of the first card
+     * @param rank1 rank of the second card
+     * @param rank2 rank of the third card
+     * @param rank3 rank of the fourth card
+     * @param rank4 rank of the fifth card
+     * @return the points from runs
+     */
+    static int runs(int rank0, int rank1, int rank2, int rank3, int rank4) {
+        final long counts = (1L << (rank0 << 2)) + (1L << (rank1 << 2)) + (1L << (rank2 << 2))
+                + (1L << (rank3 << 2)) + (1L << (rank4 << 2));
+        int length = 0, runs = 1;
+        for (int rank = 0; rank <= 13; ++rank) {
+            final int count = rank < 13 ? (int) (counts >>> (rank << 2)) & 0xF : 0;
+            if (count != 0) {
+                ++length;
+                runs *= count;
+            } else if (length >= 3) {
+                return length * runs;
+            } else {
+                length = 0;
+                runs = 1;
+            }
+        }
+        return 0;
     }
 
     /**
-     * Returns the number of points obtained from flushes in a given cribbage hand and starter card
+     * Calculates the points that depend on suits (flushes and nobs) for four hand cards, given as
+     * deck indices, and the suit of the starter card
      *
-     * <p> To obtain a flush, the player's hand must have all four cards of the same suit (4
-     * points). If the starter card is also the same suit, 5 total points are awarded. Note that if
-     * only three cards in the player's hand plus the starter card have the same suit, this is
-     * not a flush
+     * <p> Suits are 0 (clubs) to 3 (spades), as given by {@code index / 13} for a deck index. The
+     * parameters are not checked
      *
-     * @return the number of points obtained from flushes
+     * @param card0       deck index of the first card in the hand
+     * @param card1       deck index of the second card in the hand
+     * @param card2       deck index of the third card in the hand
+     * @param card3       deck index of the fourth card in the hand
+     * @param starterSuit suit of the starter card
+     * @return the points from flushes and nobs
      */
-    private int flushes(@NotNull Card starter) {
-        // All the suits in this hand
-        final HashSet<Suit> suits = this.hand.stream().map(c -> c.suit).collect(Collectors
-                .toCollection(HashSet::new));
+    static int suitPoints(int card0, int card1, int card2, int card3, int starterSuit) {
+        return suitPoints(card0, card1, card2, card3, starterSuit, false);
+    }
 
-        // If all the suits are the same, the 'suits' set will only have one suit object
-        return suits.size() == 1 ? 4 + (suits.add(starter.suit) ? 0 : 1) : 0;
+    /**
+     * Calculates the points that depend on suits (flushes and nobs) for four hand or crib cards,
+     * given as deck indices, and the suit of the starter card
+     *
+     * @param card0       deck index of the first card
+     * @param card1       deck index of the second card
+     * @param card2       deck index of the third card
+     * @param card3       deck index of the fourth card
+     * @param starterSuit suit of the starter card
+     * @param crib        true if the cards are the crib, where a flush must include the starter
+     * @return the points from flushes and nobs
+     */
+    static int suitPoints(int card0, int card1, int card2, int card3, int starterSuit, boolean crib) {
+        return flushes(card0, card1, card2, card3, starterSuit, crib) + nobs(card0, card1, card2, card3, starterSuit);
     }
 
     /**
-     * Returns the number of points obtained from nobs in a given cribbage hand and starter card
+     * Calculates the points from flushes for four hand or crib cards, given as deck indices, and
+     * the suit of the starter card: 4 if the four cards have the same suit, or 5 if the starter
+     * does too. In the crib, only the 5 point flush counts
      *
-     * <p> One point is obtained from nobs if the player's hand has a jack of the same suit as
-     * the starter card
+     * @param card0       deck index of the first card
+     * @param card1       deck index of the second card
+     * @param card2       deck index of the third card
+     * @param card3       deck index of the fourth card
+     * @param starterSuit suit of the starter card
+     * @param crib        true if the cards are the crib, where a flush must include the starter
+     * @return the points from flushes
+     */
+    static int flushes(int card0, int card1, int card2, int card3, int starterSuit, boolean crib) {
+        final int suit0 = SUITS[card0];
+        if (suit0 != SUITS[card1] || suit0 != SUITS[card2] || suit0 != SUITS[card3]) {
+            return 0;
+        }
+        return suit0 == starterSuit ? 5 : crib ? 0 : 4;
+    }
+
+    /**
+     * Calculates the points from nobs for four hand cards, given as deck indices, and the suit of
+     * the starter card: one point if a jack in the hand has the starter's suit
      *
-     * @return the number of points obtained from nobs
+     * @param card0       deck index of the first card in the hand
+     * @param card1       deck index of the second card in the hand
+     * @param card2       deck index of the third card in the hand
+     * @param card3       deck index of the fourth card in the hand
+     * @param starterSuit suit of the starter card
+     * @return the points from nobs
      */
-    private int nobs(@NotNull Card starter) {
-        return this.hand.stream().filter(c -> c.rank == Rank.JACK).map(c -> c.suit)
-                .anyMatch(starter.suit::equals) ? 1 : 0;
+    static int nobs(int card0, int card1, int card2, int card3, int starterSuit) {
+        return (RANKS[card0] == JACK && SUITS[card0] == starterSuit)
+                || (RANKS[card1] == JACK && SUITS[card1] == starterSuit)
+                || (RANKS[card2] == JACK && SUITS[card2] == starterSuit)
+                || (RANKS[card3] == JACK && SUITS[card3] == starterSuit) ? 1 : 0;
     }
 }
@@ -0,0 +1,457 @@
+package main;
+
+import card.CardSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Finds the points obtained from each combination of cards that can be dropped from a dealt
+ * cribbage hand
+ *
+ * <p> A 6-card hand (2 players) has 15 ways to drop two cards, and a 5-card hand (3-4 players) has
+ * 5 ways to drop one. Each kept hand is scored with every card not in the dealt hand as the
+ * starter. This class does no console I/O and holds no mutable state, so one instance can be shared
+ * by any number of threads
+ *
+ * <p> {@code analyze} works in the calling thread. {@code analyzeParallel} scores each drop
+ * combination as a separate task, and {@code analyzeAll} spreads many dealt hands across tasks;
+ * both run their tasks on the executor given to the constructor (the common {@code ForkJoinPool}
+ * by default)
+ *
+ * <p> If a {@link ScoreTable} is given, each kept hand is scored by reading its 46 or 47 starters
+ * from the table; otherwise starters are scored as described in {@code analyzeDiscard}
+ *
+ * <p> {@code analyze(CardSet, boolean)} also counts the crib for 6-card hands, adding the expected
+ * crib points of each discard from a {@link CribTable} for the dealer and subtracting them for the
+ * pone. The table is loaded when the analyzer is created, so this costs one lookup per discard.
+ * {@code analyze(CardSet, boolean, CribEstimator)} instead estimates the crib for the dealt hand
+ * itself with a {@link CribEstimator}, and {@code analyze(CardSet, boolean, PeggingEstimator)} also
+ * adds the points each kept hand is expected to peg in the play more than the opponent, measured by
+ * simulating the play with a {@link PeggingEstimator}
+ *
+ * <p> {@code analyze(CardSet, boolean, int, int)} ranks the discards of a 6-card hand by the
+ * probability of winning the game from the players' scores, as given by a {@link WinProbability}
+ * model, rather than by average points. Near the end of a game this can prefer a hand that is
+ * more likely to reach 121 over one with more points on average
+ *
+ * @author Reid Moffat
+ */
+public final class DiscardAnalyzer {
+
+    /**
+     * Orders results from the highest to the lowest average points, breaking ties by the dropped
+     * cards so the order is always the same
+     */
+    static final Comparator<DiscardResult> BY_MEAN = Comparator
+            .comparingInt(DiscardResult::getTotalPoints).reversed()
+            .thenComparingLong(DiscardResult::getDiscardBits);
+
+    /**
+     * Orders results from the highest to the lowest average points including the crib, breaking
+     * ties by the dropped cards
+     */
+    static final Comparator<DiscardResult> BY_NET_MEAN = Comparator
+            .comparingDouble(DiscardResult::getNetMean).reversed()
+            .thenComparingLong(DiscardResult::getDiscardBits);
+
+    /**
+     * Orders results from the highest to the lowest probability of winning, breaking ties by the
+     * average points including the crib
+     */
+    static final Comparator<DiscardResult> BY_WIN_PROBABILITY = Comparator
+            .comparingDouble(DiscardResult::getWinProbability).reversed()
+            .thenComparing(BY_NET_MEAN);
+
+    /**
+     * Bitmask of the four aces; shifting it left by a rank gives the four cards of that rank
+     */
+    static final long RANK_MASK = 1L | 1L << 13 | 1L << 26 | 1L << 39;
+
+    /**
+     * Runs the tasks of {@code analyzeParallel} and {@code analyzeAll}
+     */
+    private final Executor executor;
+
+    /**
+     * The number of tasks that can run at once on {@code executor}
+     */
+    private final int parallelism;
+
+    /**
+     * Precomputed scores for every hand and starter, or null to calculate scores
+     */
+    private final @Nullable ScoreTable scoreTable;
+
+    /**
+     * Expected crib points of each pair of discards
+     */
+    private final CribTable cribTable;
+
+    /**
+     * Initializes this analyzer to run parallel work on the common {@code ForkJoinPool}
+     */
+    public DiscardAnalyzer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Initializes this analyzer to run parallel work on an executor
+     *
+     * @param executor the executor to run tasks on
+     */
+    public DiscardAnalyzer(@NotNull Executor executor) {
+        this(executor, null);
+    }
+
+    /**
+     * Initializes this analyzer to run parallel work on an executor and look up scores in a table
+     *
+     * @param executor   the executor to run tasks on
+     * @param scoreTable precomputed scores, or null to calculate scores
+     */
+    public DiscardAnalyzer(@NotNull Executor executor, @Nullable ScoreTable scoreTable) {
+        this(executor, scoreTable, CribTable.getDefault());
+    }
+
+    /**
+     * Initializes this analyzer to run parallel work on an executor, look up scores in a table and
+     * count the crib with a crib table
+     *
+     * @param executor   the executor to run tasks on
+     * @param scoreTable precomputed scores, or null to calculate scores
+     * @param cribTable  expected crib points of each pair of discards
+     */
+    public DiscardAnalyzer(@NotNull Executor executor, @Nullable ScoreTable scoreTable,
+                           @NotNull CribTable cribTable) {
+        this.executor = executor;
+        this.scoreTable = scoreTable;
+        this.cribTable = cribTable;
+        this.parallelism = executor instanceof ForkJoinPool ? ((ForkJoinPool) executor).getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Calculates the points obtained from dropping each combination of cards from a dealt hand
+     *
+     * @param dealtHand the 5 or 6 cards the player was dealt
+     * @return a result for each combination of cards to drop, sorted from the highest to the
+     * lowest average points
+     * @throws IllegalArgumentException if the hand does not have 5 or 6 cards
+     */
+    public @NotNull List<DiscardResult> analyze(@NotNull CardSet dealtHand) {
+        final long dealt = dealtHand.toBits();
+        final long[] discards = discardCombinations(dealtHand);
+
+        final List<DiscardResult> results = new ArrayList<>(discards.length);
+        for (long discard : discards) {
+            results.add(analyzeDiscard(dealt, discard));
+        }
+
+        results.sort(BY_MEAN);
+        return results;
+    }
+
+    /**
+     * Calculates the points obtained from dropping each combination of cards from a dealt hand,
+     * counting the crib
+     *
+     * <p> For a 6-card hand (2 players), the expected crib points of each pair of dropped cards are
+     * added to the hand's average points if the player is the dealer, and subtracted if not. A
+     * 5-card hand is analyzed without the crib, since the other cards in a 3 or 4 player crib are
+     * not covered by the crib table
+     *
+     * @param dealtHand the 5 or 6 cards the player was dealt
+     * @param dealer    true if the player is the dealer (the crib is theirs)
+     * @return a result for each combination of cards to drop, sorted from the highest to the
+     * lowest {@link DiscardResult#getNetMean() net average points}
+     * @throws IllegalArgumentException if the hand does not have 5 or 6 cards
+     */
+    public @NotNull List<DiscardResult> analyze(@NotNull CardSet dealtHand, boolean dealer) {
+        final List<DiscardResult> results = analyze(dealtHand);
+        if (dealtHand.size() != 6) {
+            return results;
+        }
+
+        for (int i = 0; i < results.size(); ++i) {
+            final DiscardResult result = results.get(i);
+            final double crib = this.cribTable.expectedPoints(result.getDiscardBits(), dealer);
+            results.set(i, result.withCribPoints(dealer ? crib : -crib));
+        }
+        results.sort(BY_NET_MEAN);
+        return results;
+    }
+
+    /**
+     * Calculates the points obtained from dropping each combination of cards from a dealt hand,
+     * counting the crib as estimated for this hand by simulation
+     *
+     * <p> This is like {@link #analyze(CardSet, boolean)}, but the crib points of each discard are
+     * estimated by {@code estimator} for the cards actually dealt rather than read from the crib
+     * table. A 5-card hand is analyzed without the crib
+     *
+     * @param dealtHand the 5 or 6 cards the player was dealt
+     * @param dealer    true if the player is the dealer (the crib is theirs)
+     * @param estimator estimates the crib points of each discard
+     * @return a result for each combination of cards to drop, sorted from the highest to the
+     * lowest {@link DiscardResult#getNetMean() net average points}
+     * @throws IllegalArgumentException if the hand does not have 5 or 6 cards
+     */
+    public @NotNull List<DiscardResult> analyze(@NotNull CardSet dealtHand, boolean dealer,
+                                                @NotNull CribEstimator estimator) {
+        final List<DiscardResult> results = analyze(dealtHand);
+        if (dealtHand.size() != 6) {
+            return results;
+        }
+
+        final List<DiscardResult> estimated = new ArrayList<>(results.size());
+        estimator.estimate(results, dealer).forEach(estimate -> estimated.add(estimate.getResult()));
+        return estimated;
+    }
+
+    /**
+     * Calculates the points obtained from dropping each combination of cards from a dealt hand,
+     * counting the crib and the play
+     *
+     * <p> This is like {@link #analyze(CardSet, boolean)}, but the expected pegging differential of
+     * each kept hand, estimated by simulating the play, is added to its net points. The simulation
+     * is the expensive part, and runs on the estimator's executor. A 5-card hand is analyzed without
+     * the crib or the play, since the simulation is for 2 players
+     *
+     * @param dealtHand the 5 or 6 cards the player was dealt
+     * @param dealer    true if the player is the dealer (the crib is theirs)
+     * @param estimator estimates the pegging differential of each kept hand
+     * @return a result for each combination of cards to drop, sorted from the highest to the
+     * lowest {@link DiscardResult#getNetMean() net average points}
+     * @throws IllegalArgumentException if the hand does not have 5 or 6 cards
+     */
+    public @NotNull List<DiscardResult> analyze(@NotNull CardSet dealtHand, boolean dealer,
+                                                @NotNull PeggingEstimator estimator) {
+        final List<DiscardResult> results = analyze(dealtHand, dealer);
+        return dealtHand.size() == 6 ? estimator.estimate(results, dealer) : results;
+    }
+
+    /**
+     * Calculates the probability of winning the game after dropping each combination of cards from
+     * a dealt hand, using the default {@link WinProbability} model
+     *
+     * @param dealtHand     the 6 cards the player was dealt
+     * @param dealer        true if the player is the dealer (the crib is theirs)
+     * @param myScore       the player's score before this deal is counted
+     * @param opponentScore the opponent's score before this deal is counted
+     * @return a result for each combination of cards to drop, sorted from the highest to the
+     * lowest {@link DiscardResult#getWinProbability() probability of winning}
+     * @throws IllegalArgumentException if the hand does not have 6 cards or a score is not
+     *                                  between 0 and 120
+     */
+    public @NotNull List<DiscardResult> analyze(@NotNull CardSet dealtHand, boolean dealer, int myScore,
+                                                int opponentScore) {
+        return analyze(dealtHand, dealer, myScore, opponentScore, WinProbability.getDefault());
+    }
+
+    /**
+     * Calculates the probability of winning the game after dropping each combination of cards from
+     * a dealt hand
+     *
+     * <p> Each discard is scored as in {@link #analyze(CardSet, boolean)}, and its probability of
+     * winning is found from the distribution of the kept hand's points and the expected crib points
+     * of the dropped cards. The play of this deal is not simulated for each discard: both players
+     * peg by the model's distribution, estimated from the baseline policy over all deals. Only
+     * 6-card hands are covered, since the model is for 2 players
+     *
+     * @param dealtHand     the 6 cards the player was dealt
+     * @param dealer        true if the player is the dealer (the crib is theirs)
+     * @param myScore       the player's score before this deal is counted
+     * @param opponentScore the opponent's score before this deal is counted
+     * @param model         the probability of winning from each position
+     * @return a result for each combination of cards to drop, sorted from the highest to the
+     * lowest {@link DiscardResult#getWinProbability() probability of winning}
+     * @throws IllegalArgumentException if the hand does not have 6 cards or a score is not
+     *                                  between 0 and 120
+     */
+    public @NotNull List<DiscardResult> analyze(@NotNull CardSet dealtHand, boolean dealer, int myScore,
+                                                int opponentScore, @NotNull WinProbability model) {
+        if (dealtHand.size() != 6) {
+            throw new IllegalArgumentException("Win probability only covers 2-player (6-card) hands: " + dealtHand);
+        }
+
+        final List<DiscardResult> results = analyze(dealtHand, dealer);
+        for (int i = 0; i < results.size(); ++i) {
+            final DiscardResult result = results.get(i);
+            results.set(i, result.withWinProbability(model.afterDiscard(result, Math.abs(result.getCribPoints()),
+                    myScore, opponentScore, dealer)));
+        }
+        results.sort(BY_WIN_PROBABILITY);
+        return results;
+    }
+
+    /**
+     * Calculates the points obtained from dropping each combination of cards from a dealt hand,
+     * scoring each combination as a separate task on this analyzer's executor
+     *
+     * @param dealtHand the 5 or 6 cards the player was dealt
+     * @return a result for each combination of cards to drop, sorted from the highest to the
+     * lowest average points
+     * @throws IllegalArgumentException if the hand does not have 5 or 6 cards
+     */
+    public @NotNull List<DiscardResult> analyzeParallel(@NotNull CardSet dealtHand) {
+        final long dealt = dealtHand.toBits();
+        final long[] discards = discardCombinations(dealtHand);
+
+        final List<CompletableFuture<DiscardResult>> tasks = new ArrayList<>(discards.length);
+        for (long discard : discards) {
+            tasks.add(CompletableFuture.supplyAsync(() -> analyzeDiscard(dealt, discard), this.executor));
+        }
+
+        final List<DiscardResult> results = new ArrayList<>(discards.length);
+        try {
+            tasks.forEach(task -> results.add(task.join()));
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        results.sort(BY_MEAN);
+        return results;
+    }
+
+    /**
+     * Analyzes many dealt hands, spreading them across this analyzer's executor
+     *
+     * <p> The hands are split into one contiguous chunk per available thread (times a small
+     * factor to balance uneven chunks), and each chunk is analyzed in a single task
+     *
+     * @param dealtHands any number of dealt hands, each with 5 or 6 cards
+     * @return the results of {@link #analyze(CardSet)} for each hand, in the same order as
+     * {@code dealtHands}
+     * @throws IllegalArgumentException if any hand does not have 5 or 6 cards
+     */
+    public @NotNull List<List<DiscardResult>> analyzeAll(@NotNull List<CardSet> dealtHands) {
+        final int chunks = Math.max(1, Math.min(dealtHands.size(), this.parallelism * 4));
+        final List<CompletableFuture<List<List<DiscardResult>>>> tasks = new ArrayList<>(chunks);
+        for (int chunk = 0; chunk < chunks; ++chunk) {
+            final List<CardSet> hands = dealtHands.subList(
+                    (int) ((long) dealtHands.size() * chunk / chunks),
+                    (int) ((long) dealtHands.size() * (chunk + 1) / chunks));
+            tasks.add(CompletableFuture.supplyAsync(() -> {
+                final List<List<DiscardResult>> results = new ArrayList<>(hands.size());
+                hands.forEach(hand -> results.add(analyze(hand)));
+                return results;
+            }, this.executor));
+        }
+
+        final List<List<DiscardResult>> results = new ArrayList<>(dealtHands.size());
+        try {
+            tasks.forEach(task -> results.addAll(task.join()));
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    /**
+     * Returns every combination of cards that can be dropped from a dealt hand: pairs of cards for
+     * a 6-card hand, or single cards for a 5-card hand
+     *
+     * @param dealtHand the 5 or 6 cards the player was dealt
+     * @return the bitmask of each combination to drop
+     * @throws IllegalArgumentException if the hand does not have 5 or 6 cards
+     */
+    static long @NotNull [] discardCombinations(@NotNull CardSet dealtHand) {
+        final long dealt = dealtHand.toBits();
+        final int size = Long.bitCount(dealt);
+        if (size != 5 && size != 6) {
+            throw new IllegalArgumentException("Dealt hand must have 5 or 6 cards: " + dealtHand);
+        }
+
+        final long[] discards = new long[size == 6 ? 15 : 5];
+        int i = 0;
+        for (long first = dealt; first != 0; first &= first - 1) {
+            final long firstBit = first & -first;
+            if (size == 5) {
+                discards[i++] = firstBit;
+                continue;
+            }
+            // Each pair is generated once: the second card is always after the first in deck order
+            for (long second = first & (first - 1); second != 0; second &= second - 1) {
+                discards[i++] = firstBit | (second & -second);
+            }
+        }
+        return discards;
+    }
+
+    /**
+     * Scores the hand left after dropping some cards with every possible starter
+     *
+     * <p> Starters are grouped by rank: fifteens, multiples and runs only depend on the starter's
+     * rank, so they are scored once for each of the 13 ranks instead of once for each of the 46 or
+     * 47 starters. Flushes and nobs only depend on the starter's suit, so they are scored once for
+     * each of the 4 suits and added to the rank score of every starter of that suit. The counts
+     * are exactly the same as scoring each starter separately
+     *
+     * <p> If this analyzer has a score table, the scores are read from it instead
+     *
+     * @param dealt    bitmask of the dealt hand
+     * @param discards bitmask of the cards to drop (leaving four cards)
+     * @return the scores of the kept hand
+     */
+    @NotNull DiscardResult analyzeDiscard(long dealt, long discards) {
+        final long keep = dealt & ~discards;
+        if (this.scoreTable != null) {
+            final int[] counts = new int[CribbageHand.MAX_POINTS + 1];
+            this.scoreTable.count(keep, ~dealt & CardSet.DECK_MASK, counts);
+            return new DiscardResult(discards, keep, counts);
+        }
+
+        long cards = keep;
+        final int card0 = Long.numberOfTrailingZeros(cards);
+        cards &= cards - 1;
+        final int card1 = Long.numberOfTrailingZeros(cards);
+        cards &= cards - 1;
+        final int card2 = Long.numberOfTrailingZeros(cards);
+        cards &= cards - 1;
+        final int card3 = Long.numberOfTrailingZeros(cards);
+
+        final int suitPoints0 = CribbageHand.suitPoints(card0, card1, card2, card3, 0);
+        final int suitPoints1 = CribbageHand.suitPoints(card0, card1, card2, card3, 1);
+        final int suitPoints2 = CribbageHand.suitPoints(card0, card1, card2, card3, 2);
+        final int suitPoints3 = CribbageHand.suitPoints(card0, card1, card2, card3, 3);
+
+        // Any card not in the dealt hand could be the starter
+        final int[] counts = new int[CribbageHand.MAX_POINTS + 1];
+        for (int rank = 0; rank < 13; ++rank) {
+            final long starters = ~dealt & (RANK_MASK << rank);
+            if (starters == 0) {
+                continue;
+            }
+
+            final int rankPoints = CribbageHand.rankPoints(card0 % 13, card1 % 13, card2 % 13,
+                    card3 % 13, rank);
+            if ((starters & (1L << rank)) != 0) {
+                ++counts[rankPoints + suitPoints0];
+            }
+            if ((starters & (1L << (13 + rank))) != 0) {
+                ++counts[rankPoints + suitPoints1];
+            }
+            if ((starters & (1L << (26 + rank))) != 0) {
+                ++counts[rankPoints + suitPoints2];
+            }
+            if ((starters & (1L << (39 + rank))) != 0) {
+                ++counts[rankPoints + suitPoints3];
+            }
+        }
+        return new DiscardResult(discards, keep, counts);
+    }
+
+}
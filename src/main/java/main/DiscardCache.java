@@ -0,0 +1,210 @@
+package main;
+
+import card.CardSet;
+import card.SuitCanonicalizer;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of discard analyses, shared by any number of threads
+ *
+ * <p> Dealt hands are looked up by their {@link SuitCanonicalizer canonical form}, so a hand and
+ * every hand that differs from it only by suit labels share one entry. Results are stored for the
+ * canonical hand and relabelled back to the suits of the requested hand on the way out
+ *
+ * <p> Entries are split between up to 16 segments by a hash of the canonical hand. Each segment is
+ * a least-recently-used map guarded by its own lock, so threads only contend when they use the
+ * same segment, and each segment evicts its least recently used entry when it is full. A cache
+ * smaller than 16 entries uses the largest power of two segments that is not larger than its size,
+ * so every segment holds at least one entry. Analyses run outside the lock; two threads missing on
+ * the same hand at the same time may both analyze it, and the second result replaces the first
+ *
+ * @author Reid Moffat
+ */
+public final class DiscardCache {
+
+    /**
+     * Largest number of independently locked segments (a power of two)
+     */
+    private static final int SEGMENTS = 16;
+
+    /**
+     * Calculates results on a cache miss
+     */
+    private final DiscardAnalyzer analyzer;
+
+    /**
+     * Least-recently-used maps from canonical dealt hands to their sorted results
+     */
+    private final Segment[] segments;
+
+    /**
+     * Number of lookups that found an entry
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Number of lookups that did not find an entry
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Number of entries removed to make space for new ones
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Initializes this cache
+     *
+     * @param analyzer    the analyzer used to calculate results that are not cached
+     * @param maximumSize the maximum number of canonical hands to keep
+     * @throws IllegalArgumentException if {@code maximumSize} is not positive
+     */
+    public DiscardCache(@NotNull DiscardAnalyzer analyzer, int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maximumSize);
+        }
+        this.analyzer = analyzer;
+
+        // Spread the capacity as evenly as possible, so the total is exactly maximumSize and no
+        // segment is empty
+        final int segments = Integer.highestOneBit(Math.min(SEGMENTS, maximumSize));
+        this.segments = new Segment[segments];
+        for (int i = 0; i < segments; ++i) {
+            this.segments[i] = new Segment(maximumSize / segments + (i < maximumSize % segments ? 1 : 0));
+        }
+    }
+
+    /**
+     * Returns the analysis of a dealt hand, from the cache if it or a suit-isomorphic hand has
+     * been analyzed before
+     *
+     * @param dealtHand the 5 or 6 cards the player was dealt
+     * @return the same results as {@link DiscardAnalyzer#analyze(CardSet)}, as an unmodifiable list
+     * @throws IllegalArgumentException if the hand does not have 5 or 6 cards
+     */
+    public @NotNull List<DiscardResult> analyze(@NotNull CardSet dealtHand) {
+        final long dealt = dealtHand.toBits();
+        final int permutation = SuitCanonicalizer.permutation(dealt);
+        final long canonical = SuitCanonicalizer.apply(permutation, dealt);
+        final Segment segment = this.segments[segmentIndex(canonical, this.segments.length)];
+
+        List<DiscardResult> results;
+        synchronized (segment) {
+            results = segment.get(canonical);
+        }
+        if (results != null) {
+            this.hits.increment();
+        } else {
+            this.misses.increment();
+            results = Collections.unmodifiableList(this.analyzer.analyze(CardSet.fromBits(canonical)));
+            synchronized (segment) {
+                segment.put(canonical, results);
+            }
+        }
+
+        final int inverse = SuitCanonicalizer.inverse(permutation);
+        if (inverse == SuitCanonicalizer.IDENTITY) {
+            return results;
+        }
+
+        // Relabelling can change the order of tied results, so sort again to match the analyzer
+        final List<DiscardResult> relabelled = new ArrayList<>(results.size());
+        results.forEach(result -> relabelled.add(result.relabel(inverse)));
+        relabelled.sort(DiscardAnalyzer.BY_MEAN);
+        return Collections.unmodifiableList(relabelled);
+    }
+
+    /**
+     * Returns the number of lookups that found a cached entry
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that had to analyze the hand
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Returns the number of entries removed to make space for new ones
+     *
+     * @return the number of evictions
+     */
+    public long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * Returns the number of canonical hands currently cached
+     *
+     * @return the number of cache entries
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : this.segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Removes every entry from this cache (the counters are not reset)
+     */
+    public void clear() {
+        for (Segment segment : this.segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the segment for a canonical hand, using the high bits of a multiplicative hash
+     */
+    private static int segmentIndex(long canonical, int segments) {
+        // Shifting a long by 64 leaves it unchanged, so a single segment is a special case
+        return segments == 1 ? 0
+                : (int) ((canonical * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(segments)));
+    }
+
+    /**
+     * A least-recently-used map that evicts its eldest entry when it grows past its capacity
+     */
+    private final class Segment extends LinkedHashMap<Long, List<DiscardResult>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, List<DiscardResult>> eldest) {
+            if (size() > this.capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+}
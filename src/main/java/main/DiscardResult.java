@@ -0,0 +1,443 @@
+package main;
+
+import card.CardSet;
+import card.SuitCanonicalizer;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The outcome of dropping one combination of cards from a dealt cribbage hand
+ *
+ * <p> Holds the cards dropped and kept, and the points the kept hand scores over every possible
+ * starter card: how many starters give each score from 0 to {@link CribbageHand#MAX_POINTS}, and
+ * from that the probability of each score, the mean, variance, minimum, maximum and percentiles.
+ * If the crib is counted, it also holds the expected crib points of the dropped cards, positive for
+ * the dealer's own crib and negative for the pone, the expected points the player pegs in the play
+ * more than the opponent if the play was simulated, and if the position in the game is known, the
+ * probability of winning after the discard. Instances are immutable
+ *
+ * @author Reid Moffat
+ */
+public final class DiscardResult implements RankedDiscard {
+
+    /**
+     * Bitmask of the cards dropped (to the crib)
+     */
+    private final long discards;
+
+    /**
+     * Bitmask of the four cards kept
+     */
+    private final long keep;
+
+    /**
+     * Number of starters that give each score; {@code counts[i]} is the number of starters that
+     * give {@code i} points
+     */
+    private final int[] counts;
+
+    /**
+     * Sum of points over every starter
+     */
+    private final int totalPoints;
+
+    /**
+     * Sum of the squared points over every starter
+     */
+    private final int sumSquares;
+
+    /**
+     * Number of possible starters
+     */
+    private final int starters;
+
+    /**
+     * Expected points the dropped cards add to the player through the crib (negative if the
+     * opponent has the crib), or 0 if the crib is not counted
+     */
+    private final double cribPoints;
+
+    /**
+     * Probability that the player wins the game after this discard, or NaN if the position is not
+     * known
+     */
+    private final double winProbability;
+
+    /**
+     * Expected points the player pegs in the play minus the points the opponent pegs, or NaN if the
+     * play was not simulated
+     */
+    private final double peggingPoints;
+
+    /**
+     * Initializes this result from a score histogram, without counting the crib
+     *
+     * @param discards bitmask of the dropped cards
+     * @param keep     bitmask of the kept cards
+     * @param counts   number of starters giving each score (not copied; must not be modified)
+     */
+    DiscardResult(long discards, long keep, int @NotNull [] counts) {
+        this(discards, keep, counts, 0);
+    }
+
+    /**
+     * Initializes this result from a score histogram and the expected points from the crib
+     *
+     * @param discards   bitmask of the dropped cards
+     * @param keep       bitmask of the kept cards
+     * @param counts     number of starters giving each score (not copied; must not be modified)
+     * @param cribPoints expected crib points for the player (negative for the opponent's crib)
+     */
+    DiscardResult(long discards, long keep, int @NotNull [] counts, double cribPoints) {
+        this(discards, keep, counts, cribPoints, Double.NaN);
+    }
+
+    /**
+     * Initializes this result from a score histogram, the expected points from the crib and the
+     * probability of winning
+     *
+     * @param discards       bitmask of the dropped cards
+     * @param keep           bitmask of the kept cards
+     * @param counts         number of starters giving each score (not copied; must not be modified)
+     * @param cribPoints     expected crib points for the player (negative for the opponent's crib)
+     * @param winProbability probability of winning the game, or NaN if not known
+     */
+    DiscardResult(long discards, long keep, int @NotNull [] counts, double cribPoints, double winProbability) {
+        this(discards, keep, counts, cribPoints, winProbability, Double.NaN);
+    }
+
+    /**
+     * Initializes this result from a score histogram, the expected points from the crib, the
+     * probability of winning and the expected pegging differential
+     *
+     * @param discards       bitmask of the dropped cards
+     * @param keep           bitmask of the kept cards
+     * @param counts         number of starters giving each score (not copied; must not be modified)
+     * @param cribPoints     expected crib points for the player (negative for the opponent's crib)
+     * @param winProbability probability of winning the game, or NaN if not known
+     * @param peggingPoints  expected points pegged more than the opponent, or NaN if not known
+     */
+    DiscardResult(long discards, long keep, int @NotNull [] counts, double cribPoints, double winProbability,
+                  double peggingPoints) {
+        this.discards = discards;
+        this.keep = keep;
+        this.counts = counts;
+        this.cribPoints = cribPoints;
+        this.winProbability = winProbability;
+        this.peggingPoints = peggingPoints;
+
+        int total = 0, sumSquares = 0, starters = 0;
+        for (int points = 0; points < counts.length; ++points) {
+            total += points * counts[points];
+            sumSquares += points * points * counts[points];
+            starters += counts[points];
+        }
+        this.totalPoints = total;
+        this.sumSquares = sumSquares;
+        this.starters = starters;
+    }
+
+    /**
+     * Returns this result with the suits of its cards relabelled
+     *
+     * <p> The scores are unchanged, since relabelling suits never changes the points in a hand
+     *
+     * @param permutation a permutation packed as described in {@link SuitCanonicalizer}
+     * @return a result for the relabelled discard (this result if the permutation is the identity)
+     */
+    @NotNull DiscardResult relabel(int permutation) {
+        if (permutation == SuitCanonicalizer.IDENTITY) {
+            return this;
+        }
+        return new DiscardResult(SuitCanonicalizer.apply(permutation, this.discards),
+                SuitCanonicalizer.apply(permutation, this.keep), this.counts, this.cribPoints, this.winProbability,
+                this.peggingPoints);
+    }
+
+    /**
+     * Returns this result with the expected points from the crib
+     *
+     * @param cribPoints expected crib points for the player (negative for the opponent's crib)
+     * @return a new result with the same cards and scores
+     */
+    @Contract("_ -> new")
+    @NotNull DiscardResult withCribPoints(double cribPoints) {
+        return new DiscardResult(this.discards, this.keep, this.counts, cribPoints, this.winProbability,
+                this.peggingPoints);
+    }
+
+    /**
+     * Returns this result with the probability of winning the game
+     *
+     * @param winProbability probability that the player wins after this discard
+     * @return a new result with the same cards, scores and crib points
+     */
+    @Contract("_ -> new")
+    @NotNull DiscardResult withWinProbability(double winProbability) {
+        return new DiscardResult(this.discards, this.keep, this.counts, this.cribPoints, winProbability,
+                this.peggingPoints);
+    }
+
+    /**
+     * Returns this result with the expected pegging differential
+     *
+     * @param peggingPoints expected points the player pegs more than the opponent
+     * @return a new result with the same cards, scores and crib points
+     */
+    @Contract("_ -> new")
+    @NotNull DiscardResult withPeggingPoints(double peggingPoints) {
+        return new DiscardResult(this.discards, this.keep, this.counts, this.cribPoints, this.winProbability,
+                peggingPoints);
+    }
+
+    /**
+     * Returns the cards dropped
+     *
+     * @return a new {@code CardSet} with the dropped cards
+     */
+    @Override
+    @Contract(" -> new")
+    public @NotNull CardSet getDiscards() {
+        return CardSet.fromBits(this.discards);
+    }
+
+    /**
+     * Returns the cards kept
+     *
+     * @return a new {@code CardSet} with the four kept cards
+     */
+    @Contract(" -> new")
+    public @NotNull CardSet getKeep() {
+        return CardSet.fromBits(this.keep);
+    }
+
+    /**
+     * Returns the bitmask of the cards dropped (see {@link CardSet#toBits()})
+     *
+     * @return the bitmask of the dropped cards
+     */
+    public long getDiscardBits() {
+        return this.discards;
+    }
+
+    /**
+     * Returns the bitmask of the cards kept (see {@link CardSet#toBits()})
+     *
+     * @return the bitmask of the kept cards
+     */
+    public long getKeepBits() {
+        return this.keep;
+    }
+
+    /**
+     * Returns the average points of the kept hand over every possible starter
+     *
+     * @return the mean number of points
+     */
+    @Override
+    public double getMean() {
+        return (double) this.totalPoints / this.starters;
+    }
+
+    /**
+     * Returns the variance of the kept hand's points over every possible starter
+     *
+     * @return the population variance of the points
+     */
+    public double getVariance() {
+        final double mean = getMean();
+        return (double) this.sumSquares / this.starters - mean * mean;
+    }
+
+    /**
+     * Returns the standard deviation of the kept hand's points over every possible starter
+     *
+     * @return the square root of {@link #getVariance()}
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(Math.max(0, getVariance()));
+    }
+
+    /**
+     * Returns the expected points the dropped cards add to the player through the crib
+     *
+     * @return the expected crib points, negative if the opponent has the crib, or 0 if the crib
+     * is not counted
+     */
+    public double getCribPoints() {
+        return this.cribPoints;
+    }
+
+    /**
+     * Returns the expected points the player pegs in the play more than the opponent
+     *
+     * @return the expected pegging differential, or NaN if the play was not simulated
+     * @see PeggingEstimator
+     */
+    @Override
+    public double getPeggingPoints() {
+        return this.peggingPoints;
+    }
+
+    /**
+     * Returns the average points of the kept hand plus the expected points from the crib and, if
+     * the play was simulated, the pegging differential
+     *
+     * @return the mean hand points plus {@link #getCribPoints()} and {@link #getPeggingPoints()}
+     */
+    @Override
+    public double getNetMean() {
+        return getMean() + this.cribPoints + (Double.isNaN(this.peggingPoints) ? 0 : this.peggingPoints);
+    }
+
+    /**
+     * Returns the probability that the player wins the game after this discard
+     *
+     * @return the probability of winning, or NaN if the position in the game was not given
+     * @see WinProbability#afterDiscard(DiscardResult, double, int, int, boolean)
+     */
+    public double getWinProbability() {
+        return this.winProbability;
+    }
+
+    /**
+     * Returns the sum of the kept hand's points over every possible starter
+     *
+     * @return the total number of points
+     */
+    public int getTotalPoints() {
+        return this.totalPoints;
+    }
+
+    /**
+     * Returns the lowest number of points the kept hand can score
+     *
+     * @return the minimum number of points
+     */
+    public int getMin() {
+        int points = 0;
+        while (this.counts[points] == 0) {
+            ++points;
+        }
+        return points;
+    }
+
+    /**
+     * Returns the highest number of points the kept hand can score
+     *
+     * @return the maximum number of points
+     */
+    public int getMax() {
+        int points = this.counts.length - 1;
+        while (this.counts[points] == 0) {
+            --points;
+        }
+        return points;
+    }
+
+    /**
+     * Returns the number of starters that give the kept hand a number of points
+     *
+     * @param points a number of points (0 to 29)
+     * @return the number of starters with that score
+     * @throws ArrayIndexOutOfBoundsException if {@code points} is not between 0 and 29
+     */
+    public int getCount(int points) {
+        return this.counts[points];
+    }
+
+    /**
+     * Returns the probability that the kept hand scores a number of points, if every possible
+     * starter is equally likely
+     *
+     * @param points a number of points (0 to 29)
+     * @return the fraction of starters with that score
+     * @throws ArrayIndexOutOfBoundsException if {@code points} is not between 0 and 29
+     */
+    public double getProbability(int points) {
+        return (double) this.counts[points] / this.starters;
+    }
+
+    /**
+     * Returns a percentile of the kept hand's points: the lowest score that at least
+     * {@code percent} percent of the starters score at most
+     *
+     * <p> The 0th percentile is the {@link #getMin() minimum}, the 50th the median and the 100th
+     * the {@link #getMax() maximum}
+     *
+     * @param percent the percentile, from 0 to 100
+     * @return the number of points at that percentile
+     * @throws IllegalArgumentException if {@code percent} is not between 0 and 100
+     */
+    public int getPercentile(int percent) {
+        if (percent < 0 || percent > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percent);
+        }
+        // Nearest rank: the score of the k-th lowest starter, counting from 1
+        final int rank = Math.max(1, (percent * this.starters + 99) / 100);
+        int points = 0;
+        for (int below = this.counts[0]; below < rank; below += this.counts[points]) {
+            ++points;
+        }
+        return points;
+    }
+
+    /**
+     * Returns the number of starters that give each score
+     *
+     * @return a new array where index {@code i} is the number of starters giving {@code i} points
+     */
+    public int @NotNull [] getCounts() {
+        return this.counts.clone();
+    }
+
+    /**
+     * Returns the number of possible starters
+     *
+     * @return the number of starters the scores were calculated over
+     */
+    public int getStarters() {
+        return this.starters;
+    }
+
+    /**
+     * Returns true if both results are for the same discard and have the same scores
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof DiscardResult)) {
+            return false;
+        }
+        final DiscardResult other = (DiscardResult) obj;
+        return this.discards == other.discards && this.keep == other.keep
+                && Arrays.equals(this.counts, other.counts)
+                && Double.compare(this.cribPoints, other.cribPoints) == 0
+                && Double.compare(this.winProbability, other.winProbability) == 0
+                && Double.compare(this.peggingPoints, other.peggingPoints) == 0;
+    }
+
+    /**
+     * Returns a hash code value for this {@code DiscardResult}
+     */
+    @Override
+    public int hashCode() {
+        return 31 * (31 * (31 * (31 * Long.hashCode(this.discards ^ this.keep) + Arrays.hashCode(this.counts))
+                + Double.hashCode(this.cribPoints)) + Double.hashCode(this.winProbability))
+                + Double.hashCode(this.peggingPoints);
+    }
+
+    /**
+     * Returns the dropped cards and average points to two decimals, e.g. "[Five of clubs]: 8.46"
+     */
+    @Override
+    public @NotNull String toString() {
+        return getDiscards() + ": " + String.format(Locale.ROOT, "%.2f", getMean());
+    }
+
+}
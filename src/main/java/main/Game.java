@@ -0,0 +1,197 @@
+package main;
+
+import card.CardSet;
+import card.Deck;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Plays complete 2-player games of cribbage to 121 points between two {@link Strategy strategies}
+ *
+ * <p> The players cut for the first deal, the lower card dealing, and the deal alternates. Each
+ * deal, both players are dealt six cards and drop two to the dealer's crib, and a starter is cut,
+ * giving the dealer 2 for his heels if it is a jack. The cards are then played with
+ * {@link Pegging}, and the pone's hand, the dealer's hand and the crib are counted in that order.
+ * Points are pegged as they are scored, and the game ends as soon as a player reaches 121, even in
+ * the middle of the play or the show
+ *
+ * <p> Hands and cribs are scored by reading a {@link ScoreTable}, and the cards are dealt from a
+ * {@link Deck} and played with a {@link Pegging} that are both reused for every deal, so a game only
+ * allocates what its strategies do. An instance holds the state of the game being played and is not
+ * thread-safe; each thread of a {@link Tournament} has its own
+ *
+ * @author Reid Moffat
+ */
+public final class Game {
+
+    /**
+     * The score that wins the game
+     */
+    static final int WINNING_SCORE = 121;
+
+    /**
+     * A player who loses with fewer points than this is skunked
+     */
+    static final int SKUNK_SCORE = 91;
+
+    /**
+     * Rank of a jack (0 for ace); a jack as the starter gives the dealer his heels
+     */
+    private static final int JACK = 10;
+
+    /**
+     * Scores hands and cribs
+     */
+    private final ScoreTable scoreTable;
+
+    /**
+     * The strategy in each seat
+     */
+    private final Strategy[] strategies;
+
+    /**
+     * The play of each deal, dealt new hands every deal
+     */
+    private final Pegging pegging = new Pegging();
+
+    /**
+     * Each seat's score in the current or last game
+     */
+    private final int[] scores = new int[2];
+
+    /**
+     * Number of deals in the current or last game
+     */
+    private int deals;
+
+    /**
+     * Initializes a game between two strategies
+     *
+     * @param scoreTable scores for hands and cribs
+     * @param first      the strategy in seat 0
+     * @param second     the strategy in seat 1
+     */
+    public Game(@NotNull ScoreTable scoreTable, @NotNull Strategy first, @NotNull Strategy second) {
+        this.scoreTable = scoreTable;
+        this.strategies = new Strategy[]{first, second};
+    }
+
+    /**
+     * Plays a complete game
+     *
+     * @param deck the deck to cut and deal from, with no cards removed
+     * @return the winning seat, 0 or 1
+     * @throws IllegalArgumentException if the deck has cards removed
+     * @throws IllegalStateException    if a strategy drops cards it was not dealt or lays a card it
+     *                                  cannot play
+     */
+    public int play(@NotNull Deck deck) {
+        if (deck.getRemoved() != 0) {
+            throw new IllegalArgumentException("Games need a full deck");
+        }
+        this.scores[0] = 0;
+        this.scores[1] = 0;
+        this.deals = 0;
+
+        // Each seat cuts a card and the lower rank deals, cutting again on a tie
+        int firstCut, secondCut;
+        do {
+            deck.reset();
+            firstCut = deck.draw() % 13;
+            secondCut = deck.draw() % 13;
+        } while (firstCut == secondCut);
+
+        for (int dealer = firstCut < secondCut ? 0 : 1; ; dealer = 1 - dealer) {
+            ++this.deals;
+            if (deal(dealer, deck)) {
+                return this.scores[0] >= WINNING_SCORE ? 0 : 1;
+            }
+        }
+    }
+
+    /**
+     * Plays one deal
+     *
+     * @return true if a player reached 121
+     */
+    private boolean deal(int dealer, @NotNull Deck deck) {
+        // Deal the pone's hand (6), the dealer's hand (6) and the starter
+        deck.reset();
+        final long poneDealt = deck.deal(6), dealerDealt = deck.deal(6);
+        final int starter = deck.draw();
+
+        final int pone = 1 - dealer;
+        final long poneDiscards = discard(pone, poneDealt, false);
+        final long dealerDiscards = discard(dealer, dealerDealt, true);
+        final long poneHand = poneDealt & ~poneDiscards, dealerHand = dealerDealt & ~dealerDiscards;
+
+        if (starter % 13 == JACK && peg(dealer, 2)) {
+            return true;
+        }
+
+        final Pegging pegging = this.pegging;
+        pegging.deal(poneHand, dealerHand);
+        long state = pegging.start();
+        while (!Pegging.isOver(state)) {
+            final int mover = Pegging.mover(state);
+            final int seat = mover == 0 ? pone : dealer;
+            final int card = this.strategies[seat].play(pegging, state);
+            if (!pegging.canPlay(state, card)) {
+                throw new IllegalStateException(this.strategies[seat] + " cannot lay card " + card + " of "
+                        + CardSet.fromBits(mover == 0 ? poneHand : dealerHand) + " at count " + Pegging.count(state));
+            }
+            final long next = pegging.playUnchecked(state, card);
+            // Only the player laying the card scores: for the card, a go or the last card
+            if (peg(seat, Pegging.points(next, mover) - Pegging.points(state, mover))) {
+                return true;
+            }
+            state = next;
+        }
+
+        final long starterBit = 1L << starter;
+        return peg(pone, this.scoreTable.total(poneHand, starterBit))
+                || peg(dealer, this.scoreTable.total(dealerHand, starterBit))
+                || peg(dealer, this.scoreTable.cribTotal(poneDiscards | dealerDiscards, starterBit));
+    }
+
+    /**
+     * Asks a seat's strategy for its discards and checks them
+     */
+    private long discard(int seat, long dealt, boolean dealer) {
+        final long discards = this.strategies[seat].discard(dealt, dealer, this.scores[seat], this.scores[1 - seat]);
+        if (Long.bitCount(discards) != 2 || (discards & ~dealt) != 0) {
+            throw new IllegalStateException(this.strategies[seat] + " dropped " + CardSet.fromBits(discards)
+                    + " from " + CardSet.fromBits(dealt));
+        }
+        return discards;
+    }
+
+    /**
+     * Adds points to a seat's score
+     *
+     * @return true if the seat reached 121
+     */
+    private boolean peg(int seat, int points) {
+        this.scores[seat] += points;
+        return this.scores[seat] >= WINNING_SCORE;
+    }
+
+    /**
+     * Returns a seat's score in the current or last game
+     *
+     * @param seat 0 or 1
+     * @return the seat's score, at least 121 for the winner of a finished game
+     */
+    public int getScore(int seat) {
+        return this.scores[seat];
+    }
+
+    /**
+     * Returns the number of deals in the current or last game
+     *
+     * @return the number of deals, including the one the game ended in
+     */
+    public int getDeals() {
+        return this.deals;
+    }
+
+}
@@ -1,13 +1,104 @@
 package main;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
 public class Main {
 
+    /**
+     * How to run this program, printed for invalid arguments
+     */
+    private static final String USAGE = "Usage: Main [--batch <input file> <output file> [csv|jsonl]]\n"
+            + "       Main --coordinate <work dir> <workers> <shards> <output file> <job...>\n"
+            + "       Main --worker <work dir> [id]";
+
     /**
      * Entry point for this program
      *
-     * @param args command-line arguments (not used)
+     * <p> With no arguments, the cribbage calculator runs interactively. With
+     * {@code --batch <input> <output> [csv|jsonl]}, every hand in the input file is analyzed by a
+     * {@link BatchAnalyzer} and the results are written to the output file ("-" for standard input
+     * or output). The format defaults to JSON Lines if the output file ends with ".jsonl", and CSV
+     * otherwise
+     *
+     * <p> With {@code --coordinate <work dir> <workers> <shards> <output> <job...>}, a
+     * {@link ShardJob} such as {@code tournament crib hand 10000000} is split into shards and run
+     * by a {@link ShardCoordinator} on that many local worker JVMs, and its merged output written
+     * to the output file. {@code --worker <work dir> [id]} joins the job in a work directory, which
+     * may be shared with other machines
+     *
+     * @param args command-line arguments
+     * @throws IOException          if a batch cannot read its input or write its output, or a
+     *                              sharded job fails
+     * @throws InterruptedException if interrupted while coordinating a sharded job
      */
-    public static void main(String[] args) {
-        new UserInterface();
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            new UserInterface();
+            return;
+        }
+        if (args[0].equals("--coordinate") && args.length >= 6) {
+            final int workers, shards;
+            try {
+                workers = Integer.parseInt(args[2]);
+                shards = Integer.parseInt(args[3]);
+            } catch (NumberFormatException e) {
+                System.err.println(USAGE);
+                System.exit(1);
+                return;
+            }
+
+            final long start = System.nanoTime();
+            final List<String> job = Arrays.asList(args).subList(5, args.length);
+            ShardCoordinator.coordinate(Paths.get(args[1]), workers, shards, job, Paths.get(args[4]));
+            System.err.printf("Ran %s in %d shards in %.1f s%n", String.join(" ", job), shards,
+                    (System.nanoTime() - start) / 1e9);
+            return;
+        }
+        if (args[0].equals("--worker") && (args.length == 2 || args.length == 3)) {
+            final String id = args.length == 3 ? args[2] : "worker-" + ProcessHandle.current().pid();
+            final int shards = ShardCoordinator.work(Paths.get(args[1]), id);
+            System.err.println(id + " ran " + shards + " shards");
+            return;
+        }
+        if (!args[0].equals("--batch") || args.length < 3 || args.length > 4) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        final BatchAnalyzer.Format format;
+        try {
+            format = args.length == 4 ? BatchAnalyzer.Format.valueOf(args[3].toUpperCase(Locale.ROOT))
+                    : args[2].endsWith(".jsonl") ? BatchAnalyzer.Format.JSONL : BatchAnalyzer.Format.CSV;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown format '" + args[3] + "', must be csv or jsonl");
+            System.exit(1);
+            return;
+        }
+
+        final long start = System.nanoTime();
+        final BatchAnalyzer batch = new BatchAnalyzer(new DiscardAnalyzer(), format);
+        try (ReadableByteChannel input = args[1].equals("-") ? Channels.newChannel(System.in)
+                : FileChannel.open(Paths.get(args[1]));
+             Writer output = new BufferedWriter(args[2].equals("-")
+                     ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                     : Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8), 1 << 16)) {
+            batch.run(input, output);
+        }
+
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("Analyzed %,d hands in %.1f s (%,.0f hands/s), skipped %,d invalid lines%n",
+                batch.getHands(), seconds, batch.getHands() / seconds, batch.getInvalidLines());
     }
 }
@@ -0,0 +1,379 @@
+package main;
+
+import card.CardSet;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Scores the play (pegging) of a 2-player deal one card at a time
+ *
+ * <p> Starting with the pone, the players take turns laying a card and adding its value (face cards
+ * count 10) to a running count that may not pass 31. A card scores 2 if it brings the count to 15
+ * or 31, 2, 6 or 12 for completing a pair, pair royal or double pair royal with the cards before
+ * it, and one point per card for completing a run of three or more among the last cards played
+ * (in any order). A player who cannot play says "go" and the other keeps playing; when neither can,
+ * the last player to lay a card scores 1 (unless the count is 31), and the count starts again from
+ * 0 with the other player. The last card of the play also scores 1
+ *
+ * <p> An instance holds the four cards each player kept, and the state of the play is packed into
+ * a {@code long}, so states are immutable values that can be copied, compared and hashed for free.
+ * {@link #play(long, int)} is the only decision: the player to move lays one of their cards, and
+ * the state moves on to the next player who can lay one, scoring goes and the last card on the
+ * way. Every step reads at most the last 7 cards of the count (no run can be longer within 31),
+ * so it takes constant time and never allocates. Simulations reuse one instance for many deals
+ * with {@link #setHand(int, long)}, so dealing new hands does not allocate either
+ *
+ * <p> The bits of a state are, from the lowest:
+ * <ul>
+ *     <li> 0-4: the running count</li>
+ *     <li> 5-32: the ranks (0 for ace to 12 for king) of the last 7 cards since the count started,
+ *     4 bits each with the newest lowest</li>
+ *     <li> 33-35: the number of those cards, up to 7</li>
+ *     <li> 36-39 and 40-43: which of the pone's and dealer's cards, in deck order, are left</li>
+ *     <li> 44: set if the dealer is to play</li>
+ *     <li> 45-50 and 51-56: the points the pone and dealer have pegged</li>
+ * </ul>
+ *
+ * @author Reid Moffat
+ */
+public final class Pegging {
+
+    /**
+     * The count that may not be passed
+     */
+    static final int MAX_COUNT = 31;
+
+    /**
+     * The most recent cards of a count that can affect scoring
+     */
+    static final int WINDOW = 7;
+
+    private static final int COUNT_MASK = 0x1F;
+    private static final int WINDOW_SHIFT = 5;
+    private static final long WINDOW_MASK = (1L << 4 * WINDOW) - 1;
+    private static final int LENGTH_SHIFT = 33;
+
+    /**
+     * Number of low bits of a state holding the count and the cards since it started, which
+     * {@link #lay(long, int)} and {@link #playPoints(long, int)} read
+     */
+    static final int SEQUENCE_BITS = 36;
+
+    private static final int HANDS_SHIFT = SEQUENCE_BITS;
+    private static final int DEALER_SHIFT = 44;
+    private static final int POINTS_SHIFT = 45;
+    private static final int POINTS_MASK = 0x3F;
+
+    /**
+     * Bits of a state holding the count and the cards since it started
+     */
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    /**
+     * The rank of each of the pone's cards, then each of the dealer's, in deck order
+     */
+    private final int[] ranks = new int[8];
+
+    /**
+     * The lowest value among each subset of the pone's cards, then of the dealer's, indexed by
+     * {@code 16 * player + left}; higher than any count for an empty subset
+     */
+    private final int[] minValues = new int[32];
+
+    /**
+     * Bitmask of the pone's cards, then of the dealer's
+     */
+    private final long[] hands = new long[2];
+
+    /**
+     * Initializes a play with no cards; the hands must be set with {@link #deal(long, long)} or
+     * {@link #setHand(int, long)} before it is played
+     */
+    Pegging() {
+    }
+
+    /**
+     * Initializes the play of a deal
+     *
+     * @param pone   the four cards the pone kept
+     * @param dealer the four cards the dealer kept
+     * @throws IllegalArgumentException if either hand does not have 4 cards, or they share a card
+     */
+    public Pegging(@NotNull CardSet pone, @NotNull CardSet dealer) {
+        this(pone.toBits(), dealer.toBits());
+    }
+
+    /**
+     * Initializes the play of a deal from {@link CardSet#toBits() bitmasks}
+     *
+     * @param pone   bitmask of the four cards the pone kept
+     * @param dealer bitmask of the four cards the dealer kept
+     * @throws IllegalArgumentException if either hand does not have 4 cards, or they share a card
+     */
+    Pegging(long pone, long dealer) {
+        deal(pone, dealer);
+    }
+
+    /**
+     * Replaces both hands, so the same instance can play another deal
+     *
+     * @param pone   bitmask of the four cards the pone kept
+     * @param dealer bitmask of the four cards the dealer kept
+     * @throws IllegalArgumentException if either hand does not have 4 cards, or they share a card
+     */
+    void deal(long pone, long dealer) {
+        if (Long.bitCount(pone) != 4 || Long.bitCount(dealer) != 4 || (pone & dealer) != 0
+                || ((pone | dealer) & ~CardSet.DECK_MASK) != 0) {
+            throw new IllegalArgumentException("Pegging needs two hands of 4 different cards: "
+                    + CardSet.fromBits(pone) + ", " + CardSet.fromBits(dealer));
+        }
+        fill(0, pone);
+        fill(1, dealer);
+    }
+
+    /**
+     * Replaces one player's hand, keeping the other's, so the same instance can play another deal
+     *
+     * <p> Only the tables of that player's cards are rebuilt, so a simulation playing many hands
+     * against one opponent hand only sets the opponent's hand once
+     *
+     * @param player 0 for the pone or 1 for the dealer
+     * @param hand   bitmask of the four cards the player kept
+     * @throws IllegalArgumentException if the hand does not have 4 cards, or shares a card with
+     *                                  the other player's hand
+     */
+    void setHand(int player, long hand) {
+        if (Long.bitCount(hand) != 4 || (hand & this.hands[1 - player]) != 0
+                || (hand & ~CardSet.DECK_MASK) != 0) {
+            throw new IllegalArgumentException("Pegging needs two hands of 4 different cards: "
+                    + CardSet.fromBits(hand) + ", " + CardSet.fromBits(this.hands[1 - player]));
+        }
+        fill(player, hand);
+    }
+
+    /**
+     * Stores a player's hand and rebuilds the tables of its cards
+     */
+    private void fill(int player, long hand) {
+        this.hands[player] = hand;
+
+        int slot = 4 * player;
+        for (long cards = hand; cards != 0; cards &= cards - 1) {
+            this.ranks[slot++] = Long.numberOfTrailingZeros(cards) % 13;
+        }
+        for (int left = 0; left < 16; ++left) {
+            int min = MAX_COUNT + 1;
+            for (int card = 0; card < 4; ++card) {
+                if ((left & 1 << card) != 0) {
+                    min = Math.min(min, value(this.ranks[4 * player + card]));
+                }
+            }
+            this.minValues[16 * player + left] = min;
+        }
+    }
+
+    /**
+     * Returns the value a card adds to the count
+     *
+     * @param rank the card's rank (0 for ace to 12 for king)
+     * @return the rank plus one, or 10 for a face card
+     */
+    static int value(int rank) {
+        return Math.min(rank + 1, 10);
+    }
+
+    /**
+     * Returns the state before the first card is played: every card is left, and the pone plays
+     *
+     * @return the starting state
+     */
+    public long start() {
+        return 0xFFL << HANDS_SHIFT;
+    }
+
+    /**
+     * Returns the state after the player to move lays a card
+     *
+     * <p> The points for the card are added to that player. If the other player cannot play next,
+     * the same player keeps playing, or if neither can, the go (or last card) is scored and the count
+     * starts again
+     *
+     * @param state the current state
+     * @param card  which of the player's cards to lay, from 0 to 3 in deck order
+     * @return the next state
+     * @throws IllegalArgumentException if the card is not in the player's hand or would take the
+     *                                  count past 31
+     */
+    public long play(long state, int card) {
+        if (!canPlay(state, card)) {
+            throw new IllegalArgumentException("Card " + card + " cannot be played from state "
+                    + Long.toHexString(state));
+        }
+        return playUnchecked(state, card);
+    }
+
+    /**
+     * Returns true if the player to move may lay a card: it is in their hand and does not take the
+     * count past 31
+     *
+     * @param state the current state
+     * @param card  which of the player's cards, from 0 to 3 in deck order
+     * @return true if {@code play(state, card)} is legal
+     */
+    public boolean canPlay(long state, int card) {
+        final int player = mover(state);
+        return card >= 0 && card < 4 && (left(state, player) & 1 << card) != 0
+                && count(state) + value(this.ranks[4 * player + card]) <= MAX_COUNT;
+    }
+
+    /**
+     * Returns the state after the player to move lays a card, without checking that the move is legal
+     *
+     * @param state the current state
+     * @param card  which of the player's cards to lay, which must be legal
+     * @return the next state
+     */
+    long playUnchecked(long state, int card) {
+        final int player = mover(state);
+        final int rank = this.ranks[4 * player + card];
+        int points = playPoints(state, rank);
+        long next = lay(state & ~(1L << HANDS_SHIFT + 4 * player + card), rank);
+        final int count = count(next);
+
+        final int other = 1 - player;
+        if (count == MAX_COUNT) {
+            next = restart(next, other);
+        } else if (this.minValues[16 * other + left(next, other)] <= MAX_COUNT - count) {
+            next = next & ~(1L << DEALER_SHIFT) | (long) other << DEALER_SHIFT;
+        } else if (this.minValues[16 * player + left(next, player)] > MAX_COUNT - count) {
+            // Neither player can lay a card: a go, or the last card
+            ++points;
+            next = restart(next, other);
+        }
+        return next + ((long) points << POINTS_SHIFT + 6 * player);
+    }
+
+    /**
+     * Starts the count again, with {@code player} to lay the first card if they have any left
+     */
+    private static long restart(long state, int player) {
+        final int next = left(state, player) != 0 ? player : 1 - player;
+        return state & ~SEQUENCE_MASK & ~(1L << DEALER_SHIFT) | (long) next << DEALER_SHIFT;
+    }
+
+    /**
+     * Adds a card to the count and the cards since it started, leaving the other bits of a state
+     *
+     * @param state the state before the card is laid; the card must not take the count past 31
+     * @param rank  the card's rank (0 for ace to 12 for king)
+     * @return the state with the card laid
+     */
+    static long lay(long state, int rank) {
+        final int count = count(state) + value(rank);
+        final int length = Math.min(WINDOW, (int) (state >>> LENGTH_SHIFT & 7) + 1);
+        final long window = (state >>> WINDOW_SHIFT << 4 | rank) & WINDOW_MASK;
+        return state & ~SEQUENCE_MASK | count | window << WINDOW_SHIFT | (long) length << LENGTH_SHIFT;
+    }
+
+    /**
+     * Returns the points for laying a card of a rank, without a go or last card
+     *
+     * @param state the state before the card is laid; the card must not take the count past 31
+     * @param rank  the card's rank (0 for ace to 12 for king)
+     * @return the points for fifteens, 31, pairs and runs
+     */
+    static int playPoints(long state, int rank) {
+        final int count = count(state) + value(rank);
+        int points = count == 15 || count == MAX_COUNT ? 2 : 0;
+
+        final int length = (int) (state >>> LENGTH_SHIFT & 7);
+        long window = state >>> WINDOW_SHIFT;
+
+        // Pairs: the cards of the same rank just before this one
+        int same = 0;
+        while (same < Math.min(length, 3) && (window >>> 4 * same & 0xF) == rank) {
+            ++same;
+        }
+        if (same > 0) {
+            // 1, 3 or 6 pairs; a card equal to the last one cannot complete a run
+            return points + same * (same + 1);
+        }
+
+        // Runs: the longest run of distinct ranks ending with this card whose ranks are consecutive
+        int ranks = 1 << rank, run = 0;
+        for (int cards = 2; cards <= length + 1; ++cards, window >>>= 4) {
+            final int bit = 1 << (window & 0xF);
+            if ((ranks & bit) != 0) {
+                break;
+            }
+            ranks |= bit;
+            if (cards >= 3 && (ranks >>> Integer.numberOfTrailingZeros(ranks)) == (1 << cards) - 1) {
+                run = cards;
+            }
+        }
+        return points + run;
+    }
+
+    /**
+     * Returns true if every card has been played
+     *
+     * @param state a state
+     * @return true if neither player has cards left
+     */
+    public static boolean isOver(long state) {
+        return (state >>> HANDS_SHIFT & 0xFF) == 0;
+    }
+
+    /**
+     * Returns the running count
+     *
+     * @param state a state
+     * @return the count, from 0 to 30 (it starts again after reaching 31)
+     */
+    public static int count(long state) {
+        return (int) state & COUNT_MASK;
+    }
+
+    /**
+     * Returns which player is to lay the next card
+     *
+     * @param state a state
+     * @return 0 for the pone or 1 for the dealer
+     */
+    public static int mover(long state) {
+        return (int) (state >>> DEALER_SHIFT) & 1;
+    }
+
+    /**
+     * Returns which of a player's cards are left
+     *
+     * @param state  a state
+     * @param player 0 for the pone or 1 for the dealer
+     * @return bit {@code i} is set if card {@code i}, in deck order, has not been played
+     */
+    public static int left(long state, int player) {
+        return (int) (state >>> HANDS_SHIFT + 4 * player) & 0xF;
+    }
+
+    /**
+     * Returns the points a player has pegged
+     *
+     * @param state  a state
+     * @param player 0 for the pone or 1 for the dealer
+     * @return the points pegged so far in this deal
+     */
+    public static int points(long state, int player) {
+        return (int) (state >>> POINTS_SHIFT + 6 * player) & POINTS_MASK;
+    }
+
+    /**
+     * Returns the rank of one of a player's cards
+     *
+     * @param player 0 for the pone or 1 for the dealer
+     * @param card   which card, from 0 to 3 in deck order
+     * @return the rank, from 0 for ace to 12 for king
+     */
+    public int rank(int player, int card) {
+        return this.ranks[4 * player + card];
+    }
+
+}
@@ -0,0 +1,211 @@
+package main;
+
+import card.CardSet;
+import card.Deck;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Estimates how many more points the player pegs in the play than the opponent for each discard
+ * from one dealt hand, by simulating the play
+ *
+ * <p> Each sample deals the opponent six of the 46 unseen cards and has the opponent keep the four
+ * left by their {@link ScoreTable#bestDiscard(long) best discard}. The play is then run with
+ * {@link Pegging} for every one of the player's 15 possible keeps against that same opponent hand,
+ * so the keeps are compared on common deals and the differences between them are much more precise
+ * than each estimate alone. Both players lay cards with the {@link #baselineCard(Pegging, long)
+ * baseline policy}, so the estimates measure the cards, not the skill of the players
+ *
+ * <p> The samples are split into a fixed number of tasks on the executor, each with its own random
+ * stream split in a fixed order from a stream seeded by the estimator's seed and the dealt hand.
+ * The same hand therefore always gives the same estimates, whatever the number of threads
+ *
+ * @author Reid Moffat
+ */
+public final class PeggingEstimator {
+
+    /**
+     * Default number of simulated plays for each discard
+     */
+    static final int DEFAULT_SAMPLES = 4096;
+
+    /**
+     * Number of tasks the samples are split between
+     */
+    private static final int TASKS = 64;
+
+    /**
+     * Chooses the opponent's discards
+     */
+    private final ScoreTable scoreTable;
+
+    /**
+     * Runs the sampling tasks
+     */
+    private final Executor executor;
+
+    /**
+     * Seed of the random streams, combined with each dealt hand
+     */
+    private final long seed;
+
+    /**
+     * Number of simulated plays for each discard
+     */
+    private final int samples;
+
+    /**
+     * Initializes this estimator with the default settings, running on the common
+     * {@code ForkJoinPool}
+     *
+     * @param scoreTable scores for the opponent's discards
+     */
+    public PeggingEstimator(@NotNull ScoreTable scoreTable) {
+        this(scoreTable, ForkJoinPool.commonPool(), 0, DEFAULT_SAMPLES);
+    }
+
+    /**
+     * Initializes this estimator
+     *
+     * @param scoreTable scores for the opponent's discards
+     * @param executor   the executor to run sampling tasks on
+     * @param seed       seed of the random streams
+     * @param samples    number of simulated plays for each discard
+     * @throws IllegalArgumentException if {@code samples} is less than 2
+     */
+    public PeggingEstimator(@NotNull ScoreTable scoreTable, @NotNull Executor executor, long seed, int samples) {
+        if (samples < 2) {
+            throw new IllegalArgumentException("Need at least 2 samples: " + samples);
+        }
+        this.scoreTable = scoreTable;
+        this.executor = executor;
+        this.seed = seed;
+        this.samples = samples;
+    }
+
+    /**
+     * Estimates the pegging differential of each discard from a 6-card hand and ranks the discards
+     * by their net points
+     *
+     * @param handResults the 15 discards of a 6-card hand, e.g. from
+     *                    {@link DiscardAnalyzer#analyze(CardSet, boolean)}
+     * @param dealer      true if the player is the dealer (the opponent lays the first card)
+     * @return the results with their {@link DiscardResult#getPeggingPoints() pegging points} set,
+     * sorted from the highest to the lowest {@link DiscardResult#getNetMean() net points}
+     * @throws IllegalArgumentException if the results are not the 15 discards of one 6-card hand
+     */
+    public @NotNull List<DiscardResult> estimate(@NotNull List<DiscardResult> handResults, boolean dealer) {
+        if (handResults.size() != 15) {
+            throw new IllegalArgumentException("Pegging estimates need the 15 discards of a 6-card hand, not "
+                    + handResults.size());
+        }
+        final long dealt = handResults.get(0).getDiscardBits() | handResults.get(0).getKeepBits();
+        final long[] keeps = new long[handResults.size()];
+        for (int i = 0; i < keeps.length; ++i) {
+            final DiscardResult result = handResults.get(i);
+            if ((result.getDiscardBits() | result.getKeepBits()) != dealt
+                    || Long.bitCount(result.getDiscardBits()) != 2) {
+                throw new IllegalArgumentException("Results are not from the same 6-card hand");
+            }
+            keeps[i] = result.getKeepBits();
+        }
+
+        // Split every stream up front so the result does not depend on the order tasks run in
+        final SplittableRandom root = new SplittableRandom(this.seed ^ dealt);
+        final List<CompletableFuture<long[]>> tasks = new ArrayList<>(TASKS);
+        for (int task = 0; task < TASKS; ++task) {
+            final int taskSamples = (int) ((long) this.samples * (task + 1) / TASKS
+                    - (long) this.samples * task / TASKS);
+            final SplittableRandom random = root.split();
+            tasks.add(CompletableFuture.supplyAsync(() -> simulate(dealt, keeps, dealer, taskSamples, random),
+                    this.executor));
+        }
+
+        final long[] totals = new long[keeps.length];
+        try {
+            tasks.forEach(task -> {
+                final long[] differentials = task.join();
+                for (int i = 0; i < totals.length; ++i) {
+                    totals[i] += differentials[i];
+                }
+            });
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+
+        final List<DiscardResult> results = new ArrayList<>(handResults.size());
+        for (int i = 0; i < totals.length; ++i) {
+            results.add(handResults.get(i).withPeggingPoints((double) totals[i] / this.samples));
+        }
+        results.sort(DiscardAnalyzer.BY_NET_MEAN);
+        return results;
+    }
+
+    /**
+     * Simulates some plays of every keep
+     *
+     * @return the sum of the player's pegging differentials for each keep
+     */
+    private long @NotNull [] simulate(long dealt, long @NotNull [] keeps, boolean dealer, int samples,
+                                      @NotNull SplittableRandom random) {
+        final Deck deck = new Deck(random, dealt);
+        final Pegging pegging = new Pegging();
+        final int player = dealer ? 1 : 0;
+        final long[] totals = new long[keeps.length];
+        for (int sample = 0; sample < samples; ++sample) {
+            // Deal the opponent's six cards from the unseen cards
+            deck.reset();
+            final long opponent = deck.deal(6);
+            pegging.setHand(1 - player, opponent & ~this.scoreTable.bestDiscard(opponent));
+
+            for (int i = 0; i < keeps.length; ++i) {
+                pegging.setHand(player, keeps[i]);
+                long state = pegging.start();
+                while (!Pegging.isOver(state)) {
+                    state = pegging.playUnchecked(state, baselineCard(pegging, state));
+                }
+                totals[i] += Pegging.points(state, player) - Pegging.points(state, 1 - player);
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Returns the card the baseline policy lays: the one scoring the most points right away, then
+     * preferring not to leave a count of 5 or 21 (which a ten-card takes to 15 or 31), then the
+     * highest card, keeping low cards for later counts
+     *
+     * @param pegging the deal being played
+     * @param state   the current state, which is not over
+     * @return which of the mover's cards to lay, from 0 to 3 in deck order
+     */
+    static int baselineCard(@NotNull Pegging pegging, long state) {
+        final int player = Pegging.mover(state);
+        int best = -1, bestScore = Integer.MIN_VALUE;
+        for (int card = 0; card < 4; ++card) {
+            if (!pegging.canPlay(state, card)) {
+                continue;
+            }
+            final int rank = pegging.rank(player, card);
+            final int count = Pegging.count(state) + Pegging.value(rank);
+            final int danger = count == 5 || count == 21 ? 1 : 0;
+            final int score = (2 * Pegging.playPoints(state, rank) - danger) * 16 + Pegging.value(rank);
+            if (score > bestScore) {
+                best = card;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+}
@@ -0,0 +1,526 @@
+package main;
+
+import card.Card;
+import card.CardSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Recommends the card to lay during the play by searching the rest of it
+ *
+ * <p> The search is an expectimax over the remaining play: at the player's turns it takes the card
+ * with the highest expected points difference (points pegged by the player minus points pegged by
+ * the opponent, including goes and the last card, as scored by {@link Pegging}); at the opponent's
+ * turns it takes the expectation over the cards the opponent might hold. Pegging only depends on
+ * ranks, so the opponent's cards are modelled by the number of each rank not yet seen: the
+ * opponent cannot lay a card with the probability that every card they hold is too high for the
+ * count (drawing their hand from the unseen cards), and otherwise lays each playable rank in
+ * proportion to how many of it are unseen. A go tells the search that the opponent cannot play
+ * until the count starts again, but is not used to narrow down their hand after that
+ *
+ * <p> Positions are packed into a {@code long} that starts with the bits {@link Pegging} uses for
+ * the count and the cards since it started, followed by which of the player's cards are left, the
+ * number of cards the opponent has left, whose turn it is, whether the opponent has said go, who
+ * laid the last card and the ranks the opponent has laid since the search started (sorted, so the
+ * order they were laid in does not matter). The packed positions key a transposition table of
+ * expected values, so positions reached by different orders of play are only searched once
+ *
+ * <p> The search deepens iteratively, one card laid at a time, until the whole play is searched or
+ * a node budget runs out. Each iteration tries the best card of the previous one first, so an
+ * iteration cut short by the budget can still improve on the previous answer. An instance keeps
+ * its table's memory between searches and is not thread-safe; use one per thread
+ *
+ * @author Reid Moffat
+ */
+public final class PeggingSearch {
+
+    /**
+     * Default number of positions to search before returning the best card found so far. Leading
+     * from four cards each needs about 60,000 positions to search exactly, but this budget gives up
+     * only about 0.02 expected points there, and most later positions are searched exactly
+     */
+    static final int DEFAULT_NODE_LIMIT = 4_000;
+
+    /**
+     * Default number of transposition table entries, as a power of two
+     */
+    static final int DEFAULT_TABLE_BITS = 16;
+
+    /**
+     * The depth stored for a value that did not reach the search horizon, so is exact
+     */
+    private static final int EXACT = Byte.MAX_VALUE;
+
+    private static final int LEFT_SHIFT = Pegging.SEQUENCE_BITS;
+    private static final int OPPONENT_SHIFT = LEFT_SHIFT + 4;
+    private static final int TURN_SHIFT = OPPONENT_SHIFT + 3;
+    private static final int GO_SHIFT = TURN_SHIFT + 1;
+    private static final int LAST_SHIFT = GO_SHIFT + 1;
+    private static final int LAID_SHIFT = LAST_SHIFT + 1;
+
+
+    /**
+     * Positions searched before the search stops
+     */
+    private final int nodeLimit;
+
+    /**
+     * Transposition table: each entry is a position followed by its expected value (as a
+     * {@code float} in the low 32 bits), the depth it was searched to (8 bits), the best card at the
+     * player's turns (8 bits) and the search that stored it (16 bits), so one entry is one pair of
+     * adjacent {@code long}s
+     */
+    private final long[] table;
+
+    /**
+     * Identifies the current search in the table, so the table does not need to be cleared
+     * between searches
+     */
+    private int stamp;
+
+    /**
+     * The rank of each of the player's cards at the start of the search, in deck order
+     */
+    private final int[] ranks = new int[4];
+
+    /**
+     * The number of cards the player had at the start of the search
+     */
+    private int handSize;
+
+    /**
+     * The number of cards the opponent had at the start of the search
+     */
+    private int opponentCards;
+
+    /**
+     * The number of cards of each rank the opponent might hold at the position being searched: the
+     * unseen cards at the start of the search, less the ranks the opponent has laid since
+     */
+    private final int[] counts = new int[13];
+
+    /**
+     * The sum of {@code counts}
+     */
+    private int total;
+
+    /**
+     * Positions searched so far in the current search
+     */
+    private int nodes;
+
+    /**
+     * Number of times the current search stopped at its depth limit
+     */
+    private int horizons;
+
+    /**
+     * Initializes a search with the default node budget and table size
+     */
+    public PeggingSearch() {
+        this(DEFAULT_NODE_LIMIT, DEFAULT_TABLE_BITS);
+    }
+
+    /**
+     * Initializes a search
+     *
+     * @param nodeLimit the number of positions to search before returning the best card found
+     * @param tableBits the number of transposition table entries, as a power of two
+     * @throws IllegalArgumentException if {@code nodeLimit} is not positive or {@code tableBits} is
+     *                                  not between 4 and 26
+     */
+    public PeggingSearch(int nodeLimit, int tableBits) {
+        if (nodeLimit <= 0) {
+            throw new IllegalArgumentException("Node limit must be positive: " + nodeLimit);
+        }
+        if (tableBits < 4 || tableBits > 26) {
+            throw new IllegalArgumentException("Table bits must be between 4 and 26: " + tableBits);
+        }
+        this.nodeLimit = nodeLimit;
+        this.table = new long[2 << tableBits];
+    }
+
+    /**
+     * Returns the best card for the player to lay next
+     *
+     * @param hand          the player's cards that have not been laid (1 to 4)
+     * @param seen          every card the opponent cannot hold: the player's whole hand and
+     *                      discards, the starter and every card laid so far
+     * @param laid          the cards laid since the count started, in order
+     * @param opponentCards the number of cards the opponent has not laid (0 to 4)
+     * @param opponentGo    true if the opponent has said go since the count started
+     * @return the card to lay, or null if no card in {@code hand} fits under 31
+     * @throws IllegalArgumentException if the hand has no cards or more than 4, the laid cards
+     *                                  count past 31, or {@code opponentCards} is not between 0 and 4
+     */
+    public @Nullable Card bestCard(@NotNull CardSet hand, @NotNull CardSet seen, @NotNull List<Card> laid,
+                                   int opponentCards, boolean opponentGo) {
+        final int[] laidIndices = laid.stream().mapToInt(Card::getIndex).toArray();
+        final int best = bestCard(hand.toBits(), seen.toBits(), laidIndices, opponentCards, opponentGo);
+        return best < 0 ? null : Card.of(best);
+    }
+
+    /**
+     * Returns the best card for the player to lay next, with cards as deck indices and bitmasks
+     *
+     * @param hand          bitmask of the player's cards that have not been laid (1 to 4)
+     * @param seen          bitmask of every card the opponent cannot hold
+     * @param laid          deck indices of the cards laid since the count started, in order
+     * @param opponentCards the number of cards the opponent has not laid (0 to 4)
+     * @param opponentGo    true if the opponent has said go since the count started
+     * @return the deck index of the card to lay, or -1 if no card fits under 31
+     * @throws IllegalArgumentException if the arguments are not a valid position
+     * @see #bestCard(CardSet, CardSet, List, int, boolean)
+     */
+    public int bestCard(long hand, long seen, int @NotNull [] laid, int opponentCards, boolean opponentGo) {
+        final long root = start(hand, seen, laid, opponentCards, opponentGo);
+        final int count = Pegging.count(root);
+
+        // The cards the player can lay, one of each rank
+        final int[] moves = new int[4];
+        int moveCount = 0;
+        for (int card = 0; card < this.handSize; ++card) {
+            if (Pegging.value(this.ranks[card]) <= Pegging.MAX_COUNT - count && !sameRankBefore(root, card)) {
+                moves[moveCount++] = card;
+            }
+        }
+        if (moveCount == 0) {
+            return -1;
+        }
+
+        this.nodes = 0;
+        int best = moves[0];
+        final double[] moveValues = new double[4];
+        final int maxDepth = this.handSize + opponentCards;
+        for (int depth = 1; depth <= maxDepth && moveCount > 1; ++depth) {
+            // Search the best card so far first
+            for (int i = 0; i < moveCount; ++i) {
+                if (moves[i] == best) {
+                    moves[i] = moves[0];
+                    moves[0] = best;
+                }
+            }
+
+            final int horizonsBefore = this.horizons;
+            int iterationBest = -1, searched = 0;
+            for (int i = 0; i < moveCount; ++i) {
+                moveValues[i] = layValue(root, moves[i], depth);
+                if (this.nodes > this.nodeLimit) {
+                    break;
+                }
+                ++searched;
+                if (iterationBest < 0 || moveValues[i] > moveValues[iterationBest]) {
+                    iterationBest = i;
+                }
+            }
+            if (searched > 0) {
+                best = moves[iterationBest];
+            }
+            if (searched < moveCount || this.horizons == horizonsBefore) {
+                // Out of budget, or the whole play was searched
+                break;
+            }
+        }
+        return Long.numberOfTrailingZeros(nthCard(hand, best));
+    }
+
+    /**
+     * Returns the expected points difference after the player lays a card, searching the rest of the
+     * play exactly
+     *
+     * @param hand          bitmask of the player's cards that have not been laid
+     * @param seen          bitmask of every card the opponent cannot hold
+     * @param laid          deck indices of the cards laid since the count started, in order
+     * @param opponentCards the number of cards the opponent has not laid
+     * @param opponentGo    true if the opponent has said go since the count started
+     * @param card          deck index of the card to lay, which must fit under 31
+     * @return the expected points the player pegs minus the points the opponent pegs, from this card
+     * to the end of the play
+     */
+    double expectedValue(long hand, long seen, int @NotNull [] laid, int opponentCards, boolean opponentGo,
+                         int card) {
+        final long root = start(hand, seen, laid, opponentCards, opponentGo);
+        this.nodes = Integer.MIN_VALUE;
+        return layValue(root, Long.bitCount(hand & ((1L << card) - 1)), EXACT);
+    }
+
+    /**
+     * Returns the number of positions the last search visited
+     *
+     * @return the number of positions searched
+     */
+    int getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * Checks a position, sets up the player's ranks and the unseen ranks, starts a new search in the
+     * table and returns the packed root position
+     */
+    private long start(long hand, long seen, int @NotNull [] laid, int opponentCards, boolean opponentGo) {
+        this.handSize = Long.bitCount(hand);
+        if (this.handSize < 1 || this.handSize > 4 || (hand & ~CardSet.DECK_MASK) != 0) {
+            throw new IllegalArgumentException("Hand must have 1 to 4 cards: " + CardSet.fromBits(hand));
+        }
+        if (opponentCards < 0 || opponentCards > 4) {
+            throw new IllegalArgumentException("Opponent must have 0 to 4 cards: " + opponentCards);
+        }
+
+        this.opponentCards = opponentCards;
+        int card = 0;
+        for (long cards = hand; cards != 0; cards &= cards - 1) {
+            this.ranks[card++] = Long.numberOfTrailingZeros(cards) % 13;
+        }
+        Arrays.fill(this.counts, 0);
+        for (long cards = ~(seen | hand) & CardSet.DECK_MASK; cards != 0; cards &= cards - 1) {
+            ++this.counts[Long.numberOfTrailingZeros(cards) % 13];
+        }
+        this.total = Long.bitCount(~(seen | hand) & CardSet.DECK_MASK);
+
+        long root = 0;
+        for (int index : laid) {
+            if (index < 0 || index >= 52 || Pegging.count(root) + Pegging.value(index % 13) >= Pegging.MAX_COUNT) {
+                throw new IllegalArgumentException("Laid cards must be cards counting under 31: "
+                        + Arrays.toString(laid));
+            }
+            root = Pegging.lay(root, index % 13);
+        }
+        this.stamp = (this.stamp + 1) & 0xFFFF;
+        if (this.stamp == 0) {
+            // Entries from 65,536 searches ago would look current
+            Arrays.fill(this.table, 0);
+            this.stamp = 1;
+        }
+        this.horizons = 0;
+        return root | (long) ((1 << this.handSize) - 1) << LEFT_SHIFT | (long) opponentCards << OPPONENT_SHIFT
+                | (opponentGo ? 1L << GO_SHIFT : 0) | (laid.length > 0 ? 1L << LAST_SHIFT : 0);
+    }
+
+    /**
+     * Returns true if a card left in the player's hand before {@code card} has the same rank, so
+     * laying either gives the same result
+     */
+    private boolean sameRankBefore(long position, int card) {
+        final int left = (int) (position >>> LEFT_SHIFT) & 0xF;
+        for (int other = 0; other < card; ++other) {
+            if ((left & 1 << other) != 0 && this.ranks[other] == this.ranks[card]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the expected value of the player laying one of their cards: its points plus the value
+     * of the position after it
+     */
+    private double layValue(long position, int card, int depth) {
+        final int rank = this.ranks[card];
+        final int points = Pegging.playPoints(position, rank);
+        long next = Pegging.lay(position & ~(1L << LEFT_SHIFT + card), rank) | 1L << TURN_SHIFT;
+        next &= ~(1L << LAST_SHIFT);
+        if (Pegging.count(next) == Pegging.MAX_COUNT) {
+            next = next & ~Pegging.SEQUENCE_MASK & ~(1L << GO_SHIFT);
+        }
+        return points + search(next, depth - 1);
+    }
+
+    /**
+     * Returns the expected points difference from a position to the end of the play
+     *
+     * <p> Goes and the last card are scored and the count started again until someone can lay a
+     * card, then the position is looked up in the table or searched
+     */
+    private double search(long position, int depth) {
+        double points = 0;
+        while (true) {
+            final int left = (int) (position >>> LEFT_SHIFT) & 0xF;
+            final int opponentCards = (int) (position >>> OPPONENT_SHIFT) & 7;
+            final int count = Pegging.count(position);
+            final boolean lastOpponent = (position & 1L << LAST_SHIFT) != 0;
+            if (left == 0 && opponentCards == 0) {
+                // The last card scores unless it made 31
+                return points + (count == 0 ? 0 : lastOpponent ? -1 : 1);
+            }
+
+            final boolean opponentTurn = (position & 1L << TURN_SHIFT) != 0;
+            final boolean opponentMayPlay = opponentCards > 0 && (position & 1L << GO_SHIFT) == 0;
+            final boolean playerCanPlay = canPlay(left, count);
+            if (opponentTurn ? opponentMayPlay : playerCanPlay) {
+                break;
+            }
+            if (opponentTurn ? playerCanPlay : opponentMayPlay) {
+                position ^= 1L << TURN_SHIFT;
+                break;
+            }
+
+            // Neither can play: a go for whoever laid the last card, and the other player starts again
+            points += lastOpponent ? -1 : 1;
+            position = position & ~Pegging.SEQUENCE_MASK & ~(1L << GO_SHIFT) & ~(1L << TURN_SHIFT)
+                    | (lastOpponent ? 0 : 1L << TURN_SHIFT);
+        }
+        if (depth <= 0) {
+            ++this.horizons;
+            return points;
+        }
+        return points + searchTurn(position, depth);
+    }
+
+    /**
+     * Returns the expected points difference from a position where someone may lay a card, using
+     * the table
+     */
+    private double searchTurn(long position, int depth) {
+        final int slot = (int) (mix(position) & (this.table.length / 2 - 1)) * 2;
+        final long entry = this.table[slot + 1];
+        final boolean hit = this.table[slot] == position && (int) (entry >>> 48) == this.stamp;
+        if (hit && (int) (entry >>> 32 & 0xFF) >= depth) {
+            if ((int) (entry >>> 32 & 0xFF) != EXACT) {
+                ++this.horizons;
+            }
+            return Float.intBitsToFloat((int) entry);
+        }
+        if (++this.nodes > this.nodeLimit) {
+            // Out of budget: the caller throws this iteration away
+            return 0;
+        }
+        final int horizonsBefore = this.horizons;
+
+        double value;
+        int bestCard = -1;
+        if ((position & 1L << TURN_SHIFT) == 0) {
+            // The player lays the card with the highest expected value, the previous best first
+            final int left = (int) (position >>> LEFT_SHIFT) & 0xF;
+            final int count = Pegging.count(position);
+            value = Double.NEGATIVE_INFINITY;
+            final int first = hit ? (int) (entry >>> 40 & 0xFF) : -1;
+            if (first >= 0) {
+                bestCard = first;
+                value = layValue(position, first, depth);
+            }
+            for (int card = 0; card < this.handSize; ++card) {
+                if ((left & 1 << card) == 0 || card == first
+                        || Pegging.value(this.ranks[card]) > Pegging.MAX_COUNT - count
+                        || sameRankBefore(position, card)) {
+                    continue;
+                }
+                final double cardValue = layValue(position, card, depth);
+                if (cardValue > value) {
+                    value = cardValue;
+                    bestCard = card;
+                }
+            }
+        } else {
+            value = opponentValue(position, depth);
+        }
+
+        if (this.nodes <= this.nodeLimit) {
+            final long storedDepth = this.horizons == horizonsBefore ? EXACT : depth;
+            this.table[slot] = position;
+            this.table[slot + 1] = Float.floatToRawIntBits((float) value) & 0xFFFFFFFFL | storedDepth << 32
+                    | (long) Math.max(bestCard, 0) << 40 | (long) this.stamp << 48;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the expected points difference when the opponent may lay a card: either they hold
+     * nothing that fits and say go, or they lay a playable rank
+     */
+    private double opponentValue(long position, int depth) {
+        final int opponentCards = (int) (position >>> OPPONENT_SHIFT) & 7;
+        final int room = Pegging.MAX_COUNT - Pegging.count(position);
+
+        final int[] counts = this.counts;
+        final int total = this.total;
+        int playable = 0;
+        for (int rank = room >= 10 ? 12 : room - 1; rank >= 0; --rank) {
+            playable += counts[rank];
+        }
+
+        // The chance that every card the opponent holds is too high for the count
+        double go = 1;
+        for (int i = 0; i < opponentCards; ++i) {
+            go *= Math.max(0, total - playable - i) / (double) Math.max(1, total - i);
+        }
+
+        double value = 0;
+        if (go > 0) {
+            value += go * search(position | 1L << GO_SHIFT, depth);
+        }
+        if (playable == 0) {
+            return value;
+        }
+        for (int rank = 0; rank < 13; ++rank) {
+            if (counts[rank] == 0 || Pegging.value(rank) > room) {
+                continue;
+            }
+            final int points = Pegging.playPoints(position, rank);
+            long next = Pegging.lay(position, rank) - (1L << OPPONENT_SHIFT);
+            next = insertLaid(next, rank) & ~(1L << TURN_SHIFT) | 1L << LAST_SHIFT;
+            if (Pegging.count(next) == Pegging.MAX_COUNT) {
+                next = next & ~Pegging.SEQUENCE_MASK & ~(1L << GO_SHIFT);
+            }
+            // The rank laid is no longer unseen while the rest of the play is searched
+            final double probability = (1 - go) * counts[rank] / playable;
+            --counts[rank];
+            --this.total;
+            value += probability * (search(next, depth - 1) - points);
+            ++counts[rank];
+            ++this.total;
+        }
+        return value;
+    }
+
+    /**
+     * Adds a rank to the sorted ranks the opponent has laid since the search started, in a position
+     * where the opponent's card has already been taken from their count
+     */
+    private long insertLaid(long position, int rank) {
+        final int laidCount = this.opponentCards - (int) (position >>> OPPONENT_SHIFT & 7) - 1;
+        long laid = position >>> LAID_SHIFT;
+        int at = 0;
+        while (at < laidCount && (laid >>> 4 * at & 0xF) < rank) {
+            ++at;
+        }
+        final long below = laid & ((1L << 4 * at) - 1);
+        final long above = laid >>> 4 * at << 4 * (at + 1);
+        laid = below | (long) rank << 4 * at | above;
+        return position & ((1L << LAID_SHIFT) - 1) | laid << LAID_SHIFT;
+    }
+
+    /**
+     * Returns true if the player has a card left that fits under 31
+     */
+    private boolean canPlay(int left, int count) {
+        for (int card = 0; card < this.handSize; ++card) {
+            if ((left & 1 << card) != 0 && Pegging.value(this.ranks[card]) <= Pegging.MAX_COUNT - count) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the {@code n}-th lowest card of a bitmask
+     */
+    private static long nthCard(long cards, int n) {
+        for (int i = 0; i < n; ++i) {
+            cards &= cards - 1;
+        }
+        return cards & -cards;
+    }
+
+    /**
+     * Spreads the bits of a position over a table index
+     */
+    private static long mix(long position) {
+        position ^= position >>> 33;
+        position *= 0xFF51AFD7ED558CCDL;
+        return position ^ position >>> 33;
+    }
+
+}
@@ -0,0 +1,50 @@
+package main;
+
+import card.CardSet;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A combination of cards to drop from a dealt hand and the average points of the cards kept
+ *
+ * <p> Implemented by {@link DiscardResult}, which is calculated on demand, and by the entries of a
+ * precomputed {@link StrategyTable}
+ *
+ * @author Reid Moffat
+ */
+public interface RankedDiscard {
+
+    /**
+     * Returns the cards dropped
+     *
+     * @return a new {@code CardSet} with the dropped cards
+     */
+    @NotNull CardSet getDiscards();
+
+    /**
+     * Returns the average points of the kept hand over every possible starter
+     *
+     * @return the mean number of points
+     */
+    double getMean();
+
+    /**
+     * Returns the average points of the kept hand plus the expected points the dropped cards add
+     * through the crib (negative if the opponent has the crib) and the expected pegging differential
+     *
+     * @return the net mean number of points, which is {@link #getMean()} if neither the crib nor
+     * the play is counted
+     */
+    default double getNetMean() {
+        return getMean();
+    }
+
+    /**
+     * Returns the expected points the player pegs in the play more than the opponent
+     *
+     * @return the expected pegging differential, or NaN if the play was not simulated
+     */
+    default double getPeggingPoints() {
+        return Double.NaN;
+    }
+
+}
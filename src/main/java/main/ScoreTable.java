@@ -0,0 +1,344 @@
+package main;
+
+import card.CardCombinations;
+import card.CardSet;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+/**
+ * A precomputed table of the points for every 4-card hand and starter card
+ *
+ * <p> There are C(52, 4) = 270,725 hands and 48 possible starters for each, so the table has
+ * 12,994,800 one-byte entries (every score fits in 5 bits, but a whole byte keeps each lookup to a
+ * single read). Hands are numbered by their {@link CardCombinations colexicographic rank}. The 48
+ * starters of a hand are numbered in deck order, skipping the cards in the hand, so all the scores
+ * for one hand are in one 48-byte block
+ *
+ * <p> The same table scores cribs: a crib only differs from a hand when its four cards are a flush
+ * and the starter has another suit, which is worth 4 points in a hand and none in the crib. The
+ * crib methods subtract that from the hand scores, so they cost the same as the hand methods
+ *
+ * <p> The table is written by {@link ScoreTableGenerator} and normally memory-mapped from that file
+ * with {@link #open(Path)}, so it is shared between processes and costs nothing to load. The file
+ * starts with a 4-byte magic number and the number of entries, followed by the entries
+ *
+ * @author Reid Moffat
+ */
+public final class ScoreTable {
+
+    /**
+     * Number of 4-card hands in a 52-card deck
+     */
+    static final int HANDS = 270_725;
+
+    /**
+     * Number of possible starters for each hand
+     */
+    static final int STARTERS = 48;
+
+    /**
+     * Number of entries in the table
+     */
+    static final int ENTRIES = HANDS * STARTERS;
+
+    /**
+     * Identifies a score table file ("CRST" in ASCII)
+     */
+    static final int MAGIC = 0x43525354;
+
+    /**
+     * Size of the file header: the magic number and the number of entries
+     */
+    static final int HEADER_BYTES = 8;
+
+    /**
+     * A bitmask of the 13 clubs, shifted left by 13 bits for each later suit
+     */
+    private static final long SUIT_MASK = (1L << 13) - 1;
+
+    /**
+     * The table entries, starting at position 0
+     */
+    private final ByteBuffer entries;
+
+    /**
+     * The sum of each hand's points over all 48 of its starters, indexed by hand, or null until
+     * {@link #total(long, long)} first needs them
+     */
+    private volatile char[] handTotals;
+
+    /**
+     * Initializes this table from its entries
+     *
+     * @param entries a buffer with {@link #ENTRIES} scores from position 0
+     */
+    private ScoreTable(@NotNull ByteBuffer entries) {
+        if (entries.limit() != ENTRIES) {
+            throw new IllegalArgumentException("Score table must have " + ENTRIES + " entries, not "
+                    + entries.limit());
+        }
+        this.entries = entries;
+    }
+
+    /**
+     * Memory-maps a score table file
+     *
+     * @param file a file written by {@link ScoreTableGenerator}
+     * @return the table in the file
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a score table
+     */
+    public static @NotNull ScoreTable open(@NotNull Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_BYTES + (long) ENTRIES) {
+                throw new IllegalArgumentException(file + " is not a score table: it has "
+                        + channel.size() + " bytes");
+            }
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Read the whole header
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != ENTRIES) {
+                throw new IllegalArgumentException(file + " is not a score table: bad header");
+            }
+
+            // The mapping stays valid after the channel is closed
+            return new ScoreTable(channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, ENTRIES));
+        }
+    }
+
+    /**
+     * Calculates every entry of the table in memory, using all available processors
+     *
+     * @return a new table that is not backed by a file
+     */
+    @Contract(" -> new")
+    public static @NotNull ScoreTable generate() {
+        final byte[] entries = new byte[ENTRIES];
+
+        // Hands are enumerated in colex order, so the hands with highest card c3 start at C(c3, 4)
+        IntStream.range(3, 52).parallel().forEach(card3 -> {
+            int offset = CardCombinations.binomial(card3, 4) * STARTERS;
+            for (int card2 = 2; card2 < card3; ++card2) {
+                for (int card1 = 1; card1 < card2; ++card1) {
+                    for (int card0 = 0; card0 < card1; ++card0) {
+                        for (int starter = 0; starter < 52; ++starter) {
+                            if (starter != card0 && starter != card1 && starter != card2 && starter != card3) {
+                                entries[offset++] = (byte) CribbageHand.totalPoints(card0, card1, card2,
+                                        card3, starter);
+                            }
+                        }
+                    }
+                }
+            }
+        });
+        return new ScoreTable(ByteBuffer.wrap(entries));
+    }
+
+    /**
+     * Returns the colexicographic rank of a 4-card hand
+     *
+     * @param card0 the lowest deck index in the hand
+     * @param card1 the second-lowest deck index in the hand
+     * @param card2 the second-highest deck index in the hand
+     * @param card3 the highest deck index in the hand
+     * @return the rank of the hand, from 0 to 270,724
+     */
+    static int handIndex(int card0, int card1, int card2, int card3) {
+        return CardCombinations.rank(card0, card1, card2, card3);
+    }
+
+    /**
+     * Returns the points for a hand and starter, given as deck indices
+     *
+     * <p> The parameters are not checked; the starter must not be in the hand
+     *
+     * @param card0   the lowest deck index in the hand
+     * @param card1   the second-lowest deck index in the hand
+     * @param card2   the second-highest deck index in the hand
+     * @param card3   the highest deck index in the hand
+     * @param starter deck index of the starter
+     * @return the total number of points in the hand with the given starter
+     */
+    public int points(int card0, int card1, int card2, int card3, int starter) {
+        // Skip over the hand cards below the starter to get its position among the 48 starters
+        final int position = starter - (card0 < starter ? 1 : 0) - (card1 < starter ? 1 : 0)
+                - (card2 < starter ? 1 : 0) - (card3 < starter ? 1 : 0);
+        return this.entries.get(handIndex(card0, card1, card2, card3) * STARTERS + position);
+    }
+
+    /**
+     * Adds the points of a hand with each of a set of starters to a histogram
+     *
+     * @param hand     bitmask of the four cards in the hand
+     * @param starters bitmask of the starters, none of which are in the hand
+     * @param counts   histogram to add to; {@code counts[i]} is incremented once for every starter
+     *                 giving {@code i} points
+     */
+    public void count(long hand, long starters, int @NotNull [] counts) {
+        long cards = hand;
+        final int card0 = Long.numberOfTrailingZeros(cards);
+        cards &= cards - 1;
+        final int card1 = Long.numberOfTrailingZeros(cards);
+        cards &= cards - 1;
+        final int card2 = Long.numberOfTrailingZeros(cards);
+        cards &= cards - 1;
+        final int card3 = Long.numberOfTrailingZeros(cards);
+
+        final int offset = handIndex(card0, card1, card2, card3) * STARTERS;
+        for (; starters != 0; starters &= starters - 1) {
+            final int starter = Long.numberOfTrailingZeros(starters);
+            final int position = starter - Long.bitCount(hand & ((1L << starter) - 1));
+            ++counts[this.entries.get(offset + position)];
+        }
+    }
+
+    /**
+     * Returns the sum of the points of a hand with each of a set of starters
+     *
+     * <p> If more than half of the hand's 48 starters are given, the starters left out are
+     * subtracted from the hand's total over all 48, so the usual case of every card not dealt as a
+     * starter takes a few reads instead of 46. The totals of every hand are summed the first time
+     * they are needed
+     *
+     * @param hand     bitmask of the four cards in the hand
+     * @param starters bitmask of the starters, none of which are in the hand
+     * @return the total number of points over every starter
+     */
+    public int total(long hand, long starters) {
+        long cards = hand;
+        final int card0 = Long.numberOfTrailingZeros(cards);
+        cards &= cards - 1;
+        final int card1 = Long.numberOfTrailingZeros(cards);
+        cards &= cards - 1;
+        final int card2 = Long.numberOfTrailingZeros(cards);
+        cards &= cards - 1;
+        final int card3 = Long.numberOfTrailingZeros(cards);
+
+        final int index = handIndex(card0, card1, card2, card3);
+        final int offset = index * STARTERS;
+        long excluded = CardSet.DECK_MASK & ~hand & ~starters;
+        if (Long.bitCount(excluded) < STARTERS / 2) {
+            int total = handTotals()[index];
+            for (; excluded != 0; excluded &= excluded - 1) {
+                final int starter = Long.numberOfTrailingZeros(excluded);
+                total -= this.entries.get(offset + starter - Long.bitCount(hand & ((1L << starter) - 1)));
+            }
+            return total;
+        }
+
+        int total = 0;
+        for (; starters != 0; starters &= starters - 1) {
+            final int starter = Long.numberOfTrailingZeros(starters);
+            total += this.entries.get(offset + starter - Long.bitCount(hand & ((1L << starter) - 1)));
+        }
+        return total;
+    }
+
+    /**
+     * Returns the sum of each hand's points over all 48 of its starters, summing them on first use
+     *
+     * <p> Threads racing on the first use may each sum the totals, but always to the same values
+     */
+    private char @NotNull [] handTotals() {
+        char[] totals = this.handTotals;
+        if (totals == null) {
+            totals = new char[HANDS];
+            for (int hand = 0, offset = 0; hand < HANDS; ++hand) {
+                int total = 0;
+                for (int starter = 0; starter < STARTERS; ++starter) {
+                    total += this.entries.get(offset++);
+                }
+                totals[hand] = (char) total;
+            }
+            this.handTotals = totals;
+        }
+        return totals;
+    }
+
+    /**
+     * Returns the two cards to drop from a 6-card hand that leave the highest average points,
+     * counting every card not in the hand as a possible starter
+     *
+     * <p> This is the discard {@link DiscardAnalyzer} ranks first, ignoring the crib, and is how
+     * the opponent is assumed to play when estimating crib points. Ties go to the first pair in
+     * deck order
+     *
+     * @param dealt bitmask of the six cards dealt
+     * @return bitmask of the two cards to drop
+     */
+    public long bestDiscard(long dealt) {
+        final long starters = ~dealt & CardSet.DECK_MASK;
+        long best = 0;
+        int bestTotal = -1;
+        for (long first = dealt; first != 0; first &= first - 1) {
+            final long firstBit = first & -first;
+            for (long second = first & (first - 1); second != 0; second &= second - 1) {
+                final long discards = firstBit | (second & -second);
+                final int total = total(dealt & ~discards, starters);
+                if (total > bestTotal) {
+                    bestTotal = total;
+                    best = discards;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the points for a crib and starter, given as deck indices
+     *
+     * <p> The parameters are not checked; the starter must not be in the crib
+     *
+     * @param card0   the lowest deck index in the crib
+     * @param card1   the second-lowest deck index in the crib
+     * @param card2   the second-highest deck index in the crib
+     * @param card3   the highest deck index in the crib
+     * @param starter deck index of the starter
+     * @return the total number of points in the crib with the given starter, as given by
+     * {@link CribbageHand#cribPoints(int, int, int, int, int)}
+     */
+    public int cribPoints(int card0, int card1, int card2, int card3, int starter) {
+        final int suit = card0 / 13;
+        final boolean fourFlush = card1 / 13 == suit && card2 / 13 == suit && card3 / 13 == suit
+                && starter / 13 != suit;
+        return points(card0, card1, card2, card3, starter) - (fourFlush ? 4 : 0);
+    }
+
+    /**
+     * Returns the sum of the points of a crib with each of a set of starters
+     *
+     * <p> This scores a crib against up to 48 starters with one table read for each, which is the
+     * inner loop of estimating crib points by simulation
+     *
+     * @param crib     bitmask of the four cards in the crib
+     * @param starters bitmask of the starters, none of which are in the crib
+     * @return the total number of crib points over every starter
+     */
+    public int cribTotal(long crib, long starters) {
+        final int total = total(crib, starters);
+
+        // A 4-card flush scored 4 points in the hand table for every starter of another suit
+        final int shift = 13 * (Long.numberOfTrailingZeros(crib) / 13);
+        final long suit = SUIT_MASK << shift;
+        return (crib & ~suit) == 0 ? total - 4 * Long.bitCount(starters & ~suit) : total;
+    }
+
+    /**
+     * Copies the entries of this table into a buffer
+     *
+     * @param destination a buffer with at least {@link #ENTRIES} bytes remaining
+     */
+    void copyTo(@NotNull ByteBuffer destination) {
+        destination.put(this.entries.duplicate().position(0));
+    }
+
+}
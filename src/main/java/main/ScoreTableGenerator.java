@@ -0,0 +1,80 @@
+package main;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a {@link ScoreTable} file with the points of every 4-card hand and starter
+ *
+ * <p> Run by the {@code score-table} Maven profile, which writes {@code target/score-table.bin}:
+ *
+ * <pre>mvn -P score-table process-classes</pre>
+ *
+ * @author Reid Moffat
+ */
+public final class ScoreTableGenerator {
+
+    /**
+     * This class only has static methods and should not be instantiated
+     */
+    private ScoreTableGenerator() {
+    }
+
+    /**
+     * Generates a score table and writes it to a file
+     *
+     * @param args the path of the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String @NotNull [] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: ScoreTableGenerator <output file>");
+            System.exit(1);
+        }
+
+        final long start = System.nanoTime();
+        final Path file = Paths.get(args[0]);
+        write(ScoreTable.generate(), file);
+        System.out.printf("Wrote %,d scores to %s in %.1f s%n", ScoreTable.ENTRIES, file,
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Writes a score table to a file, replacing it if it exists
+     *
+     * <p> The table is written to a temporary file in the same directory and then moved into
+     * place, so a reader never sees a partly written table
+     *
+     * @param table the table to write
+     * @param file  the file to write to
+     * @throws IOException if the file cannot be written
+     */
+    static void write(@NotNull ScoreTable table, @NotNull Path file) throws IOException {
+        final Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        final Path temporary = Files.createTempFile(directory, "score-table", ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(ScoreTable.HEADER_BYTES + ScoreTable.ENTRIES);
+            buffer.putInt(ScoreTable.MAGIC).putInt(ScoreTable.ENTRIES);
+            table.copyTo(buffer);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+}
@@ -0,0 +1,288 @@
+package main;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a {@link ShardJob} across several processes that share a work directory
+ *
+ * <p> The coordinator writes the job's description and number of shards to {@value #JOB_FILE} in
+ * the work directory, launches local worker JVMs, waits until every shard has a part file, and
+ * merges the parts in shard order. The directory is the only channel between them, so workers on
+ * other machines can join the same job by running {@link #work(Path, String)} on a shared
+ * directory, and a coordinator started with no local workers just waits for them. A coordinator
+ * restarted on a directory holding the same job keeps the parts already written
+ *
+ * <p> A worker claims a shard by creating {@code shard-N.claim}, which fails if another worker
+ * has it, runs the shard into a temporary file and moves it to {@code shard-N.part}, so a part
+ * is either complete or missing. While it runs a shard, the worker touches the claim every
+ * {@value #HEARTBEAT_MILLIS} ms. A shard fails if its local worker exits with an error or its
+ * claim is not touched for {@value #STALE_MILLIS} ms; the coordinator then deletes the claim so
+ * another worker can run the shard, and gives up if a shard fails {@value #MAX_FAILURES} times
+ *
+ * @author Reid Moffat
+ */
+public final class ShardCoordinator {
+
+    /**
+     * Name of the file in the work directory with the number of shards, then the job's description,
+     * one word per line
+     */
+    static final String JOB_FILE = "job.txt";
+
+    /**
+     * How often a worker touches the claim of the shard it is running
+     */
+    static final long HEARTBEAT_MILLIS = 2_000;
+
+    /**
+     * How long a claim may go untouched before its shard is given to another worker
+     */
+    static final long STALE_MILLIS = 30_000;
+
+    /**
+     * How often the coordinator checks the work directory
+     */
+    private static final long POLL_MILLIS = 200;
+
+    /**
+     * Number of times a shard may fail before the job is abandoned
+     */
+    static final int MAX_FAILURES = 3;
+
+    /**
+     * This class only has static methods and should not be instantiated
+     */
+    private ShardCoordinator() {
+    }
+
+    /**
+     * Runs a job to completion and merges its output
+     *
+     * @param directory   the work directory, created if needed
+     * @param workers     the number of local worker JVMs to keep running, or 0 to only wait for
+     *                    workers started elsewhere
+     * @param shards      the number of shards to split the job into
+     * @param description the job's description (see {@link ShardJob})
+     * @param output      the file to write the merged output to
+     * @throws IOException              if the directory cannot be used, a shard fails too often or the
+     *                                  output cannot be written
+     * @throws IllegalArgumentException if the job is not valid, {@code workers} is negative,
+     *                                  {@code shards} is not positive or the directory holds a
+     *                                  different job
+     * @throws InterruptedException     if interrupted while waiting for the workers
+     */
+    public static void coordinate(@NotNull Path directory, int workers, int shards, @NotNull List<String> description,
+                                  @NotNull Path output) throws IOException, InterruptedException {
+        if (workers < 0 || shards <= 0) {
+            throw new IllegalArgumentException("Need at least 0 workers and 1 shard: " + workers + ", " + shards);
+        }
+        final ShardJob job = ShardJob.parse(description);
+        Files.createDirectories(directory);
+        writeJob(directory, shards, description);
+
+        final Map<String, Process> processes = new HashMap<>();
+        final int[] failures = new int[shards];
+        int launched = 0;
+        try {
+            while (true) {
+                // Reassign the shards of local workers that failed, and of any worker that went quiet
+                for (Map.Entry<String, Process> entry : new ArrayList<>(processes.entrySet())) {
+                    if (!entry.getValue().isAlive()) {
+                        processes.remove(entry.getKey());
+                        if (entry.getValue().exitValue() != 0) {
+                            releaseClaims(directory, shards, failures, entry.getKey(), 0);
+                        }
+                    }
+                }
+                releaseClaims(directory, shards, failures, null, System.currentTimeMillis() - STALE_MILLIS);
+
+                int unclaimed = 0, done = 0;
+                for (int shard = 0; shard < shards; ++shard) {
+                    if (Files.exists(part(directory, shard))) {
+                        ++done;
+                    } else if (!Files.exists(claim(directory, shard))) {
+                        ++unclaimed;
+                    }
+                }
+                if (done == shards) {
+                    break;
+                }
+                while (processes.size() < Math.min(workers, unclaimed)) {
+                    final String id = "local-" + ProcessHandle.current().pid() + "-" + launched++;
+                    processes.put(id, launch(directory, id));
+                }
+                Thread.sleep(POLL_MILLIS);
+            }
+        } finally {
+            processes.values().forEach(Process::destroy);
+        }
+
+        final List<Path> parts = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; ++shard) {
+            parts.add(part(directory, shard));
+        }
+        job.merge(parts, output);
+    }
+
+    /**
+     * Runs unclaimed shards of the job in a work directory until none are left
+     *
+     * @param directory the work directory, with a job written by a coordinator
+     * @param id        a name for this worker, unique among the job's workers
+     * @return the number of shards this worker ran
+     * @throws IOException              if the directory cannot be used or a shard fails
+     * @throws IllegalArgumentException if the directory does not hold a valid job
+     */
+    public static int work(@NotNull Path directory, @NotNull String id) throws IOException {
+        final List<String> lines = Files.readAllLines(directory.resolve(JOB_FILE), StandardCharsets.UTF_8);
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException(directory.resolve(JOB_FILE) + " is empty");
+        }
+        final int shards = Integer.parseInt(lines.get(0));
+        final ShardJob job = ShardJob.parse(lines.subList(1, lines.size()));
+
+        final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "shard-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int ran = 0;
+        try {
+            for (int shard = 0; shard < shards; ++shard) {
+                final Path part = part(directory, shard), claim = claim(directory, shard);
+                if (Files.exists(part)) {
+                    continue;
+                }
+                try {
+                    Files.write(claim, id.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE_NEW);
+                } catch (FileAlreadyExistsException e) {
+                    continue; // Another worker has it
+                }
+                if (Files.exists(part)) {
+                    // Finished by another worker between the check and the claim
+                    Files.deleteIfExists(claim);
+                    continue;
+                }
+
+                final ScheduledFuture<?> beat = heartbeat.scheduleAtFixedRate(() -> touch(claim), HEARTBEAT_MILLIS,
+                        HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+                final Path temporary = directory.resolve(part.getFileName() + "." + id + ".tmp");
+                try {
+                    job.runShard(shard, shards, temporary);
+                    Files.move(temporary, part, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    beat.cancel(false);
+                    Files.deleteIfExists(temporary);
+                }
+                // A failed shard keeps its claim, so the coordinator can tell which shard failed
+                Files.deleteIfExists(claim);
+                ++ran;
+            }
+        } finally {
+            heartbeat.shutdownNow();
+        }
+        return ran;
+    }
+
+    /**
+     * Writes the job file, or checks that the directory already holds the same job
+     */
+    private static void writeJob(@NotNull Path directory, int shards, @NotNull List<String> description)
+            throws IOException {
+        final List<String> lines = new ArrayList<>(description.size() + 1);
+        lines.add(Integer.toString(shards));
+        lines.addAll(description);
+
+        final Path file = directory.resolve(JOB_FILE);
+        if (Files.exists(file)) {
+            if (!Files.readAllLines(file, StandardCharsets.UTF_8).equals(lines)) {
+                throw new IllegalArgumentException(directory + " holds a different job: "
+                        + Files.readAllLines(file, StandardCharsets.UTF_8));
+            }
+            return;
+        }
+        final Path temporary = Files.createTempFile(directory, "job", ".tmp");
+        Files.write(temporary, lines, StandardCharsets.UTF_8);
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Deletes the claims of unfinished shards held by a worker or not touched since a time, counting
+     * a failure for each
+     *
+     * @param owner  the worker whose claims to delete, or null to delete claims by their age
+     * @param before if {@code owner} is null, delete claims last touched before this time, in
+     *               milliseconds
+     * @throws IOException if a shard has failed too often
+     */
+    private static void releaseClaims(@NotNull Path directory, int shards, int @NotNull [] failures, String owner,
+                                      long before) throws IOException {
+        for (int shard = 0; shard < shards; ++shard) {
+            final Path claim = claim(directory, shard);
+            try {
+                if (Files.exists(part(directory, shard))) {
+                    continue;
+                }
+                if (owner != null ? !owner.equals(new String(Files.readAllBytes(claim), StandardCharsets.UTF_8))
+                        : Files.getLastModifiedTime(claim).toMillis() >= before) {
+                    continue;
+                }
+                Files.delete(claim);
+            } catch (NoSuchFileException e) {
+                continue; // Not claimed, or finished meanwhile
+            }
+            if (++failures[shard] >= MAX_FAILURES) {
+                throw new IOException("Shard " + shard + " failed " + failures[shard] + " times");
+            }
+            System.err.println("Shard " + shard + " failed, reassigning it");
+        }
+    }
+
+    /**
+     * Starts a worker JVM with this JVM's class path
+     */
+    private static @NotNull Process launch(@NotNull Path directory, @NotNull String id) throws IOException {
+        final String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), Main.class.getName(),
+                "--worker", directory.toAbsolutePath().toString(), id).inheritIO().start();
+    }
+
+    /**
+     * Marks a claim as still being worked on, ignoring a claim that was released meanwhile
+     */
+    private static void touch(@NotNull Path claim) {
+        try {
+            Files.setLastModifiedTime(claim, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // The coordinator released the claim; the part is still written if the shard finishes
+        }
+    }
+
+    static @NotNull Path part(@NotNull Path directory, int shard) {
+        return directory.resolve(String.format("shard-%05d.part", shard));
+    }
+
+    static @NotNull Path claim(@NotNull Path directory, int shard) {
+        return directory.resolve(String.format("shard-%05d.claim", shard));
+    }
+
+}
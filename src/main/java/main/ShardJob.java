@@ -0,0 +1,208 @@
+package main;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A job that can be split into shards, each run by any process, whose partial results are merged
+ * into one output
+ *
+ * <p> A job is described by a list of words, so a {@link ShardCoordinator} can write the
+ * description to a shared directory and any worker can rebuild the same job from it. Each shard's
+ * partial result depends only on the job and the shard number, never on which worker ran it or
+ * when, and {@link #merge} reads the parts in shard order, so a job always gives the same output
+ * however its shards were run. The jobs are:
+ *
+ * <ul>
+ *     <li>{@code tournament <first> <second> <games> [seed]}: a {@link Tournament}, split by task.
+ *     Shard {@code i} plays its share of the tournament's {@value Tournament#TASKS} tasks, each with
+ *     the same games and random stream as when one process plays the whole tournament, and the
+ *     merged win counts are written as a report. The report is therefore the same as
+ *     {@code mvn -P tournament} with the same seed, whatever the number of shards</li>
+ *     <li>{@code strategy-table [deck size]}: a {@link StrategyTable}, split by record index.
+ *     Shard {@code i} analyzes its range of the canonical deals, and the merge writes the index
+ *     followed by every shard's records</li>
+ * </ul>
+ *
+ * @author Reid Moffat
+ */
+public interface ShardJob {
+
+    /**
+     * Runs one shard and writes its partial result
+     *
+     * @param shard  the shard to run, from 0
+     * @param shards the number of shards the job is split into
+     * @param part   the file to write the partial result to
+     * @throws IOException if the part cannot be written
+     */
+    void runShard(int shard, int shards, @NotNull Path part) throws IOException;
+
+    /**
+     * Merges the partial results of every shard into the job's output
+     *
+     * @param parts  the part of each shard, in shard order
+     * @param output the file to write the output to
+     * @throws IOException              if a part cannot be read or the output cannot be written
+     * @throws IllegalArgumentException if the parts are not from this job
+     */
+    void merge(@NotNull List<Path> parts, @NotNull Path output) throws IOException;
+
+    /**
+     * Builds a job from its description
+     *
+     * @param description the job's name followed by its arguments
+     * @return the job
+     * @throws IllegalArgumentException if the description is not a known job with valid arguments
+     */
+    static @NotNull ShardJob parse(@NotNull List<String> description) {
+        if (description.isEmpty()) {
+            throw new IllegalArgumentException("Missing job name, must be tournament or strategy-table");
+        }
+        final List<String> args = description.subList(1, description.size());
+        switch (description.get(0).toLowerCase(Locale.ROOT)) {
+            case "tournament":
+                if (args.size() < 3 || args.size() > 4) {
+                    throw new IllegalArgumentException("Usage: tournament <first> <second> <games> [seed]");
+                }
+                return new TournamentJob(args.get(0), args.get(1), Integer.parseInt(args.get(2)),
+                        args.size() > 3 ? Long.parseLong(args.get(3)) : Tournament.DEFAULT_SEED);
+            case "strategy-table":
+                if (args.size() > 1) {
+                    throw new IllegalArgumentException("Usage: strategy-table [deck size]");
+                }
+                return new StrategyTableJob(args.isEmpty() ? 52 : Integer.parseInt(args.get(0)));
+            default:
+                throw new IllegalArgumentException("Unknown job '" + description.get(0)
+                        + "', must be tournament or strategy-table");
+        }
+    }
+
+    /**
+     * Returns the first index of a shard's share of a range split as evenly as possible
+     *
+     * @param size   the size of the range
+     * @param shard  the shard, or {@code shards} for the end of the range
+     * @param shards the number of shards
+     * @return the index the shard starts at
+     */
+    static int shardStart(int size, int shard, int shards) {
+        return (int) ((long) size * shard / shards);
+    }
+
+    /**
+     * A tournament split by task
+     */
+    final class TournamentJob implements ShardJob {
+
+        /**
+         * Identifies a tournament part ("CRTP" in ASCII)
+         */
+        static final int MAGIC = 0x43525450;
+
+        private final String first, second;
+        private final int games;
+        private final long seed;
+
+        /**
+         * Scores for hands and cribs, generated for the first shard this process runs
+         */
+        private ScoreTable scoreTable;
+
+        TournamentJob(@NotNull String first, @NotNull String second, int games, long seed) {
+            if (games <= 0) {
+                throw new IllegalArgumentException("Number of games must be positive: " + games);
+            }
+            this.first = first;
+            this.second = second;
+            this.games = games;
+            this.seed = seed;
+        }
+
+        @Override
+        public void runShard(int shard, int shards, @NotNull Path part) throws IOException {
+            if (this.scoreTable == null) {
+                this.scoreTable = ScoreTable.generate();
+            }
+            final int fromTask = ShardJob.shardStart(Tournament.TASKS, shard, shards);
+            final int toTask = ShardJob.shardStart(Tournament.TASKS, shard + 1, shards);
+            final Tournament.Result result = Tournament.run(strategy(this.first), strategy(this.second), this.games,
+                    this.seed, this.scoreTable, fromTask, toTask);
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(part)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(shard);
+                result.write(output);
+            }
+        }
+
+        @Override
+        public void merge(@NotNull List<Path> parts, @NotNull Path output) throws IOException {
+            final Tournament.Result total = new Tournament.Result(this.first, this.second);
+            for (int shard = 0; shard < parts.size(); ++shard) {
+                try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+                        Files.newInputStream(parts.get(shard))))) {
+                    if (input.readInt() != MAGIC || input.readInt() != shard) {
+                        throw new IllegalArgumentException(parts.get(shard) + " is not part " + shard
+                                + " of a tournament");
+                    }
+                    total.read(input);
+                }
+            }
+            if (total.getGames() != this.games) {
+                throw new IllegalArgumentException("Parts have " + total.getGames() + " games, not " + this.games);
+            }
+            Files.write(output, List.of(total.toString()));
+        }
+
+        private @NotNull Strategy strategy(@NotNull String name) {
+            return Tournament.strategy(name, this.scoreTable);
+        }
+
+    }
+
+    /**
+     * A strategy table split by record index
+     */
+    final class StrategyTableJob implements ShardJob {
+
+        private final int deckSize;
+
+        /**
+         * The canonical deals, enumerated for the first shard this process runs
+         */
+        private long[] canonicalDeals;
+
+        StrategyTableJob(int deckSize) {
+            if (deckSize < 6 || deckSize > 52) {
+                throw new IllegalArgumentException("Deck size must be between 6 and 52: " + deckSize);
+            }
+            this.deckSize = deckSize;
+        }
+
+        @Override
+        public void runShard(int shard, int shards, @NotNull Path part) throws IOException {
+            if (this.canonicalDeals == null) {
+                this.canonicalDeals = StrategyTableGenerator.canonicalDeals(this.deckSize);
+            }
+            final int records = this.canonicalDeals.length;
+            Files.write(part, StrategyTableGenerator.analyzeRecords(this.canonicalDeals,
+                    ShardJob.shardStart(records, shard, shards), ShardJob.shardStart(records, shard + 1, shards)));
+        }
+
+        @Override
+        public void merge(@NotNull List<Path> parts, @NotNull Path output) throws IOException {
+            StrategyTableGenerator.write(output, this.deckSize, parts);
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+package main;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * How one player plays a 2-player game of cribbage: which cards to drop to the crib, and which card
+ * to lay in the play
+ *
+ * <p> A {@link Game} asks the strategy in each seat for its decisions. Cards are passed as
+ * {@link card.CardSet#toBits() bitmasks} and states of the play as {@link Pegging} states, so a
+ * decision never has to allocate. A strategy may look at its own cards and the cards laid, but not
+ * at the opponent's hand, which {@code Pegging} can also see. Implementations must be thread-safe,
+ * since one strategy is shared by every game of a {@link Tournament}
+ *
+ * @author Reid Moffat
+ */
+public interface Strategy {
+
+    /**
+     * Returns the two cards to drop to the crib
+     *
+     * @param dealt         bitmask of the six cards dealt
+     * @param dealer        true if the player is the dealer (the crib is theirs)
+     * @param myScore       the player's score before this deal
+     * @param opponentScore the opponent's score before this deal
+     * @return bitmask of two of the dealt cards
+     */
+    long discard(long dealt, boolean dealer, int myScore, int opponentScore);
+
+    /**
+     * Returns the card to lay in the play
+     *
+     * @param pegging the deal being played
+     * @param state   the current state, where this player is the {@link Pegging#mover(long) mover}
+     *                and can lay at least one card
+     * @return which of the player's cards to lay, from 0 to 3 in deck order
+     */
+    int play(@NotNull Pegging pegging, long state);
+
+    /**
+     * Returns a strategy that drops the cards leaving the highest average hand points, ignoring
+     * the crib (see {@link ScoreTable#bestDiscard(long)}), and lays cards with the
+     * {@link PeggingEstimator#baselineCard(Pegging, long) baseline policy}
+     *
+     * @param scoreTable scores for the kept hands
+     * @return the strategy
+     */
+    @Contract("_ -> new")
+    static @NotNull Strategy maxHand(@NotNull ScoreTable scoreTable) {
+        return new Strategy() {
+            @Override
+            public long discard(long dealt, boolean dealer, int myScore, int opponentScore) {
+                return scoreTable.bestDiscard(dealt);
+            }
+
+            @Override
+            public int play(@NotNull Pegging pegging, long state) {
+                return PeggingEstimator.baselineCard(pegging, state);
+            }
+
+            @Override
+            public String toString() {
+                return "hand";
+            }
+        };
+    }
+
+    /**
+     * Returns a strategy that drops the cards leaving the highest average points counting the crib
+     * from a crib table (see {@link CribEquilibrium#bestResponse}), and lays cards with the
+     * {@link PeggingEstimator#baselineCard(Pegging, long) baseline policy}
+     *
+     * @param scoreTable scores for the kept hands
+     * @param cribTable  expected crib points of each discard
+     * @return the strategy
+     */
+    @Contract("_, _ -> new")
+    static @NotNull Strategy maxNet(@NotNull ScoreTable scoreTable, @NotNull CribTable cribTable) {
+        return new Strategy() {
+            @Override
+            public long discard(long dealt, boolean dealer, int myScore, int opponentScore) {
+                return CribEquilibrium.bestResponse(dealt, dealer, cribTable, scoreTable);
+            }
+
+            @Override
+            public int play(@NotNull Pegging pegging, long state) {
+                return PeggingEstimator.baselineCard(pegging, state);
+            }
+
+            @Override
+            public String toString() {
+                return "crib";
+            }
+        };
+    }
+
+    /**
+     * Returns a strategy that drops the first two cards in deck order and lays its first legal
+     * card, as a floor to compare other strategies with
+     *
+     * @return the strategy
+     */
+    @Contract(" -> new")
+    static @NotNull Strategy first() {
+        return new Strategy() {
+            @Override
+            public long discard(long dealt, boolean dealer, int myScore, int opponentScore) {
+                final long firstBit = dealt & -dealt;
+                final long rest = dealt & ~firstBit;
+                return firstBit | rest & -rest;
+            }
+
+            @Override
+            public int play(@NotNull Pegging pegging, long state) {
+                int card = 0;
+                while (!pegging.canPlay(state, card)) {
+                    ++card;
+                }
+                return card;
+            }
+
+            @Override
+            public String toString() {
+                return "first";
+            }
+        };
+    }
+
+}
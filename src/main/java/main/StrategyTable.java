@@ -0,0 +1,346 @@
+package main;
+
+import card.CardCombinations;
+import card.CardSet;
+import card.SuitCanonicalizer;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A precomputed ranking of the 15 discards of every 6-card deal (the 2-player opening hand)
+ *
+ * <p> Deals are stored by their {@link SuitCanonicalizer canonical form}, so the 20,358,520
+ * possible deals need only 962,988 records. A lookup canonicalizes the deal, binary-searches the
+ * sorted ranks of the canonical deals for its record (at most 20 probes) and relabels the stored
+ * discards back to the deal's suits. The index only holds the canonical deals, so it takes about
+ * 3.9 MB instead of an entry for each of the 20 million deals
+ *
+ * <p> The file is written by {@link StrategyTableGenerator} and memory-mapped. Its layout
+ * (big-endian) is:
+ *
+ * <ul>
+ * <li>Header: a 4-byte magic number, the number of deals covered and the number of records</li>
+ * <li>Index: the {@link CardCombinations colexicographic rank} of each canonical deal as an
+ * {@code int}, in increasing order, so the {@code n}th rank is the deal of the {@code n}th
+ * record</li>
+ * <li>Records: for each canonical deal, its 15 discards from the highest to the lowest average
+ * points. Each discard is one byte with the positions (0 to 5, in deck order) of the two dropped
+ * cards in its high and low 4 bits, and a {@code short} with the kept hand's total points over the
+ * 46 starters</li>
+ * </ul>
+ *
+ * <p> Since colexicographic ranks of deals using only the first {@code n} cards of the deck come
+ * first, the index and records of a table generated for a smaller deck are prefixes of the full
+ * table's. Such tables are only used for testing
+ *
+ * @author Reid Moffat
+ */
+public final class StrategyTable {
+
+    /**
+     * Identifies a strategy table file ("CRS2" in ASCII)
+     */
+    static final int MAGIC = 0x43525332;
+
+    /**
+     * Size of the file header in bytes
+     */
+    static final int HEADER_BYTES = 12;
+
+    /**
+     * Number of discards from a 6-card deal
+     */
+    static final int DISCARDS = 15;
+
+    /**
+     * Size of one record in bytes: a position byte and a {@code short} total for each discard
+     */
+    static final int RECORD_BYTES = DISCARDS * 3;
+
+    /**
+     * Number of possible starters for a 6-card deal
+     */
+    static final int STARTERS = 46;
+
+    /**
+     * The mapped file, from the start of the index
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Number of deals this table covers
+     */
+    private final int deals;
+
+    /**
+     * Number of records, one for each canonical deal
+     */
+    private final int records;
+
+    /**
+     * Position of the first record in {@code buffer}
+     */
+    private final long recordsStart;
+
+    /**
+     * Initializes this table from a mapped file
+     */
+    private StrategyTable(@NotNull ByteBuffer buffer, int deals, int records) {
+        this.buffer = buffer;
+        this.deals = deals;
+        this.records = records;
+        this.recordsStart = 4L * records;
+    }
+
+    /**
+     * Memory-maps a strategy table file
+     *
+     * @param file a file written by {@link StrategyTableGenerator}
+     * @return the table in the file
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a strategy table
+     */
+    public static @NotNull StrategyTable open(@NotNull Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Read the whole header
+            }
+            header.flip();
+            if (header.remaining() != HEADER_BYTES || header.getInt() != MAGIC) {
+                throw new IllegalArgumentException(file + " is not a strategy table: bad header");
+            }
+            final int deals = header.getInt();
+            final int records = header.getInt();
+            final long size = (4L + RECORD_BYTES) * records;
+            if (deals < 0 || records < 0 || records > deals || channel.size() != HEADER_BYTES + size) {
+                throw new IllegalArgumentException(file + " is not a strategy table: it has "
+                        + channel.size() + " bytes");
+            }
+
+            // The mapping stays valid after the channel is closed
+            return new StrategyTable(channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, size), deals,
+                    records);
+        }
+    }
+
+    /**
+     * Returns the number of deals this table covers
+     *
+     * @return the number of deals, canonical or not, that can be looked up
+     */
+    public int getDeals() {
+        return this.deals;
+    }
+
+    /**
+     * Returns the 15 discards of a 6-card deal, from the highest to the lowest average points
+     *
+     * <p> Discards with the same average points are ordered by their cards, the same way as
+     * {@link DiscardAnalyzer#analyze(CardSet)}
+     *
+     * @param dealtHand the six cards the player was dealt
+     * @return an unmodifiable list of the ranked discards
+     * @throws IllegalArgumentException if the hand does not have six cards or is not covered by
+     *                                  this table
+     */
+    public @NotNull List<Entry> lookup(@NotNull CardSet dealtHand) {
+        final long dealt = dealtHand.toBits();
+        final int record = findRecord(dealt);
+        final int permutation = SuitCanonicalizer.permutation(dealt);
+        final int inverse = SuitCanonicalizer.inverse(permutation);
+        final long[] cards = cards(SuitCanonicalizer.apply(permutation, dealt));
+
+        final List<Entry> entries = new ArrayList<>(DISCARDS);
+        int position = (int) (this.recordsStart + (long) record * RECORD_BYTES);
+        for (int i = 0; i < DISCARDS; ++i, position += 3) {
+            final int positions = this.buffer.get(position);
+            final long discards = SuitCanonicalizer.apply(inverse,
+                    cards[(positions >>> 4) & 0xF] | cards[positions & 0xF]);
+            entries.add(new Entry(discards, dealt & ~discards, this.buffer.getShort(position + 1), 0));
+        }
+
+        // Relabelling can change the order of tied discards, so order them like the analyzer
+        entries.sort((a, b) -> a.totalPoints != b.totalPoints ? b.totalPoints - a.totalPoints
+                : Long.compare(a.discards, b.discards));
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Returns the 15 discards of a 6-card deal, counting the crib
+     *
+     * <p> The expected crib points of each pair of dropped cards are added to the kept hand's
+     * average points if the player is the dealer, and subtracted if not, the same way as
+     * {@link DiscardAnalyzer#analyze(CardSet, boolean)}
+     *
+     * @param dealtHand the six cards the player was dealt
+     * @param dealer    true if the player is the dealer (the crib is theirs)
+     * @param cribTable the expected crib points of each pair of dropped cards
+     * @return an unmodifiable list of the ranked discards, from the highest to the lowest
+     * {@link Entry#getNetMean() net average points}
+     * @throws IllegalArgumentException if the hand does not have six cards or is not covered by
+     *                                  this table
+     */
+    public @NotNull List<Entry> lookup(@NotNull CardSet dealtHand, boolean dealer, @NotNull CribTable cribTable) {
+        final List<Entry> entries = new ArrayList<>(DISCARDS);
+        for (Entry entry : lookup(dealtHand)) {
+            final double crib = cribTable.expectedPoints(entry.discards, dealer);
+            entries.add(new Entry(entry.discards, entry.keep, entry.totalPoints, dealer ? crib : -crib));
+        }
+        entries.sort(Comparator.comparingDouble(Entry::getNetMean).reversed()
+                .thenComparingLong(entry -> entry.discards));
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Returns the discard with the highest average points from a 6-card deal
+     *
+     * <p> If several discards tie, the one stored first is returned
+     *
+     * @param dealt bitmask of the six cards the player was dealt
+     * @return bitmask of the two cards to drop
+     * @throws IllegalArgumentException if the hand does not have six cards or is not covered by
+     *                                  this table
+     */
+    public long bestDiscard(long dealt) {
+        final int record = findRecord(dealt);
+        final int permutation = SuitCanonicalizer.permutation(dealt);
+        final long canonical = SuitCanonicalizer.apply(permutation, dealt);
+        final int positions = this.buffer.get((int) (this.recordsStart + (long) record * RECORD_BYTES));
+        return SuitCanonicalizer.apply(SuitCanonicalizer.inverse(permutation),
+                nthCard(canonical, (positions >>> 4) & 0xF) | nthCard(canonical, positions & 0xF));
+    }
+
+    /**
+     * Returns the record number of a deal's canonical form
+     */
+    private int findRecord(long dealt) {
+        if (Long.bitCount(dealt) != 6) {
+            throw new IllegalArgumentException("Dealt hand must have 6 cards: " + CardSet.fromBits(dealt));
+        }
+        final int rank = CardCombinations.rank(SuitCanonicalizer.canonical(dealt));
+        if (rank >= this.deals) {
+            throw new IllegalArgumentException("Deal is not covered by this table: " + CardSet.fromBits(dealt));
+        }
+
+        // Binary search of the sorted ranks
+        int low = 0, high = this.records - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int middleRank = this.buffer.getInt(4 * middle);
+            if (middleRank < rank) {
+                low = middle + 1;
+            } else if (middleRank > rank) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        throw new IllegalStateException("Strategy table has no record for canonical deal " + rank);
+    }
+
+    /**
+     * Returns the bit of each card in a deal, in deck order
+     */
+    private static long @NotNull [] cards(long dealt) {
+        final long[] cards = new long[6];
+        for (int i = 0; i < 6; ++i) {
+            cards[i] = dealt & -dealt;
+            dealt &= dealt - 1;
+        }
+        return cards;
+    }
+
+    /**
+     * Returns the bit of the {@code n}th card of a deal in deck order
+     */
+    private static long nthCard(long dealt, int n) {
+        for (int i = 0; i < n; ++i) {
+            dealt &= dealt - 1;
+        }
+        return dealt & -dealt;
+    }
+
+    /**
+     * One discard from a 6-card deal, the total points of the kept hand over every starter and,
+     * if the crib is counted, the expected crib points of the dropped cards
+     */
+    public static final class Entry implements RankedDiscard {
+
+        private final long discards;
+        private final long keep;
+        private final int totalPoints;
+        private final double cribPoints;
+
+        private Entry(long discards, long keep, int totalPoints, double cribPoints) {
+            this.discards = discards;
+            this.keep = keep;
+            this.totalPoints = totalPoints;
+            this.cribPoints = cribPoints;
+        }
+
+        @Override
+        @Contract(" -> new")
+        public @NotNull CardSet getDiscards() {
+            return CardSet.fromBits(this.discards);
+        }
+
+        /**
+         * Returns the cards kept
+         *
+         * @return a new {@code CardSet} with the four kept cards
+         */
+        @Contract(" -> new")
+        public @NotNull CardSet getKeep() {
+            return CardSet.fromBits(this.keep);
+        }
+
+        @Override
+        public double getMean() {
+            return (double) this.totalPoints / STARTERS;
+        }
+
+        @Override
+        public double getNetMean() {
+            return getMean() + this.cribPoints;
+        }
+
+        /**
+         * Returns the expected points the dropped cards add through the crib
+         *
+         * @return the expected crib points for the player (negative for the opponent's crib), or 0
+         * if the crib is not counted
+         */
+        public double getCribPoints() {
+            return this.cribPoints;
+        }
+
+        /**
+         * Returns the sum of the kept hand's points over every possible starter
+         *
+         * @return the total number of points
+         */
+        public int getTotalPoints() {
+            return this.totalPoints;
+        }
+
+        /**
+         * Returns the dropped cards and average points, e.g. "[Five of clubs, Ten of clubs]: 8.46"
+         */
+        @Override
+        public @NotNull String toString() {
+            return getDiscards() + ": " + getMean();
+        }
+    }
+
+}
@@ -0,0 +1,225 @@
+package main;
+
+import card.CardCombinations;
+import card.CardSet;
+import card.SuitCanonicalizer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Writes a {@link StrategyTable} file ranking the discards of every 6-card deal
+ *
+ * <p> The deals are enumerated in colexicographic order, and the rank of each deal that is its own
+ * canonical form is written to the index; this first pass only canonicalizes. The canonical deals
+ * are then analyzed in parallel with {@link DiscardAnalyzer} and their records written in order.
+ * The full file is about 47 MB; the {@code strategy-table} Maven profile writes it to
+ * {@code target/strategy-table.bin}:
+ *
+ * <pre>mvn -P strategy-table process-classes</pre>
+ *
+ * <p> The records can also be analyzed in ranges by separate processes with
+ * {@link #analyzeRecords(long[], int, int)}, and the parts joined by
+ * {@link #write(Path, int, List)}; see {@link ShardCoordinator}
+ *
+ * @author Reid Moffat
+ */
+public final class StrategyTableGenerator {
+
+    /**
+     * This class only has static methods and should not be instantiated
+     */
+    private StrategyTableGenerator() {
+    }
+
+    /**
+     * Generates a strategy table for every 6-card deal and writes it to a file
+     *
+     * @param args the path of the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String @NotNull [] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: StrategyTableGenerator <output file>");
+            System.exit(1);
+        }
+
+        final long start = System.nanoTime();
+        final Path file = Paths.get(args[0]);
+        final int records = write(file, 52);
+        System.out.printf("Wrote %,d canonical deals to %s in %.1f s%n", records, file,
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Writes a strategy table for every deal made from the first {@code deckSize} cards of the
+     * deck, replacing the file if it exists
+     *
+     * @param file     the file to write to
+     * @param deckSize the number of cards (in deck order) to deal from; 52 for the full table
+     * @return the number of records written
+     * @throws IOException if the file cannot be written
+     */
+    static int write(@NotNull Path file, int deckSize) throws IOException {
+        return write(file, deckSize, null);
+    }
+
+    /**
+     * Writes a strategy table for every deal made from the first {@code deckSize} cards of the
+     * deck, replacing the file if it exists, with the records either analyzed here or copied from
+     * parts written in order by {@link #analyzeRecords(long[], int, int)}
+     *
+     * @param file        the file to write to
+     * @param deckSize    the number of cards (in deck order) to deal from; 52 for the full table
+     * @param recordParts files holding every record in order, or null to analyze the records
+     * @return the number of records written
+     * @throws IOException              if the file cannot be written or a part cannot be read
+     * @throws IllegalArgumentException if the parts do not hold exactly the table's records
+     */
+    static int write(@NotNull Path file, int deckSize, @Nullable List<Path> recordParts) throws IOException {
+        if (deckSize < 6 || deckSize > 52) {
+            throw new IllegalArgumentException("Deck size must be between 6 and 52: " + deckSize);
+        }
+        final Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        final Path temporary = Files.createTempFile(directory, "strategy-table", ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.position(StrategyTable.HEADER_BYTES);
+            final OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            final DataOutputStream output = new DataOutputStream(stream);
+
+            // First pass: the index, collecting the canonical deals in order
+            final long[] canonicalDeals = writeIndex(output, deckSize);
+            final int records = canonicalDeals.length;
+
+            // Second pass: the records, analyzed in parallel or copied from the parts, in order
+            if (recordParts == null) {
+                output.write(analyzeRecords(canonicalDeals, 0, records));
+            } else {
+                long copied = 0;
+                for (Path part : recordParts) {
+                    copied += Files.copy(part, output);
+                }
+                if (copied != (long) records * StrategyTable.RECORD_BYTES) {
+                    throw new IllegalArgumentException("Record parts have " + copied + " bytes, not "
+                            + (long) records * StrategyTable.RECORD_BYTES);
+                }
+            }
+            output.flush();
+
+            final ByteBuffer header = ByteBuffer.allocate(StrategyTable.HEADER_BYTES);
+            header.putInt(StrategyTable.MAGIC).putInt(CardCombinations.binomial(deckSize, 6)).putInt(records).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return records;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Returns the canonical deals made from the first {@code deckSize} cards of the deck, in the
+     * order of their records
+     *
+     * @param deckSize the number of cards (in deck order) to deal from
+     * @return the bitmask of each canonical deal
+     */
+    static long @NotNull [] canonicalDeals(int deckSize) {
+        if (deckSize < 6 || deckSize > 52) {
+            throw new IllegalArgumentException("Deck size must be between 6 and 52: " + deckSize);
+        }
+        try {
+            return writeIndex(new DataOutputStream(OutputStream.nullOutputStream()), deckSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Never thrown by a null stream
+        }
+    }
+
+    /**
+     * Analyzes a range of canonical deals in parallel and returns their records in order
+     *
+     * @param canonicalDeals the canonical deals, from {@link #canonicalDeals(int)}
+     * @param from           the first record to analyze
+     * @param to             the record after the last one to analyze
+     * @return the records' bytes
+     */
+    static byte @NotNull [] analyzeRecords(long @NotNull [] canonicalDeals, int from, int to) {
+        final byte[] recordBytes = new byte[(to - from) * StrategyTable.RECORD_BYTES];
+        final DiscardAnalyzer analyzer = new DiscardAnalyzer();
+        IntStream.range(from, to).parallel().forEach(record -> writeRecord(analyzer, canonicalDeals[record],
+                recordBytes, (record - from) * StrategyTable.RECORD_BYTES));
+        return recordBytes;
+    }
+
+    /**
+     * Writes the rank of every canonical deal in colexicographic order and returns the canonical
+     * deals
+     */
+    private static long @NotNull [] writeIndex(@NotNull DataOutputStream output, int deckSize) throws IOException {
+        long[] canonicalDeals = new long[1 << 16];
+        int records = 0, rank = 0;
+
+        for (int c5 = 5; c5 < deckSize; ++c5) {
+            for (int c4 = 4; c4 < c5; ++c4) {
+                for (int c3 = 3; c3 < c4; ++c3) {
+                    for (int c2 = 2; c2 < c3; ++c2) {
+                        for (int c1 = 1; c1 < c2; ++c1) {
+                            for (int c0 = 0; c0 < c1; ++c0) {
+                                final long dealt = 1L << c0 | 1L << c1 | 1L << c2 | 1L << c3 | 1L << c4 | 1L << c5;
+                                if (SuitCanonicalizer.canonical(dealt) != dealt) {
+                                    ++rank;
+                                    continue;
+                                }
+                                if (records == canonicalDeals.length) {
+                                    canonicalDeals = Arrays.copyOf(canonicalDeals, records * 2);
+                                }
+                                canonicalDeals[records++] = dealt;
+                                output.writeInt(rank++);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(canonicalDeals, records);
+    }
+
+    /**
+     * Analyzes a canonical deal and writes its record
+     */
+    private static void writeRecord(@NotNull DiscardAnalyzer analyzer, long dealt, byte @NotNull [] bytes,
+                                    int offset) {
+        final List<DiscardResult> results = analyzer.analyze(CardSet.fromBits(dealt));
+        for (DiscardResult result : results) {
+            final long discards = result.getDiscardBits();
+            final long first = discards & -discards;
+            final int firstPosition = Long.bitCount(dealt & (first - 1));
+            final int secondPosition = Long.bitCount(dealt & ((discards & ~first) - 1));
+
+            bytes[offset] = (byte) (firstPosition << 4 | secondPosition);
+            bytes[offset + 1] = (byte) (result.getTotalPoints() >>> 8);
+            bytes[offset + 2] = (byte) result.getTotalPoints();
+            offset += 3;
+        }
+    }
+
+}
@@ -0,0 +1,320 @@
+package main;
+
+import card.Deck;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+/**
+ * Plays many {@link Game games} between two strategies and reports how often each wins
+ *
+ * <p> The games are split into a fixed number of tasks on the common {@code ForkJoinPool}, each
+ * with its own {@code Game} and its own random stream split from one seed, so the same seed always
+ * gives the same results, whatever the number of threads. Win rates are reported with a Wilson
+ * score interval, which stays inside [0, 1] even for lopsided matches. Run a tournament with the
+ * {@code tournament} Maven profile:
+ *
+ * <pre>mvn -P tournament process-classes -Dtournament.first=crib -Dtournament.second=hand</pre>
+ *
+ * @author Reid Moffat
+ */
+public final class Tournament {
+
+    /**
+     * Default number of games to play
+     */
+    static final int DEFAULT_GAMES = 1_000_000;
+
+    /**
+     * Default seed of the random streams
+     */
+    static final long DEFAULT_SEED = 0x4352544EL;
+
+    /**
+     * Width of the reported confidence intervals, in standard errors (95%)
+     */
+    static final double Z = 1.96;
+
+    /**
+     * Number of tasks the games are split between
+     */
+    static final int TASKS = 256;
+
+    /**
+     * This class only has static methods and should not be instantiated
+     */
+    private Tournament() {
+    }
+
+    /**
+     * Plays a tournament between two strategies and prints the results
+     *
+     * @param args the names of the two strategies ({@code hand}, {@code crib} or {@code first}),
+     *             then optionally the number of games and the random seed
+     */
+    public static void main(String @NotNull [] args) {
+        if (args.length < 2 || args.length > 4) {
+            System.err.println("Usage: Tournament <hand|crib|first> <hand|crib|first> [games] [seed]");
+            System.exit(1);
+        }
+
+        final ScoreTable scoreTable = ScoreTable.generate();
+        final Strategy first = strategy(args[0], scoreTable), second = strategy(args[1], scoreTable);
+        final int games = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_GAMES;
+        final long seed = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_SEED;
+
+        final long start = System.nanoTime();
+        final Result result = run(first, second, games, seed, scoreTable);
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(result);
+        System.out.printf(Locale.ROOT, "Played %,d games in %.1f s (%,.0f games/s)%n", games, seconds,
+                games / seconds);
+    }
+
+    /**
+     * Returns a strategy by name
+     *
+     * @throws IllegalArgumentException if the name is not {@code hand}, {@code crib} or {@code first}
+     */
+    static @NotNull Strategy strategy(@NotNull String name, @NotNull ScoreTable scoreTable) {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "hand":
+                return Strategy.maxHand(scoreTable);
+            case "crib":
+                return Strategy.maxNet(scoreTable, CribTable.getDefault());
+            case "first":
+                return Strategy.first();
+            default:
+                throw new IllegalArgumentException("Unknown strategy '" + name + "', must be hand, crib or first");
+        }
+    }
+
+    /**
+     * Plays games between two strategies across every available processor
+     *
+     * @param first      the strategy in seat 0
+     * @param second     the strategy in seat 1
+     * @param games      the number of games to play
+     * @param seed       the seed of the random streams
+     * @param scoreTable scores for hands and cribs
+     * @return the number of games each seat won
+     * @throws IllegalArgumentException if {@code games} is not positive
+     */
+    static @NotNull Result run(@NotNull Strategy first, @NotNull Strategy second, int games, long seed,
+                               @NotNull ScoreTable scoreTable) {
+        return run(first, second, games, seed, scoreTable, 0, TASKS);
+    }
+
+    /**
+     * Plays a range of a tournament's {@value #TASKS} tasks, with the same games and random streams
+     * as in the whole tournament, so the results of ranges covering every task add up to the
+     * results of {@link #run(Strategy, Strategy, int, long, ScoreTable)}
+     *
+     * @param first      the strategy in seat 0
+     * @param second     the strategy in seat 1
+     * @param games      the number of games in the whole tournament
+     * @param seed       the seed of the random streams
+     * @param scoreTable scores for hands and cribs
+     * @param fromTask   the first task to play
+     * @param toTask     the task after the last one to play
+     * @return the number of games each seat won in those tasks
+     * @throws IllegalArgumentException if {@code games} is not positive or the range is not within
+     *                                  0 to {@value #TASKS}
+     */
+    static @NotNull Result run(@NotNull Strategy first, @NotNull Strategy second, int games, long seed,
+                               @NotNull ScoreTable scoreTable, int fromTask, int toTask) {
+        if (games <= 0) {
+            throw new IllegalArgumentException("Number of games must be positive: " + games);
+        }
+        if (fromTask < 0 || fromTask > toTask || toTask > TASKS) {
+            throw new IllegalArgumentException("Tasks must be a range within 0 to " + TASKS + ": " + fromTask
+                    + " to " + toTask);
+        }
+
+        // Split every stream up front so the result does not depend on the order tasks run in
+        final Deck root = new Deck(seed);
+        final Deck[] decks = new Deck[TASKS];
+        for (int task = 0; task < toTask; ++task) {
+            decks[task] = root.split();
+        }
+
+        final Result[] results = new Result[TASKS];
+        IntStream.range(fromTask, toTask).parallel().forEach(task -> {
+            final Result result = new Result(first.toString(), second.toString());
+            final Game game = new Game(scoreTable, first, second);
+            final int taskGames = (int) ((long) games * (task + 1) / TASKS - (long) games * task / TASKS);
+            for (int i = 0; i < taskGames; ++i) {
+                result.add(game, game.play(decks[task]));
+            }
+            results[task] = result;
+        });
+
+        final Result total = new Result(first.toString(), second.toString());
+        for (int task = fromTask; task < toTask; ++task) {
+            total.add(results[task]);
+        }
+        return total;
+    }
+
+    /**
+     * The outcome of the games between two strategies
+     */
+    static final class Result {
+
+        /**
+         * The names of the strategies in each seat
+         */
+        private final String first, second;
+
+        /**
+         * Number of games played, and the deals in them
+         */
+        private long games, deals;
+
+        /**
+         * Number of games each seat won, and won by a skunk
+         */
+        private final long[] wins = new long[2], skunks = new long[2];
+
+        Result(@NotNull String first, @NotNull String second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        /**
+         * Counts the outcome of a game that was just played
+         */
+        void add(@NotNull Game game, int winner) {
+            ++this.games;
+            this.deals += game.getDeals();
+            ++this.wins[winner];
+            if (game.getScore(1 - winner) < Game.SKUNK_SCORE) {
+                ++this.skunks[winner];
+            }
+        }
+
+        /**
+         * Writes the counts of this result
+         *
+         * @param output the stream to write to
+         * @throws IOException if the stream cannot be written
+         */
+        void write(@NotNull DataOutput output) throws IOException {
+            output.writeLong(this.games);
+            output.writeLong(this.deals);
+            for (int seat = 0; seat < 2; ++seat) {
+                output.writeLong(this.wins[seat]);
+                output.writeLong(this.skunks[seat]);
+            }
+        }
+
+        /**
+         * Reads counts written by {@link #write(DataOutput)} and adds them to this result
+         *
+         * @param input the stream to read from
+         * @throws IOException if the stream cannot be read or ends early
+         */
+        void read(@NotNull DataInput input) throws IOException {
+            this.games += input.readLong();
+            this.deals += input.readLong();
+            for (int seat = 0; seat < 2; ++seat) {
+                this.wins[seat] += input.readLong();
+                this.skunks[seat] += input.readLong();
+            }
+        }
+
+        /**
+         * Adds the counts of another result
+         */
+        void add(@NotNull Result other) {
+            this.games += other.games;
+            this.deals += other.deals;
+            for (int seat = 0; seat < 2; ++seat) {
+                this.wins[seat] += other.wins[seat];
+                this.skunks[seat] += other.skunks[seat];
+            }
+        }
+
+        /**
+         * Returns the number of games played
+         *
+         * @return the number of games
+         */
+        long getGames() {
+            return this.games;
+        }
+
+        /**
+         * Returns the number of games a seat won
+         *
+         * @param seat 0 or 1
+         * @return the number of wins
+         */
+        long getWins(int seat) {
+            return this.wins[seat];
+        }
+
+        /**
+         * Returns the number of games a seat won with the opponent under 91 points
+         *
+         * @param seat 0 or 1
+         * @return the number of skunks
+         */
+        long getSkunks(int seat) {
+            return this.skunks[seat];
+        }
+
+        /**
+         * Returns the average number of deals in a game
+         *
+         * @return the mean deals per game
+         */
+        double getMeanDeals() {
+            return (double) this.deals / this.games;
+        }
+
+        /**
+         * Returns the fraction of games a seat won
+         *
+         * @param seat 0 or 1
+         * @return the win rate
+         */
+        double getWinRate(int seat) {
+            return (double) this.wins[seat] / this.games;
+        }
+
+        /**
+         * Returns the Wilson score interval of a seat's win rate
+         *
+         * @param seat 0 or 1
+         * @param z    the width of the interval, in standard errors
+         * @return the lower and upper bounds of the interval
+         */
+        double @NotNull [] getConfidenceInterval(int seat, double z) {
+            final double p = getWinRate(seat), n = this.games, z2 = z * z;
+            final double centre = (p + z2 / (2 * n)) / (1 + z2 / n);
+            final double halfWidth = z / (1 + z2 / n) * Math.sqrt(p * (1 - p) / n + z2 / (4 * n * n));
+            return new double[]{centre - halfWidth, centre + halfWidth};
+        }
+
+        /**
+         * Returns the win rates with a 95% interval for the first seat, e.g. "crib vs hand: crib
+         * wins 51.20% [51.10%, 51.30%] (2.10% skunks), hand wins 48.80% (1.90% skunks), 8.7 deals
+         * per game"
+         */
+        @Override
+        public @NotNull String toString() {
+            final double[] interval = getConfidenceInterval(0, Z);
+            return String.format(Locale.ROOT, "%s vs %s: %s wins %.2f%% [%.2f%%, %.2f%%] (%.2f%% skunks), "
+                            + "%s wins %.2f%% (%.2f%% skunks), %.1f deals per game", this.first, this.second,
+                    this.first, 100 * getWinRate(0), 100 * interval[0], 100 * interval[1],
+                    100.0 * this.skunks[0] / this.games, this.second, 100 * getWinRate(1),
+                    100.0 * this.skunks[1] / this.games, getMeanDeals());
+        }
+    }
+
+}
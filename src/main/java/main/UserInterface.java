@@ -1,61 +1,115 @@
 package main;
 
 import card.Card;
-import card.Rank;
-import card.Suit;
+import card.CardSet;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.text.DecimalFormat;
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * CLI UI for a cribbage calculator
  *
  * <p>Used to get user input from the console for a cribbage hand, and use the class {@code
- * CribbageCombinations} to determine the optimal strategies for dropping cards
+ * DiscardAnalyzer} to determine the optimal strategies for dropping cards
  *
  * @author Reid Moffat
  */
 final class UserInterface {
 
     /**
-     * A standard 52-card deck to compare with
+     * Calculates the points for each combination of cards to drop
      */
-    private static final HashSet<Card> cardPile =
-            new HashSet<>(IntStream.range(0, 52).mapToObj(i -> new Card(Rank.values[i % 13],
-                    Suit.values[i / 13])).collect(Collectors.toSet()));
+    private static final DiscardAnalyzer analyzer = new DiscardAnalyzer();
+
+    /**
+     * System property with the path of a {@link StrategyTable} file to look up 6-card hands in,
+     * instead of analyzing them and simulating the play
+     */
+    static final String STRATEGY_TABLE_PROPERTY = "cribbage.strategyTable";
+
+    /**
+     * System property with the path of a {@link ScoreTable} file; if set, the play of 2-player hands
+     * is simulated with it and the expected pegging differential is added to each discard
+     */
+    static final String SCORE_TABLE_PROPERTY = "cribbage.scoreTable";
 
     /**
      * A set of 5 cards (for 3 players) or 6 cards (for 2 players) the player is dealt at the
      * beginning of the round
      */
-    private final HashSet<Card> dealtHand = new HashSet<>();
+    private final CardSet dealtHand = new CardSet();
+
+    /**
+     * True if the player is the dealer (has the crib), false if not, or null if the crib is not
+     * counted (3 or 4 players)
+     */
+    private Boolean dealer;
 
     /**
      * Runs the cribbage calculator
      */
     public UserInterface() {
         getUserInput();
-        var averagePoints = getAveragePoints();
-        printPoints(averagePoints);
+        printPoints(rankDiscards(this.dealtHand, this.dealer), this.dealer != null
+                && (this.dealtHand.size() != 6 || System.getProperty(STRATEGY_TABLE_PROPERTY) == null));
     }
 
     /**
-     * Generates a {@code HashSet} of all 2-{@code Card} combinations in {@code cards}
+     * Runs the cribbage calculator on a hand that has already been dealt, without reading input or
+     * counting the crib
      *
-     * @param cards a {@code HashSet} of {@code Card} objects
-     * @return a {@code HashSet} of 2-element subsets (stored as {@code Card[]})
+     * @param dealtHand the 5 or 6 cards the player was dealt
+     * @throws IllegalArgumentException if the hand does not have 5 or 6 cards
      */
-    private static @NotNull HashSet<Card[]> subset2(HashSet<Card> cards) {
-        HashSet<Card[]> subsets = new HashSet<>();
-        HashSet<Card> remaining = new HashSet<>(cards);
-        cards.forEach(card1 -> {
-            remaining.remove(card1);
-            remaining.forEach(card2 -> subsets.add(new Card[]{card1, card2}));
-        });
-        return subsets;
+    UserInterface(@NotNull CardSet dealtHand) {
+        if (dealtHand.size() != 5 && dealtHand.size() != 6) {
+            throw new IllegalArgumentException("Dealt hand must have 5 or 6 cards: " + dealtHand);
+        }
+        this.dealtHand.addAll(dealtHand);
+        printPoints(rankDiscards(this.dealtHand, null), false);
+    }
+
+    /**
+     * Ranks the discards of a dealt hand, from the strategy table if one is configured with the
+     * {@value #STRATEGY_TABLE_PROPERTY} system property and the hand has 6 cards, simulating the
+     * play if a score table is configured with the {@value #SCORE_TABLE_PROPERTY} system property
+     *
+     * @param dealtHand the 5 or 6 cards the player was dealt
+     * @param dealer    true if the player is the dealer, false if not, or null if the crib is not
+     *                  counted
+     * @return the discards, sorted from highest to lowest net points
+     */
+    private static @NotNull List<? extends RankedDiscard> rankDiscards(@NotNull CardSet dealtHand,
+                                                                       @Nullable Boolean dealer) {
+        if (dealer == null) {
+            return analyzer.analyze(dealtHand);
+        }
+        final String tableFile = System.getProperty(STRATEGY_TABLE_PROPERTY);
+        if (tableFile != null && dealtHand.size() == 6) {
+            try {
+                return StrategyTable.open(Paths.get(tableFile)).lookup(dealtHand, dealer, CribTable.getDefault());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read strategy table " + tableFile, e);
+            }
+        }
+
+        // Simulating the play takes a few seconds, so it is only done when asked for
+        final String scoreTableFile = System.getProperty(SCORE_TABLE_PROPERTY);
+        if (scoreTableFile == null) {
+            return analyzer.analyze(dealtHand, dealer);
+        }
+        try {
+            return analyzer.analyze(dealtHand, dealer,
+                    new PeggingEstimator(ScoreTable.open(Paths.get(scoreTableFile))));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read score table " + scoreTableFile, e);
+        }
     }
 
     /**
@@ -74,6 +128,17 @@ final class UserInterface {
             }
             int numCards = numPlayers.equals("2") ? 6 : 5;
 
+            // The crib is only counted for 2 players, where it is two cards from each player
+            if (numCards == 6) {
+                System.out.print("Do you have the crib (y/n)? ");
+                String crib = input.nextLine().trim().toLowerCase();
+                while (!crib.equals("y") && !crib.equals("n")) {
+                    System.out.print("Invalid input; must be y or n: ");
+                    crib = input.nextLine().trim().toLowerCase();
+                }
+                this.dealer = crib.equals("y");
+            }
+
             System.out.println(numCards + " cards to start");
             System.out.println("\nEach cards is represented as their value (1-10, J, Q or K) and suit\n"
                     + "Examples:\n"
@@ -105,91 +170,70 @@ final class UserInterface {
     }
 
     /**
-     * Calculates and outputs the average cribbage points obtained for each combination of cards to
-     * be dropped and prints out the value
+     * Prints to the console the average points for each hand
+     *
+     * <p> The points include the expected crib points if the crib is counted, and the expected
+     * pegging differential, which is also shown on its own, if the play was simulated. If it was
+     * not, fives and aces are marked with a suggestion to keep them for the play
      *
-     * <p> The average number of points takes into account the number of points gained from each
-     * possible starter card to be flipped up
+     * @param results     the result of each drop combination, sorted from highest to lowest net
+     *                    points
+     * @param canSimulate true if the play would have been simulated with a score table
      */
-    private @NotNull ArrayList<String> getAveragePoints() {
-        final CribbageHand hand = new CribbageHand(new HashSet<>(this.dealtHand)); // Current cards
-        final ArrayList<String> hands = new ArrayList<>(); // Highest to the lowest point combinations
-
-        // Any of the remaining cards (cards not in the user's hand) could be the starter
-        final int unknownCards = 52 - hand.size();
-
+    private static void printPoints(@NotNull List<? extends RankedDiscard> results, boolean canSimulate) {
         System.out.println("---Drop combinations by average points---");
-        final DecimalFormat df = new DecimalFormat("##.##");
-
-        // For 6 cards (2 players), we need to drop 2 card; otherwise (3-4 players, 5 cards) drop 1
-        if (hand.size() == 6) {
-
-            for (Card[] combination : subset2(hand.getCards())) {
-                hand.remove(combination[0]);
-                hand.remove(combination[1]);
-
-                // Calculate average number of points for this combination, rounded to 2 decimals
-                double totalPoints = cardPile.stream().filter(this::notInHand).mapToInt(hand::totalPoints).sum();
-                hands.add(combination[0] + " and " + combination[1] + ": " + df.format(totalPoints / unknownCards));
-
-                hand.add(combination[0]);
-                hand.add(combination[1]);
-            }
-
-            return hands;
-        }
-
-        for (Card droppedCard : hand.getCards()) {
-            hand.remove(droppedCard);
-
-            // Add the average number of points for this combination, rounded to 2 decimals
-            double totalPoints = cardPile.stream().filter(this::notInHand).mapToInt(hand::totalPoints).sum();
-            hands.add(droppedCard + ": " + df.format(totalPoints / unknownCards));
-
-            hand.add(droppedCard);
-        }
-        return hands;
-    }
-
-    /**
-     * Prints to the console the average points for each hand with suggestions for cards to keep
-     */
-    private void printPoints(@NotNull ArrayList<String> hands) {
-
-        // Sort from highest to lowest, based on points at the end of the string
-        hands.sort(new PointStringComparator());
 
         int counter = 1; // Rank of the current combination
-        boolean fives = false, aces = false; // Fives and aces are special cases; you might not want to drop them
-        final PointStringComparator pointComparer = new PointStringComparator();
+        boolean fives = false, aces = false; // Without the play, fives and aces are special cases
+        final DecimalFormat df = new DecimalFormat("##.##");
+        long previousPoints = 0;
 
-        for (int i = 0; i < hands.size(); ++i) {
-            // Combinations with the same # of average points should be a tie in the ranking (e.g. two #1s)
-            if (i > 0 && pointComparer.compare(hands.get(i), hands.get(i - 1)) != 0) {
-                counter = i + 1;
-            }
-            System.out.print(counter + ": " + hands.get(i));
+        for (int i = 0; i < results.size(); ++i) {
+            final RankedDiscard result = results.get(i);
 
-            // A couple special cases (the average points doesn't take into account the crib or the playing round)
-            if (hands.get(i).contains("Five")) {
-                System.out.print(" (*)");
-                fives = true;
+            // Combinations with the same # of average points (rounded to 2 decimals) should be a
+            // tie in the ranking (e.g. two #1s)
+            final long roundedPoints = Math.round(result.getNetMean() * 100);
+            if (i > 0 && roundedPoints != previousPoints) {
+                counter = i + 1;
             }
-            if (hands.get(i).contains("Ace")) {
-                System.out.print(" (**)");
-                aces = true;
+            previousPoints = roundedPoints;
+            final String points = df.format(roundedPoints / 100.0);
+
+            final String dropped = result.getDiscards().stream().map(Card::toString)
+                    .collect(Collectors.joining(" and "));
+            System.out.print(counter + ": " + dropped + ": " + points);
+
+            // The points include the play if it was simulated; show how much it added
+            if (!Double.isNaN(result.getPeggingPoints())) {
+                System.out.printf(" (play %+.2f)", result.getPeggingPoints());
+            } else {
+                // A couple special cases (the average points don't take into account the play)
+                if (dropped.contains("Five")) {
+                    System.out.print(" (*)");
+                    fives = true;
+                }
+                if (dropped.contains("Ace")) {
+                    System.out.print(" (**)");
+                    aces = true;
+                }
             }
             System.out.println();
         }
 
         System.out.println();
         if (fives) {
-            System.out.println("(*) Consider keeping fives (if the points are close), especially if you don't have the crib");
+            System.out.println("(*) Consider keeping fives (if the points are close), especially if you " +
+                    "don't have the crib");
         }
         if (aces) {
             System.out.println("(**) Aces are good for the play round, consider keeping them " +
                     "(if the points are very close)");
         }
+        if (canSimulate && !results.isEmpty() && Double.isNaN(results.get(0).getPeggingPoints())) {
+            System.out.println("The play was not counted; set -D" + SCORE_TABLE_PROPERTY
+                    + "=<score table file> to simulate it");
+        }
     }
 
     /**
@@ -202,41 +246,4 @@ final class UserInterface {
         return !this.dealtHand.contains(card);
     }
 
-    /**
-     * Used to compare two point strings in the format "[card(s) to drop]: [average points]"
-     */
-    public static class PointStringComparator implements Comparator<String> {
-
-        private double getPoints(String s) {
-            boolean decimal = false;
-            final StringBuilder doubleString = new StringBuilder();
-            int index = s.length() - 1;
-
-            while (true) {
-                if (s.charAt(index) == '.') {
-                    if (decimal) {
-                        throw new IllegalArgumentException("String contains two decimal points in points: " + s);
-                    }
-                    decimal = true;
-                    doubleString.insert(0, s.charAt(index));
-                } else if (s.charAt(index) >= '0' && s.charAt(index) <= '9') {
-                    doubleString.insert(0, s.charAt(index));
-                } else if (s.charAt(index) == ' ') {
-                    break;
-                } else {
-                    throw new IllegalArgumentException("Points string has an invalid character: " + s);
-                }
-
-                index--;
-            }
-
-            return Double.parseDouble(doubleString.toString());
-        }
-
-        @Override
-        public int compare(String s1, String s2) {
-            return Double.compare(getPoints(s2), getPoints(s1));
-        }
-    }
-
 }
@@ -0,0 +1,506 @@
+package main;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The probability of winning a 2-player game to 121 points from any position
+ *
+ * <p> A position is both players' scores and who deals next. Each deal, the dealer first scores two
+ * points if the starter is a jack ("his heels"), which happens with probability 1/13. Then the
+ * cards are played and both players peg points as they lay them. Then the pone (the player who does
+ * not deal) scores their hand, and the dealer scores their hand and the crib. Whoever reaches 121
+ * first wins, so near the end the order of the scores matters, down to who pegs first in the play
+ *
+ * <p> The table is found by dynamic programming over the distributions of the points scored in one
+ * deal, as estimated by {@link WinProbabilityGenerator}: the joint distribution of the points both
+ * players peg in the play, the probability that each player reaches a number of points in the play
+ * before the other reaches theirs, and the joint distribution of the points both players score in
+ * the show. The play and the show are taken to be independent. Every play scores at least one point
+ * for the last card, so every deal moves to higher scores, and positions are solved from the
+ * highest scores to the lowest. Each position is solved at the start of a deal and at the show;
+ * the only position a show leads back to is the same scores with the deal passed over, at the
+ * start of the next deal, which is solved first
+ *
+ * <p> The {@value #RESOURCE} resource (big-endian) has a 4-byte magic number, the distributions of
+ * the pone's hand points, the dealer's hand points (without his heels) and the crib points (each
+ * {@value #BINS} {@code double}s), the distribution of the points pegged in the play and the
+ * probabilities that the pone and the dealer reach their points first (see {@link Deal}), then the
+ * win probability of the player to move from every position as an unsigned 16-bit fraction of
+ * 65,535: first with that player as the pone, then as the dealer, each indexed by
+ * {@code 121 * myScore + opponentScore}. The whole table is under 90 KB, so it is read into memory
+ * in one go
+ *
+ * @author Reid Moffat
+ */
+public final class WinProbability {
+
+    /**
+     * Name of the resource with the default table
+     */
+    static final String RESOURCE = "/win-probability.bin";
+
+    /**
+     * Identifies a win probability file ("CRWQ" in ASCII)
+     */
+    static final int MAGIC = 0x43525751;
+
+    /**
+     * Points needed to win
+     */
+    static final int GAME = 121;
+
+    /**
+     * Number of entries in each single-player distribution (0 to 31 points)
+     */
+    static final int BINS = 32;
+
+    /**
+     * Number of points the dealer can score in the show of one deal, plus one (hand and crib)
+     */
+    static final int DEALER_BINS = 2 * CribbageHand.MAX_POINTS + 1;
+
+    /**
+     * Number of points a player can peg in the play of one deal, plus one; more are counted as
+     * {@code PLAY_BINS - 1}, which no deal comes near
+     */
+    static final int PLAY_BINS = 32;
+
+    /**
+     * Number of rows and columns of the race tables, indexed by the points each player needs from
+     * 1 to {@value #PLAY_BINS}, which is never reached in the play
+     */
+    static final int RACE_BINS = PLAY_BINS + 1;
+
+    /**
+     * Probability that the starter is a jack, giving the dealer his heels
+     */
+    static final double HEELS = 1.0 / 13;
+
+    /**
+     * Points the dealer scores for his heels
+     */
+    static final int HEELS_POINTS = 2;
+
+    /**
+     * Size of the resource in bytes
+     */
+    static final int FILE_BYTES = 4 + (3 * BINS + PLAY_BINS * PLAY_BINS + 2 * RACE_BINS * RACE_BINS) * Double.BYTES
+            + 2 * GAME * GAME * Character.BYTES;
+
+    /**
+     * Win probabilities scaled to 0 to 65,535, with the player as the pone and then as the dealer
+     */
+    private final char[] table;
+
+    /**
+     * The distributions of the points scored in one deal, without the show's joint distribution
+     */
+    private final Deal deal;
+
+    /**
+     * Mean of the crib distribution
+     */
+    private final double cribMean;
+
+    /**
+     * Initializes this model from its table and distributions
+     */
+    private WinProbability(char @NotNull [] table, @NotNull Deal deal) {
+        this.table = table;
+        this.deal = deal;
+        double mean = 0;
+        for (int points = 0; points < BINS; ++points) {
+            mean += points * deal.crib[points];
+        }
+        this.cribMean = mean;
+    }
+
+    /**
+     * Returns the model in the {@value #RESOURCE} resource, which is loaded once
+     *
+     * @return the default model
+     * @throws IllegalStateException if the resource is missing or invalid
+     */
+    public static @NotNull WinProbability getDefault() {
+        return DefaultHolder.MODEL;
+    }
+
+    /**
+     * Holds the default model so the resource is read the first time it is used
+     */
+    private static final class DefaultHolder {
+        private static final WinProbability MODEL = loadDefault();
+    }
+
+    /**
+     * Reads the default model from its resource
+     */
+    private static @NotNull WinProbability loadDefault() {
+        try (InputStream stream = WinProbability.class.getResourceAsStream(RESOURCE)) {
+            if (stream == null) {
+                throw new IllegalStateException("Missing win probability resource " + RESOURCE);
+            }
+            return read(stream);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read win probability resource " + RESOURCE, e);
+        }
+    }
+
+    /**
+     * Reads a model in the format of the {@value #RESOURCE} resource
+     *
+     * @param stream the file
+     * @return the model in the file
+     * @throws IOException              if the stream cannot be read
+     * @throws IllegalArgumentException if the file is not a win probability table
+     */
+    static @NotNull WinProbability read(@NotNull InputStream stream) throws IOException {
+        final byte[] bytes = stream.readNBytes(FILE_BYTES + 1);
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length != FILE_BYTES || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a win probability table");
+        }
+
+        final Deal deal = new Deal();
+        for (double[] distribution : deal.stored()) {
+            buffer.asDoubleBuffer().get(distribution);
+            buffer.position(buffer.position() + distribution.length * Double.BYTES);
+        }
+        final char[] table = new char[2 * GAME * GAME];
+        buffer.asCharBuffer().get(table);
+        return new WinProbability(table, deal);
+    }
+
+    /**
+     * Returns this model in the format of the {@value #RESOURCE} resource
+     *
+     * @return the bytes of the file
+     */
+    byte @NotNull [] toBytes() {
+        final ByteBuffer buffer = ByteBuffer.allocate(FILE_BYTES).putInt(MAGIC);
+        for (double[] distribution : this.deal.stored()) {
+            for (double probability : distribution) {
+                buffer.putDouble(probability);
+            }
+        }
+        for (char probability : this.table) {
+            buffer.putChar(probability);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Solves the win probability of every position from the points scored in one deal
+     *
+     * @param deal the distributions of the points scored in one deal
+     * @return the model
+     * @throws IllegalArgumentException if some plays score no points
+     */
+    @Contract("_ -> new")
+    static @NotNull WinProbability solve(@NotNull Deal deal) {
+        if (deal.play[0] != 0) {
+            throw new IllegalArgumentException("Every play scores at least the last card");
+        }
+
+        // wins[0] is the player's win probability as the pone at the start of a deal, wins[1] as the
+        // dealer; shows[0] and shows[1] are the same once the cards have been played
+        final double[][] wins = new double[2][GAME * GAME];
+        final double[][] shows = new double[2][GAME * GAME];
+
+        for (int mine = GAME - 1; mine >= 0; --mine) {
+            for (int theirs = GAME - 1; theirs >= 0; --theirs) {
+                // His heels is scored at the cut, and wins outright if it reaches 121. The play then
+                // only leads to shows with higher scores, which are already solved
+                wins[0][GAME * mine + theirs] = HEELS * (theirs + HEELS_POINTS >= GAME ? 0
+                        : playAsPone(deal, shows[0], mine, theirs + HEELS_POINTS))
+                        + (1 - HEELS) * playAsPone(deal, shows[0], mine, theirs);
+                wins[1][GAME * mine + theirs] = HEELS * (mine + HEELS_POINTS >= GAME ? 1
+                        : playAsDealer(deal, shows[1], mine + HEELS_POINTS, theirs))
+                        + (1 - HEELS) * playAsDealer(deal, shows[1], mine, theirs);
+
+                // A show where neither player scores passes the deal at the same scores, solved above
+                double pone = 0, dealer = 0;
+                for (int x = 0; x < BINS; ++x) {
+                    for (int y = 0; y < DEALER_BINS; ++y) {
+                        final double probability = deal.show[DEALER_BINS * x + y];
+                        if (probability == 0) {
+                            continue;
+                        }
+                        // As the pone the player scores x first, as the dealer the opponent does
+                        pone += probability * (mine + x >= GAME ? 1 : theirs + y >= GAME ? 0
+                                : wins[1][GAME * (mine + x) + theirs + y]);
+                        dealer += probability * (theirs + x >= GAME ? 0 : mine + y >= GAME ? 1
+                                : wins[0][GAME * (mine + y) + theirs + x]);
+                    }
+                }
+                shows[0][GAME * mine + theirs] = pone;
+                shows[1][GAME * mine + theirs] = dealer;
+            }
+        }
+
+        final char[] table = new char[2 * GAME * GAME];
+        for (int i = 0; i < table.length; ++i) {
+            table[i] = (char) Math.round(Math.min(1, Math.max(0, wins[i / (GAME * GAME)][i % (GAME * GAME)]))
+                    * Character.MAX_VALUE);
+        }
+        return new WinProbability(table, deal.copy());
+    }
+
+    /**
+     * Returns the probability that the pone wins from the play, given their win probability at each
+     * position of the show
+     */
+    private static double playAsPone(@NotNull Deal deal, double @NotNull [] shows, int mine, int theirs) {
+        final int poneNeeds = Math.min(GAME - mine, PLAY_BINS), dealerNeeds = Math.min(GAME - theirs, PLAY_BINS);
+        double win = deal.poneFirst[RACE_BINS * poneNeeds + dealerNeeds];
+        for (int p = 0; p < poneNeeds; ++p) {
+            for (int d = 0; d < dealerNeeds; ++d) {
+                final double probability = deal.play[PLAY_BINS * p + d];
+                if (probability != 0) {
+                    win += probability * shows[GAME * (mine + p) + theirs + d];
+                }
+            }
+        }
+        return win;
+    }
+
+    /**
+     * Returns the probability that the dealer wins from the play, given their win probability at
+     * each position of the show
+     */
+    private static double playAsDealer(@NotNull Deal deal, double @NotNull [] shows, int mine, int theirs) {
+        final int poneNeeds = Math.min(GAME - theirs, PLAY_BINS), dealerNeeds = Math.min(GAME - mine, PLAY_BINS);
+        double win = deal.dealerFirst[RACE_BINS * poneNeeds + dealerNeeds];
+        for (int p = 0; p < poneNeeds; ++p) {
+            for (int d = 0; d < dealerNeeds; ++d) {
+                final double probability = deal.play[PLAY_BINS * p + d];
+                if (probability != 0) {
+                    win += probability * shows[GAME * (mine + d) + theirs + p];
+                }
+            }
+        }
+        return win;
+    }
+
+    /**
+     * Returns the probability that a player wins from a position, before the cards are dealt
+     *
+     * @param myScore       the player's score
+     * @param opponentScore the opponent's score
+     * @param dealer        true if the player deals next
+     * @return the probability of winning, 1 if the player has 121 points and 0 if only the
+     * opponent does
+     * @throws IllegalArgumentException if a score is negative
+     */
+    public double winProbability(int myScore, int opponentScore, boolean dealer) {
+        if (myScore < 0 || opponentScore < 0) {
+            throw new IllegalArgumentException("Scores cannot be negative: " + myScore + ", " + opponentScore);
+        }
+        if (myScore >= GAME) {
+            return 1;
+        }
+        if (opponentScore >= GAME) {
+            return 0;
+        }
+        return entry(myScore, opponentScore, dealer);
+    }
+
+    /**
+     * Returns a table entry as a probability
+     */
+    private double entry(int myScore, int opponentScore, boolean dealer) {
+        return (double) this.table[(dealer ? GAME * GAME : 0) + GAME * myScore + opponentScore] / Character.MAX_VALUE;
+    }
+
+    /**
+     * Returns the probability that a player wins after dropping some cards
+     *
+     * <p> The dealer first scores his heels with probability 1/13, and the play follows this model's
+     * distributions. The player's hand points then follow the result's distribution over the
+     * starters. The opponent's hand and the crib follow this model's distributions, except that the
+     * crib's distribution is moved so that its mean is {@code cribPoints} (splitting each fractional
+     * score between the points below and above it)
+     *
+     * @param result        the discard, with the distribution of the kept hand's points
+     * @param cribPoints    the expected crib points with the dropped cards (positive, whoever owns
+     *                      the crib)
+     * @param myScore       the player's score
+     * @param opponentScore the opponent's score
+     * @param dealer        true if the player is the dealer
+     * @return the probability of winning
+     * @throws IllegalArgumentException if a score is not between 0 and 120
+     */
+    public double afterDiscard(@NotNull DiscardResult result, double cribPoints, int myScore, int opponentScore,
+                               boolean dealer) {
+        if (myScore < 0 || opponentScore < 0 || myScore >= GAME || opponentScore >= GAME) {
+            throw new IllegalArgumentException("Scores must be between 0 and " + (GAME - 1) + ": " + myScore
+                    + ", " + opponentScore);
+        }
+
+        // The dealer's show is their hand plus the crib; only the scores the play can reach matter
+        final double[] crib = shiftedCrib(cribPoints);
+        final double[] hand = new double[CribbageHand.MAX_POINTS + 1];
+        for (int points = 0; points < hand.length; ++points) {
+            hand[points] = result.getProbability(points);
+        }
+        final double[] dealerShow = convolve(dealer ? hand : this.deal.dealerHand, crib);
+        final double[] shows = new double[GAME * GAME];
+        for (int mine = myScore; mine < Math.min(GAME, myScore + PLAY_BINS + HEELS_POINTS); ++mine) {
+            for (int theirs = opponentScore; theirs < Math.min(GAME, opponentScore + PLAY_BINS + HEELS_POINTS);
+                 ++theirs) {
+                shows[GAME * mine + theirs] = dealer ? showAsDealer(dealerShow, mine, theirs)
+                        : showAsPone(hand, dealerShow, mine, theirs);
+            }
+        }
+
+        if (dealer) {
+            return HEELS * (myScore + HEELS_POINTS >= GAME ? 1
+                    : playAsDealer(this.deal, shows, myScore + HEELS_POINTS, opponentScore))
+                    + (1 - HEELS) * playAsDealer(this.deal, shows, myScore, opponentScore);
+        }
+        return HEELS * (opponentScore + HEELS_POINTS >= GAME ? 0
+                : playAsPone(this.deal, shows, myScore, opponentScore + HEELS_POINTS))
+                + (1 - HEELS) * playAsPone(this.deal, shows, myScore, opponentScore);
+    }
+
+    /**
+     * Returns the probability that the pone wins from the show, once the cards have been played
+     */
+    private double showAsPone(double @NotNull [] hand, double @NotNull [] dealerShow, int myScore,
+                              int opponentScore) {
+        // The player counts first, then the dealer counts their hand and the crib
+        double win = 0;
+        for (int points = 0; points < hand.length; ++points) {
+            if (hand[points] == 0) {
+                continue;
+            }
+            if (myScore + points >= GAME) {
+                win += hand[points];
+                continue;
+            }
+            double after = 0;
+            for (int other = 0; other < dealerShow.length; ++other) {
+                if (dealerShow[other] != 0) {
+                    after += dealerShow[other] * winProbability(myScore + points, opponentScore + other, true);
+                }
+            }
+            win += hand[points] * after;
+        }
+        return win;
+    }
+
+    /**
+     * Returns the probability that the dealer wins from the show, once the cards have been played
+     */
+    private double showAsDealer(double @NotNull [] dealerShow, int myScore, int opponentScore) {
+        // The opponent counts first, then the player counts their hand and the crib
+        double win = 0;
+        for (int other = 0; other < BINS; ++other) {
+            if (this.deal.poneHand[other] == 0 || opponentScore + other >= GAME) {
+                continue;
+            }
+            double after = 0;
+            for (int points = 0; points < dealerShow.length; ++points) {
+                if (dealerShow[points] != 0) {
+                    after += dealerShow[points] * winProbability(myScore + points, opponentScore + other, false);
+                }
+            }
+            win += this.deal.poneHand[other] * after;
+        }
+        return win;
+    }
+
+    /**
+     * Returns the distribution of the sum of two independent scores
+     */
+    private static double @NotNull [] convolve(double @NotNull [] first, double @NotNull [] second) {
+        final double[] sum = new double[first.length + second.length - 1];
+        for (int i = 0; i < first.length; ++i) {
+            if (first[i] == 0) {
+                continue;
+            }
+            for (int j = 0; j < second.length; ++j) {
+                sum[i + j] += first[i] * second[j];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the crib distribution moved so its mean is {@code cribPoints}
+     */
+    private double @NotNull [] shiftedCrib(double cribPoints) {
+        final double shift = cribPoints - this.cribMean;
+        final double[] shifted = new double[BINS + 8];
+        for (int points = 0; points < BINS; ++points) {
+            final double moved = Math.min(shifted.length - 1, Math.max(0, points + shift));
+            final int below = (int) moved;
+            final double above = moved - below;
+            shifted[below] += this.deal.crib[points] * (1 - above);
+            if (above > 0) {
+                shifted[below + 1] += this.deal.crib[points] * above;
+            }
+        }
+        return shifted;
+    }
+
+    /**
+     * The distributions of the points scored in one deal, without his heels
+     *
+     * <p> The race tables are indexed by {@code RACE_BINS * a + b}: {@code poneFirst} has the
+     * probability that the pone pegs {@code a} points before the dealer pegs {@code b}, and
+     * {@code dealerFirst} that the dealer pegs {@code b} before the pone pegs {@code a}. Neither
+     * happens when the play ends with fewer points for both
+     */
+    static final class Deal {
+
+        /**
+         * Distribution of the pone's hand points, the dealer's hand points and the crib points
+         */
+        final double[] poneHand = new double[BINS], dealerHand = new double[BINS], crib = new double[BINS];
+
+        /**
+         * {@code play[PLAY_BINS * p + d]} is the probability that the pone pegs {@code p} points and
+         * the dealer {@code d} in the play
+         */
+        final double[] play = new double[PLAY_BINS * PLAY_BINS];
+
+        /**
+         * Probability that each player reaches a number of points first in the play
+         */
+        final double[] poneFirst = new double[RACE_BINS * RACE_BINS], dealerFirst = new double[RACE_BINS * RACE_BINS];
+
+        /**
+         * {@code show[DEALER_BINS * x + y]} is the probability that the pone scores {@code x} points
+         * and the dealer {@code y} in the show. Only needed to solve the table, so it is not stored
+         */
+        final double[] show = new double[BINS * DEALER_BINS];
+
+        /**
+         * Returns the distributions stored in the {@value #RESOURCE} resource, in order
+         */
+        double @NotNull [] @NotNull [] stored() {
+            return new double[][]{this.poneHand, this.dealerHand, this.crib, this.play, this.poneFirst,
+                    this.dealerFirst};
+        }
+
+        /**
+         * Returns a copy of the stored distributions, without the show
+         */
+        @NotNull Deal copy() {
+            final Deal copy = new Deal();
+            final double[][] from = stored(), to = copy.stored();
+            for (int i = 0; i < from.length; ++i) {
+                System.arraycopy(from[i], 0, to[i], 0, from[i].length);
+            }
+            return copy;
+        }
+    }
+
+}
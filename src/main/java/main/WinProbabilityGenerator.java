@@ -0,0 +1,250 @@
+package main;
+
+import card.Deck;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Estimates a {@link WinProbability} model by simulating random deals
+ *
+ * <p> Each sample deals six cards to the pone, six to the dealer and a starter from a shuffled
+ * deck. Both players drop the two cards that give the highest average points counting the crib
+ * from a {@link CribTable} (see {@link CribEquilibrium#bestResponse}), and play the four cards they
+ * kept with the {@link PeggingEstimator#baselineCard baseline policy} on one reused {@link Pegging}.
+ * Each time a player pegs, the generator counts every number of points they have now reached
+ * before the other player reached theirs. The pone's hand, the dealer's hand and the crib are then
+ * scored with the starter. His heels is left out, since the model scores it as a separate event
+ * before the play. The samples are split into a fixed number of tasks on the common
+ * {@code ForkJoinPool}, each with its own random stream split from one seed, so the same seed
+ * always gives the same model
+ *
+ * <p> The distributions of the points both players score in a deal are then solved for every
+ * position by {@link WinProbability#solve}. The {@code win-probability} Maven profile regenerates
+ * {@code src/main/resources/win-probability.bin}:
+ *
+ * <pre>mvn -P win-probability process-classes</pre>
+ *
+ * @author Reid Moffat
+ */
+public final class WinProbabilityGenerator {
+
+    /**
+     * Default number of deals to simulate
+     */
+    static final int DEFAULT_SAMPLES = 2_000_000;
+
+    /**
+     * Default seed of the random streams
+     */
+    static final long DEFAULT_SEED = 0x43525750L;
+
+    /**
+     * Number of tasks the samples are split between
+     */
+    private static final int TASKS = 64;
+
+    /**
+     * This class only has static methods and should not be instantiated
+     */
+    private WinProbabilityGenerator() {
+    }
+
+    /**
+     * Generates a win probability model and writes it to a file
+     *
+     * @param args the path of the file to write, then optionally the number of deals to simulate
+     *             and the random seed
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String @NotNull [] args) throws IOException {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("Usage: WinProbabilityGenerator <output file> [samples] [seed]");
+            System.exit(1);
+        }
+
+        final long start = System.nanoTime();
+        final Path file = Paths.get(args[0]);
+        final int samples = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SAMPLES;
+        final long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+        write(generate(samples, seed, ScoreTable.generate(), CribTable.getDefault()), file);
+        System.out.printf("Wrote %d positions from %d deals to %s in %.1f s%n",
+                2 * WinProbability.GAME * WinProbability.GAME, samples, file, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Estimates the points scored in one deal by simulation and solves the win probability of
+     * every position
+     *
+     * @param samples    the number of deals to simulate
+     * @param seed       the seed of the random streams
+     * @param scoreTable scores for hands and cribs
+     * @param cribTable  the crib points both players count when choosing their discards
+     * @return the model
+     * @throws IllegalArgumentException if {@code samples} is not positive
+     */
+    static @NotNull WinProbability generate(int samples, long seed, @NotNull ScoreTable scoreTable,
+                                            @NotNull CribTable cribTable) {
+        if (samples <= 0) {
+            throw new IllegalArgumentException("Number of samples must be positive: " + samples);
+        }
+
+        // Split every stream up front so the result does not depend on the order tasks run in
+        final SplittableRandom root = new SplittableRandom(seed);
+        final SplittableRandom[] randoms = new SplittableRandom[TASKS];
+        for (int task = 0; task < TASKS; ++task) {
+            randoms[task] = root.split();
+        }
+
+        final Counts[] counts = new Counts[TASKS];
+        IntStream.range(0, TASKS).parallel().forEach(task -> counts[task] = simulate(
+                (int) ((long) samples * (task + 1) / TASKS - (long) samples * task / TASKS), randoms[task],
+                scoreTable, cribTable));
+
+        // Sum the tasks' counts in task order and turn them into probabilities
+        final WinProbability.Deal deal = new WinProbability.Deal();
+        for (Counts taskCounts : counts) {
+            add(deal.show, taskCounts.show, samples);
+            add(deal.poneHand, taskCounts.poneHand, samples);
+            add(deal.dealerHand, taskCounts.dealerHand, samples);
+            add(deal.crib, taskCounts.crib, samples);
+            add(deal.play, taskCounts.play, samples);
+            add(deal.poneFirst, taskCounts.poneFirst, samples);
+            add(deal.dealerFirst, taskCounts.dealerFirst, samples);
+        }
+        return WinProbability.solve(deal);
+    }
+
+    /**
+     * Adds counts out of some samples to a distribution
+     */
+    private static void add(double @NotNull [] distribution, long @NotNull [] counts, int samples) {
+        for (int i = 0; i < distribution.length; ++i) {
+            distribution[i] += (double) counts[i] / samples;
+        }
+    }
+
+    /**
+     * Simulates some deals and counts the points scored in each
+     */
+    private static @NotNull Counts simulate(int samples, @NotNull SplittableRandom random,
+                                            @NotNull ScoreTable scoreTable, @NotNull CribTable cribTable) {
+        final Counts counts = new Counts();
+        final Deck deck = new Deck(random, 0);
+        final Pegging pegging = new Pegging();
+
+        for (int sample = 0; sample < samples; ++sample) {
+            // Deal the pone's hand (6), the dealer's hand (6) and the starter
+            deck.reset();
+            final long pone = deck.deal(6), dealer = deck.deal(6);
+            final long starter = 1L << deck.draw();
+
+            final long poneDiscards = CribEquilibrium.bestResponse(pone, false, cribTable, scoreTable);
+            final long dealerDiscards = CribEquilibrium.bestResponse(dealer, true, cribTable, scoreTable);
+            final long poneKeep = pone & ~poneDiscards, dealerKeep = dealer & ~dealerDiscards;
+
+            // Play the deal, counting who reaches each number of points first
+            pegging.deal(poneKeep, dealerKeep);
+            long state = pegging.start();
+            while (!Pegging.isOver(state)) {
+                final int mover = Pegging.mover(state);
+                final long next = pegging.playUnchecked(state, PeggingEstimator.baselineCard(pegging, state));
+                counts.race(mover, pegged(state, mover), pegged(next, mover), pegged(next, 1 - mover));
+                counts.race(1 - mover, pegged(state, 1 - mover), pegged(next, 1 - mover), pegged(next, mover));
+                state = next;
+            }
+            ++counts.play[WinProbability.PLAY_BINS * pegged(state, 0) + pegged(state, 1)];
+
+            final int ponePoints = scoreTable.total(poneKeep, starter);
+            final int dealerPoints = scoreTable.total(dealerKeep, starter);
+            final int cribPoints = scoreTable.cribTotal(poneDiscards | dealerDiscards, starter);
+
+            ++counts.show[WinProbability.DEALER_BINS * ponePoints + dealerPoints + cribPoints];
+            ++counts.poneHand[ponePoints];
+            ++counts.dealerHand[dealerPoints];
+            ++counts.crib[cribPoints];
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the points a player has pegged, counting more than the model's distributions hold as
+     * their last entry
+     */
+    private static int pegged(long state, int player) {
+        return Math.min(Pegging.points(state, player), WinProbability.PLAY_BINS - 1);
+    }
+
+    /**
+     * Writes a model to a file in the format of the {@value WinProbability#RESOURCE} resource,
+     * replacing the file if it exists
+     *
+     * @param model the model to write
+     * @param file  the file to write to
+     * @throws IOException if the file cannot be written
+     */
+    static void write(@NotNull WinProbability model, @NotNull Path file) throws IOException {
+        final Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        final Path temporary = Files.createTempFile(directory, "win-probability", ".tmp");
+        try {
+            Files.write(temporary, model.toBytes());
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * The number of deals that gave each score in one task
+     */
+    private static final class Counts {
+
+        /**
+         * {@code show[DEALER_BINS * x + y]} is the number of deals where the pone scored {@code x}
+         * points and the dealer {@code y} in the show
+         */
+        final long[] show = new long[WinProbability.BINS * WinProbability.DEALER_BINS];
+
+        /**
+         * Number of deals giving each score for the pone's hand, the dealer's hand and the crib
+         */
+        final long[] poneHand = new long[WinProbability.BINS], dealerHand = new long[WinProbability.BINS],
+                crib = new long[WinProbability.BINS];
+
+        /**
+         * {@code play[PLAY_BINS * p + d]} is the number of deals where the pone pegged {@code p}
+         * points and the dealer {@code d}
+         */
+        final long[] play = new long[WinProbability.PLAY_BINS * WinProbability.PLAY_BINS];
+
+        /**
+         * Number of deals where each player reached some points before the other reached theirs,
+         * indexed like {@link WinProbability.Deal#poneFirst}
+         */
+        final long[] poneFirst = new long[WinProbability.RACE_BINS * WinProbability.RACE_BINS],
+                dealerFirst = new long[WinProbability.RACE_BINS * WinProbability.RACE_BINS];
+
+        /**
+         * Counts a player's pegged points going from {@code before} to {@code after} while the
+         * other player has {@code other}
+         */
+        void race(int player, int before, int after, int other) {
+            final long[] first = player == 0 ? this.poneFirst : this.dealerFirst;
+            for (int reached = before + 1; reached <= after; ++reached) {
+                for (int needed = other + 1; needed <= WinProbability.PLAY_BINS; ++needed) {
+                    ++first[player == 0 ? WinProbability.RACE_BINS * reached + needed
+                            : WinProbability.RACE_BINS * needed + reached];
+                }
+            }
+        }
+    }
+
+}
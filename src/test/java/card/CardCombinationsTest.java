@@ -0,0 +1,67 @@
+package card;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardCombinationsTest {
+
+    @Test
+    void binomial() {
+        assertEquals(1, CardCombinations.binomial(0, 0));
+        assertEquals(0, CardCombinations.binomial(3, 4));
+        assertEquals(52, CardCombinations.binomial(52, 1));
+        assertEquals(270_725, CardCombinations.binomial(52, 4));
+        assertEquals(2_598_960, CardCombinations.binomial(52, 5));
+        assertEquals(20_358_520, CardCombinations.binomial(52, 6));
+        assertEquals(38_760, CardCombinations.binomial(20, 6));
+
+        for (int k = 1; k <= CardCombinations.MAX_CARDS; ++k) {
+            assertEquals(CardCombinations.binomial(52, k), CardCombinations.count(k));
+        }
+    }
+
+    @Test
+    void roundTrip() {
+        // Every set of k cards, in colex order, has the next rank and unranks back to itself
+        for (int k = 1; k <= CardCombinations.MAX_CARDS; ++k) {
+            final int count = CardCombinations.count(k);
+            long cards = CardCombinations.unrank(0, k);
+            assertEquals((1L << k) - 1, cards);
+
+            for (int rank = 0; rank < count; ++rank) {
+                assertEquals(k, Long.bitCount(cards));
+                assertEquals(rank, CardCombinations.rank(cards));
+                assertEquals(cards, CardCombinations.unrank(rank, k));
+                cards = CardCombinations.next(cards);
+            }
+            assertNotEquals(0, cards & ~CardSet.DECK_MASK);
+        }
+    }
+
+    @Test
+    void fourCardRank() {
+        for (int rank = 0; rank < CardCombinations.count(4); rank += 7) {
+            long cards = CardCombinations.unrank(rank, 4);
+            final int card0 = Long.numberOfTrailingZeros(cards);
+            cards &= cards - 1;
+            final int card1 = Long.numberOfTrailingZeros(cards);
+            cards &= cards - 1;
+            final int card2 = Long.numberOfTrailingZeros(cards);
+            cards &= cards - 1;
+            final int card3 = Long.numberOfTrailingZeros(cards);
+            assertEquals(rank, CardCombinations.rank(card0, card1, card2, card3));
+        }
+    }
+
+    @Test
+    void invalidSets() {
+        assertThrows(IllegalArgumentException.class, () -> CardCombinations.rank(0));
+        assertThrows(IllegalArgumentException.class, () -> CardCombinations.rank(0b1111111));
+        assertThrows(IllegalArgumentException.class, () -> CardCombinations.unrank(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> CardCombinations.unrank(0, 7));
+        assertThrows(IllegalArgumentException.class, () -> CardCombinations.unrank(-1, 3));
+        assertThrows(IllegalArgumentException.class, () -> CardCombinations.unrank(52, 1));
+        assertThrows(IllegalArgumentException.class, () -> CardCombinations.count(7));
+    }
+}
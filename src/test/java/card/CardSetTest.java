@@ -0,0 +1,121 @@
+package card;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardSetTest {
+
+    private static final Set<Card> allCards = IntStream.range(0, 52).mapToObj(i -> new Card(Rank.values[i % 13],
+            Suit.values[i / 13])).collect(Collectors.toUnmodifiableSet());
+
+    @Test
+    void cardIndex() {
+        final boolean[] seen = new boolean[52];
+        allCards.forEach(card -> {
+            final int index = card.getIndex();
+            assertFalse(seen[index], card.toString());
+            seen[index] = true;
+            assertEquals(card, Card.of(index));
+        });
+    }
+
+    @Test
+    void addRemoveContains() {
+        final CardSet set = new CardSet();
+        assertTrue(set.isEmpty());
+
+        int size = 0;
+        for (Card card : allCards) {
+            assertFalse(set.contains(card));
+            assertTrue(set.add(card));
+            assertFalse(set.add(card));
+            assertTrue(set.contains(card));
+            assertEquals(++size, set.size());
+        }
+        assertEquals(CardSet.fullDeck(), set);
+
+        for (Card card : allCards) {
+            assertTrue(set.remove(card));
+            assertFalse(set.remove(card));
+            assertFalse(set.contains(card));
+            assertEquals(--size, set.size());
+        }
+        assertTrue(set.isEmpty());
+
+        assertFalse(set.contains(null));
+        assertThrows(IllegalArgumentException.class, () -> set.add(null));
+        assertThrows(IllegalArgumentException.class, () -> set.remove(null));
+    }
+
+    @Test
+    void setAlgebra() {
+        final Random random = new Random(0);
+        for (int i = 0; i < 1000; ++i) {
+            final long a = random.nextLong() & CardSet.DECK_MASK;
+            final long b = random.nextLong() & CardSet.DECK_MASK;
+            final CardSet x = CardSet.fromBits(a);
+            final CardSet y = CardSet.fromBits(b);
+
+            final HashSet<Card> union = x.toHashSet();
+            union.addAll(y.toHashSet());
+            assertEquals(union, x.union(y).toHashSet());
+
+            final HashSet<Card> intersection = x.toHashSet();
+            intersection.retainAll(y.toHashSet());
+            assertEquals(intersection, x.intersection(y).toHashSet());
+
+            final HashSet<Card> difference = x.toHashSet();
+            difference.removeAll(y.toHashSet());
+            assertEquals(difference, x.difference(y).toHashSet());
+
+            assertEquals(52 - x.size(), x.complement().size());
+            assertTrue(x.union(y).containsAll(x));
+
+            final CardSet z = x.copy();
+            z.retainAll(y);
+            assertEquals(x.intersection(y), z);
+            z.addAll(x);
+            assertEquals(x, z);
+            z.removeAll(y);
+            assertEquals(x.difference(y), z);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> CardSet.fromBits(1L << 52));
+    }
+
+    @Test
+    void collectionConversion() {
+        final List<Card> cards = List.of(new Card(Rank.FIVE, Suit.HEARTS), new Card(Rank.JACK, Suit.CLUBS),
+                new Card(Rank.FIVE, Suit.HEARTS), new Card(Rank.ACE, Suit.SPADES));
+        final CardSet set = CardSet.of(cards);
+        assertEquals(3, set.size());
+        assertEquals(new HashSet<>(cards), set.toHashSet());
+        assertEquals(set, CardSet.of(cards.toArray(new Card[0])));
+
+        // Iteration is in deck order (clubs, diamonds, hearts then spades)
+        assertArrayEquals(new Card[]{new Card(Rank.JACK, Suit.CLUBS), new Card(Rank.FIVE, Suit.HEARTS),
+                new Card(Rank.ACE, Suit.SPADES)}, set.toArray());
+        assertEquals(List.of(set.toArray()), set.stream().collect(Collectors.toList()));
+        assertEquals("[Jack of clubs, Five of hearts, Ace of spades]", set.toString());
+    }
+
+    @Test
+    void copyIsIndependent() {
+        final CardSet set = CardSet.of(new Card(Rank.TWO, Suit.DIAMONDS));
+        final CardSet copy = set.copy();
+        copy.clear();
+
+        assertEquals(1, set.size());
+        assertEquals(0, copy.size());
+        assertNotEquals(set, copy);
+        assertEquals(set.hashCode(), CardSet.of(new Card(Rank.TWO, Suit.DIAMONDS)).hashCode());
+    }
+}
@@ -3,6 +3,7 @@ package card;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -84,6 +85,52 @@ class CardTest {
         }
     }
 
+    @Test
+    void sharedInstances() {
+        final String[] rankStrings = {"1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q", "K"};
+        for (Rank r : Rank.values) {
+            for (Suit s : Suit.values) {
+                final Card card = Card.of(r, s);
+                assertSame(card, Card.of(r, s));
+                assertSame(card, Card.of(card.getIndex()));
+                assertSame(card, Card.stringToCard(rankStrings[r.ordinal()] + s.toString().charAt(0)));
+                assertEquals(new Card(r, s), card);
+                assertEquals(card.getIndex(), card.hashCode());
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> Card.of(-1));
+        assertThrows(IllegalArgumentException.class, () -> Card.of(52));
+    }
+
+    @Test
+    void parseIndex() {
+        final String line = "5h 10c\tJD  qs 1c";
+        final StringBuilder builder = new StringBuilder(line);
+        final byte[] bytes = line.getBytes(StandardCharsets.US_ASCII);
+        final int[][] ranges = {{0, 2}, {2, 6}, {6, 9}, {9, 13}, {13, 16}};
+        final Card[] expected = {Card.of(Rank.FIVE, Suit.HEARTS), Card.of(Rank.TEN, Suit.CLUBS),
+                Card.of(Rank.JACK, Suit.DIAMONDS), Card.of(Rank.QUEEN, Suit.SPADES), Card.of(Rank.ACE, Suit.CLUBS)};
+
+        for (int i = 0; i < ranges.length; ++i) {
+            final int start = ranges[i][0], end = ranges[i][1];
+            assertEquals(expected[i].getIndex(), Card.parseIndex(builder, start, end));
+            assertEquals(expected[i].getIndex(), Card.parseIndex(bytes, start, end));
+            assertSame(expected[i], Card.parse(builder, start, end));
+        }
+
+        // Invalid tokens, including ranges that cut a card in half
+        for (String invalid : new String[]{"", " ", "1", "10", "11c", "0c", "5x", "j", "5hh", "100c", "1 0c"}) {
+            assertEquals(-1, Card.parseIndex(invalid, 0, invalid.length()), invalid);
+            assertEquals(-1, Card.parseIndex(invalid.getBytes(StandardCharsets.US_ASCII), 0, invalid.length()));
+        }
+        assertEquals(-1, Card.parseIndex(line, 2, 4));
+        assertEquals(-1, Card.parseIndex(bytes, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> Card.parse(line, 2, 4));
+
+        // Bytes above 127 are not letters
+        assertEquals(-1, Card.parseIndex(new byte[]{'5', (byte) 0xE8}, 0, 2));
+    }
+
     @Test
     void rankNumber() {
         Card c;
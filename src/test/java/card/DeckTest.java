@@ -0,0 +1,88 @@
+package card;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeckTest {
+
+    @Test
+    void dealsEveryCardOnce() {
+        final Deck deck = new Deck(1);
+        for (int round = 0; round < 100; ++round) {
+            deck.reset();
+            assertEquals(52, deck.remaining());
+            long dealt = 0;
+            for (int i = 0; i < 52; ++i) {
+                final int card = deck.draw();
+                assertEquals(0, dealt & 1L << card, Integer.toString(card));
+                dealt |= 1L << card;
+            }
+            assertEquals(CardSet.DECK_MASK, dealt);
+            assertEquals(0, deck.remaining());
+            assertThrows(IllegalStateException.class, deck::draw);
+        }
+    }
+
+    @Test
+    void uniform() {
+        // Each of the 52 cards should be the 13th card dealt about equally often
+        final Deck deck = new Deck(2);
+        final int samples = 52_000;
+        final int[] counts = new int[52];
+        for (int sample = 0; sample < samples; ++sample) {
+            deck.reset();
+            final long hands = deck.deal(12);
+            final int card = deck.draw();
+            assertEquals(12, Long.bitCount(hands));
+            assertEquals(0, hands & 1L << card);
+            ++counts[card];
+        }
+
+        // 51 degrees of freedom, whose 99.9th percentile is about 87
+        double chiSquared = 0;
+        for (int count : counts) {
+            chiSquared += (count - 1000.0) * (count - 1000.0) / 1000.0;
+        }
+        assertTrue(chiSquared < 87, Double.toString(chiSquared));
+    }
+
+    @Test
+    void removedCardsAreNeverDealt() {
+        final long removed = 1L << 0 | 1L << 17 | 1L << 35 | 1L << 36 | 1L << 51;
+        final Deck deck = new Deck(new SplittableRandom(3), removed);
+        assertEquals(removed, deck.getRemoved());
+        for (int round = 0; round < 100; ++round) {
+            deck.reset();
+            assertEquals(47, deck.remaining());
+            assertEquals(CardSet.DECK_MASK & ~removed, deck.deal(47));
+        }
+        assertThrows(IllegalArgumentException.class, () -> deck.deal(1));
+        deck.reset();
+        assertThrows(IllegalArgumentException.class, () -> deck.deal(48));
+        assertThrows(IllegalArgumentException.class, () -> deck.deal(-1));
+        assertEquals(0, deck.deal(0));
+        assertThrows(IllegalArgumentException.class, () -> new Deck(new SplittableRandom(3), 1L << 52));
+    }
+
+    @Test
+    void sameStreamSameDeals() {
+        final Deck first = new Deck(4), second = new Deck(4);
+        final Deck firstSplit = first.split(), secondSplit = second.split();
+        boolean different = false;
+        for (int i = 0; i < 100; ++i) {
+            first.reset();
+            second.reset();
+            firstSplit.reset();
+            secondSplit.reset();
+            final long hand = first.deal(6);
+            assertEquals(hand, second.deal(6));
+            final long splitHand = firstSplit.deal(6);
+            assertEquals(splitHand, secondSplit.deal(6));
+            different |= hand != splitHand;
+        }
+        assertTrue(different);
+    }
+}
@@ -0,0 +1,123 @@
+package card;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuitCanonicalizerTest {
+
+    /**
+     * All 24 permutations of the four suits
+     */
+    private static final List<Integer> permutations = new ArrayList<>();
+
+    static {
+        for (int a = 0; a < 4; ++a) {
+            for (int b = 0; b < 4; ++b) {
+                for (int c = 0; c < 4; ++c) {
+                    final int d = 6 - a - b - c;
+                    if (a != b && a != c && b != c && d != a && d != b && d != c) {
+                        permutations.add(a | b << 2 | c << 4 | d << 6);
+                    }
+                }
+            }
+        }
+    }
+
+    private static long randomCards(Random random, int size) {
+        long cards = 0;
+        while (Long.bitCount(cards) < size) {
+            cards |= 1L << random.nextInt(52);
+        }
+        return cards;
+    }
+
+    @Test
+    void permutations() {
+        assertEquals(24, permutations.size());
+        assertTrue(permutations.contains(SuitCanonicalizer.IDENTITY));
+
+        final Random random = new Random(4);
+        for (int permutation : permutations) {
+            final int inverse = SuitCanonicalizer.inverse(permutation);
+            assertEquals(SuitCanonicalizer.IDENTITY, SuitCanonicalizer.compose(permutation, inverse));
+            assertEquals(SuitCanonicalizer.IDENTITY, SuitCanonicalizer.compose(inverse, permutation));
+
+            for (int i = 0; i < 100; ++i) {
+                final long cards = randomCards(random, 1 + random.nextInt(20));
+                final long relabelled = SuitCanonicalizer.apply(permutation, cards);
+                assertEquals(Long.bitCount(cards), Long.bitCount(relabelled));
+                assertEquals(cards, SuitCanonicalizer.apply(inverse, relabelled));
+
+                for (long bits = cards; bits != 0; bits &= bits - 1) {
+                    final int index = Long.numberOfTrailingZeros(bits);
+                    assertTrue((relabelled & 1L << SuitCanonicalizer.applyToCard(permutation, index)) != 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    void canonicalIsInvariant() {
+        final Random random = new Random(7);
+        for (int i = 0; i < 2000; ++i) {
+            final long cards = randomCards(random, 1 + random.nextInt(8));
+            final long canonical = SuitCanonicalizer.canonical(cards);
+            assertEquals(canonical, SuitCanonicalizer.apply(SuitCanonicalizer.permutation(cards), cards));
+            assertEquals(canonical, SuitCanonicalizer.canonical(canonical));
+
+            for (int permutation : permutations) {
+                assertEquals(canonical, SuitCanonicalizer.canonical(SuitCanonicalizer.apply(permutation, cards)));
+            }
+        }
+    }
+
+    @Test
+    void splitIsInvariant() {
+        final Random random = new Random(15);
+        for (int i = 0; i < 2000; ++i) {
+            final long dealt = randomCards(random, 6);
+            final long first = randomCards(random, 2) & dealt;
+            final long keep = dealt & ~first;
+
+            final int permutation = SuitCanonicalizer.permutation(keep, first);
+            final long canonicalKeep = SuitCanonicalizer.apply(permutation, keep);
+            final long canonicalDiscard = SuitCanonicalizer.apply(permutation, first);
+            assertEquals(0, canonicalKeep & canonicalDiscard);
+
+            for (int other : permutations) {
+                final long otherKeep = SuitCanonicalizer.apply(other, keep);
+                final long otherDiscard = SuitCanonicalizer.apply(other, first);
+                final int otherPermutation = SuitCanonicalizer.permutation(otherKeep, otherDiscard);
+                assertEquals(canonicalKeep, SuitCanonicalizer.apply(otherPermutation, otherKeep));
+                assertEquals(canonicalDiscard, SuitCanonicalizer.apply(otherPermutation, otherDiscard));
+            }
+        }
+    }
+
+    @Test
+    void equivalenceClasses() {
+        // Well known counts of suit-isomorphic classes of 1 to 4 card hands
+        final int[] expected = {13, 169, 1755, 16432};
+        for (int size = 1; size <= expected.length; ++size) {
+            final HashSet<Long> classes = new HashSet<>();
+            enumerate(0, 0, size, classes);
+            assertEquals(expected[size - 1], classes.size(), "Classes of " + size + " cards");
+        }
+    }
+
+    private static void enumerate(long cards, int next, int remaining, HashSet<Long> classes) {
+        if (remaining == 0) {
+            classes.add(SuitCanonicalizer.canonical(cards));
+            return;
+        }
+        for (int i = next; i <= 52 - remaining; ++i) {
+            enumerate(cards | 1L << i, i + 1, remaining - 1, classes);
+        }
+    }
+}
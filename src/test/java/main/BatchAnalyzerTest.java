@@ -0,0 +1,127 @@
+package main;
+
+import card.Card;
+import card.CardSet;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchAnalyzerTest {
+
+    private static final DiscardAnalyzer analyzer = new DiscardAnalyzer();
+
+    /**
+     * Runs a batch on some input and returns the output
+     */
+    private static String run(BatchAnalyzer batch, String input) throws IOException {
+        final StringWriter output = new StringWriter();
+        batch.run(Channels.newChannel(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8))), output);
+        return output.toString();
+    }
+
+    /**
+     * Writes the cards of a set in the batch format
+     */
+    private static String format(CardSet cards) {
+        final String[] ranks = {"1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "j", "q", "k"};
+        return cards.stream().map(card -> ranks[card.rank.ordinal()] + card.suit.toString().toLowerCase().charAt(0))
+                .collect(Collectors.joining(" "));
+    }
+
+    @Test
+    void csv() throws IOException {
+        // More hands than one chunk, with a mix of separators and line endings and no final newline
+        final Random random = new Random(1313);
+        final List<CardSet> hands = new ArrayList<>();
+        final StringBuilder input = new StringBuilder();
+        for (int i = 0; i < BatchAnalyzer.CHUNK_HANDS + 100; ++i) {
+            final CardSet hand = DiscardAnalyzerTest.randomHand(random, i % 3 == 0 ? 5 : 6);
+            hands.add(hand);
+            input.append(i > 0 ? (i % 2 == 0 ? "\n" : "\r\n") : "");
+            final String line = format(hand).replace(" ", i % 4 == 1 ? ", " : " \t");
+            input.append(i % 5 == 0 ? line.toUpperCase() : line);
+        }
+
+        final BatchAnalyzer batch = new BatchAnalyzer(analyzer, BatchAnalyzer.Format.CSV);
+        final String[] lines = run(batch, input.toString()).split("\n");
+        assertEquals(hands.size(), batch.getHands());
+        assertEquals(0, batch.getInvalidLines());
+        assertEquals("line,hand,rank,discard,keep,mean,stddev,min,p25,median,p75,max,distribution", lines[0]);
+
+        int row = 1;
+        for (int i = 0; i < hands.size(); ++i) {
+            final List<DiscardResult> results = analyzer.analyze(hands.get(i));
+            for (int rank = 0; rank < results.size(); ++rank) {
+                final DiscardResult result = results.get(rank);
+                final String[] columns = lines[row++].split(",");
+                assertEquals(String.valueOf(i + 1), columns[0]);
+                assertEquals(format(hands.get(i)), columns[1]);
+                assertEquals(String.valueOf(rank + 1), columns[2]);
+                assertEquals(format(result.getDiscards()), columns[3]);
+                assertEquals(format(result.getKeep()), columns[4]);
+                assertEquals(result.getMean(), Double.parseDouble(columns[5]), 0.00005);
+                assertEquals(columns[5].length() - 5, columns[5].indexOf('.'), columns[5]);
+                assertEquals(result.getStandardDeviation(), Double.parseDouble(columns[6]), 0.00005);
+                assertEquals(result.getMin(), Integer.parseInt(columns[7]));
+                assertEquals(result.getPercentile(25), Integer.parseInt(columns[8]));
+                assertEquals(result.getPercentile(50), Integer.parseInt(columns[9]));
+                assertEquals(result.getPercentile(75), Integer.parseInt(columns[10]));
+                assertEquals(result.getMax(), Integer.parseInt(columns[11]));
+                final String[] distribution = columns[12].split(" ");
+                assertEquals(result.getMax() + 1, distribution.length);
+                for (int points = 0; points < distribution.length; ++points) {
+                    assertEquals(result.getCount(points), Integer.parseInt(distribution[points]));
+                }
+            }
+        }
+        assertEquals(lines.length, row);
+    }
+
+    @Test
+    void jsonLines() throws IOException {
+        final BatchAnalyzer batch = new BatchAnalyzer(analyzer, BatchAnalyzer.Format.JSONL);
+        final String output = run(batch, "5h 5d jc qs 4h 6c\n\n1c 2c 3c 4c 5c\n");
+        final String[] lines = output.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(2, batch.getHands());
+
+        final DiscardResult best = analyzer.analyze(CardSet.of(Card.stringToCard("5h"), Card.stringToCard("5d"),
+                Card.stringToCard("jc"), Card.stringToCard("qs"), Card.stringToCard("4h"),
+                Card.stringToCard("6c"))).get(0);
+        assertTrue(lines[0].startsWith("{\"line\":1,\"hand\":\"6c jc 5d 4h 5h qs\",\"discards\":[{\"discard\":\""
+                + format(best.getDiscards()) + "\",\"keep\":\"" + format(best.getKeep()) + "\",\"mean\":"), lines[0]);
+        assertTrue(lines[1].startsWith("{\"line\":3,\"hand\":\"1c 2c 3c 4c 5c\",\"discards\":[{"), lines[1]);
+        assertTrue(lines[1].endsWith("]}]}"), lines[1]);
+        assertTrue(lines[0].contains(",\"percentiles\":{\"min\":" + best.getMin() + ",\"p25\":"
+                + best.getPercentile(25) + ",\"median\":" + best.getPercentile(50) + ","), lines[0]);
+        assertTrue(lines[0].contains(",\"distribution\":[" + best.getCount(0) + ","), lines[0]);
+        assertEquals(5, lines[1].split("\"discard\"").length - 1);
+    }
+
+    @Test
+    void invalidLines() throws IOException {
+        final BatchAnalyzer batch = new BatchAnalyzer(analyzer, BatchAnalyzer.Format.CSV);
+        final String output = run(batch, "5h 5d jc qs\n5h 5d jc qs 4h 4h\n5h 5d jc qs 4h xx\n  \n5h 5d jc qs 4h\n");
+        assertEquals(1, batch.getHands());
+        assertEquals(3, batch.getInvalidLines());
+        assertTrue(output.lines().skip(1).allMatch(line -> line.startsWith("5,")), output);
+        assertEquals(6, output.lines().count());
+    }
+
+    @Test
+    void emptyInput() throws IOException {
+        final BatchAnalyzer batch = new BatchAnalyzer(analyzer, BatchAnalyzer.Format.JSONL);
+        assertEquals("", run(batch, ""));
+        assertEquals(0, batch.getHands());
+    }
+}
@@ -0,0 +1,92 @@
+package main;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CribEquilibriumTest {
+
+    private static ScoreTable scoreTable;
+
+    @BeforeAll
+    static void setUpClass() {
+        scoreTable = ScoreTable.generate();
+    }
+
+    /**
+     * Returns a table with the same points for every class, except one class for the dealer
+     */
+    private static CribTable table(int pairClass, double dealerPoints) {
+        final double[] dealer = new double[CribTable.CLASSES], pone = new double[CribTable.CLASSES];
+        Arrays.fill(dealer, 4);
+        Arrays.fill(pone, 4);
+        dealer[pairClass] = dealerPoints;
+        return new CribTable(dealer, pone);
+    }
+
+    @Test
+    void bestResponse() {
+        // With the same crib points for every discard, both players just keep their best hand
+        final CribTable flat = table(0, 4);
+        final Random random = new Random(17);
+        for (int i = 0; i < 200; ++i) {
+            final long dealt = DiscardAnalyzerTest.randomHand(random, 6).toBits();
+            assertEquals(scoreTable.bestDiscard(dealt), CribEquilibrium.bestResponse(dealt, true, flat, scoreTable));
+            assertEquals(scoreTable.bestDiscard(dealt), CribEquilibrium.bestResponse(dealt, false, flat, scoreTable));
+        }
+
+        // A dealer drops a pair of fives if they are worth enough in the crib, but the pone does not
+        final long fives = 1L << 4 | 1L << 17;
+        final long dealt = fives | 1L << 9 | 1L << 24 | 1L << 38 | 1L << 51;
+        final CribTable valuableFives = table(CribTable.pairClass(fives), 30);
+        assertEquals(fives, CribEquilibrium.bestResponse(dealt, true, valuableFives, scoreTable));
+        assertNotEquals(fives, CribEquilibrium.bestResponse(dealt, false, valuableFives, scoreTable));
+    }
+
+    @Test
+    void stepAndChange() {
+        final CribTable from = table(3, 4), to = table(3, 8);
+        final CribTable next = CribEquilibrium.step(from, to);
+        assertEquals(4 + CribEquilibrium.STEP * 4, next.classPoints(3, true));
+        assertEquals(4, next.classPoints(3, false));
+        assertEquals(4, CribEquilibrium.maxChange(from, to));
+        assertEquals(0, CribEquilibrium.maxChange(from, from));
+    }
+
+    @Test
+    void resumeFromCheckpoint(@TempDir Path directory) throws IOException {
+        // Stopping after one iteration and resuming gives the same table as running straight through
+        final PrintStream log = new PrintStream(new ByteArrayOutputStream());
+        final Path interrupted = directory.resolve("interrupted.csv"), straight = directory.resolve("straight.csv");
+        CribEquilibrium.solve(scoreTable, 40, 3, 1, 0, interrupted, log);
+        assertTrue(Files.readString(interrupted).startsWith(
+                "# Expected crib points for each pair of discarded ranks\n# Equilibrium iteration 1 "));
+
+        final CribTable resumed = CribEquilibrium.solve(scoreTable, 40, 3, 3, 0, interrupted, log);
+        final CribTable expected = CribEquilibrium.solve(scoreTable, 40, 3, 3, 0, straight, log);
+        assertEquals(0, CribEquilibrium.maxChange(expected, resumed));
+        assertEquals(Files.readString(straight), Files.readString(interrupted));
+
+        // The crib-aware policies make the dealer's and pone's columns differ
+        assertTrue(CribEquilibrium.maxChange(expected, CribTableGenerator.generate(40, 3, scoreTable)) > 0);
+        boolean differ = false;
+        for (int pairClass = 0; pairClass < CribTable.CLASSES; ++pairClass) {
+            differ |= expected.classPoints(pairClass, true) != expected.classPoints(pairClass, false);
+        }
+        assertTrue(differ);
+
+        // A checkpoint cannot be resumed with different settings
+        assertThrows(IllegalArgumentException.class, () -> CribEquilibrium.solve(scoreTable, 41, 3, 3, 0,
+                interrupted, log));
+    }
+}
@@ -0,0 +1,104 @@
+package main;
+
+import card.Card;
+import card.CardSet;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CribEstimatorTest {
+
+    private static final DiscardAnalyzer analyzer = new DiscardAnalyzer();
+
+    private static ScoreTable table;
+
+    @BeforeAll
+    static void setUpClass() {
+        table = ScoreTable.generate();
+    }
+
+    private static CardSet hand(String cards) {
+        final String[] names = cards.split(" ");
+        final Card[] hand = new Card[names.length];
+        for (int i = 0; i < names.length; ++i) {
+            hand[i] = Card.stringToCard(names[i]);
+        }
+        return CardSet.of(hand);
+    }
+
+    @Test
+    void racing() {
+        // Most discards are clearly behind the leader and stop early
+        final CribEstimator estimator = new CribEstimator(table, ForkJoinPool.commonPool(), 1, 3, 32, 1024, 0.05);
+        final List<DiscardResult> handResults = analyzer.analyze(hand("5h 5d kc qs 9h 2c"));
+        final List<CribEstimator.Estimate> estimates = estimator.estimate(handResults, true);
+        assertEquals(15, estimates.size());
+
+        final CribEstimator.Estimate leader = estimates.get(0);
+        assertFalse(leader.isEliminated());
+        final CribEstimator.Estimate fives = estimates.stream()
+                .filter(estimate -> estimate.getResult().getDiscards().equals(hand("5h 5d"))).findAny().orElseThrow();
+        assertTrue(fives.getResult().getCribPoints() > 7, fives.toString());
+
+        int eliminated = 0;
+        for (int i = 0; i < estimates.size(); ++i) {
+            final CribEstimator.Estimate estimate = estimates.get(i);
+            final DiscardResult result = estimate.getResult();
+            assertTrue(estimate.getSamples() >= 32 && estimate.getSamples() <= 1024);
+            assertTrue(estimate.getStandardError() > 0);
+            assertEquals(result.getMean() + result.getCribPoints(), result.getNetMean(), 1e-9);
+            assertTrue(handResults.contains(result.withCribPoints(0)));
+            if (i > 0) {
+                assertTrue(estimates.get(i - 1).getResult().getNetMean() >= result.getNetMean());
+            }
+            if (estimate.isEliminated()) {
+                ++eliminated;
+                assertTrue(estimate.getSamples() <= leader.getSamples());
+            }
+        }
+        assertTrue(eliminated >= 10, String.valueOf(eliminated));
+    }
+
+    @Test
+    void reproducible() {
+        // The same seed gives the same estimates on any executor; the crib counts against the pone
+        final List<DiscardResult> handResults = analyzer.analyze(hand("7c 8d 8h 9s jc 3d"));
+        final List<CribEstimator.Estimate> first = new CribEstimator(table, ForkJoinPool.commonPool(), 5, 2,
+                16, 256, 0.1).estimate(handResults, false);
+        final List<CribEstimator.Estimate> second = new CribEstimator(table, Executors.newFixedThreadPool(3), 5, 2,
+                16, 256, 0.1).estimate(handResults, false);
+        for (int i = 0; i < first.size(); ++i) {
+            assertEquals(first.get(i).getResult(), second.get(i).getResult());
+            assertEquals(first.get(i).getSamples(), second.get(i).getSamples());
+            assertTrue(first.get(i).getResult().getCribPoints() < 0);
+        }
+
+        final List<DiscardResult> analyzed = analyzer.analyze(hand("7c 8d 8h 9s jc 3d"), false,
+                new CribEstimator(table, ForkJoinPool.commonPool(), 5, 2, 16, 256, 0.1));
+        for (int i = 0; i < first.size(); ++i) {
+            assertEquals(first.get(i).getResult(), analyzed.get(i));
+        }
+    }
+
+    @Test
+    void invalidArguments() {
+        final CribEstimator estimator = new CribEstimator(table);
+        assertThrows(IllegalArgumentException.class, () -> estimator.estimate(analyzer.analyze(hand("5h 5d kc qs 9h")),
+                true));
+        assertThrows(IllegalArgumentException.class, () -> new CribEstimator(table, ForkJoinPool.commonPool(), 0, 3,
+                1, 100, 0.05));
+        assertThrows(IllegalArgumentException.class, () -> new CribEstimator(table, ForkJoinPool.commonPool(), 0, 3,
+                64, 32, 0.05));
+        assertThrows(IllegalArgumentException.class, () -> new CribEstimator(table, ForkJoinPool.commonPool(), 0, -1,
+                64, 128, 0.05));
+
+        // 5-card hands are analyzed without the crib
+        final CardSet fiveCards = hand("5h 5d kc qs 9h");
+        assertEquals(analyzer.analyze(fiveCards), analyzer.analyze(fiveCards, true, estimator));
+    }
+}
@@ -0,0 +1,130 @@
+package main;
+
+import card.Card;
+import card.CardSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CribTableTest {
+
+    @Test
+    void pairClasses() {
+        // Every pair of cards is in one of 169 classes, and every class has pairs
+        final int[] pairs = new int[CribTable.CLASSES];
+        for (int card0 = 0; card0 < 52; ++card0) {
+            for (int card1 = card0 + 1; card1 < 52; ++card1) {
+                final int pairClass = CribTable.pairClass(1L << card0 | 1L << card1);
+                assertEquals(CribTable.pairClass(card1 % 13, card0 % 13, card0 / 13 == card1 / 13), pairClass);
+                ++pairs[pairClass];
+            }
+        }
+        for (int pairClass = 0; pairClass < CribTable.CLASSES; ++pairClass) {
+            final int row = pairClass / 13, column = pairClass % 13;
+            // 6 pairs of equal ranks, 4 suited and 12 offsuit pairs of different ranks
+            assertEquals(row == column ? 6 : row < column ? 4 : 12, pairs[pairClass]);
+
+            final int[] cards = CribTableGenerator.representative(pairClass);
+            assertEquals(pairClass, CribTable.pairClass(1L << cards[0] | 1L << cards[1]));
+        }
+    }
+
+    @Test
+    void defaultTable() {
+        final CribTable table = CribTable.getDefault();
+        for (int pairClass = 0; pairClass < CribTable.CLASSES; ++pairClass) {
+            for (boolean dealer : new boolean[]{true, false}) {
+                final double points = table.classPoints(pairClass, dealer);
+                assertTrue(points > 2 && points < 10, pairClass + ": " + points);
+            }
+        }
+
+        // A pair of fives is the best pair to give the crib, and a king and ten are among the worst
+        final long fives = CardSet.of(Card.stringToCard("5h"), Card.stringToCard("5d")).toBits();
+        final long kingTen = CardSet.of(Card.stringToCard("kh"), Card.stringToCard("10d")).toBits();
+        for (int pairClass = 0; pairClass < CribTable.CLASSES; ++pairClass) {
+            assertTrue(table.expectedPoints(fives, true) >= table.classPoints(pairClass, true));
+        }
+        assertTrue(table.expectedPoints(kingTen, false) < 4.5);
+
+        // The dealer drops good cards into their own crib and the pone bad ones, so cards the pone
+        // drops end up in better cribs
+        assertTrue(table.expectedPoints(fives, false) > table.expectedPoints(fives, true));
+        assertTrue(table.expectedPoints(kingTen, false) > table.expectedPoints(kingTen, true));
+        assertThrows(IllegalArgumentException.class, () -> table.expectedPoints(0b111L, true));
+    }
+
+    @Test
+    void generateAndRead(@TempDir Path directory) throws IOException {
+        final ScoreTable scoreTable = ScoreTable.generate();
+        final CribTable table = CribTableGenerator.generate(200, 1, scoreTable);
+        final Path file = directory.resolve("crib-table.csv");
+        CribTableGenerator.write(table, file, "test");
+
+        // The same seed gives the same table, and writing it keeps 4 decimal places
+        final CribTable again = CribTableGenerator.generate(200, 1, scoreTable);
+        final CribTable read;
+        try (InputStream stream = Files.newInputStream(file)) {
+            read = CribTable.read(stream);
+        }
+        for (int pairClass = 0; pairClass < CribTable.CLASSES; ++pairClass) {
+            assertEquals(table.classPoints(pairClass, true), again.classPoints(pairClass, true));
+            assertEquals(table.classPoints(pairClass, false), again.classPoints(pairClass, false));
+            assertEquals(table.classPoints(pairClass, true), read.classPoints(pairClass, true), 0.0000501);
+            assertEquals(table.classPoints(pairClass, false), read.classPoints(pairClass, false), 0.0000501);
+        }
+    }
+
+    @Test
+    void invalidTables() {
+        assertThrows(IllegalArgumentException.class, () -> read("first,second,suited,dealer,pone\n5,5,false,8,8\n"));
+        assertThrows(IllegalArgumentException.class, () -> read("5,5,true,8,8\n"));
+        assertThrows(IllegalArgumentException.class, () -> read("5,5,false,8\n"));
+        assertThrows(IllegalArgumentException.class, () -> read("5,5,false,8,x\n"));
+        assertThrows(IllegalArgumentException.class, () -> read("5,5,false,8,8\n5,5,false,8,8\n"));
+    }
+
+    private static CribTable read(String csv) throws IOException {
+        return CribTable.read(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void analyzerWithCrib() {
+        final DiscardAnalyzer analyzer = new DiscardAnalyzer();
+        final CribTable table = CribTable.getDefault();
+        final Random random = new Random(7);
+        for (int i = 0; i < 100; ++i) {
+            final CardSet dealt = DiscardAnalyzerTest.randomHand(random, 6);
+            final List<DiscardResult> handOnly = analyzer.analyze(dealt);
+            for (boolean dealer : new boolean[]{true, false}) {
+                final List<DiscardResult> results = analyzer.analyze(dealt, dealer);
+                assertEquals(handOnly.size(), results.size());
+                for (int j = 0; j < results.size(); ++j) {
+                    final DiscardResult result = results.get(j);
+                    final double crib = table.expectedPoints(result.getDiscardBits(), dealer);
+                    assertEquals(dealer ? crib : -crib, result.getCribPoints());
+                    assertEquals(result.getMean() + result.getCribPoints(), result.getNetMean(), 1e-9);
+                    assertTrue(handOnly.stream().anyMatch(r -> r.getDiscardBits() == result.getDiscardBits()
+                            && r.getTotalPoints() == result.getTotalPoints()));
+                    if (j > 0) {
+                        assertTrue(results.get(j - 1).getNetMean() >= result.getNetMean());
+                    }
+                }
+            }
+        }
+
+        // The crib is not counted for 5-card hands
+        final CardSet fiveCards = DiscardAnalyzerTest.randomHand(random, 5);
+        assertEquals(analyzer.analyze(fiveCards), analyzer.analyze(fiveCards, true));
+    }
+}
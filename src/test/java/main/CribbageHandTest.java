@@ -1,6 +1,7 @@
 package main;
 
 import card.Card;
+import card.CardSet;
 import card.Rank;
 import card.Suit;
 import org.jetbrains.annotations.NotNull;
@@ -9,8 +10,6 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -23,7 +22,7 @@ class CribbageHandTest {
     private static final Set<Card> allCards = IntStream.range(0, 52).mapToObj(i -> new Card(Rank.values[i % 13],
             Suit.values[i / 13])).collect(Collectors.toUnmodifiableSet());
 
-    // See testPrivateMethod
+    // See testRule
     final Map<Character, Character> suitMaps = Map.of(
             'c', 'd',
             'd', 'h',
@@ -202,140 +201,216 @@ class CribbageHandTest {
     }
 
     @Test
-    void fifteens() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+    void scoringKernel() {
+        // The primitive scoring path must agree with the rule-by-rule calculation on random hands
+        final Random random = new Random(121);
+        final List<Card> deck = new ArrayList<>(allCards);
+        for (int i = 0; i < 5000; ++i) {
+            Collections.shuffle(deck, random);
+            hand.clear();
+            deck.subList(0, 4).forEach(hand::add);
+            final Card starter = deck.get(4);
+
+            final int expected = referencePoints(starter);
+            assertEquals(expected, hand.totalPoints(starter), hand.getCards() + " " + starter);
+            assertEquals(expected, CribbageHand.totalPoints(deck.get(3).getIndex(), deck.get(0).getIndex(),
+                    deck.get(2).getIndex(), deck.get(1).getIndex(), starter.getIndex()));
+        }
+    }
+
+    @Test
+    void cribKernel() {
+        // The crib scores the same as a hand, except a 4-card flush without the starter is worth 0
+        final Random random = new Random(6);
+        for (int i = 0; i < 20000; ++i) {
+            final int[] cards = random.ints(0, 52).distinct().limit(5).toArray();
+            final int handPoints = CribbageHand.totalPoints(cards[0], cards[1], cards[2], cards[3], cards[4]);
+            final boolean fourFlush = cards[0] / 13 == cards[1] / 13 && cards[0] / 13 == cards[2] / 13
+                    && cards[0] / 13 == cards[3] / 13 && cards[0] / 13 != cards[4] / 13;
+            assertEquals(fourFlush ? handPoints - 4 : handPoints,
+                    CribbageHand.cribPoints(cards[0], cards[1], cards[2], cards[3], cards[4]));
+        }
+
+        // 2, 4, 6 and 8 of hearts: 4 points in a hand, none in the crib unless the starter is a heart
+        assertEquals(4, CribbageHand.totalPoints(27, 29, 31, 33, 51));
+        assertEquals(0, CribbageHand.cribPoints(27, 29, 31, 33, 51));
+        assertEquals(5, CribbageHand.cribPoints(27, 29, 31, 33, 37));
+    }
+
+    @Test
+    void cribMode() {
+        // A crib scores the same as the rule-by-rule calculation and the primitive crib kernel
+        final Random random = new Random(15);
+        final List<Card> deck = new ArrayList<>(allCards);
+        for (int i = 0; i < 2000; ++i) {
+            Collections.shuffle(deck, random);
+            hand = new CribbageHand(CardSet.of(deck.subList(0, 4).toArray(new Card[0])), true);
+            assertTrue(hand.isCrib());
+            final Card starter = deck.get(4);
+
+            final int expected = CribbageHand.cribPoints(deck.get(0).getIndex(), deck.get(1).getIndex(),
+                    deck.get(2).getIndex(), deck.get(3).getIndex(), starter.getIndex());
+            assertEquals(expected, hand.totalPoints(starter), hand.getCards() + " " + starter);
+            assertEquals(expected, referencePoints(starter), hand.getCards() + " " + starter);
+        }
+
+        // Only a 5-card flush counts in the crib
+        final CardSet hearts = CardSet.of(Card.stringToCard("2h"), Card.stringToCard("4h"),
+                Card.stringToCard("6h"), Card.stringToCard("8h"));
+        hand = new CribbageHand(hearts, true);
+        assertEquals(0, CribbageHand.flushes(27, 29, 31, 33, Card.stringToCard("ks").suit.ordinal(), true));
+        assertEquals(5, CribbageHand.flushes(27, 29, 31, 33, Card.stringToCard("kh").suit.ordinal(), true));
+        assertEquals(0, hand.totalPoints(Card.stringToCard("ks")));
+        assertEquals(5, hand.totalPoints(Card.stringToCard("kh")));
+
+        hand = new CribbageHand(hearts);
+        assertFalse(hand.isCrib());
+        assertEquals(4, CribbageHand.flushes(27, 29, 31, 33, Card.stringToCard("ks").suit.ordinal(), false));
+        assertEquals(4, hand.totalPoints(Card.stringToCard("ks")));
+    }
+
+    /**
+     * Calculates the points in {@code hand} with a starter by adding up each scoring rule
+     */
+    private int referencePoints(Card starter) {
+        return ReferenceScorer.totalPoints(hand.getCards(), starter, hand.isCrib());
+    }
+
+    @Test
+    void fifteens() {
         // No fifteens cases
-        testPrivateMethod(FIFTEENS, new String[]{}, 0);
+        testRule(FIFTEENS, new String[]{}, 0);
 
-        testPrivateMethod(FIFTEENS, new String[]{"1s", "1c", "1d", "1h", "2s"}, 0);
-        testPrivateMethod(FIFTEENS, new String[]{"7s", "7c", "7d", "7h", "2d"}, 0);
-        testPrivateMethod(FIFTEENS, new String[]{"2s", "4c", "6d", "8h", "10s"}, 0);
-        testPrivateMethod(FIFTEENS, new String[]{"2s", "2c", "6d", "6h", "2h"}, 0);
-        testPrivateMethod(FIFTEENS, new String[]{"1s", "2c", "3d", "4h", "4c"}, 0);
-        testPrivateMethod(FIFTEENS, new String[]{"4s", "6c", "4d", "4h", "4c"}, 0);
-        testPrivateMethod(FIFTEENS, new String[]{"7s", "2s", "kd", "jh", "qc"}, 0);
+        testRule(FIFTEENS, new String[]{"1s", "1c", "1d", "1h", "2s"}, 0);
+        testRule(FIFTEENS, new String[]{"7s", "7c", "7d", "7h", "2d"}, 0);
+        testRule(FIFTEENS, new String[]{"2s", "4c", "6d", "8h", "10s"}, 0);
+        testRule(FIFTEENS, new String[]{"2s", "2c", "6d", "6h", "2h"}, 0);
+        testRule(FIFTEENS, new String[]{"1s", "2c", "3d", "4h", "4c"}, 0);
+        testRule(FIFTEENS, new String[]{"4s", "6c", "4d", "4h", "4c"}, 0);
+        testRule(FIFTEENS, new String[]{"7s", "2s", "kd", "jh", "qc"}, 0);
 
         // One fifteen
-        testPrivateMethod(FIFTEENS, new String[]{"1s", "1c", "1d", "5h", "10s"}, 2);
-        testPrivateMethod(FIFTEENS, new String[]{"1s", "1c", "1d", "5h", "jd"}, 2);
-        testPrivateMethod(FIFTEENS, new String[]{"1s", "1c", "1d", "5h", "qh"}, 2);
-        testPrivateMethod(FIFTEENS, new String[]{"1s", "1c", "1d", "5h", "kc"}, 2);
+        testRule(FIFTEENS, new String[]{"1s", "1c", "1d", "5h", "10s"}, 2);
+        testRule(FIFTEENS, new String[]{"1s", "1c", "1d", "5h", "jd"}, 2);
+        testRule(FIFTEENS, new String[]{"1s", "1c", "1d", "5h", "qh"}, 2);
+        testRule(FIFTEENS, new String[]{"1s", "1c", "1d", "5h", "kc"}, 2);
 
-        testPrivateMethod(FIFTEENS, new String[]{"4s", "4c", "5d", "5h", "5c"}, 2);
-        testPrivateMethod(FIFTEENS, new String[]{"2s", "4c", "5d", "5h", "5c"}, 2);
-        testPrivateMethod(FIFTEENS, new String[]{"7s", "2s", "6d", "jh", "qc"}, 2);
+        testRule(FIFTEENS, new String[]{"4s", "4c", "5d", "5h", "5c"}, 2);
+        testRule(FIFTEENS, new String[]{"2s", "4c", "5d", "5h", "5c"}, 2);
+        testRule(FIFTEENS, new String[]{"7s", "2s", "6d", "jh", "qc"}, 2);
 
         // Multiple fifteens
-        testPrivateMethod(FIFTEENS, new String[]{"5s", "5c", "5d", "5h", "10s"}, 16);
-        testPrivateMethod(FIFTEENS, new String[]{"5s", "5c", "5d", "5h", "js"}, 16);
-        testPrivateMethod(FIFTEENS, new String[]{"5s", "5c", "5d", "5h", "qs"}, 16);
-        testPrivateMethod(FIFTEENS, new String[]{"5s", "5c", "5d", "5h", "ks"}, 16);
-        testPrivateMethod(FIFTEENS, new String[]{"7s", "7c", "7d", "7h", "1s"}, 12);
-        testPrivateMethod(FIFTEENS, new String[]{"6s", "4c", "5d", "5h", "5c"}, 8);
-
-        testPrivateMethod(FIFTEENS, new String[]{"9s", "5s", "5d", "5h", "5c"}, 8);
-        testPrivateMethod(FIFTEENS, new String[]{"4s", "5s", "5d", "5h", "5c"}, 8);
-        testPrivateMethod(FIFTEENS, new String[]{"6s", "5s", "5d", "5h", "5c"}, 8);
-        testPrivateMethod(FIFTEENS, new String[]{"1s", "5s", "5d", "5h", "5c"}, 8);
-
-        testPrivateMethod(FIFTEENS, new String[]{"7s", "7h", "7d", "8h", "8c"}, 12);
-        testPrivateMethod(FIFTEENS, new String[]{"7s", "1s", "7d", "8h", "8c"}, 10);
-        testPrivateMethod(FIFTEENS, new String[]{"7s", "2s", "7d", "8h", "8c"}, 8);
+        testRule(FIFTEENS, new String[]{"5s", "5c", "5d", "5h", "10s"}, 16);
+        testRule(FIFTEENS, new String[]{"5s", "5c", "5d", "5h", "js"}, 16);
+        testRule(FIFTEENS, new String[]{"5s", "5c", "5d", "5h", "qs"}, 16);
+        testRule(FIFTEENS, new String[]{"5s", "5c", "5d", "5h", "ks"}, 16);
+        testRule(FIFTEENS, new String[]{"7s", "7c", "7d", "7h", "1s"}, 12);
+        testRule(FIFTEENS, new String[]{"6s", "4c", "5d", "5h", "5c"}, 8);
+
+        testRule(FIFTEENS, new String[]{"9s", "5s", "5d", "5h", "5c"}, 8);
+        testRule(FIFTEENS, new String[]{"4s", "5s", "5d", "5h", "5c"}, 8);
+        testRule(FIFTEENS, new String[]{"6s", "5s", "5d", "5h", "5c"}, 8);
+        testRule(FIFTEENS, new String[]{"1s", "5s", "5d", "5h", "5c"}, 8);
+
+        testRule(FIFTEENS, new String[]{"7s", "7h", "7d", "8h", "8c"}, 12);
+        testRule(FIFTEENS, new String[]{"7s", "1s", "7d", "8h", "8c"}, 10);
+        testRule(FIFTEENS, new String[]{"7s", "2s", "7d", "8h", "8c"}, 8);
     }
 
     @Test
-    void multiples() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+    void multiples() {
         // No multiples cases
-        testPrivateMethod(MULTIPLES, new String[]{}, 0);
+        testRule(MULTIPLES, new String[]{}, 0);
 
-        testPrivateMethod(MULTIPLES, new String[]{"2s", "3d", "4c", "5h", "9c"}, 0);
-        testPrivateMethod(MULTIPLES, new String[]{"1s", "3d", "4c", "jh", "2s"}, 0);
-        testPrivateMethod(MULTIPLES, new String[]{"2s", "3d", "jc", "5h", "6d"}, 0);
-        testPrivateMethod(MULTIPLES, new String[]{"2s", "10d", "4c", "qh", "3s"}, 0);
+        testRule(MULTIPLES, new String[]{"2s", "3d", "4c", "5h", "9c"}, 0);
+        testRule(MULTIPLES, new String[]{"1s", "3d", "4c", "jh", "2s"}, 0);
+        testRule(MULTIPLES, new String[]{"2s", "3d", "jc", "5h", "6d"}, 0);
+        testRule(MULTIPLES, new String[]{"2s", "10d", "4c", "qh", "3s"}, 0);
 
         // Double cases
-        testPrivateMethod(MULTIPLES, new String[]{"2s", "6d", "4c", "5h", "6c"}, 2);
-        testPrivateMethod(MULTIPLES, new String[]{"3s", "3d", "4c", "5h", "6h"}, 2);
-        testPrivateMethod(MULTIPLES, new String[]{"5s", "3d", "4c", "5h", "6d"}, 2);
-        testPrivateMethod(MULTIPLES, new String[]{"js", "3d", "4c", "jh", "1s"}, 2);
-        testPrivateMethod(MULTIPLES, new String[]{"qs", "2d", "qc", "5h", "6d"}, 2);
+        testRule(MULTIPLES, new String[]{"2s", "6d", "4c", "5h", "6c"}, 2);
+        testRule(MULTIPLES, new String[]{"3s", "3d", "4c", "5h", "6h"}, 2);
+        testRule(MULTIPLES, new String[]{"5s", "3d", "4c", "5h", "6d"}, 2);
+        testRule(MULTIPLES, new String[]{"js", "3d", "4c", "jh", "1s"}, 2);
+        testRule(MULTIPLES, new String[]{"qs", "2d", "qc", "5h", "6d"}, 2);
 
-        testPrivateMethod(MULTIPLES, new String[]{"qs", "2d", "qc", "5h", "2s"}, 4);
-        testPrivateMethod(MULTIPLES, new String[]{"10s", "10d", "qc", "jh", "jd"}, 4);
-        testPrivateMethod(MULTIPLES, new String[]{"1s", "2d", "2c", "3h", "3d"}, 4);
-        testPrivateMethod(MULTIPLES, new String[]{"7s", "2d", "7c", "2h", "6d"}, 4);
+        testRule(MULTIPLES, new String[]{"qs", "2d", "qc", "5h", "2s"}, 4);
+        testRule(MULTIPLES, new String[]{"10s", "10d", "qc", "jh", "jd"}, 4);
+        testRule(MULTIPLES, new String[]{"1s", "2d", "2c", "3h", "3d"}, 4);
+        testRule(MULTIPLES, new String[]{"7s", "2d", "7c", "2h", "6d"}, 4);
 
         // Triple cases
-        testPrivateMethod(MULTIPLES, new String[]{"2s", "2d", "7c", "2h", "6d"}, 6);
-        testPrivateMethod(MULTIPLES, new String[]{"7s", "7d", "7c", "2h", "6d"}, 6);
-        testPrivateMethod(MULTIPLES, new String[]{"1s", "4d", "3c", "1d", "1h"}, 6);
+        testRule(MULTIPLES, new String[]{"2s", "2d", "7c", "2h", "6d"}, 6);
+        testRule(MULTIPLES, new String[]{"7s", "7d", "7c", "2h", "6d"}, 6);
+        testRule(MULTIPLES, new String[]{"1s", "4d", "3c", "1d", "1h"}, 6);
 
-        testPrivateMethod(MULTIPLES, new String[]{"2s", "jd", "2c", "js", "2d"}, 8);
-        testPrivateMethod(MULTIPLES, new String[]{"1s", "3d", "3c", "1d", "1h"}, 8);
+        testRule(MULTIPLES, new String[]{"2s", "jd", "2c", "js", "2d"}, 8);
+        testRule(MULTIPLES, new String[]{"1s", "3d", "3c", "1d", "1h"}, 8);
 
         // Quad cases
-        testPrivateMethod(MULTIPLES, new String[]{"1s", "1d", "1c", "js", "1h"}, 12);
-        testPrivateMethod(MULTIPLES, new String[]{"7s", "7d", "7h", "4d", "7c"}, 12);
-        testPrivateMethod(MULTIPLES, new String[]{"ks", "10s", "kd", "kh", "kc"}, 12);
+        testRule(MULTIPLES, new String[]{"1s", "1d", "1c", "js", "1h"}, 12);
+        testRule(MULTIPLES, new String[]{"7s", "7d", "7h", "4d", "7c"}, 12);
+        testRule(MULTIPLES, new String[]{"ks", "10s", "kd", "kh", "kc"}, 12);
     }
 
     @Test
-    void runs() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+    void runs() {
         // No runs cases
-        testPrivateMethod(RUNS, new String[]{}, 0);
-        testPrivateMethod(RUNS, new String[]{"ks", "10s", "kd", "kh", "kc"}, 0);
-        testPrivateMethod(RUNS, new String[]{"2s", "3s", "6d", "5h", "5c"}, 0);
-        testPrivateMethod(RUNS, new String[]{"7d", "3s", "6d", "9h", "6c"}, 0);
-        testPrivateMethod(RUNS, new String[]{"js", "3d", "kd", "10h", "8c"}, 0);
-        testPrivateMethod(RUNS, new String[]{"qs", "3d", "qd", "10h", "8c"}, 0);
-        testPrivateMethod(RUNS, new String[]{"ks", "3d", "kd", "10h", "8c"}, 0);
+        testRule(RUNS, new String[]{}, 0);
+        testRule(RUNS, new String[]{"ks", "10s", "kd", "kh", "kc"}, 0);
+        testRule(RUNS, new String[]{"2s", "3s", "6d", "5h", "5c"}, 0);
+        testRule(RUNS, new String[]{"7d", "3s", "6d", "9h", "6c"}, 0);
+        testRule(RUNS, new String[]{"js", "3d", "kd", "10h", "8c"}, 0);
+        testRule(RUNS, new String[]{"qs", "3d", "qd", "10h", "8c"}, 0);
+        testRule(RUNS, new String[]{"ks", "3d", "kd", "10h", "8c"}, 0);
 
         // Run of three cases
-        testPrivateMethod(RUNS, new String[]{"2s", "3d", "4c", "7h", "6h"}, 3);
-        testPrivateMethod(RUNS, new String[]{"3s", "3h", "7h", "5d", "6h"}, 3);
-        testPrivateMethod(RUNS, new String[]{"qs", "8d", "4c", "jh", "10d"}, 3);
-        testPrivateMethod(RUNS, new String[]{"jd", "3c", "4c", "jh", "2s"}, 3);
-        testPrivateMethod(RUNS, new String[]{"qs", "4d", "qd", "5s", "6d"}, 3);
+        testRule(RUNS, new String[]{"2s", "3d", "4c", "7h", "6h"}, 3);
+        testRule(RUNS, new String[]{"3s", "3h", "7h", "5d", "6h"}, 3);
+        testRule(RUNS, new String[]{"qs", "8d", "4c", "jh", "10d"}, 3);
+        testRule(RUNS, new String[]{"jd", "3c", "4c", "jh", "2s"}, 3);
+        testRule(RUNS, new String[]{"qs", "4d", "qd", "5s", "6d"}, 3);
 
         // Run of four cases
-        testPrivateMethod(RUNS, new String[]{"2s", "3d", "4c", "7h", "5d"}, 4);
-        testPrivateMethod(RUNS, new String[]{"2s", "7c", "5h", "6h", "4d"}, 4);
-        testPrivateMethod(RUNS, new String[]{"qs", "kd", "4c", "jh", "10d"}, 4);
-        testPrivateMethod(RUNS, new String[]{"6s", "3d", "4d", "5h", "1s"}, 4);
-        testPrivateMethod(RUNS, new String[]{"6s", "8d", "qc", "5h", "7d"}, 4);
+        testRule(RUNS, new String[]{"2s", "3d", "4c", "7h", "5d"}, 4);
+        testRule(RUNS, new String[]{"2s", "7c", "5h", "6h", "4d"}, 4);
+        testRule(RUNS, new String[]{"qs", "kd", "4c", "jh", "10d"}, 4);
+        testRule(RUNS, new String[]{"6s", "3d", "4d", "5h", "1s"}, 4);
+        testRule(RUNS, new String[]{"6s", "8d", "qc", "5h", "7d"}, 4);
 
         // Run of five cases
-        testPrivateMethod(RUNS, new String[]{"2s", "3d", "4c", "5h", "6c"}, 5);
-        testPrivateMethod(RUNS, new String[]{"qs", "10d", "9c", "kh", "jc"}, 5);
-        testPrivateMethod(RUNS, new String[]{"qs", "10d", "9c", "jc", "8d"}, 5);
+        testRule(RUNS, new String[]{"2s", "3d", "4c", "5h", "6c"}, 5);
+        testRule(RUNS, new String[]{"qs", "10d", "9c", "kh", "jc"}, 5);
+        testRule(RUNS, new String[]{"qs", "10d", "9c", "jc", "8d"}, 5);
 
         // Multiple runs cases
-        testPrivateMethod(RUNS, new String[]{"2s", "3d", "4c", "4h", "6c"}, 6);
-        testPrivateMethod(RUNS, new String[]{"qs", "10d", "9c", "jc", "9d"}, 8);
-        testPrivateMethod(RUNS, new String[]{"10s", "10d", "9c", "10c", "8d"}, 9);
-        testPrivateMethod(RUNS, new String[]{"2s", "3d", "3c", "4c", "4d"}, 12);
-        testPrivateMethod(RUNS, new String[]{"js", "qd", "kc", "qc", "qh"}, 9);
-        testPrivateMethod(RUNS, new String[]{"qs", "10d", "jc", "10c", "qd"}, 12);
+        testRule(RUNS, new String[]{"2s", "3d", "4c", "4h", "6c"}, 6);
+        testRule(RUNS, new String[]{"qs", "10d", "9c", "jc", "9d"}, 8);
+        testRule(RUNS, new String[]{"10s", "10d", "9c", "10c", "8d"}, 9);
+        testRule(RUNS, new String[]{"2s", "3d", "3c", "4c", "4d"}, 12);
+        testRule(RUNS, new String[]{"js", "qd", "kc", "qc", "qh"}, 9);
+        testRule(RUNS, new String[]{"qs", "10d", "jc", "10c", "qd"}, 12);
     }
 
     @Test
-    void flushes() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+    void flushes() {
         final List<String> suits = Arrays.asList("s", "h", "d", "c");
         final List<String> values =
                 Arrays.asList("1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "j", "q", "k");
         // Note: Last card is the starter
 
         // No flushes
-        testPrivateMethod(FLUSHES, new String[]{"5s", "6s", "7s", "8d", "9s"}, 0);
-        testPrivateMethod(FLUSHES, new String[]{"5s", "6d", "7s", "jd", "9c"}, 0);
-        testPrivateMethod(FLUSHES, new String[]{"js", "jd", "jc", "jh", "9c"}, 0);
-        testPrivateMethod(FLUSHES, new String[]{"10s", "10d", "10c", "10h", "9c"}, 0);
-        testPrivateMethod(FLUSHES, new String[]{"2s", "3s", "4s", "5h", "6c"}, 0);
+        testRule(FLUSHES, new String[]{"5s", "6s", "7s", "8d", "9s"}, 0);
+        testRule(FLUSHES, new String[]{"5s", "6d", "7s", "jd", "9c"}, 0);
+        testRule(FLUSHES, new String[]{"js", "jd", "jc", "jh", "9c"}, 0);
+        testRule(FLUSHES, new String[]{"10s", "10d", "10c", "10h", "9c"}, 0);
+        testRule(FLUSHES, new String[]{"2s", "3s", "4s", "5h", "6c"}, 0);
 
         // 4 and 5 point flushes
-        testPrivateMethod(FLUSHES, new String[]{"5s", "6s", "7s", "8s", "9d"}, 4);
-        testPrivateMethod(FLUSHES, new String[]{"1c", "7c", "10c", "2c", "4s"}, 4);
+        testRule(FLUSHES, new String[]{"5s", "6s", "7s", "8s", "9d"}, 4);
+        testRule(FLUSHES, new String[]{"1c", "7c", "10c", "2c", "4s"}, 4);
 
-        testPrivateMethod(FLUSHES, new String[]{"5s", "6s", "7s", "8s", "9s"}, 5);
+        testRule(FLUSHES, new String[]{"5s", "6s", "7s", "8s", "9s"}, 5);
 
         // Test a bunch of possible cases
         final String[] cards = new String[5];
@@ -348,28 +423,28 @@ class CribbageHandTest {
                 }
                 cards[4] = values.get(4)
                         + suits.get(suits.indexOf(suit) < 3 ? suits.indexOf(suit) + 1 : 0);
-                testPrivateMethod(FLUSHES, cards, 4);
+                testRule(FLUSHES, cards, 4);
 
                 // 5 points: 5 cards of random value of the same suit
                 for (int j = 0; j < 5; ++j) {
                     cards[j] = values.get(j) + suit;
                 }
-                testPrivateMethod(FLUSHES, cards, 5);
+                testRule(FLUSHES, cards, 5);
             }
         }
 
     }
 
     @Test
-    void nobs() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+    void nobs() {
         // Note: Last card is the starter
 
         // No nobs cases
-        testPrivateMethod(NOBS, new String[]{"5s", "6s", "7s", "8d", "9s"}, 0);
-        testPrivateMethod(NOBS, new String[]{"5s", "6s", "7s", "8d", "9s"}, 0);
-        testPrivateMethod(NOBS, new String[]{"5s", "6s", "7s", "8d", "9s"}, 0);
-        testPrivateMethod(NOBS, new String[]{"5s", "6s", "7s", "8d", "9s"}, 0);
-        testPrivateMethod(NOBS, new String[]{"5s", "6s", "7s", "8d", "9s"}, 0);
+        testRule(NOBS, new String[]{"5s", "6s", "7s", "8d", "9s"}, 0);
+        testRule(NOBS, new String[]{"5s", "6s", "7s", "8d", "9s"}, 0);
+        testRule(NOBS, new String[]{"5s", "6s", "7s", "8d", "9s"}, 0);
+        testRule(NOBS, new String[]{"5s", "6s", "7s", "8d", "9s"}, 0);
+        testRule(NOBS, new String[]{"5s", "6s", "7s", "8d", "9s"}, 0);
 
         // Nobs cases
         final String[] ranks = {"1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "j", "q", "k"};
@@ -382,17 +457,16 @@ class CribbageHandTest {
                 card = rank + suit;
                 jack = "j" + suit;
 
-                testPrivateMethod(NOBS, new String[]{jack, "2s", "8s", "jd", card}, 1);
-                testPrivateMethod(NOBS, new String[]{"5s", jack, "7s", "qd", card}, 1);
-                testPrivateMethod(NOBS, new String[]{"5s", "6s", jack, "jd", card}, 1);
-                testPrivateMethod(NOBS, new String[]{"5s", "6s", "7s", jack, card}, 1);
+                testRule(NOBS, new String[]{jack, "2s", "8s", "jd", card}, 1);
+                testRule(NOBS, new String[]{"5s", jack, "7s", "qd", card}, 1);
+                testRule(NOBS, new String[]{"5s", "6s", jack, "jd", card}, 1);
+                testRule(NOBS, new String[]{"5s", "6s", "7s", jack, card}, 1);
             }
         }
     }
 
-    private void testPrivateMethod(@NotNull testTypes type, Object param, int expected) throws InvocationTargetException,
-            IllegalAccessException, NoSuchMethodException {
-        methodCall(type, param, expected);
+    private void testRule(@NotNull testTypes type, Object param, int expected) {
+        ruleCall(type, param, expected);
 
         // For tests where suits shouldn't matter, run them with all suites to confirm
         if (type == FIFTEENS || type == RUNS || type == MULTIPLES) {
@@ -403,7 +477,7 @@ class CribbageHandTest {
                     int len = val.length();
                     values[j] = val.substring(0, len - 1) + suitMaps.get(val.charAt(len - 1));
                 }
-                methodCall(type, param, expected);
+                ruleCall(type, param, expected);
             }
         }
     }
@@ -411,33 +485,32 @@ class CribbageHandTest {
     /**
      * Do not call directly
      */
-    private void methodCall(@NotNull testTypes type, Object param, int expected) throws InvocationTargetException,
-            IllegalAccessException, NoSuchMethodException {
-        Class<?> paramType;
+    private void ruleCall(@NotNull testTypes type, Object param, int expected) {
         switch (type) {
             case FIFTEENS:
             case RUNS:
             case MULTIPLES:
-                paramType = HashSet.class;
-
                 var cards = Arrays.stream((String[]) param).map(Card::stringToCard)
                         .collect(Collectors.toCollection(HashSet::new));
                 if (cards.size() != 5 && cards.size() != 0) throw new IllegalArgumentException(
                         "Duplicate or illegal amount of cards present in input: must be 5 or 0");
 
-                if (type == MULTIPLES) {
-                    param = cards;
-                } else {
-                    final Method powerSet = hand.getClass().getDeclaredMethod("powerSet", HashSet.class);
-                    powerSet.setAccessible(true);
-                    param = powerSet.invoke(hand, cards);
+                assertEquals(expected, type == MULTIPLES ? ReferenceScorer.multiples(cards)
+                        : type == FIFTEENS ? ReferenceScorer.fifteens(ReferenceScorer.powerSet(cards))
+                        : ReferenceScorer.runs(ReferenceScorer.powerSet(cards)));
+                if (cards.isEmpty()) {
+                    break;
                 }
 
+                final int[] ranks = cards.stream().mapToInt(card -> card.rank.ordinal()).toArray();
+                assertEquals(expected, type == MULTIPLES
+                        ? CribbageHand.multiples(ranks[0], ranks[1], ranks[2], ranks[3], ranks[4])
+                        : type == FIFTEENS ? CribbageHand.fifteens(ranks[0], ranks[1], ranks[2], ranks[3], ranks[4])
+                        : CribbageHand.runs(ranks[0], ranks[1], ranks[2], ranks[3], ranks[4]),
+                        Arrays.toString((String[]) param));
                 break;
             case FLUSHES:
             case NOBS:
-                paramType = Card.class;
-
                 final var cardStrings = (String[]) param;
                 if (cardStrings.length != 5) throw new IllegalArgumentException(
                         "Duplicate or illegal amount of cards present in input: must be 5");
@@ -445,18 +518,24 @@ class CribbageHandTest {
                 hand.clear();
                 Arrays.stream(Arrays.copyOfRange(cardStrings, 0, 4)).forEach(c -> hand.add(Card.stringToCard(c)));
 
-                param = Card.stringToCard(cardStrings[4]);
+                final Card starter = Card.stringToCard(cardStrings[4]);
+                assertEquals(expected, type == FLUSHES ? ReferenceScorer.flushes(hand.getCards(), starter, false)
+                        : ReferenceScorer.nobs(hand.getCards(), starter));
+
+                final int[] indices = Arrays.stream(cardStrings, 0, 4).mapToInt(c -> Card.stringToCard(c).getIndex())
+                        .toArray();
+                final int starterSuit = starter.suit.ordinal();
+                assertEquals(expected, type == FLUSHES
+                        ? CribbageHand.flushes(indices[0], indices[1], indices[2], indices[3], starterSuit, false)
+                        : CribbageHand.nobs(indices[0], indices[1], indices[2], indices[3], starterSuit),
+                        Arrays.toString(cardStrings));
                 break;
             default:
                 throw new IllegalStateException("Impossible state");
         }
-        final Method m = hand.getClass().getDeclaredMethod(type.name().toLowerCase(), paramType);
-        m.setAccessible(true);
-
-        assertEquals(expected, m.invoke(hand, param));
     }
 
-    enum testTypes {FIFTEENS, MULTIPLES, RUNS, FLUSHES, NOBS} // Private method test types
+    enum testTypes {FIFTEENS, MULTIPLES, RUNS, FLUSHES, NOBS} // Scoring rule test types
 
 
 }
@@ -0,0 +1,175 @@
+package main;
+
+import card.Card;
+import card.CardSet;
+import card.Rank;
+import card.Suit;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscardAnalyzerTest {
+
+    private static final List<Card> allCards = IntStream.range(0, 52).mapToObj(i -> new Card(Rank.values[i % 13],
+            Suit.values[i / 13])).collect(Collectors.toUnmodifiableList());
+
+    private final DiscardAnalyzer analyzer = new DiscardAnalyzer();
+
+    /**
+     * Returns a random dealt hand with the given number of cards
+     */
+    static @NotNull CardSet randomHand(@NotNull Random random, int size) {
+        final List<Card> deck = new ArrayList<>(allCards);
+        Collections.shuffle(deck, random);
+        return CardSet.of(deck.subList(0, size));
+    }
+
+    /**
+     * Checks a result against scoring its kept hand with {@code CribbageHand} for every starter
+     */
+    static void assertMatchesCribbageHand(@NotNull CardSet dealt, @NotNull DiscardResult result) {
+        assertEquals(dealt, result.getKeep().union(result.getDiscards()));
+        assertEquals(4, result.getKeep().size());
+
+        final CribbageHand hand = new CribbageHand(result.getKeep());
+        final int[] counts = new int[CribbageHand.MAX_POINTS + 1];
+        dealt.complement().forEach(starter -> ++counts[hand.totalPoints(starter)]);
+
+        assertArrayEquals(counts, result.getCounts(), result.toString());
+        assertEquals(52 - dealt.size(), result.getStarters());
+        assertEquals(IntStream.range(0, counts.length).map(i -> i * counts[i]).sum(), result.getTotalPoints());
+        assertEquals(IntStream.range(0, counts.length).filter(i -> counts[i] > 0).min().orElseThrow(),
+                result.getMin());
+        assertEquals(IntStream.range(0, counts.length).filter(i -> counts[i] > 0).max().orElseThrow(),
+                result.getMax());
+
+        // The distribution: probabilities, variance and nearest-rank percentiles of the sorted scores
+        final int[] scores = dealt.complement().stream().mapToInt(hand::totalPoints).sorted().toArray();
+        final double mean = (double) result.getTotalPoints() / scores.length;
+        assertEquals(mean, result.getMean(), 1e-12);
+        assertEquals(IntStream.of(scores).mapToDouble(x -> (x - mean) * (x - mean)).sum() / scores.length,
+                result.getVariance(), 1e-9);
+        for (int points = 0; points < counts.length; ++points) {
+            assertEquals((double) counts[points] / scores.length, result.getProbability(points));
+        }
+        for (int percent = 0; percent <= 100; ++percent) {
+            final int rank = (int) Math.ceil(percent * scores.length / 100.0);
+            assertEquals(scores[Math.max(rank, 1) - 1], result.getPercentile(percent), percent + "%");
+        }
+    }
+
+    @Test
+    void sixCards() {
+        final Random random = new Random(6);
+        for (int i = 0; i < 50; ++i) {
+            final CardSet dealt = randomHand(random, 6);
+            final List<DiscardResult> results = analyzer.analyze(dealt);
+
+            assertEquals(15, results.size());
+            assertEquals(15, results.stream().map(DiscardResult::getDiscards).distinct().count());
+            results.forEach(result -> {
+                assertEquals(2, result.getDiscards().size());
+                assertMatchesCribbageHand(dealt, result);
+            });
+            for (int j = 1; j < results.size(); ++j) {
+                assertTrue(results.get(j - 1).getMean() >= results.get(j).getMean());
+            }
+        }
+    }
+
+    @Test
+    void fiveCards() {
+        final Random random = new Random(5);
+        for (int i = 0; i < 50; ++i) {
+            final CardSet dealt = randomHand(random, 5);
+            final List<DiscardResult> results = analyzer.analyze(dealt);
+
+            assertEquals(5, results.size());
+            results.forEach(result -> {
+                assertEquals(1, result.getDiscards().size());
+                assertMatchesCribbageHand(dealt, result);
+            });
+            for (int j = 1; j < results.size(); ++j) {
+                assertTrue(results.get(j - 1).getMean() >= results.get(j).getMean());
+            }
+        }
+    }
+
+    @Test
+    void bestDiscard() {
+        // Keeping four fives is always best, and scores at least 20 with every starter
+        final CardSet dealt = CardSet.of(Arrays.stream(new String[]{"5c", "5d", "5h", "5s", "kc", "1d"})
+                .map(Card::stringToCard).toArray(Card[]::new));
+        final DiscardResult best = analyzer.analyze(dealt).get(0);
+
+        assertEquals(CardSet.of(Card.stringToCard("kc"), Card.stringToCard("1d")), best.getDiscards());
+        assertEquals(20, best.getMin());
+        assertEquals(28, best.getMax());
+        assertEquals(0, best.getCount(29));
+        assertEquals(best.getDiscards() + ": 22.61", best.toString());
+    }
+
+    @Test
+    void parallel() throws InterruptedException {
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final DiscardAnalyzer parallelAnalyzer = new DiscardAnalyzer(executor);
+            final Random random = new Random(32);
+            final List<CardSet> hands = new ArrayList<>();
+            for (int i = 0; i < 101; ++i) {
+                hands.add(randomHand(random, i % 2 == 0 ? 6 : 5));
+            }
+
+            for (CardSet hand : hands.subList(0, 10)) {
+                assertEquals(analyzer.analyze(hand), parallelAnalyzer.analyzeParallel(hand));
+                assertEquals(analyzer.analyze(hand), analyzer.analyzeParallel(hand));
+            }
+
+            final List<List<DiscardResult>> batch = parallelAnalyzer.analyzeAll(hands);
+            assertEquals(hands.size(), batch.size());
+            for (int i = 0; i < hands.size(); ++i) {
+                assertEquals(analyzer.analyze(hands.get(i)), batch.get(i));
+            }
+            assertEquals(batch, analyzer.analyzeAll(hands));
+            assertTrue(analyzer.analyzeAll(List.of()).isEmpty());
+
+            hands.set(50, randomHand(random, 4));
+            assertThrows(IllegalArgumentException.class, () -> parallelAnalyzer.analyzeAll(hands));
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void distribution() {
+        // 5, 5, 5 and jack of hearts: 12 points at least, 29 with the five of clubs
+        final DiscardResult result = analyzer.analyze(CardSet.of(Card.stringToCard("5h"), Card.stringToCard("5d"),
+                Card.stringToCard("5s"), Card.stringToCard("jc"), Card.stringToCard("2s"))).stream()
+                .filter(r -> r.getDiscards().equals(CardSet.of(Card.stringToCard("2s")))).findAny().orElseThrow();
+        assertEquals(14, result.getMin());
+        assertEquals(29, result.getMax());
+        assertEquals(1.0 / 47, result.getProbability(29));
+        assertEquals(29, result.getPercentile(100));
+        assertEquals(14, result.getPercentile(0));
+        assertTrue(result.getStandardDeviation() > 0);
+        assertThrows(IllegalArgumentException.class, () -> result.getPercentile(101));
+        assertThrows(IllegalArgumentException.class, () -> result.getPercentile(-1));
+    }
+
+    @Test
+    void invalidHands() {
+        final Random random = new Random(0);
+        for (int size : new int[]{0, 1, 4, 7, 52}) {
+            assertThrows(IllegalArgumentException.class, () -> analyzer.analyze(randomHand(random, size)));
+        }
+    }
+}
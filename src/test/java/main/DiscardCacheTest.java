@@ -0,0 +1,109 @@
+package main;
+
+import card.CardSet;
+import card.SuitCanonicalizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscardCacheTest {
+
+    private final DiscardAnalyzer analyzer = new DiscardAnalyzer();
+
+    @Test
+    void matchesAnalyzer() {
+        final DiscardCache cache = new DiscardCache(analyzer, 1000);
+        final Random random = new Random(8);
+
+        for (int i = 0; i < 100; ++i) {
+            final CardSet dealt = DiscardAnalyzerTest.randomHand(random, i % 3 == 0 ? 5 : 6);
+            assertEquals(analyzer.analyze(dealt), cache.analyze(dealt));
+            assertEquals(analyzer.analyze(dealt), cache.analyze(dealt));
+
+            // A suit-isomorphic hand is a hit, with results relabelled to its own suits
+            final CardSet twin = CardSet.fromBits(SuitCanonicalizer.apply(0b00_01_10_11, dealt.toBits()));
+            final long hits = cache.getHitCount();
+            assertEquals(analyzer.analyze(twin), cache.analyze(twin));
+            assertEquals(hits + 1, cache.getHitCount());
+        }
+
+        assertEquals(100, cache.getMissCount());
+        assertEquals(200, cache.getHitCount());
+        assertEquals(0, cache.getEvictionCount());
+        assertEquals(100, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertThrows(UnsupportedOperationException.class,
+                () -> cache.analyze(DiscardAnalyzerTest.randomHand(random, 6)).clear());
+    }
+
+    @Test
+    void eviction() {
+        final DiscardCache cache = new DiscardCache(analyzer, 20);
+        final Random random = new Random(20);
+        for (int i = 0; i < 200; ++i) {
+            cache.analyze(DiscardAnalyzerTest.randomHand(random, 6));
+            assertTrue(cache.size() <= 20);
+        }
+        assertEquals(cache.getMissCount() - cache.size(), cache.getEvictionCount());
+        assertTrue(cache.getEvictionCount() > 0);
+
+        // Every segment of a small cache has room, so the last hand is always kept
+        for (int size = 1; size < 20; ++size) {
+            final DiscardCache small = new DiscardCache(analyzer, size);
+            for (int i = 0; i < 10; ++i) {
+                final CardSet dealt = DiscardAnalyzerTest.randomHand(random, 6);
+                small.analyze(dealt);
+                final long hits = small.getHitCount();
+                small.analyze(dealt);
+                assertEquals(hits + 1, small.getHitCount());
+                assertTrue(small.size() <= size);
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new DiscardCache(analyzer, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> cache.analyze(DiscardAnalyzerTest.randomHand(random, 4)));
+    }
+
+    @Test
+    void concurrentAccess() throws Exception {
+        final DiscardCache cache = new DiscardCache(analyzer, 64);
+        final List<CardSet> hands = new ArrayList<>();
+        final Random random = new Random(64);
+        for (int i = 0; i < 100; ++i) {
+            hands.add(DiscardAnalyzerTest.randomHand(random, 6));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> tasks = new ArrayList<>();
+            for (int thread = 0; thread < 8; ++thread) {
+                final int seed = thread;
+                tasks.add(executor.submit(() -> {
+                    final Random threadRandom = new Random(seed);
+                    for (int i = 0; i < 500; ++i) {
+                        final CardSet hand = hands.get(threadRandom.nextInt(hands.size()));
+                        assertEquals(analyzer.analyze(hand), cache.analyze(hand));
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(4000, cache.getHitCount() + cache.getMissCount());
+        assertTrue(cache.size() <= 64);
+    }
+}
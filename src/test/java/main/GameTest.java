@@ -0,0 +1,97 @@
+package main;
+
+import card.Deck;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameTest {
+
+    private static ScoreTable scoreTable;
+
+    @BeforeAll
+    static void generateTable() {
+        scoreTable = ScoreTable.generate();
+    }
+
+    @Test
+    void gamesEndAt121() {
+        final Game game = new Game(scoreTable, Strategy.maxNet(scoreTable, CribTable.getDefault()),
+                Strategy.maxHand(scoreTable));
+        final Deck deck = new Deck(3);
+        for (int i = 0; i < 500; ++i) {
+            final int winner = game.play(deck);
+            assertTrue(game.getScore(winner) >= Game.WINNING_SCORE);
+            // The most a player can score at once is 29, for a hand or crib
+            assertTrue(game.getScore(winner) < Game.WINNING_SCORE + CribbageHand.MAX_POINTS);
+            assertTrue(game.getScore(1 - winner) < Game.WINNING_SCORE);
+            assertTrue(game.getDeals() >= 3, Integer.toString(game.getDeals()));
+        }
+
+        // The same stream plays the same games
+        final Game other = new Game(scoreTable, Strategy.first(), Strategy.first());
+        final Game copy = new Game(scoreTable, Strategy.first(), Strategy.first());
+        final Deck first = new Deck(5), second = new Deck(5);
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(other.play(first), copy.play(second));
+            assertEquals(other.getScore(0), copy.getScore(0));
+            assertEquals(other.getScore(1), copy.getScore(1));
+        }
+    }
+
+    @Test
+    void invalidStrategies() {
+        final Strategy dropsAll = new Strategy() {
+            @Override
+            public long discard(long dealt, boolean dealer, int myScore, int opponentScore) {
+                return dealt;
+            }
+
+            @Override
+            public int play(@NotNull Pegging pegging, long state) {
+                return 0;
+            }
+        };
+        assertThrows(IllegalStateException.class, () ->
+                new Game(scoreTable, dropsAll, Strategy.first()).play(new Deck(1)));
+
+        final Strategy laysFirst = new Strategy() {
+            @Override
+            public long discard(long dealt, boolean dealer, int myScore, int opponentScore) {
+                return scoreTable.bestDiscard(dealt);
+            }
+
+            @Override
+            public int play(@NotNull Pegging pegging, long state) {
+                return 0;
+            }
+        };
+        assertThrows(IllegalStateException.class, () ->
+                new Game(scoreTable, laysFirst, Strategy.first()).play(new Deck(1)));
+    }
+
+    @Test
+    void tournament() {
+        final Strategy crib = Strategy.maxNet(scoreTable, CribTable.getDefault());
+        final Tournament.Result result = Tournament.run(crib, Strategy.first(), 2000, 7, scoreTable);
+        assertEquals(2000, result.getGames());
+        assertEquals(2000, result.getWins(0) + result.getWins(1));
+        assertTrue(result.getSkunks(0) <= result.getWins(0));
+
+        // Counting the crib is far better than dropping the first two cards
+        final double[] interval = result.getConfidenceInterval(0, Tournament.Z);
+        assertTrue(interval[0] > 0.9, result.toString());
+        assertTrue(interval[0] <= result.getWinRate(0) && result.getWinRate(0) <= interval[1]);
+        assertTrue(interval[1] <= 1);
+
+        // The same seed gives the same counts
+        final Tournament.Result again = Tournament.run(crib, Strategy.first(), 2000, 7, scoreTable);
+        assertEquals(result.getWins(0), again.getWins(0));
+        assertEquals(result.getSkunks(1), again.getSkunks(1));
+        assertEquals(result.getMeanDeals(), again.getMeanDeals());
+
+        assertThrows(IllegalArgumentException.class, () -> Tournament.run(crib, crib, 0, 7, scoreTable));
+    }
+}
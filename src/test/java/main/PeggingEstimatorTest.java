@@ -0,0 +1,130 @@
+package main;
+
+import card.Card;
+import card.CardSet;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PeggingEstimatorTest {
+
+    private static ScoreTable scoreTable;
+
+    @BeforeAll
+    static void generateTable() {
+        scoreTable = ScoreTable.generate();
+    }
+
+    private static CardSet hand(String cards) {
+        return CardSet.of(Arrays.stream(cards.split(" ")).map(Card::stringToCard).toArray(Card[]::new));
+    }
+
+    @Test
+    void estimatesAreRanked() {
+        final DiscardAnalyzer analyzer = new DiscardAnalyzer();
+        final PeggingEstimator estimator = new PeggingEstimator(scoreTable, ForkJoinPool.commonPool(), 3, 1000);
+        final Random random = new Random(41);
+        double dealerTotal = 0;
+        for (int i = 0; i < 10; ++i) {
+            final CardSet dealt = DiscardAnalyzerTest.randomHand(random, 6);
+            final List<DiscardResult> results = analyzer.analyze(dealt, true, estimator);
+            assertEquals(15, results.size());
+            for (int j = 0; j < results.size(); ++j) {
+                final DiscardResult result = results.get(j);
+                final double pegging = result.getPeggingPoints();
+                assertTrue(Math.abs(pegging) < 10, result.toString());
+                assertEquals(result.getMean() + result.getCribPoints() + pegging, result.getNetMean(), 1e-9);
+                if (j > 0) {
+                    assertTrue(results.get(j - 1).getNetMean() >= result.getNetMean());
+                }
+                dealerTotal += pegging;
+            }
+        }
+
+        // The pone lays first, so the dealer usually gets the go and the last card
+        assertTrue(dealerTotal / 150 > 0, Double.toString(dealerTotal / 150));
+
+        final CardSet dealt = DiscardAnalyzerTest.randomHand(random, 5);
+        assertTrue(Double.isNaN(analyzer.analyze(dealt, true, estimator).get(0).getPeggingPoints()));
+        assertTrue(Double.isNaN(analyzer.analyze(dealt, true).get(0).getPeggingPoints()));
+    }
+
+    @Test
+    void sameEstimatesOnAnyExecutor() {
+        final CardSet dealt = hand("1c 1d 2h 3s 10c kd");
+        final List<DiscardResult> results = new DiscardAnalyzer().analyze(dealt, false);
+        final ExecutorService single = Executors.newSingleThreadExecutor();
+        try {
+            assertEquals(new PeggingEstimator(scoreTable, ForkJoinPool.commonPool(), 9, 500).estimate(results, false),
+                    new PeggingEstimator(scoreTable, single, 9, 500).estimate(results, false));
+        } finally {
+            single.shutdown();
+        }
+        assertNotEquals(new PeggingEstimator(scoreTable, ForkJoinPool.commonPool(), 9, 500).estimate(results, false),
+                new PeggingEstimator(scoreTable, ForkJoinPool.commonPool(), 10, 500).estimate(results, false));
+    }
+
+    @Test
+    void lowCardsPegBetter() {
+        // Keeping the aces and deuce rather than the ten and king gives more goes and fifteens
+        final CardSet dealt = hand("1c 1d 2h 3s 10c kd");
+        final List<DiscardResult> results = new PeggingEstimator(scoreTable)
+                .estimate(new DiscardAnalyzer().analyze(dealt, false), false);
+        double keepLow = Double.NaN, keepHigh = Double.NaN;
+        for (DiscardResult result : results) {
+            if (result.getKeep().equals(hand("1c 1d 2h 3s"))) {
+                keepLow = result.getPeggingPoints();
+            } else if (result.getKeep().equals(hand("1c 2h 10c kd"))) {
+                keepHigh = result.getPeggingPoints();
+            }
+        }
+        assertTrue(keepLow > keepHigh, keepLow + " " + keepHigh);
+    }
+
+    @Test
+    void baselinePolicy() {
+        // The pone has 5c 9c jd qh, the dealer 4d 8h 10s ks
+        final Pegging pegging = new Pegging(hand("5c 9c jd qh"), hand("4d 8h 10s ks"));
+        long state = pegging.start();
+
+        // Nothing scores on the lead, so the pone lays the first of the highest cards, avoiding 5
+        assertEquals(2, PeggingEstimator.baselineCard(pegging, state));
+        state = pegging.play(state, 2); // jd: 10
+
+        // Nothing scores for the dealer either
+        assertEquals(2, PeggingEstimator.baselineCard(pegging, state));
+        state = pegging.play(state, 2); // 10s: 20
+
+        // The queen completes a run of 3
+        assertEquals(3, PeggingEstimator.baselineCard(pegging, state));
+        state = pegging.play(state, 3); // qh: 30 and a go
+
+        // The dealer leads again with the king rather than the 4 or 8
+        assertEquals(1, Pegging.mover(state));
+        assertEquals(3, PeggingEstimator.baselineCard(pegging, state));
+        state = pegging.play(state, 3); // ks: 10
+
+        // Fifteen beats laying the higher 9
+        assertEquals(0, PeggingEstimator.baselineCard(pegging, state));
+    }
+
+    @Test
+    void invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new PeggingEstimator(scoreTable, ForkJoinPool.commonPool(), 0, 1));
+        final PeggingEstimator estimator = new PeggingEstimator(scoreTable);
+        final List<DiscardResult> results = new DiscardAnalyzer().analyze(hand("1c 1d 2h 3s 10c kd"), true);
+        assertThrows(IllegalArgumentException.class, () -> estimator.estimate(results.subList(0, 14), true));
+        final List<DiscardResult> mixed = new DiscardAnalyzer().analyze(hand("1c 1d 2h 3s 10c qd"), true);
+        mixed.set(0, results.get(0));
+        assertThrows(IllegalArgumentException.class, () -> estimator.estimate(mixed, true));
+    }
+}
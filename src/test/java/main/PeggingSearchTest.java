@@ -0,0 +1,90 @@
+package main;
+
+import card.Card;
+import card.CardSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PeggingSearchTest {
+
+    private static long bits(String cards) {
+        return CardSet.of(Arrays.stream(cards.split(" ")).map(Card::stringToCard).toArray(Card[]::new)).toBits();
+    }
+
+    private static int index(String card) {
+        return Card.stringToCard(card).getIndex();
+    }
+
+    @Test
+    void exactEndings() {
+        final PeggingSearch search = new PeggingSearch();
+
+        // A ten on a five makes fifteen, then the last card: 2 + 1
+        final long hand = bits("10c");
+        assertEquals(3, search.expectedValue(hand, hand | bits("5h"), new int[]{index("5h")}, 0, false,
+                index("10c")));
+
+        // The opponent's last card must be a five (every other card is seen): fifteen and last card
+        final long fives = bits("5c 5d 5h 5s");
+        assertEquals(-3, search.expectedValue(hand, CardSet.DECK_MASK & ~fives, new int[0], 1, false,
+                index("10c")), 1e-6);
+
+        // Laying a five pairs it; the opponent, holding one of the two other fives, makes a pair royal
+        // and fifteen, then scores the last card
+        final long seen = CardSet.DECK_MASK & ~bits("5d 5s");
+        assertEquals(2 - 6 - 2 - 1, search.expectedValue(bits("5h"), seen, new int[]{index("5c")}, 1, false,
+                index("5h")), 1e-6);
+    }
+
+    @Test
+    void bestCard() {
+        final PeggingSearch search = new PeggingSearch();
+
+        // On a king, a five makes fifteen and a nine scores nothing
+        final CardSet hand = CardSet.of(Card.stringToCard("5h"), Card.stringToCard("9c"));
+        final List<Card> laid = Collections.singletonList(Card.stringToCard("kd"));
+        assertEquals(Card.stringToCard("5h"), search.bestCard(hand, hand.union(CardSet.of(laid.get(0))), laid, 3,
+                false));
+
+        // Nothing fits on 30
+        final int[] thirty = {index("kc"), index("kd"), index("qh")};
+        assertEquals(-1, search.bestCard(bits("2c 9c"), bits("2c 9c kc kd qh"), thirty, 1, false));
+
+        assertThrows(IllegalArgumentException.class, () -> search.bestCard(0, 0, new int[0], 4, false));
+        assertThrows(IllegalArgumentException.class, () -> search.bestCard(bits("2c"), bits("2c"), new int[0], 5,
+                false));
+        assertThrows(IllegalArgumentException.class, () -> new PeggingSearch(0, 16));
+    }
+
+    @Test
+    void randomPositions() {
+        // The best card is always a legal one, and with a generous budget it has the highest exact value
+        final PeggingSearch search = new PeggingSearch(Integer.MAX_VALUE, 18);
+        final PeggingSearch exact = new PeggingSearch();
+        final Random random = new Random(41);
+        for (int i = 0; i < 50; ++i) {
+            final long dealt = DiscardAnalyzerTest.randomHand(random, 6).toBits();
+            final long hand = dealt & ~CribEquilibrium.bestResponse(dealt, random.nextBoolean(),
+                    CribTable.getDefault(), ScoreTableHolder.TABLE);
+            final long seen = dealt | 1L << random.nextInt(52) & ~dealt;
+
+            final int best = search.bestCard(hand, seen, new int[0], 4, false);
+            assertNotEquals(0, hand & 1L << best);
+            final double bestValue = exact.expectedValue(hand, seen, new int[0], 4, false, best);
+            for (long cards = hand; cards != 0; cards &= cards - 1) {
+                assertTrue(exact.expectedValue(hand, seen, new int[0], 4, false,
+                        Long.numberOfTrailingZeros(cards)) <= bestValue + 1e-5);
+            }
+        }
+    }
+
+    private static final class ScoreTableHolder {
+        private static final ScoreTable TABLE = ScoreTable.generate();
+    }
+}
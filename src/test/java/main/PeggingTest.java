@@ -0,0 +1,245 @@
+package main;
+
+import card.Card;
+import card.CardSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PeggingTest {
+
+    /**
+     * Scores the last card of a sequence by checking every pair and run from scratch
+     */
+    private static int naivePoints(List<Integer> ranks) {
+        int count = 0;
+        for (int rank : ranks) {
+            count += Pegging.value(rank);
+        }
+        int points = count == 15 || count == 31 ? 2 : 0;
+
+        final int last = ranks.get(ranks.size() - 1);
+        int same = 0;
+        for (int i = ranks.size() - 2; i >= 0 && ranks.get(i) == last; --i) {
+            ++same;
+        }
+        if (same > 0) {
+            return points + same * (same + 1);
+        }
+
+        for (int cards = ranks.size(); cards >= 3; --cards) {
+            final List<Integer> tail = new ArrayList<>(ranks.subList(ranks.size() - cards, ranks.size()));
+            Collections.sort(tail);
+            boolean run = true;
+            for (int i = 1; i < cards; ++i) {
+                run &= tail.get(i) == tail.get(i - 1) + 1;
+            }
+            if (run) {
+                return points + cards;
+            }
+        }
+        return points;
+    }
+
+    private static Pegging pegging(String pone, String dealer) {
+        return new Pegging(hand(pone), hand(dealer));
+    }
+
+    private static CardSet hand(String cards) {
+        return CardSet.of(Arrays.stream(cards.split(" ")).map(Card::stringToCard).toArray(Card[]::new));
+    }
+
+    @Test
+    void pairs() {
+        // Cards are numbered in deck order, clubs first: the pone has 1c 2c 2d 9h, the dealer 2h 2s 8s ks
+        final Pegging pegging = pegging("9h 2d 1c 2c", "ks 2s 8s 2h");
+        long state = pegging.start();
+        state = pegging.play(state, 1); // 2c
+        state = pegging.play(state, 0); // 2h: pair
+        assertEquals(2, Pegging.points(state, 1));
+        state = pegging.play(state, 2); // 2d: pair royal
+        assertEquals(6, Pegging.points(state, 0));
+        state = pegging.play(state, 1); // 2s: double pair royal
+        assertEquals(14, Pegging.points(state, 1));
+        assertEquals(8, Pegging.count(state));
+    }
+
+    @Test
+    void fifteensAndGoes() {
+        // The pone has 10c 10d 5h 2s, the dealer qd 10h js ks
+        final Pegging pegging = pegging("5h 10c 10d 2s", "js 10h qd ks");
+        long state = pegging.start();
+        assertEquals(0, Pegging.mover(state));
+        state = pegging.play(state, 2); // 5h
+        state = pegging.play(state, 1); // 10h: fifteen
+        assertEquals(2, Pegging.points(state, 1));
+        state = pegging.play(state, 1); // 10d: pair, and the dealer cannot play at 25
+        assertEquals(2, Pegging.points(state, 0));
+        assertEquals(0, Pegging.mover(state));
+        assertFalse(pegging.canPlay(state, 0));
+        assertThrows(IllegalArgumentException.class, () -> pegging.play(pegging.start(), 4));
+
+        state = pegging.play(state, 3); // 2s: 27, then a go for the pone
+        assertEquals(3, Pegging.points(state, 0));
+        assertEquals(0, Pegging.count(state));
+        assertEquals(1, Pegging.mover(state));
+
+        state = pegging.play(state, 0); // qd
+        state = pegging.play(state, 0); // 10c
+        state = pegging.play(state, 2); // js: 30, a run of 3 and a go for the dealer, who leads again
+        assertEquals(2 + 3 + 1, Pegging.points(state, 1));
+        assertEquals(1, Pegging.mover(state));
+        state = pegging.play(state, 3); // ks: last card
+        assertTrue(Pegging.isOver(state));
+        assertEquals(7, Pegging.points(state, 1));
+        assertEquals(3, Pegging.points(state, 0));
+    }
+
+    @Test
+    void runs() {
+        // The pone has 4c 5c 7c kc, the dealer 3d 6d 9d qd
+        final Pegging pegging = pegging("4c 5c 7c kc", "6d 3d 9d qd");
+        long state = pegging.start();
+        state = pegging.play(state, 0); // 4c
+        state = pegging.play(state, 1); // 6d
+        state = pegging.play(state, 1); // 5c: fifteen and a run of 3
+        assertEquals(5, Pegging.points(state, 0));
+        state = pegging.play(state, 0); // 3d: run of 4
+        assertEquals(4, Pegging.points(state, 1));
+        state = pegging.play(state, 2); // 7c: run of 5 at 25, then a go since nobody can play
+        assertEquals(11, Pegging.points(state, 0));
+        assertEquals(0, Pegging.count(state));
+        assertEquals(1, Pegging.mover(state));
+    }
+
+    @Test
+    void matchesNaiveScoring() {
+        final Random random = new Random(31);
+        for (int deal = 0; deal < 20_000; ++deal) {
+            final List<Integer> deck = new ArrayList<>();
+            for (int card = 0; card < 52; ++card) {
+                deck.add(card);
+            }
+            Collections.shuffle(deck, random);
+            long pone = 0, dealer = 0;
+            for (int i = 0; i < 4; ++i) {
+                pone |= 1L << deck.get(i);
+                dealer |= 1L << deck.get(4 + i);
+            }
+            final Pegging pegging = new Pegging(pone, dealer);
+
+            // Play random legal cards, keeping the reference state alongside
+            final int[] expected = new int[2];
+            final boolean[][] played = new boolean[2][4];
+            final List<Integer> sequence = new ArrayList<>();
+            int count = 0, mover = 0;
+            long state = pegging.start();
+            while (!Pegging.isOver(state)) {
+                assertEquals(mover, Pegging.mover(state));
+                assertEquals(count, Pegging.count(state));
+
+                final List<Integer> legal = new ArrayList<>();
+                for (int card = 0; card < 4; ++card) {
+                    final boolean fits = !played[mover][card]
+                            && count + Pegging.value(pegging.rank(mover, card)) <= 31;
+                    assertEquals(fits, pegging.canPlay(state, card));
+                    if (fits) {
+                        legal.add(card);
+                    }
+                }
+                final int card = legal.get(random.nextInt(legal.size()));
+                state = pegging.play(state, card);
+
+                played[mover][card] = true;
+                sequence.add(pegging.rank(mover, card));
+                count += Pegging.value(pegging.rank(mover, card));
+                expected[mover] += naivePoints(sequence);
+
+                final int other = 1 - mover;
+                if (count == 31 || (!canPlay(pegging, played, other, count)
+                        && !canPlay(pegging, played, mover, count))) {
+                    expected[mover] += count == 31 ? 0 : 1;
+                    sequence.clear();
+                    count = 0;
+                    mover = hasCards(played, other) ? other : mover;
+                } else if (canPlay(pegging, played, other, count)) {
+                    mover = other;
+                }
+                assertEquals(expected[0], Pegging.points(state, 0));
+                assertEquals(expected[1], Pegging.points(state, 1));
+            }
+            assertFalse(hasCards(played, 0) || hasCards(played, 1));
+        }
+    }
+
+    private static boolean canPlay(Pegging pegging, boolean[][] played, int player, int count) {
+        for (int card = 0; card < 4; ++card) {
+            if (!played[player][card] && count + Pegging.value(pegging.rank(player, card)) <= 31) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasCards(boolean[][] played, int player) {
+        return !(played[player][0] && played[player][1] && played[player][2] && played[player][3]);
+    }
+
+    @Test
+    void reusedInstance() {
+        // One instance dealt new hands plays like a new instance for each deal
+        final Random random = new Random(7);
+        final Pegging reused = new Pegging();
+        for (int deal = 0; deal < 2000; ++deal) {
+            final List<Integer> deck = new ArrayList<>();
+            for (int card = 0; card < 52; ++card) {
+                deck.add(card);
+            }
+            Collections.shuffle(deck, random);
+            final long[] hands = new long[3];
+            for (int i = 0; i < 12; ++i) {
+                hands[i / 4] |= 1L << deck.get(i);
+            }
+
+            reused.deal(hands[0], hands[1]);
+            assertSamePlay(new Pegging(hands[0], hands[1]), reused, random.nextLong());
+            reused.setHand(1, hands[2]);
+            assertSamePlay(new Pegging(hands[0], hands[2]), reused, random.nextLong());
+            assertThrows(IllegalArgumentException.class, () -> reused.setHand(1, hands[0]));
+        }
+    }
+
+    /**
+     * Plays the same random legal cards in two instances, checking they reach the same states
+     */
+    private static void assertSamePlay(Pegging expected, Pegging actual, long seed) {
+        final Random random = new Random(seed);
+        long state = expected.start();
+        assertEquals(state, actual.start());
+        while (!Pegging.isOver(state)) {
+            int card;
+            do {
+                card = random.nextInt(4);
+            } while (!expected.canPlay(state, card));
+            assertTrue(actual.canPlay(state, card));
+            final long next = expected.play(state, card);
+            assertEquals(next, actual.play(state, card));
+            state = next;
+        }
+    }
+
+    @Test
+    void invalidHands() {
+        final CardSet hand = CardSet.of(Card.stringToCard("1h"), Card.stringToCard("2h"), Card.stringToCard("3h"),
+                Card.stringToCard("4h"));
+        assertThrows(IllegalArgumentException.class, () -> new Pegging(hand, hand));
+        assertThrows(IllegalArgumentException.class, () -> new Pegging(hand,
+                CardSet.of(Card.stringToCard("5h"))));
+    }
+}
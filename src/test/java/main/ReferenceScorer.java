@@ -0,0 +1,159 @@
+package main;
+
+import card.Card;
+import card.Rank;
+import card.Suit;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Scores a cribbage hand one rule at a time from {@code Card} objects, the slow and obvious way
+ *
+ * <p> The scoring paths of {@link CribbageHand} and {@link ScoreTable} are checked against these
+ * rules
+ *
+ * @author Reid Moffat
+ */
+final class ReferenceScorer {
+
+    /**
+     * This class only has static methods and should not be instantiated
+     */
+    private ReferenceScorer() {
+    }
+
+    /**
+     * Returns the total points of four hand cards and a starter
+     *
+     * @param hand    the four hand cards
+     * @param starter the starter card
+     * @param crib    true to use the crib's flush rule
+     * @return the sum of every rule's points
+     */
+    static int totalPoints(@NotNull Set<Card> hand, @NotNull Card starter, boolean crib) {
+        final HashSet<Card> handWithStarter = new HashSet<>(hand);
+        handWithStarter.add(starter);
+        final HashSet<HashSet<Card>> combinations = powerSet(handWithStarter);
+        return fifteens(combinations) + multiples(handWithStarter) + runs(combinations)
+                + flushes(hand, starter, crib) + nobs(hand, starter);
+    }
+
+    /**
+     * Returns the power set of a given {@code HashSet}
+     *
+     * @param originalSet a {@code HashSet} of objects
+     * @return a {@code HashSet} containing all subsets of {@code originalSet}
+     */
+    static @NotNull HashSet<HashSet<Card>> powerSet(@NotNull HashSet<Card> originalSet) {
+        final HashSet<HashSet<Card>> sets = new HashSet<>();
+        if (originalSet.isEmpty()) {
+            sets.add(new HashSet<>());
+            return sets;
+        }
+
+        final List<Card> list = new ArrayList<>(originalSet);
+        final HashSet<Card> rest = new HashSet<>(list.subList(1, list.size()));
+        for (HashSet<Card> set : powerSet(rest)) {
+            HashSet<Card> newSet = new HashSet<>();
+            newSet.add(list.get(0));
+            newSet.addAll(set);
+
+            sets.add(newSet);
+            sets.add(set);
+        }
+        return sets;
+    }
+
+    /**
+     * Returns the number of points obtained from fifteens
+     *
+     * <p> Each unique combination of cards that add up to 15 is worth two points. 'Any' number of
+     * cards (i.e. between 2 and 5) can be used for each combination, and cards may be used for
+     * multiple fifteens. All face cards have a value of 10 when calculating fifteens
+     *
+     * @param cardCombinations every subset of the hand with the starter
+     * @return the number of points obtained from fifteens
+     */
+    static int fifteens(@NotNull HashSet<HashSet<Card>> cardCombinations) {
+        return cardCombinations.stream().mapToInt(cards -> cards.stream().mapToInt(card ->
+                Math.min(card.getRankNumber(), 10)).sum() == 15 ? 2 : 0).sum();
+    }
+
+    /**
+     * Returns the number of points obtained from multiples: a double (2 points), triple (6 points)
+     * or quadruple (12 points) of one rank of card. A ten and a queen are not a double
+     *
+     * @param handWithStarter the hand with the starter
+     * @return the number of points obtained from multiples
+     */
+    static int multiples(@NotNull HashSet<Card> handWithStarter) {
+        // A multiple of n cards is n*n - n points (single: 0, double: 2, triple: 6, quadruple: 12)
+        return handWithStarter.stream()
+                .collect(Collectors.groupingBy(Card::getRankNumber, Collectors.summingInt(x -> 1)))
+                .values().stream().mapToInt(v -> v * v - v).sum();
+    }
+
+    /**
+     * Returns the number of points obtained from runs
+     *
+     * <p> A run is a sequence of three (3 points), four (4 points) or five (5 points) cards with
+     * consecutive ranks. Suit does not matter, and cards can be part of multiple unique runs (but
+     * only the highest run is counted; a run of four is only four points, NOT two runs of three)
+     *
+     * @param cardCombinations every subset of the hand with the starter
+     * @return the number of points obtained from runs
+     */
+    static int runs(@NotNull HashSet<HashSet<Card>> cardCombinations) {
+        // Total points obtained from each length of run, offset by 3 (runScores[0] is for a run of 3)
+        final int[] runScores = {0, 0, 0};
+
+        cardCombinations.forEach(cards -> {
+            if (cards.size() < 3) return;
+            final int[] values = cards.stream().mapToInt(Card::getRankNumber).sorted().toArray();
+
+            // If any card is 'out of order', no points are given for runs
+            runScores[cards.size() - 3] += IntStream.range(0, values.length - 1)
+                    .anyMatch(i -> values[i] + 1 != values[i + 1]) ? 0 : values.length;
+        });
+
+        // Only one length of run is possible in a hand (a run of 5 is NOT two runs of 4)
+        return runScores[2] != 0 ? runScores[2] : runScores[1] != 0 ? runScores[1] : runScores[0];
+    }
+
+    /**
+     * Returns the number of points obtained from flushes: 4 if the hand's four cards have the same
+     * suit, or 5 if the starter does too. In the crib, only the 5 point flush counts
+     *
+     * @param hand    the four hand cards
+     * @param starter the starter card
+     * @param crib    true to use the crib's flush rule
+     * @return the number of points obtained from flushes
+     */
+    static int flushes(@NotNull Set<Card> hand, @NotNull Card starter, boolean crib) {
+        final HashSet<Suit> suits = hand.stream().map(c -> c.suit).collect(Collectors.toCollection(HashSet::new));
+        if (suits.size() != 1) {
+            return 0;
+        }
+        return suits.add(starter.suit) ? (crib ? 0 : 4) : 5;
+    }
+
+    /**
+     * Returns the number of points obtained from nobs: one point if the hand has the jack of the
+     * starter's suit
+     *
+     * @param hand    the four hand cards
+     * @param starter the starter card
+     * @return the number of points obtained from nobs
+     */
+    static int nobs(@NotNull Set<Card> hand, @NotNull Card starter) {
+        return hand.stream().filter(c -> c.rank == Rank.JACK).map(c -> c.suit)
+                .anyMatch(starter.suit::equals) ? 1 : 0;
+    }
+
+}
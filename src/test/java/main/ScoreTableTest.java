@@ -0,0 +1,143 @@
+package main;
+
+import card.CardSet;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreTableTest {
+
+    private static ScoreTable table;
+
+    @BeforeAll
+    static void setUpClass() {
+        table = ScoreTable.generate();
+    }
+
+    @Test
+    void handIndex() {
+        // Colex ranks number every hand exactly once, from 0 to C(52, 4) - 1
+        final boolean[] seen = new boolean[ScoreTable.HANDS];
+        int expected = 0;
+        for (int card3 = 3; card3 < 52; ++card3) {
+            for (int card2 = 2; card2 < card3; ++card2) {
+                for (int card1 = 1; card1 < card2; ++card1) {
+                    for (int card0 = 0; card0 < card1; ++card0) {
+                        final int index = ScoreTable.handIndex(card0, card1, card2, card3);
+                        assertEquals(expected++, index);
+                        assertFalse(seen[index]);
+                        seen[index] = true;
+                    }
+                }
+            }
+        }
+        assertEquals(ScoreTable.HANDS, expected);
+    }
+
+    @Test
+    void matchesCribbageHand(@TempDir Path directory) throws IOException {
+        final Path file = directory.resolve("score-table.bin");
+        ScoreTableGenerator.write(table, file);
+        assertEquals(ScoreTable.HEADER_BYTES + ScoreTable.ENTRIES, Files.size(file));
+        final ScoreTable mapped = ScoreTable.open(file);
+
+        final Random random = new Random(13);
+        for (int i = 0; i < 100_000; ++i) {
+            long hand = 0;
+            while (Long.bitCount(hand) < 4) {
+                hand |= 1L << random.nextInt(52);
+            }
+            int starter;
+            do {
+                starter = random.nextInt(52);
+            } while ((hand & 1L << starter) != 0);
+
+            final int[] cards = CardSet.fromBits(hand).stream().mapToInt(c -> c.getIndex()).toArray();
+            final int expected = CribbageHand.totalPoints(cards[0], cards[1], cards[2], cards[3], starter);
+            assertEquals(expected, table.points(cards[0], cards[1], cards[2], cards[3], starter));
+            assertEquals(expected, mapped.points(cards[0], cards[1], cards[2], cards[3], starter));
+        }
+    }
+
+    @Test
+    void totals() {
+        // Totals over few starters are summed, and over most starters subtracted from the hand's total
+        final Random random = new Random(17);
+        for (int i = 0; i < 20_000; ++i) {
+            long hand = 0;
+            while (Long.bitCount(hand) < 4) {
+                hand |= 1L << random.nextInt(52);
+            }
+            long starters = CardSet.DECK_MASK & ~hand;
+            for (int removed = random.nextInt(49); removed > 0; --removed) {
+                starters &= ~(1L << random.nextInt(52));
+            }
+
+            final int[] cards = CardSet.fromBits(hand).stream().mapToInt(c -> c.getIndex()).toArray();
+            int expected = 0;
+            for (long rest = starters; rest != 0; rest &= rest - 1) {
+                expected += table.points(cards[0], cards[1], cards[2], cards[3], Long.numberOfTrailingZeros(rest));
+            }
+            assertEquals(expected, table.total(hand, starters));
+        }
+    }
+
+    @Test
+    void cribScores() {
+        // Crib lookups and totals agree with the crib kernel, including 4-card flushes
+        final Random random = new Random(15);
+        for (int i = 0; i < 20_000; ++i) {
+            long crib = 0;
+            if (i % 4 == 0) {
+                final int suit = random.nextInt(4);
+                while (Long.bitCount(crib) < 4) {
+                    crib |= 1L << (13 * suit + random.nextInt(13));
+                }
+            } else {
+                while (Long.bitCount(crib) < 4) {
+                    crib |= 1L << random.nextInt(52);
+                }
+            }
+            final long starters = random.nextLong() & CardSet.DECK_MASK & ~crib;
+
+            final int[] cards = CardSet.fromBits(crib).stream().mapToInt(c -> c.getIndex()).toArray();
+            int expected = 0;
+            for (long rest = starters; rest != 0; rest &= rest - 1) {
+                final int starter = Long.numberOfTrailingZeros(rest);
+                final int points = CribbageHand.cribPoints(cards[0], cards[1], cards[2], cards[3], starter);
+                assertEquals(points, table.cribPoints(cards[0], cards[1], cards[2], cards[3], starter));
+                expected += points;
+            }
+            assertEquals(expected, table.cribTotal(crib, starters));
+        }
+    }
+
+    @Test
+    void analyzerWithTable() {
+        final DiscardAnalyzer analyzer = new DiscardAnalyzer();
+        final DiscardAnalyzer tableAnalyzer = new DiscardAnalyzer(ForkJoinPool.commonPool(), table);
+        final Random random = new Random(690);
+        for (int i = 0; i < 200; ++i) {
+            final CardSet dealt = DiscardAnalyzerTest.randomHand(random, i % 2 == 0 ? 6 : 5);
+            assertEquals(analyzer.analyze(dealt), tableAnalyzer.analyze(dealt));
+        }
+    }
+
+    @Test
+    void invalidFile(@TempDir Path directory) throws IOException {
+        final Path file = directory.resolve("not-a-table.bin");
+        Files.write(file, new byte[]{1, 2, 3});
+        assertThrows(IllegalArgumentException.class, () -> ScoreTable.open(file));
+
+        Files.write(file, new byte[ScoreTable.HEADER_BYTES + ScoreTable.ENTRIES]);
+        assertThrows(IllegalArgumentException.class, () -> ScoreTable.open(file));
+    }
+}
@@ -0,0 +1,122 @@
+package main;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardCoordinatorTest {
+
+    private static final List<String> TABLE_JOB = List.of("strategy-table", "12");
+
+    /**
+     * Coordinates a job with no local workers while workers run in this process
+     */
+    private static void runInProcess(Path directory, int shards, List<String> job, Path output, int workers)
+            throws Exception {
+        final CompletableFuture<Void> coordinator = CompletableFuture.runAsync(() -> {
+            try {
+                ShardCoordinator.coordinate(directory, 0, shards, job, output);
+            } catch (IOException | InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        while (!Files.exists(directory.resolve(ShardCoordinator.JOB_FILE))) {
+            Thread.sleep(10);
+        }
+        int ran = 0;
+        for (int worker = 0; worker < workers; ++worker) {
+            ran += ShardCoordinator.work(directory, "test-" + worker);
+        }
+        coordinator.join();
+        assertEquals(shards, ran);
+    }
+
+    @Test
+    void strategyTableMatchesOneProcess(@TempDir Path directory) throws Exception {
+        final Path expected = directory.resolve("expected.bin"), output = directory.resolve("table.bin");
+        StrategyTableGenerator.write(expected, 12);
+        runInProcess(directory.resolve("work"), 7, TABLE_JOB, output, 1);
+        assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(output));
+
+        // A restarted coordinator keeps the parts, and a different job is refused
+        Files.delete(output);
+        ShardCoordinator.coordinate(directory.resolve("work"), 0, 7, TABLE_JOB, output);
+        assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(output));
+        assertThrows(IllegalArgumentException.class, () ->
+                ShardCoordinator.coordinate(directory.resolve("work"), 0, 6, TABLE_JOB, output));
+    }
+
+    @Test
+    void tournamentIsDeterministic(@TempDir Path directory) throws Exception {
+        final List<String> job = List.of("tournament", "crib", "first", "500", "11");
+        runInProcess(directory.resolve("first"), 3, job, directory.resolve("first.txt"), 1);
+        runInProcess(directory.resolve("second"), 5, job, directory.resolve("second.txt"), 2);
+        final List<String> report = Files.readAllLines(directory.resolve("first.txt"));
+        assertEquals(report, Files.readAllLines(directory.resolve("second.txt")));
+        assertTrue(report.get(0).startsWith("crib vs first: crib wins"), report.get(0));
+
+        // Whatever the number of shards, the report is the same as one process playing the tournament
+        final ScoreTable scoreTable = ScoreTable.generate();
+        assertEquals(List.of(Tournament.run(Tournament.strategy("crib", scoreTable),
+                Tournament.strategy("first", scoreTable), 500, 11, scoreTable).toString()), report);
+
+        final ShardJob tournament = ShardJob.parse(job);
+        final Path part = directory.resolve("part");
+        tournament.runShard(1, 3, part);
+        assertThrows(IllegalArgumentException.class, () -> tournament.merge(List.of(part), directory.resolve("x")));
+    }
+
+    @Test
+    void staleClaimIsReassigned(@TempDir Path directory) throws Exception {
+        // A worker that died while running shard 1 left its claim behind
+        final Path work = directory.resolve("work");
+        Files.createDirectories(work);
+        final Path claim = ShardCoordinator.claim(work, 1);
+        Files.write(claim, "dead".getBytes());
+        Files.setLastModifiedTime(claim, FileTime.fromMillis(System.currentTimeMillis()
+                - 2 * ShardCoordinator.STALE_MILLIS));
+
+        // The live worker skips the claimed shard, then runs it once the coordinator releases it
+        final Path output = directory.resolve("table.bin");
+        final CompletableFuture<Void> coordinator = CompletableFuture.runAsync(() -> {
+            try {
+                ShardCoordinator.coordinate(work, 0, 3, TABLE_JOB, output);
+            } catch (IOException | InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        while (Files.exists(claim) || !Files.exists(work.resolve(ShardCoordinator.JOB_FILE))) {
+            Thread.sleep(10);
+        }
+        assertEquals(3, ShardCoordinator.work(work, "live"));
+        coordinator.join();
+
+        final Path expected = directory.resolve("expected.bin");
+        StrategyTableGenerator.write(expected, 12);
+        assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(output));
+    }
+
+    @Test
+    void localWorkerJvms(@TempDir Path directory) throws Exception {
+        final Path output = directory.resolve("table.bin"), expected = directory.resolve("expected.bin");
+        ShardCoordinator.coordinate(directory.resolve("work"), 2, 4, TABLE_JOB, output);
+        StrategyTableGenerator.write(expected, 12);
+        assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(output));
+    }
+
+    @Test
+    void invalidJobs() {
+        assertThrows(IllegalArgumentException.class, () -> ShardJob.parse(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> ShardJob.parse(List.of("enumerate")));
+        assertThrows(IllegalArgumentException.class, () -> ShardJob.parse(List.of("tournament", "crib", "hand")));
+        assertThrows(IllegalArgumentException.class, () -> ShardJob.parse(List.of("strategy-table", "53")));
+    }
+}
@@ -0,0 +1,134 @@
+package main;
+
+import card.CardCombinations;
+import card.CardSet;
+import card.SuitCanonicalizer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StrategyTableTest {
+
+    /**
+     * The full table takes minutes to generate, so the tests use deals from the first 20 cards
+     */
+    private static final int DECK_SIZE = 20;
+
+    @TempDir
+    static Path directory;
+
+    private static Path tableFile;
+
+    private static StrategyTable table;
+
+    @BeforeAll
+    static void setUpClass() throws IOException {
+        tableFile = directory.resolve("strategy-table.bin");
+        StrategyTableGenerator.write(tableFile, DECK_SIZE);
+        table = StrategyTable.open(tableFile);
+    }
+
+    @Test
+    void deals() throws IOException {
+        // A table for a smaller deck covers exactly the deals from its first cards
+        assertEquals(CardCombinations.binomial(DECK_SIZE, 6), table.getDeals());
+
+        // Only the canonical deals are indexed, each with its rank and record
+        final int records = StrategyTableGenerator.canonicalDeals(DECK_SIZE).length;
+        assertTrue(records < table.getDeals());
+        assertEquals(StrategyTable.HEADER_BYTES + (4L + StrategyTable.RECORD_BYTES) * records,
+                Files.size(tableFile));
+    }
+
+    @Test
+    void matchesAnalyzer() {
+        final DiscardAnalyzer analyzer = new DiscardAnalyzer();
+        final Random random = new Random(420);
+        int checked = 0;
+        for (int i = 0; i < 2000; ++i) {
+            // Relabel a deal from the table's cards to random suits
+            long deal = 0;
+            while (Long.bitCount(deal) < 6) {
+                deal |= 1L << random.nextInt(DECK_SIZE);
+            }
+            final long canonical = SuitCanonicalizer.canonical(deal);
+            final CardSet dealt = CardSet.fromBits(SuitCanonicalizer.apply(randomPermutation(random), canonical));
+            if (CardCombinations.rank(canonical) >= table.getDeals()) {
+                continue;
+            }
+
+            final List<DiscardResult> expected = analyzer.analyze(dealt);
+            final List<StrategyTable.Entry> entries = table.lookup(dealt);
+            assertEquals(expected.size(), entries.size());
+            for (int j = 0; j < expected.size(); ++j) {
+                assertEquals(expected.get(j).getDiscards(), entries.get(j).getDiscards());
+                assertEquals(expected.get(j).getKeep(), entries.get(j).getKeep());
+                assertEquals(expected.get(j).getTotalPoints(), entries.get(j).getTotalPoints());
+                assertEquals(expected.get(j).getMean(), entries.get(j).getMean(), 1e-9);
+            }
+            assertEquals(expected.get(0).getTotalPoints(), analyzer.analyzeDiscard(dealt.toBits(),
+                    table.bestDiscard(dealt.toBits())).getTotalPoints());
+            ++checked;
+        }
+        assertTrue(checked > 500);
+    }
+
+    /**
+     * Returns a random suit permutation, packed the same way as {@link SuitCanonicalizer}
+     */
+    private static int randomPermutation(Random random) {
+        final int[] suits = {0, 1, 2, 3};
+        for (int i = 3; i > 0; --i) {
+            final int j = random.nextInt(i + 1);
+            final int swap = suits[i];
+            suits[i] = suits[j];
+            suits[j] = swap;
+        }
+        return suits[0] | suits[1] << 2 | suits[2] << 4 | suits[3] << 6;
+    }
+
+    @Test
+    void countsCrib() {
+        final DiscardAnalyzer analyzer = new DiscardAnalyzer();
+        final CardSet dealt = CardSet.fromBits(0b111111L << 2);
+        for (boolean dealer : new boolean[]{true, false}) {
+            final List<DiscardResult> expected = analyzer.analyze(dealt, dealer);
+            final List<StrategyTable.Entry> entries = table.lookup(dealt, dealer, CribTable.getDefault());
+            assertEquals(expected.size(), entries.size());
+            for (int j = 0; j < expected.size(); ++j) {
+                assertEquals(expected.get(j).getDiscards(), entries.get(j).getDiscards());
+                assertEquals(expected.get(j).getCribPoints(), entries.get(j).getCribPoints(), 1e-9);
+                assertEquals(expected.get(j).getNetMean(), entries.get(j).getNetMean(), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void invalidDeals() {
+        assertThrows(IllegalArgumentException.class, () -> table.lookup(CardSet.fromBits(0b11111)));
+        assertThrows(IllegalArgumentException.class, () -> table.bestDiscard(0b1111111));
+        assertThrows(IllegalArgumentException.class, () -> table.bestDiscard(0b11L | 0b11L << 13 | 0b11L << 26));
+    }
+
+    @Test
+    void invalidFile() throws IOException {
+        final Path file = directory.resolve("not-a-table.bin");
+        Files.write(file, new byte[]{1, 2, 3});
+        assertThrows(IllegalArgumentException.class, () -> StrategyTable.open(file));
+
+        Files.write(file, new byte[StrategyTable.HEADER_BYTES + 100]);
+        assertThrows(IllegalArgumentException.class, () -> StrategyTable.open(file));
+
+        final Path scoreTableFile = directory.resolve("score-table.bin");
+        ScoreTableGenerator.write(ScoreTable.generate(), scoreTableFile);
+        assertThrows(IllegalArgumentException.class, () -> StrategyTable.open(scoreTableFile));
+    }
+}
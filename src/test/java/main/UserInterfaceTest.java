@@ -0,0 +1,71 @@
+package main;
+
+import card.Card;
+import card.CardSet;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserInterfaceTest {
+
+    /**
+     * Runs the calculator on a dealt hand and returns the lines it prints
+     */
+    private static List<String> outputLines(String... cards) {
+        final CardSet dealt = CardSet.of(Arrays.stream(cards).map(Card::stringToCard).toArray(Card[]::new));
+        final PrintStream out = System.out;
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+        try {
+            new UserInterface(dealt);
+        } finally {
+            System.setOut(out);
+        }
+        return output.toString(StandardCharsets.UTF_8).lines().collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the lines that rank a discard
+     */
+    private static List<String> ranked(List<String> lines) {
+        return lines.stream().filter(line -> line.matches("\\d+: .*")).collect(Collectors.toList());
+    }
+
+    @Test
+    void dealtHand() {
+        final List<String> six = outputLines("5c", "5d", "5h", "5s", "kc", "1d");
+        assertEquals(15, ranked(six).size());
+        assertEquals("1: King of clubs and Ace of diamonds: 22.61 (**)", ranked(six).get(0));
+
+        final List<String> five = outputLines("5c", "5d", "5h", "jc", "2s");
+        assertEquals(5, ranked(five).size());
+
+        assertThrows(IllegalArgumentException.class, () -> new UserInterface(new CardSet()));
+        assertThrows(IllegalArgumentException.class, () -> new UserInterface(CardSet.fullDeck()));
+        assertThrows(IllegalArgumentException.class, () -> new UserInterface(CardSet.of(Card.stringToCard("5c"),
+                Card.stringToCard("5d"), Card.stringToCard("5h"), Card.stringToCard("5s"))));
+    }
+
+    @Test
+    void footnotes() {
+        // Without a simulated play, dropped fives and aces are marked
+        final List<String> lines = outputLines("5c", "5d", "1h", "jc", "2s");
+        assertTrue(ranked(lines).stream().anyMatch(line -> line.contains("Five") && line.contains("(*)")));
+        assertTrue(ranked(lines).stream().anyMatch(line -> line.contains("Ace") && line.endsWith("(**)")));
+        assertTrue(ranked(lines).stream().filter(line -> !line.contains("Five") && !line.contains("Ace"))
+                .noneMatch(line -> line.contains("(*")));
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("(*) Consider keeping fives")));
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("(**) Aces are good for the play")));
+        assertTrue(lines.stream().noneMatch(line -> line.startsWith("The play was not counted")));
+
+        assertTrue(outputLines("7c", "8d", "9h", "10s", "kc").stream().noneMatch(line -> line.contains("(*")));
+    }
+
+}
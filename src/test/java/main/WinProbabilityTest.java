@@ -0,0 +1,174 @@
+package main;
+
+import card.Card;
+import card.CardSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WinProbabilityTest {
+
+    /**
+     * Largest error from storing a probability in 16 bits
+     */
+    private static final double ROUNDING = 1.0 / Character.MAX_VALUE;
+
+    @Test
+    void defaultModel() {
+        final WinProbability model = WinProbability.getDefault();
+        assertSame(model, WinProbability.getDefault());
+
+        // The first dealer has a small advantage
+        final double dealer = model.winProbability(0, 0, true);
+        assertTrue(dealer > 0.5 && dealer < 0.6, Double.toString(dealer));
+
+        for (int mine = 0; mine < WinProbability.GAME; mine += 3) {
+            for (int theirs = 0; theirs < WinProbability.GAME; theirs += 3) {
+                // Exactly one player wins, so the two players' probabilities add up to 1
+                assertEquals(1, model.winProbability(mine, theirs, false) + model.winProbability(theirs, mine, true),
+                        2 * ROUNDING);
+
+                // More points never hurt
+                if (mine > 0) {
+                    assertTrue(model.winProbability(mine, theirs, false)
+                            >= model.winProbability(mine - 1, theirs, false) - ROUNDING);
+                }
+            }
+        }
+
+        // The pone lays the first card, but the dealer answers each one, so at 119-119 the dealer
+        // usually pegs two points first
+        final double dealerAtEnd = model.winProbability(119, 119, true);
+        assertTrue(dealerAtEnd > 0.5 && dealerAtEnd < 0.9, Double.toString(dealerAtEnd));
+        assertEquals(1, model.winProbability(121, 60, false));
+        assertEquals(0, model.winProbability(60, 130, true));
+        assertThrows(IllegalArgumentException.class, () -> model.winProbability(-1, 0, true));
+    }
+
+    @Test
+    void solveFixedDeal() {
+        // Every deal, the pone pegs a point and then the dealer does, the pone scores 10 points in
+        // the show and the dealer 5, and the dealer may cut a jack
+        final WinProbability.Deal deal = new WinProbability.Deal();
+        deal.show[WinProbability.DEALER_BINS * 10 + 5] = 1;
+        deal.poneHand[10] = 1;
+        deal.dealerHand[5] = 1;
+        deal.crib[0] = 1;
+        deal.play[WinProbability.PLAY_BINS + 1] = 1;
+        for (int needed = 1; needed < WinProbability.RACE_BINS; ++needed) {
+            deal.poneFirst[WinProbability.RACE_BINS + needed] = 1;
+            if (needed > 1) {
+                deal.dealerFirst[WinProbability.RACE_BINS * needed + 1] = 1;
+            }
+        }
+        final WinProbability model = WinProbability.solve(deal);
+
+        assertEquals(1, model.winProbability(120, 100, false));
+        assertEquals(1, model.winProbability(110, 0, false));
+        assertEquals(0, model.winProbability(0, 114, true));
+        assertEquals(1, model.winProbability(116, 100, true));
+
+        // His heels is pegged at the cut, before the pone lays a card
+        assertEquals(WinProbability.HEELS, model.winProbability(119, 119, true), ROUNDING);
+        assertEquals(1 - WinProbability.HEELS, model.winProbability(120, 120, false), ROUNDING);
+        assertEquals(WinProbability.HEELS, model.winProbability(119, 120, true), ROUNDING);
+
+        // From 110-114 the pone counts to 121 even if the dealer cuts a jack, but from 109-114 both
+        // players reach 120 without one, and the pone then only wins by cutting a jack as the dealer
+        assertEquals(1, model.winProbability(110, 114, false), ROUNDING);
+        assertEquals((1 - WinProbability.HEELS) * WinProbability.HEELS, model.winProbability(109, 114, false),
+                ROUNDING);
+
+        // Exactly one player wins from every position
+        for (int mine = 0; mine < WinProbability.GAME; mine += 4) {
+            for (int theirs = 0; theirs < WinProbability.GAME; theirs += 4) {
+                assertEquals(1, model.winProbability(mine, theirs, false) + model.winProbability(theirs, mine, true),
+                        2 * ROUNDING);
+            }
+        }
+
+        // The last card always scores
+        deal.play[WinProbability.PLAY_BINS + 1] = 0;
+        deal.play[0] = 1;
+        assertThrows(IllegalArgumentException.class, () -> WinProbability.solve(deal));
+    }
+
+    @Test
+    void readAndWrite(@TempDir Path directory) throws IOException {
+        final WinProbability model = WinProbability.getDefault();
+        final byte[] bytes = model.toBytes();
+        assertEquals(WinProbability.FILE_BYTES, bytes.length);
+
+        final Path file = directory.resolve("win-probability.bin");
+        WinProbabilityGenerator.write(model, file);
+        try (InputStream stream = Files.newInputStream(file)) {
+            assertArrayEquals(bytes, WinProbability.read(stream).toBytes());
+        }
+
+        assertThrows(IllegalArgumentException.class, () ->
+                WinProbability.read(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1))));
+        assertThrows(IllegalArgumentException.class, () ->
+                WinProbability.read(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length + 1))));
+        bytes[0] = 0;
+        assertThrows(IllegalArgumentException.class, () -> WinProbability.read(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    void generateIsDeterministic() {
+        final ScoreTable scoreTable = ScoreTable.generate();
+        final WinProbability first = WinProbabilityGenerator.generate(2000, 5, scoreTable, CribTable.getDefault());
+        final WinProbability second = WinProbabilityGenerator.generate(2000, 5, scoreTable, CribTable.getDefault());
+        assertArrayEquals(first.toBytes(), second.toBytes());
+        assertFalse(Arrays.equals(first.toBytes(),
+                WinProbabilityGenerator.generate(2000, 6, scoreTable, CribTable.getDefault()).toBytes()));
+        assertThrows(IllegalArgumentException.class, () ->
+                WinProbabilityGenerator.generate(0, 5, scoreTable, CribTable.getDefault()));
+    }
+
+    @Test
+    void analyzeByWinProbability() {
+        final DiscardAnalyzer analyzer = new DiscardAnalyzer();
+        final Random random = new Random(23);
+        for (int i = 0; i < 20; ++i) {
+            final CardSet dealt = DiscardAnalyzerTest.randomHand(random, 6);
+            final boolean dealer = random.nextBoolean();
+            final List<DiscardResult> results = analyzer.analyze(dealt, dealer, random.nextInt(121),
+                    random.nextInt(121));
+            assertEquals(15, results.size());
+            for (int j = 0; j < results.size(); ++j) {
+                final double win = results.get(j).getWinProbability();
+                assertTrue(win >= 0 && win <= 1 + 1e-9, Double.toString(win));
+                if (j > 0) {
+                    assertTrue(win <= results.get(j - 1).getWinProbability());
+                }
+            }
+        }
+
+        // A pone needing one point wins whenever they peg or the hand scores, so avoids discards that
+        // can score 0
+        final CardSet dealt = CardSet.of(Card.stringToCard("kh"), Card.stringToCard("9c"), Card.stringToCard("7d"),
+                Card.stringToCard("2s"), Card.stringToCard("4h"), Card.stringToCard("qc"));
+        final List<DiscardResult> results = analyzer.analyze(dealt, false, 120, 90);
+        final DiscardResult best = results.get(0);
+        assertTrue(best.getWinProbability() >= 1 - best.getProbability(0) - 1e-9);
+        for (DiscardResult result : results) {
+            assertTrue(result.getProbability(0) >= best.getProbability(0) - 1e-12, result.toString());
+        }
+
+        assertTrue(Double.isNaN(analyzer.analyze(dealt, false).get(0).getWinProbability()));
+        assertThrows(IllegalArgumentException.class, () -> analyzer.analyze(dealt, true, 121, 0));
+        assertThrows(IllegalArgumentException.class, () -> analyzer.analyze(
+                CardSet.of(Card.stringToCard("kh"), Card.stringToCard("9c"), Card.stringToCard("7d"),
+                        Card.stringToCard("2s"), Card.stringToCard("4h")), true, 0, 0));
+    }
+}